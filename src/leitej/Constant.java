@@ -79,5 +79,7 @@ public final class Constant {
 	public static final String LTM_DIR = DEFAULT_DATA_FILE_DIR + "ltm" + DEFAULT_FILE_SEPARATOR; // long term memory
 	public static final String LTM_DBNAME_DIR = LTM_DIR + "rdb"; // relational data base
 	public static final File LTM_STREAM_DIR = new File(LTM_DIR, "jbs"); // leitej binary stream
+	public static final File LTM_LOG_DIR = new File(LTM_DIR, "lsk"); // log structured key value
+	public static final File LTM_SNAPSHOT_DIR = new File(LTM_DIR, "snp"); // snapshots of the in memory mode
 
 }
@@ -18,6 +18,9 @@ package leitej.crypto.symmetric;
 
 import java.io.EOFException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.security.InvalidKeyException;
 import java.security.Key;
 import java.util.Arrays;
@@ -34,6 +37,7 @@ import leitej.util.data.BinaryConcat;
 import leitej.util.stream.FractionInputStream;
 import leitej.util.stream.FractionOutputStream;
 import leitej.util.stream.RandomAccessBinary;
+import leitej.util.stream.StreamUtil;
 
 /**
  *
@@ -400,6 +404,85 @@ public final class CircBinary implements RandomAccessBinary {
 		endWriteBuffer();
 	}
 
+	/**
+	 * The bytes are deciphered to the heap before being put in the buffer.
+	 */
+	@Override
+	public synchronized int read(final long offset, final ByteBuffer dst)
+			throws IllegalArgumentLtRtException, IOException {
+		final int result;
+		if (dst.hasArray()) {
+			result = read(offset, dst.array(), dst.arrayOffset() + dst.position(), dst.remaining());
+			if (result > 0) {
+				dst.position(dst.position() + result);
+			}
+		} else {
+			final byte[] buffer = new byte[dst.remaining()];
+			result = read(offset, buffer, 0, buffer.length);
+			if (result > 0) {
+				dst.put(buffer, 0, result);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * The bytes are taken to the heap before being ciphered.
+	 */
+	@Override
+	public synchronized void write(final long offset, final ByteBuffer src)
+			throws IllegalArgumentLtRtException, IOException {
+		if (src.hasArray()) {
+			write(offset, src.array(), src.arrayOffset() + src.position(), src.remaining());
+			src.position(src.limit());
+		} else {
+			final byte[] buffer = new byte[src.remaining()];
+			src.get(buffer);
+			write(offset, buffer, 0, buffer.length);
+		}
+	}
+
+	/**
+	 * The bytes are deciphered to the heap before being sent.
+	 */
+	@Override
+	public synchronized long transferTo(final long offset, final long length, final WritableByteChannel target)
+			throws IllegalArgumentLtRtException, IOException {
+		final byte[] buffer = new byte[Constant.IO_BUFFER_SIZE];
+		long result = 0;
+		int count;
+		while ((length < 0 || result < length) && (count = read(offset + result, buffer, 0,
+				(int) ((length < 0) ? buffer.length : Math.min(buffer.length, length - result)))) > 0) {
+			StreamUtil.writeFully(target, ByteBuffer.wrap(buffer, 0, count));
+			result += count;
+		}
+		return result;
+	}
+
+	/**
+	 * The bytes are read to the heap before being ciphered.
+	 */
+	@Override
+	public synchronized long transferFrom(final ReadableByteChannel src, final long offset, final long length)
+			throws IllegalArgumentLtRtException, IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(Constant.IO_BUFFER_SIZE);
+		long result = 0;
+		int count;
+		while (length < 0 || result < length) {
+			buffer.clear();
+			if (length >= 0) {
+				buffer.limit((int) Math.min(buffer.capacity(), length - result));
+			}
+			count = src.read(buffer);
+			if (count < 0) {
+				break;
+			}
+			write(offset + result, buffer.array(), 0, count);
+			result += count;
+		}
+		return result;
+	}
+
 	@Override
 	public FractionInputStream newInputStream() throws IOException {
 		if (!this.initialized) {
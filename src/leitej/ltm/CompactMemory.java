@@ -22,15 +22,32 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.lang.invoke.MethodHandles;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.Date;
 
 import leitej.Constant;
+import leitej.exception.AgnosticThreadLtException;
+import leitej.exception.ImplementationLtRtException;
 import leitej.exception.SeppukuLtRtException;
 import leitej.log.Logger;
+import leitej.thread.XAgnosticThread;
+import leitej.thread.XThreadData;
+import leitej.util.AgnosticUtil;
 import leitej.util.DateUtil;
+import leitej.util.data.BoundInvoke;
+import leitej.util.data.DateFieldEnum;
+import leitej.util.data.TimeTriggerImpl;
 import leitej.util.machine.VMMonitor;
 
 /**
+ * Compacts the memory at shutdown once every some days and, while running,
+ * defragments it when few connections are in use, deletes in small batches
+ * the large memories no longer related and rewrites the logs of the log
+ * structured storage mostly unused.
+ *
  * @author Julio Leite
  *
  */
@@ -40,11 +57,27 @@ final class CompactMemory {
 
 	private static final File TIME_FILE = new File(Constant.DEFAULT_PROPERTIES_FILE_DIR,
 			CompactMemory.class.getCanonicalName() + ".time");
+	private static final boolean IS_FORCED;
 	private static final boolean IS_TO_COMPACT;
 
+	private static final int DEFAULT_ONLINE_COMPACT_MINUTES = 60;
+	private static final int DEFAULT_PURGE_BATCH_SIZE = 500;
+	private static final String DEFRAG = "CHECKPOINT DEFRAG";
+
+	private static final XAgnosticThread ONLINE_EXEC = new XAgnosticThread("ltm_compact_online", true);
+	private static boolean ONLINE_STARTED = false;
+	private static long ONLINE_INTERVAL = 0;
+	private static int PURGE_BATCH_SIZE = 0;
+	private static volatile long LAST_DEFRAG;
+	private static volatile boolean COMPACTED_ONLINE = false;
+
 	static {
 		final String forceCompactArg = "-LTM.ForceCompact";
-		if (VMMonitor.javaArguments().contains(forceCompactArg)) {
+		IS_FORCED = VMMonitor.javaArguments().contains(forceCompactArg);
+		if (DataMemoryPool.IN_MEMORY) {
+			LOG.info("Compact memory is not needed in memory mode");
+			IS_TO_COMPACT = false;
+		} else if (IS_FORCED) {
 			LOG.info("Force compact memory is active by jvm argument: #0", forceCompactArg);
 			IS_TO_COMPACT = true;
 		} else if (DataMemoryPool.CONFIG.getShutdownCompactMemoryEveryNDays() < 0) {
@@ -82,8 +115,83 @@ final class CompactMemory {
 		LOG.info("Compact memory at shutdown: #0", IS_TO_COMPACT);
 	}
 
+	/*
+	 * A defragmentation while running postpones the compact at shutdown, unless
+	 * forced.
+	 */
 	static boolean isToCompact() {
-		return IS_TO_COMPACT;
+		return IS_TO_COMPACT && (IS_FORCED || !COMPACTED_ONLINE);
+	}
+
+	static synchronized void startOnline() {
+		if (ONLINE_STARTED) {
+			return;
+		}
+		ONLINE_STARTED = true;
+		final int minutes = DataMemoryPool.CONFIG.getOnlineCompactEveryNMinutes();
+		if (minutes >= 0 && !DataMemoryPool.IN_MEMORY) {
+			ONLINE_INTERVAL = Long.valueOf((minutes > 0) ? minutes : DEFAULT_ONLINE_COMPACT_MINUTES) * 60 * 1000;
+		}
+		final int batchSize = DataMemoryPool.CONFIG.getLargeMemoryPurgeBatchSize();
+		if (batchSize >= 0) {
+			PURGE_BATCH_SIZE = (batchSize > 0) ? batchSize : DEFAULT_PURGE_BATCH_SIZE;
+		}
+		if (ONLINE_INTERVAL == 0 && PURGE_BATCH_SIZE == 0) {
+			LOG.info("Online compact memory is disabled by configuration");
+			return;
+		}
+		LAST_DEFRAG = DateUtil.nowTime();
+		ONLINE_EXEC.setDaemon(true);
+		ONLINE_EXEC.start();
+		try {
+			// the method is not public, so the handle is resolved with its own access
+			ONLINE_EXEC.workOn(new XThreadData(
+					new BoundInvoke(
+							AgnosticUtil.getMethodHandle(MethodHandles.lookup(), CompactMemory.class, "onlineCompact")),
+					new TimeTriggerImpl(DateFieldEnum.MINUTE, 1)));
+		} catch (AgnosticThreadLtException | NoSuchMethodException | IllegalAccessException | SecurityException e) {
+			throw new ImplementationLtRtException(e);
+		}
+		LOG.info("Online compact memory every #0 ms, large memory purge batch: #1", ONLINE_INTERVAL,
+				PURGE_BATCH_SIZE);
+	}
+
+	static void onlineCompact() {
+		try {
+			if (PURGE_BATCH_SIZE > 0) {
+				LargeMemoryTracker.purgeNoRel(PURGE_BATCH_SIZE);
+			}
+			LogStructuredStorage.getInstance().compact();
+			if (ONLINE_INTERVAL > 0 && DateUtil.nowTime() - LAST_DEFRAG >= ONLINE_INTERVAL) {
+				final int busy = DataMemoryPool.getInstance().getBusyCount();
+				if (busy > Math.max(0, DataMemoryPool.CONFIG.getOnlineCompactMaxBusyConnections())) {
+					LOG.debug("Defrag postponed, busy connections: #0", busy);
+				} else {
+					defrag();
+				}
+			}
+		} catch (final SQLException | IOException e) {
+			LOG.error("#0", e);
+		}
+	}
+
+	private static void defrag() throws SQLException, IOException {
+		LOG.info("Defrag memory");
+		Connection conn = null;
+		try {
+			conn = HsqldbUtil.newConnection();
+			final Statement stt = conn.createStatement();
+			LOG.trace("DEFRAG: #0", DEFRAG);
+			stt.execute(DEFRAG);
+			stt.close();
+		} finally {
+			if (conn != null) {
+				conn.close();
+			}
+		}
+		LAST_DEFRAG = DateUtil.nowTime();
+		COMPACTED_ONLINE = true;
+		compactDone();
 	}
 
 	static void compactDone() throws IOException {
@@ -16,6 +16,7 @@
 
 package leitej.ltm;
 
+import leitej.util.stream.FileAccessEnum;
 import leitej.xml.om.XmlObjectModelling;
 
 /**
@@ -36,4 +37,139 @@ public interface DataMemoryConfig extends XmlObjectModelling {
 
 	void setShutdownCompactMemoryEveryNDays(int shutdownCompactMemoryEveryNDays);
 
+	/**
+	 *
+	 * @return minutes between the defragmentations done while running (0
+	 *         default, negative never)
+	 */
+	int getOnlineCompactEveryNMinutes();
+
+	void setOnlineCompactEveryNMinutes(int onlineCompactEveryNMinutes);
+
+	/**
+	 *
+	 * @return maximum connections in use to still defragment while running
+	 */
+	int getOnlineCompactMaxBusyConnections();
+
+	void setOnlineCompactMaxBusyConnections(int onlineCompactMaxBusyConnections);
+
+	/**
+	 *
+	 * @return maximum large memories without relations deleted each minute while
+	 *         running (0 default, negative never)
+	 */
+	int getLargeMemoryPurgeBatchSize();
+
+	void setLargeMemoryPurgeBatchSize(int largeMemoryPurgeBatchSize);
+
+	/**
+	 *
+	 * @return number of records read at once while iterating a search (100
+	 *         default, not positive also 100)
+	 */
+	int getSearchPageSize();
+
+	void setSearchPageSize(int searchPageSize);
+
+	/**
+	 *
+	 * @return number of prepared statements kept open by each connection (64
+	 *         default, not positive also 64)
+	 */
+	int getStatementCacheSize();
+
+	void setStatementCacheSize(int statementCacheSize);
+
+	/**
+	 *
+	 * @return number of most recently used records kept in memory by each long
+	 *         term memory class (0 default)
+	 */
+	int getCacheCapacity();
+
+	void setCacheCapacity(int cacheCapacity);
+
+	/**
+	 *
+	 * @return milliseconds to wait for a free connection before failing (0 waits
+	 *         forever)
+	 */
+	long getAcquireTimeout();
+
+	void setAcquireTimeout(long acquireTimeout);
+
+	/**
+	 *
+	 * @return milliseconds a connection can stay unused before being closed (0
+	 *         default, negative never)
+	 */
+	long getIdleTimeout();
+
+	void setIdleTimeout(long idleTimeout);
+
+	/**
+	 *
+	 * @return true to open all the connections at start, which are then never
+	 *         closed by the idle timeout
+	 */
+	boolean isPrewarmConnections();
+
+	void setPrewarmConnections(boolean prewarmConnections);
+
+	/**
+	 *
+	 * @return milliseconds after which a connection is closed and replaced (0
+	 *         never)
+	 */
+	long getMaxLifetime();
+
+	void setMaxLifetime(long maxLifetime);
+
+	/**
+	 *
+	 * @return milliseconds a connection can stay leased before being logged as
+	 *         a possible leak (0 never)
+	 */
+	long getLeakDetectionThreshold();
+
+	void setLeakDetectionThreshold(long leakDetectionThreshold);
+
+	/**
+	 *
+	 * @return how the large memory files are accessed (channel default)
+	 */
+	FileAccessEnum getLargeMemoryAccess();
+
+	void setLargeMemoryAccess(FileAccessEnum largeMemoryAccess);
+
+	/**
+	 *
+	 * @return true to store only once the large memories sealed with the same
+	 *         content
+	 */
+	boolean isLargeMemoryDedup();
+
+	void setLargeMemoryDedup(boolean largeMemoryDedup);
+
+	/**
+	 * The same as the jvm argument <code>-LTM.InMemory</code> (or
+	 * <code>-DLTM.InMemory</code>).
+	 *
+	 * @return true to keep the whole memory, large memories included, only
+	 *         while the virtual machine runs (false default)
+	 */
+	boolean isInMemory();
+
+	void setInMemory(boolean inMemory);
+
+	/**
+	 *
+	 * @return true to write, in memory mode, a snapshot of the memory to disk at
+	 *         shutdown (false default)
+	 */
+	boolean isInMemorySnapshot();
+
+	void setInMemorySnapshot(boolean inMemorySnapshot);
+
 }
@@ -17,13 +17,19 @@
 package leitej.ltm;
 
 import java.io.IOException;
+import java.sql.Array;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.sql.Statement;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import leitej.exception.IllegalStateLtRtException;
 import leitej.exception.ImplementationLtRtException;
@@ -38,6 +44,11 @@ final class DataMemoryConnection {
 
 	private static final Logger LOG = Logger.getInstance();
 
+	private static final LongTermMemory LTM = LongTermMemory.getInstance();
+
+	private static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+	private static final int BATCH_SIZE = 1000;
+
 	static final void hibernate() throws SQLException, IOException {
 		LOG.debug("shutdown init");
 		HsqldbUtil.dbShutdown();
@@ -45,6 +56,10 @@ final class DataMemoryConnection {
 	}
 
 	private final Connection conn;
+	private final PreparedStatementCache pSttCache;
+	private final HsqldbStorage hsqldb;
+	private long leasedAt;
+	private long idleSince;
 
 	DataMemoryConnection() throws SQLException {
 		LOG.debug("new connection");
@@ -52,10 +67,61 @@ final class DataMemoryConnection {
 		this.conn.setAutoCommit(false);
 		this.conn.setReadOnly(false);
 		this.conn.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+		final int cacheSize = DataMemoryPool.CONFIG.getStatementCacheSize();
+		this.pSttCache = new PreparedStatementCache(this.conn,
+				((cacheSize > 0) ? cacheSize : DEFAULT_STATEMENT_CACHE_SIZE));
+		this.hsqldb = new HsqldbStorage(this.conn, this.pSttCache);
+		this.idleSince = System.nanoTime();
+	}
+
+	/*
+	 * Nano time of the last poll from the pool.
+	 */
+	long getLeasedAt() {
+		return this.leasedAt;
+	}
+
+	void setLeasedAt(final long leasedAt) {
+		this.leasedAt = leasedAt;
+	}
+
+	/*
+	 * Nano time of the last offer to the pool.
+	 */
+	long getIdleSince() {
+		return this.idleSince;
+	}
+
+	void setIdleSince(final long idleSince) {
+		this.idleSince = idleSince;
 	}
 
 	void initialize(final PreparedClass prepClass) throws SQLException {
-		HsqldbUtil.initialize(this.conn, prepClass);
+		// the table of the class exists in every engine, as the sets and the
+		// filters over other classes refer to it
+		if (!StorageEngineEnum.HSQLDB.equals(prepClass.getStorageEngine())) {
+			HsqldbUtil.initialize(this.conn, prepClass);
+		}
+		storage(prepClass).initialize(prepClass);
+	}
+
+	private StorageEngine storage(final PreparedClass prepClass) {
+		if (StorageEngineEnum.LOG_STRUCTURED.equals(prepClass.getStorageEngine())) {
+			return LogStructuredStorage.getInstance();
+		}
+		return this.hsqldb;
+	}
+
+	/*
+	 * Searches only over the records kept by HSQLDB.
+	 */
+	private <T extends LtmObjectModelling> PreparedClass searchable(final Class<T> ltmClass) throws SQLException {
+		final PreparedClass result = DataProxyHandler.prepare(this, ltmClass);
+		if (!StorageEngineEnum.HSQLDB.equals(result.getStorageEngine())) {
+			throw new IllegalStateLtRtException("#0 is kept by #1, without searches", ltmClass,
+					result.getStorageEngine());
+		}
+		return result;
 	}
 
 	void initializeSet(final PreparedClass prepClass, final String datanameSet) throws SQLException {
@@ -63,7 +129,10 @@ final class DataMemoryConnection {
 	}
 
 	void eraseAll() throws SQLException {
-		HsqldbUtil.dropSchema(this.conn);
+		this.hsqldb.eraseAll();
+		if (!DataMemoryPool.IN_MEMORY) {
+			LogStructuredStorage.getInstance().eraseAll();
+		}
 		LargeMemory.eraseAll();
 	}
 
@@ -77,8 +146,10 @@ final class DataMemoryConnection {
 	}
 
 	void close() throws SQLException {
-		LOG.debug("connection close");
+		LOG.debug("connection close, statements hits: #0, misses: #1", this.pSttCache.getHits(),
+				this.pSttCache.getMisses());
 		try {
+			this.pSttCache.close();
 			this.conn.rollback();
 		} finally {
 			this.conn.close();
@@ -86,51 +157,63 @@ final class DataMemoryConnection {
 	}
 
 	long newRecord(final PreparedClass pClass) throws SQLException {
-		final Statement stt = this.conn.createStatement();
-		final boolean hasRS = stt.execute(pClass.getInsertNewRow());
-		final long result;
-		if (hasRS) {
-			final ResultSet rs = stt.getResultSet();
-			if (rs.next()) {
-				result = rs.getLong(1);
-				if (rs.next()) {
-					throw new ImplementationLtRtException();
-				}
-			} else {
-				throw new IllegalStateLtRtException();
-			}
-			rs.close();
-			stt.close();
-			this.conn.commit();
-		} else {
+		return storage(pClass).newRecord(pClass);
+	}
+
+	long[] newRecords(final PreparedClass pClass, final int count) throws SQLException {
+		LOG.trace("#0: #1", pClass.getInterface(), count);
+		final long[] result;
+		try {
+			result = storage(pClass).newRecords(pClass, count);
+		} catch (SQLException | RuntimeException e) {
 			this.conn.rollback();
-			throw new IllegalStateLtRtException();
+			throw e;
 		}
+		this.conn.commit();
 		return result;
 	}
 
+	/*
+	 * Inserts the records in the transaction of this connection, without
+	 * committing; on failure only this insert is undone.
+	 */
+	long[] insertRecords(final PreparedClass pClass, final int count) throws SQLException {
+		LOG.trace("#0: #1", pClass.getInterface(), count);
+		final Savepoint savepoint = this.conn.setSavepoint();
+		final long[] result;
+		try {
+			result = storage(pClass).newRecords(pClass, count);
+		} catch (SQLException | RuntimeException e) {
+			this.conn.rollback(savepoint);
+			throw e;
+		}
+		this.conn.releaseSavepoint(savepoint);
+		return result;
+	}
+
+	/*
+	 * Reads all the records with the ids at once, the ones not found are left
+	 * out.
+	 */
+	<T extends LtmObjectModelling> void fetchRecords(final Class<T> ltmClass, final Collection<Long> ids,
+			final Map<Long, T> result) throws SQLException {
+		final PreparedClass pClass = DataProxyHandler.prepare(this, ltmClass);
+		LOG.trace("#0: #1", ltmClass, ids.size());
+		final Map<Long, Object[]> rows = new HashMap<>();
+		storage(pClass).fetchRecords(pClass, ids, rows);
+		for (final Entry<Long, Object[]> row : rows.entrySet()) {
+			result.put(row.getKey(), LTM.fetch(ltmClass, row.getKey().longValue(), row.getValue()));
+		}
+	}
+
 	void fetchRecord(final DataProxyHandler dph, final Map<String, Object> data) throws SQLException {
 		LOG.trace("#0: #1", dph.getInterface(), dph.getLtmId());
 		final PreparedClass pClass = dph.getPreparedClass();
-		final PreparedStatement pStt = this.conn.prepareStatement(pClass.getSelectById());
-		pStt.setLong(1, dph.getLtmId());
-		final boolean hasRS = pStt.execute();
-		if (hasRS) {
-			final ResultSet rs = pStt.getResultSet();
-			if (rs.next()) {
-				DataMemoryUtil.map(rs, pClass, dph, data);
-				if (rs.next()) {
-					throw new ImplementationLtRtException();
-				}
-				rs.close();
-			} else {
-				throw new LtmLtRtException(dph.getInterface() + " do not remember id: " + dph.getLtmId());
-			}
-		} else {
-			throw new IllegalStateLtRtException();
+		final Object[] row = storage(pClass).fetchRecord(pClass, dph.getLtmId());
+		if (row == null) {
+			throw new LtmLtRtException(dph.getInterface() + " do not remember id: " + dph.getLtmId());
 		}
-		pStt.close();
-		this.conn.rollback();
+		DataMemoryUtil.map(dph.getLtmId(), row, pClass, dph, data);
 	}
 
 	void updateRecord(final PreparedClass pClass, final long ltmId, final String field, final Object value,
@@ -138,56 +221,96 @@ final class DataMemoryConnection {
 		final Class<LtmObjectModelling> ltmClass = pClass.getInterface();
 		LOG.trace("#0: #1: #2", ltmClass, ltmId, field);
 		final int dataPos = pClass.getDataNameList().indexOf(field);
-		final PreparedStatement pStt = this.conn.prepareStatement(pClass.getUpdateColumnById().get(dataPos));
 		final DataMemoryType type = pClass.getColumnTypeList().get(dataPos);
-		if (DataMemoryType.ENUM.equals(type)) {
-			HsqldbUtil.setPrepStt(pStt, 1, type.getSqlType(), ((value == null) ? null : value.toString()));
-		} else if (DataMemoryType.LARGE_MEMORY.equals(type)) {
+		trackColumn(ltmClass, ltmId, type, value, prevValue);
+		if (!storage(pClass).updateRecord(pClass, ltmId, new int[] { dataPos },
+				new Object[] { DataMemoryUtil.translate(type, value) })) {
+			this.conn.rollback();
+			throw new LtmLtRtException(ltmClass + " do not remember id: " + ltmId);
+		}
+		this.conn.commit();
+	}
+
+	/*
+	 * Does not commit, the values are in data map format.
+	 */
+	void updateRecord(final PreparedClass pClass, final long ltmId, final List<String> fields,
+			final Map<String, Object> data, final Map<String, Object> prevData) throws SQLException {
+		final Class<LtmObjectModelling> ltmClass = pClass.getInterface();
+		LOG.trace("#0: #1: #2", ltmClass, ltmId, fields);
+		final int[] columns = new int[fields.size()];
+		final Object[] values = new Object[fields.size()];
+		DataMemoryType type;
+		for (int i = 0; i < fields.size(); i++) {
+			columns[i] = pClass.getDataNameList().indexOf(fields.get(i));
+			type = pClass.getColumnTypeList().get(columns[i]);
+			values[i] = DataMemoryUtil.translate(type, data.get(fields.get(i)));
+			trackColumn(ltmClass, ltmId, type, data.get(fields.get(i)), prevData.get(fields.get(i)));
+		}
+		if (!storage(pClass).updateRecord(pClass, ltmId, columns, values)) {
+			throw new LtmLtRtException(ltmClass + " do not remember id: " + ltmId);
+		}
+	}
+
+	void commit() throws SQLException {
+		this.conn.commit();
+	}
+
+	void rollback() throws SQLException {
+		this.conn.rollback();
+	}
+
+	Savepoint savepoint() throws SQLException {
+		return this.conn.setSavepoint();
+	}
+
+	void rollback(final Savepoint savepoint) throws SQLException {
+		this.conn.rollback(savepoint);
+	}
+
+	private void trackColumn(final Class<LtmObjectModelling> ltmClass, final long ltmId, final DataMemoryType type,
+			final Object value, final Object prevValue) throws SQLException {
+		if (DataMemoryType.LARGE_MEMORY.equals(type)) {
 			if (prevValue != null) {
 				LargeMemoryTracker.del(this.conn, ltmClass, ltmId, LargeMemory.class.cast(prevValue));
 			}
-			if (value == null) {
-				HsqldbUtil.setPrepStt(pStt, 1, type.getSqlType(), null);
-			} else {
-				HsqldbUtil.setPrepStt(pStt, 1, type.getSqlType(), LargeMemory.class.cast(value).getId());
+			if (value != null) {
 				LargeMemoryTracker.add(this.conn, ltmClass, ltmId, LargeMemory.class.cast(value));
 			}
-		} else if (DataMemoryType.LONG_TERM_MEMORY.equals(type)) {
-			if (value == null) {
-				HsqldbUtil.setPrepStt(pStt, 1, type.getSqlType(), null);
-			} else {
-				HsqldbUtil.setPrepStt(pStt, 1, type.getSqlType(), LtmObjectModelling.class.cast(value).getLtmId());
-			}
-		} else if (DataMemoryType.DATE.equals(type)) {
-			if (value == null) {
-				HsqldbUtil.setPrepStt(pStt, 1, type.getSqlType(), null);
-			} else {
-				HsqldbUtil.setPrepStt(pStt, 1, type.getSqlType(), Date.class.cast(value).getTime());
-			}
-		} else {
-			HsqldbUtil.setPrepStt(pStt, 1, type.getSqlType(), value);
 		}
-		pStt.setLong(2, ltmId);
-		final int count = pStt.executeUpdate();
-		if (count == 0) {
+	}
+
+	void deleteRecord(final PreparedClass pClass, final long ltmId) throws SQLException {
+		try {
+			delete(pClass, ltmId);
+		} catch (SQLException | RuntimeException e) {
 			this.conn.rollback();
-			throw new LtmLtRtException(ltmClass + " do not remember id: " + ltmId);
+			throw e;
 		}
-		pStt.close();
 		this.conn.commit();
 	}
 
-	void deleteRecord(final PreparedClass pClass, final long ltmId) throws SQLException {
+	/*
+	 * Deletes the record in the transaction of this connection, without
+	 * committing; on failure only this delete is undone.
+	 */
+	void removeRecord(final PreparedClass pClass, final long ltmId) throws SQLException {
+		final Savepoint savepoint = this.conn.setSavepoint();
+		try {
+			delete(pClass, ltmId);
+		} catch (SQLException | RuntimeException e) {
+			this.conn.rollback(savepoint);
+			throw e;
+		}
+		this.conn.releaseSavepoint(savepoint);
+	}
+
+	private void delete(final PreparedClass pClass, final long ltmId) throws SQLException {
 		final Class<LtmObjectModelling> ltmClass = pClass.getInterface();
 		LOG.trace("#0: #1", ltmClass, ltmId);
-		final PreparedStatement pStt = this.conn.prepareStatement(pClass.getDeleteById());
-		pStt.setLong(1, ltmId);
-		final int count = pStt.executeUpdate();
-		if (count == 0) {
-			this.conn.rollback();
+		if (!storage(pClass).deleteRecord(pClass, ltmId)) {
 			throw new LtmLtRtException(ltmClass + " do not remember id: " + ltmId);
 		}
-		pStt.close();
 		LargeMemoryTracker.delFromLtmInstance(this.conn, ltmClass, ltmId);
 		String dataname;
 		String tablenameSet;
@@ -200,39 +323,144 @@ final class DataMemoryConnection {
 				clearSetByLtmId(pClass.getDeleteOnSetByLtmId(dataname), tablenameSet, setType, ltmClass, ltmId);
 			}
 		}
-		this.conn.commit();
 	}
 
 	void newLargeMemory(final LargeMemory largeMemory) throws SQLException {
+		DataMemoryUtil.cacheLargeMemory(largeMemory);
 		LargeMemoryTracker.init(this.conn, largeMemory);
 		this.conn.commit();
-		DataMemoryUtil.cacheLargeMemory(largeMemory);
 	}
 
-	Long getNextId(final String preparedStatement, final DataMemoryType[] types, final Object[] parameters,
-			final long ltmId) throws SQLException {
-		Long result = null;
-		LOG.trace("preparedStatement: #0", preparedStatement);
-		final PreparedStatement pStt = this.conn.prepareStatement(preparedStatement);
-		pStt.setLong(1, ltmId);
-		HsqldbUtil.setPrepStt(pStt, 2, types, parameters);
+	LargeMemory sealLargeMemory(final LargeMemory largeMemory, final String digest, final long length)
+			throws SQLException {
+		return LargeMemoryTracker.seal(this.conn, largeMemory, digest, length);
+	}
+
+	boolean isLargeMemorySealed(final long lmId) throws SQLException {
+		final boolean result;
+		try {
+			result = LargeMemoryTracker.isSealed(this.conn, lmId);
+		} finally {
+			this.conn.rollback();
+		}
+		return result;
+	}
+
+	<T extends LtmObjectModelling> void fetchPage(final Class<T> ltmClass, final SearchPaging paging,
+			final List<T> page) throws SQLException {
+		paging.checkIndex(searchable(ltmClass));
+		final String query = paging.nextQuery();
+		LOG.trace("preparedStatement: #0", query);
+		final PreparedStatement pStt = this.pSttCache.acquire(query);
+		try {
+			HsqldbUtil.setPrepStt(pStt, 1, paging.nextTypes(), paging.nextParams());
+			int count = 0;
+			long lastId = 0;
+			Object lastValue = null;
+			if (pStt.execute()) {
+				final ResultSet rSet = pStt.getResultSet();
+				while (rSet.next()) {
+					lastId = rSet.getLong(DataProxyHandler.LTM_ID);
+					if (paging.getOrderColumn() != null) {
+						lastValue = HsqldbUtil.parseValue(rSet, paging.getOrderColumn(),
+								paging.getOrderType().getSqlType());
+					}
+					page.add(LTM.fetch(ltmClass, lastId, rSet));
+					count++;
+				}
+				rSet.close();
+			} else {
+				this.conn.rollback();
+				throw new IllegalStateLtRtException();
+			}
+			this.conn.rollback();
+			paging.pageRead(count, lastValue, lastId);
+		} finally {
+			this.pSttCache.release(pStt);
+		}
+	}
+
+	<T extends LtmObjectModelling> void fetchProjectionPage(final Class<T> ltmClass, final SearchPaging paging,
+			final String[] columns, final DataMemoryType[] columnTypes, final Class<?>[] columnClasses,
+			final List<Object[]> page) throws SQLException {
+		paging.checkIndex(searchable(ltmClass));
+		final String query = paging.nextQuery();
+		LOG.trace("preparedStatement: #0", query);
+		final PreparedStatement pStt = this.pSttCache.prepare(query);
+		HsqldbUtil.setPrepStt(pStt, 1, paging.nextTypes(), paging.nextParams());
+		int count = 0;
+		long lastId = 0;
+		Object lastValue = null;
 		if (pStt.execute()) {
 			final ResultSet rSet = pStt.getResultSet();
-			if (rSet.next()) {
-				result = rSet.getLong(DataProxyHandler.LTM_ID);
+			Object[] row;
+			while (rSet.next()) {
+				lastId = rSet.getLong(DataProxyHandler.LTM_ID);
+				if (paging.getOrderColumn() != null) {
+					lastValue = HsqldbUtil.parseValue(rSet, paging.getOrderColumn(),
+							paging.getOrderType().getSqlType());
+				}
+				row = new Object[columns.length];
+				for (int i = 0; i < columns.length; i++) {
+					row[i] = DataMemoryUtil.parseValue(rSet, columns[i], columnTypes[i], columnClasses[i]);
+				}
+				page.add(row);
+				count++;
 			}
-			if (rSet.next()) {
-				this.conn.rollback();
-				throw new ImplementationLtRtException();
+			rSet.close();
+		} else {
+			this.conn.rollback();
+			throw new IllegalStateLtRtException();
+		}
+		this.conn.rollback();
+		paging.pageRead(count, lastValue, lastId);
+	}
+
+	/*
+	 * Each row has the group value, when grouped, followed by the aggregate read
+	 * as Long, BigDecimal or Double as given by the value type.
+	 */
+	<T extends LtmObjectModelling> void fetchAggregate(final Class<T> ltmClass, final String preparedStatement,
+			final DataMemoryType[] types, final Object[] parameters, final String groupColumn,
+			final DataMemoryType groupType, final Class<?> groupClass, final DataMemoryType valueType,
+			final List<Object[]> rows) throws SQLException {
+		LOG.trace("preparedStatement: #0", preparedStatement);
+		searchable(ltmClass);
+		final PreparedStatement pStt = this.pSttCache.prepare(preparedStatement);
+		HsqldbUtil.setPrepStt(pStt, 1, types, parameters);
+		if (pStt.execute()) {
+			final ResultSet rSet = pStt.getResultSet();
+			final int valuePos = (groupColumn == null) ? 1 : 2;
+			Object[] row;
+			Object value;
+			while (rSet.next()) {
+				row = new Object[valuePos];
+				if (groupColumn != null) {
+					row[0] = DataMemoryUtil.parseValue(rSet, groupColumn, groupType, groupClass);
+				}
+				switch (valueType) {
+				case LONG:
+					value = rSet.getLong(valuePos);
+					break;
+				case BIG_DECIMAL:
+					value = rSet.getBigDecimal(valuePos);
+					break;
+				default:
+					value = rSet.getDouble(valuePos);
+					break;
+				}
+				if (rSet.wasNull()) {
+					value = null;
+				}
+				row[valuePos - 1] = value;
+				rows.add(row);
 			}
 			rSet.close();
 		} else {
 			this.conn.rollback();
 			throw new IllegalStateLtRtException();
 		}
-		pStt.close();
 		this.conn.rollback();
-		return result;
 	}
 
 	int countSet(final String pSttCount) throws SQLException {
@@ -296,13 +524,12 @@ final class DataMemoryConnection {
 			throws SQLException {
 		LOG.trace("pSttSetContains: #0", pSttSetContains);
 		boolean result;
-		final PreparedStatement pStt = this.conn.prepareStatement(pSttSetContains);
+		final PreparedStatement pStt = this.pSttCache.prepare(pSttSetContains);
 		HsqldbUtil.setPrepStt(pStt, 1, type.getSqlType(), translate(type, other));
 		if (pStt.execute()) {
 			final ResultSet rSet = pStt.getResultSet();
 			result = rSet.next();
 			rSet.close();
-			pStt.close();
 			this.conn.rollback();
 		} else {
 			this.conn.rollback();
@@ -311,16 +538,27 @@ final class DataMemoryConnection {
 		return result;
 	}
 
+	/*
+	 * The values of a set are only added while its record is kept.
+	 */
+	private <T extends LtmObjectModelling> boolean existsRecord(final Class<T> ltmClass, final long ltmId)
+			throws SQLException {
+		final PreparedClass prepClass = DataProxyHandler.prepare(this, ltmClass);
+		return storage(prepClass).existsRecord(prepClass, ltmId);
+	}
+
 	<T extends LtmObjectModelling> boolean addValueSet(final String pSttSetAdd, final DataMemoryType type,
 			final Object elem, final Class<T> ltmClass, final long ltmId) throws SQLException {
 		LOG.trace("pSttSetAdd: #0", pSttSetAdd);
-		final PreparedStatement pStt = this.conn.prepareStatement(pSttSetAdd);
+		if (!existsRecord(ltmClass, ltmId)) {
+			return false;
+		}
+		final PreparedStatement pStt = this.pSttCache.prepare(pSttSetAdd);
 		final Object o = translate(type, elem);
 		HsqldbUtil.setPrepStt(pStt, 1, type.getSqlType(), o);
 		HsqldbUtil.setPrepStt(pStt, 2, type.getSqlType(), o);
 		final boolean result = pStt.executeUpdate() != 0;
-		pStt.close();
-		if (DataMemoryType.LARGE_MEMORY.equals(type)) {
+		if (result && DataMemoryType.LARGE_MEMORY.equals(type)) {
 			LargeMemoryTracker.add(this.conn, ltmClass, ltmId, LargeMemory.class.cast(elem));
 		}
 		this.conn.commit();
@@ -330,17 +568,132 @@ final class DataMemoryConnection {
 	<T extends LtmObjectModelling> boolean removeValueSet(final String pSttSetRemove, final DataMemoryType type,
 			final Object elem, final Class<T> ltmClass, final long ltmId) throws SQLException {
 		LOG.trace("pSttSetRemove: #0", pSttSetRemove);
-		final PreparedStatement pStt = this.conn.prepareStatement(pSttSetRemove);
+		final PreparedStatement pStt = this.pSttCache.prepare(pSttSetRemove);
 		HsqldbUtil.setPrepStt(pStt, 1, type.getSqlType(), translate(type, elem));
 		final boolean result = pStt.executeUpdate() != 0;
-		pStt.close();
-		if (DataMemoryType.LARGE_MEMORY.equals(type)) {
+		if (result && DataMemoryType.LARGE_MEMORY.equals(type)) {
 			LargeMemoryTracker.del(this.conn, ltmClass, ltmId, LargeMemory.class.cast(elem));
 		}
 		this.conn.commit();
 		return result;
 	}
 
+	/*
+	 * The elements must be distinct. Returns how many were added.
+	 */
+	<T extends LtmObjectModelling> int addValuesSet(final String pSttSetAdd, final DataMemoryType type,
+			final List<?> elems, final Class<T> ltmClass, final long ltmId) throws SQLException {
+		LOG.trace("pSttSetAdd: #0 - #1", pSttSetAdd, elems.size());
+		if (!existsRecord(ltmClass, ltmId)) {
+			return 0;
+		}
+		final PreparedStatement pStt = this.pSttCache.prepare(pSttSetAdd);
+		int result = 0;
+		try {
+			int pos = 0;
+			int batch;
+			int[] counts;
+			Object o;
+			while (pos < elems.size()) {
+				batch = Math.min(BATCH_SIZE, elems.size() - pos);
+				for (int i = 0; i < batch; i++) {
+					o = translate(type, elems.get(pos + i));
+					HsqldbUtil.setPrepStt(pStt, 1, type.getSqlType(), o);
+					HsqldbUtil.setPrepStt(pStt, 2, type.getSqlType(), o);
+					pStt.addBatch();
+				}
+				counts = pStt.executeBatch();
+				for (int i = 0; i < batch; i++) {
+					if (counts[i] != 0) {
+						result++;
+						if (DataMemoryType.LARGE_MEMORY.equals(type)) {
+							LargeMemoryTracker.add(this.conn, ltmClass, ltmId,
+									LargeMemory.class.cast(elems.get(pos + i)));
+						}
+					}
+				}
+				pos += batch;
+			}
+			this.conn.commit();
+		} catch (SQLException | RuntimeException e) {
+			pStt.clearBatch();
+			this.conn.rollback();
+			throw e;
+		}
+		return result;
+	}
+
+	/*
+	 * The elements must be distinct. Returns how many were removed.
+	 */
+	<T extends LtmObjectModelling> int removeValuesSet(final String pSttSetRemove, final DataMemoryType type,
+			final List<?> elems, final Class<T> ltmClass, final long ltmId) throws SQLException {
+		LOG.trace("pSttSetRemove: #0 - #1", pSttSetRemove, elems.size());
+		final PreparedStatement pStt = this.pSttCache.prepare(pSttSetRemove);
+		int result = 0;
+		try {
+			int pos = 0;
+			int batch;
+			int[] counts;
+			while (pos < elems.size()) {
+				batch = Math.min(BATCH_SIZE, elems.size() - pos);
+				for (int i = 0; i < batch; i++) {
+					HsqldbUtil.setPrepStt(pStt, 1, type.getSqlType(), translate(type, elems.get(pos + i)));
+					pStt.addBatch();
+				}
+				counts = pStt.executeBatch();
+				for (int i = 0; i < batch; i++) {
+					if (counts[i] != 0) {
+						result++;
+						if (DataMemoryType.LARGE_MEMORY.equals(type)) {
+							LargeMemoryTracker.del(this.conn, ltmClass, ltmId,
+									LargeMemory.class.cast(elems.get(pos + i)));
+						}
+					}
+				}
+				pos += batch;
+			}
+			this.conn.commit();
+		} catch (SQLException | RuntimeException e) {
+			pStt.clearBatch();
+			this.conn.rollback();
+			throw e;
+		}
+		return result;
+	}
+
+	/*
+	 * The elements must be distinct, they are all sent in one array parameter.
+	 */
+	boolean containsValuesSet(final String pSttSetContainsAll, final DataMemoryType type, final List<?> elems)
+			throws SQLException {
+		LOG.trace("pSttSetContainsAll: #0 - #1", pSttSetContainsAll, elems.size());
+		final Object[] values = new Object[elems.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = translate(type, elems.get(i));
+			if (DataMemoryType.FLOAT.equals(type)) {
+				values[i] = Double.valueOf(Float.class.cast(values[i]).doubleValue());
+			}
+		}
+		final boolean result;
+		final PreparedStatement pStt = this.pSttCache.prepare(pSttSetContainsAll);
+		try {
+			final Array array = this.conn.createArrayOf(HsqldbUtil.getArrayElementTypeName(type.getSqlType()), values);
+			pStt.setArray(1, array);
+			if (pStt.execute()) {
+				final ResultSet rSet = pStt.getResultSet();
+				result = rSet.next() && rSet.getInt(1) == values.length;
+				rSet.close();
+			} else {
+				throw new IllegalStateLtRtException();
+			}
+			array.free();
+		} finally {
+			this.conn.rollback();
+		}
+		return result;
+	}
+
 	void clearSetByLtmId(final String pSttSetClear, final String tablenameSet, final DataMemoryType setType,
 			final Class<?> ltmClass, final long ltmId) throws SQLException {
 		// update large memory tracker
@@ -349,19 +702,18 @@ final class DataMemoryConnection {
 		}
 		// clear set by ltm id
 		LOG.trace("pSttSetClear: #0", pSttSetClear);
-		final PreparedStatement pStt = this.conn.prepareStatement(pSttSetClear);
+		final PreparedStatement pStt = this.pSttCache.prepare(pSttSetClear);
 		pStt.setLong(1, ltmId);
 		LOG.trace("delete count: #0", pStt.executeUpdate());
-		pStt.close();
 		this.conn.commit();
 	}
 
-	void prepareNext(final LtmSetIterator<?> it) throws SQLException {
-		final PreparedStatement pStt = this.conn.prepareStatement(it.getpStt());
+	void fetchSetPage(final LtmSetIterator<?> it) throws SQLException {
+		final PreparedStatement pStt = this.pSttCache.prepare(it.getpStt());
 		pStt.setLong(1, it.getPositionID());
 		if (pStt.execute()) {
 			final ResultSet rSet = pStt.getResultSet();
-			if (rSet.next()) {
+			while (rSet.next()) {
 				DataMemoryUtil.mapSetValue(rSet, it);
 			}
 			rSet.close();
@@ -369,7 +721,6 @@ final class DataMemoryConnection {
 			this.conn.rollback();
 			throw new IllegalStateLtRtException();
 		}
-		pStt.close();
 		this.conn.rollback();
 	}
 
@@ -18,6 +18,8 @@ package leitej.ltm;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import leitej.exception.ClosedLtRtException;
 import leitej.exception.IllegalArgumentLtRtException;
@@ -25,21 +27,29 @@ import leitej.exception.IllegalStateLtRtException;
 import leitej.exception.ObjectPoolLtException;
 import leitej.exception.SeppukuLtRtException;
 import leitej.exception.XmlInvalidLtException;
+import leitej.log.Logger;
 import leitej.util.AgnosticUtil;
-import leitej.util.data.AbstractObjectPool;
+import leitej.util.data.AbstractConcurrentObjectPool;
 import leitej.util.data.Invoke;
 import leitej.util.machine.ShutdownHookUtil;
+import leitej.util.machine.VMMonitor;
+import leitej.util.stream.FileAccessEnum;
 import leitej.xml.om.Xmlom;
 
 /**
  * @author Julio Leite
  *
  */
-public final class DataMemoryPool extends AbstractObjectPool<DataMemoryConnection> {
+public final class DataMemoryPool extends AbstractConcurrentObjectPool<DataMemoryConnection> {
 
 	private static final long serialVersionUID = 4645255425158742790L;
 
+	private static final Logger LOG = Logger.getInstance();
+
+	private static final long DEFAULT_IDLE_TIMEOUT = 300000;
+
 	static final DataMemoryConfig CONFIG;
+	static final boolean IN_MEMORY;
 	private static final DataMemoryPool INSTANCE;
 
 	static {
@@ -47,37 +57,160 @@ public final class DataMemoryPool extends AbstractObjectPool<DataMemoryConnectio
 		defaultContent[0].setMaxConnections(20);
 		defaultContent[0].setAutoForgetsInterfaceComponentMisses(false);
 		defaultContent[0].setShutdownCompactMemoryEveryNDays(30);
+		defaultContent[0].setOnlineCompactEveryNMinutes(60);
+		defaultContent[0].setOnlineCompactMaxBusyConnections(0);
+		defaultContent[0].setLargeMemoryPurgeBatchSize(500);
+		defaultContent[0].setSearchPageSize(100);
+		defaultContent[0].setStatementCacheSize(64);
+		defaultContent[0].setCacheCapacity(10000);
+		defaultContent[0].setAcquireTimeout(0);
+		defaultContent[0].setIdleTimeout(300000);
+		defaultContent[0].setPrewarmConnections(false);
+		defaultContent[0].setMaxLifetime(0);
+		defaultContent[0].setLeakDetectionThreshold(0);
+		defaultContent[0].setLargeMemoryAccess(FileAccessEnum.CHANNEL);
+		defaultContent[0].setLargeMemoryDedup(false);
+		defaultContent[0].setInMemory(false);
+		defaultContent[0].setInMemorySnapshot(false);
 		try {
 			CONFIG = Xmlom.getConfig(DataMemoryConfig.class, defaultContent).get(0);
 		} catch (NullPointerException | SecurityException | XmlInvalidLtException | IOException e) {
 			throw new SeppukuLtRtException(e);
 		}
+		// also as system property, that the launcher accepts
+		final String inMemoryArg = "-LTM.InMemory";
+		IN_MEMORY = CONFIG.isInMemory() || VMMonitor.javaArguments().contains(inMemoryArg)
+				|| VMMonitor.javaArguments().contains("-D" + inMemoryArg.substring(1));
+		if (IN_MEMORY) {
+			LOG.info("Memory kept only while running, by configuration or jvm argument: #0", inMemoryArg);
+		}
 		//
 		INSTANCE = new DataMemoryPool(CONFIG.getMaxConnections());
+		if (CONFIG.isPrewarmConnections()) {
+			try {
+				INSTANCE.prewarm();
+			} catch (ObjectPoolLtException | ClosedLtRtException | InterruptedException e) {
+				throw new SeppukuLtRtException(e);
+			}
+		}
 		try {
 			ShutdownHookUtil.addToLast(new Invoke(INSTANCE, AgnosticUtil.getMethod(INSTANCE, "close")));
 		} catch (IllegalStateLtRtException | IllegalArgumentLtRtException | NullPointerException
 				| IllegalArgumentException | SecurityException | NoSuchMethodException e) {
 			throw new SeppukuLtRtException(e);
 		}
+		CompactMemory.startOnline();
 	}
 
 	static DataMemoryPool getInstance() {
 		return INSTANCE;
 	}
 
+	private final long acquireTimeout;
+	private final long idleTimeoutNanos;
+	private final AtomicLong leases;
+	private final AtomicLong scopeLeases;
+	private final AtomicLong waitNanos;
+	private final AtomicLong maxWaitNanos;
+	private final AtomicLong leaseNanos;
+	private final AtomicLong timeouts;
+	private final AtomicLong evictions;
+	private volatile long lastEviction;
+
 	private DataMemoryPool(final int maxObjects) throws IllegalArgumentException {
-		super(maxObjects);
+		super(maxObjects, Math.max(0, CONFIG.getMaxLifetime()), Math.max(0, CONFIG.getLeakDetectionThreshold()));
+		this.acquireTimeout = CONFIG.getAcquireTimeout();
+		if (CONFIG.isPrewarmConnections() || CONFIG.getIdleTimeout() < 0) {
+			this.idleTimeoutNanos = 0;
+		} else {
+			this.idleTimeoutNanos = TimeUnit.MILLISECONDS
+					.toNanos((CONFIG.getIdleTimeout() > 0) ? CONFIG.getIdleTimeout() : DEFAULT_IDLE_TIMEOUT);
+		}
+		this.leases = new AtomicLong(0);
+		this.scopeLeases = new AtomicLong(0);
+		this.waitNanos = new AtomicLong(0);
+		this.maxWaitNanos = new AtomicLong(0);
+		this.leaseNanos = new AtomicLong(0);
+		this.timeouts = new AtomicLong(0);
+		this.evictions = new AtomicLong(0);
+		this.lastEviction = System.nanoTime();
 	}
 
 	@Override
 	protected DataMemoryConnection poll() throws ClosedLtRtException, ObjectPoolLtException, InterruptedException {
-		return super.poll();
+		final LtmScope scope = LtmScope.current();
+		if (scope != null) {
+			final DataMemoryConnection conn = scope.lease();
+			if (conn != null) {
+				this.scopeLeases.incrementAndGet();
+				return conn;
+			}
+		}
+		if (getIdleCount() == 0) {
+			LtmScope.releaseOrphans();
+		}
+		final long start = System.nanoTime();
+		final DataMemoryConnection result;
+		if (this.acquireTimeout > 0) {
+			result = tryPoll(this.acquireTimeout);
+			if (result == null) {
+				this.timeouts.incrementAndGet();
+				throw new ObjectPoolLtException("Timeout of #0 ms waiting for a connection", this.acquireTimeout);
+			}
+		} else {
+			result = super.poll();
+		}
+		final long now = System.nanoTime();
+		final long wait = now - start;
+		this.leases.incrementAndGet();
+		this.waitNanos.addAndGet(wait);
+		long max = this.maxWaitNanos.get();
+		while (wait > max && !this.maxWaitNanos.compareAndSet(max, wait)) {
+			max = this.maxWaitNanos.get();
+		}
+		result.setLeasedAt(now);
+		if (scope != null) {
+			scope.hold(result);
+		}
+		return result;
 	}
 
 	@Override
 	protected void offer(final DataMemoryConnection conn) throws IllegalArgumentException, InterruptedException {
+		final LtmScope scope = LtmScope.current();
+		if (scope != null && scope.release(conn)) {
+			return;
+		}
+		final long now = System.nanoTime();
+		if (conn.getLeasedAt() != 0) {
+			this.leaseNanos.addAndGet(now - conn.getLeasedAt());
+			conn.setLeasedAt(0);
+		}
+		conn.setIdleSince(now);
 		super.offer(conn);
+		if (this.idleTimeoutNanos > 0 && now - this.lastEviction > this.idleTimeoutNanos) {
+			this.lastEviction = now;
+			try {
+				this.evictions.addAndGet(evictExpired());
+			} catch (final ObjectPoolLtException e) {
+				LOG.error("#0", e);
+			}
+		}
+	}
+
+	@Override
+	protected boolean isExpired(final DataMemoryConnection obj) {
+		return this.idleTimeoutNanos > 0 && System.nanoTime() - obj.getIdleSince() > this.idleTimeoutNanos;
+	}
+
+	int getBusyCount() {
+		return getObjectCount() - getIdleCount();
+	}
+
+	LtmPoolStats getStats() {
+		return new LtmPoolStats(getMaxObjects(), getObjectCount(), getIdleCount(), this.leases.get(),
+				this.scopeLeases.get(), this.waitNanos.get(), this.maxWaitNanos.get(), this.leaseNanos.get(),
+				this.timeouts.get(), this.evictions.get());
 	}
 
 	@Override
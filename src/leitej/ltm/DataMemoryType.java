@@ -81,6 +81,111 @@ enum DataMemoryType {
 		return result;
 	}
 
+	/*
+	 * Code kept in the stored data, that has to stay the same for each type.
+	 */
+	int getCode() {
+		int result;
+		switch (this) {
+		case BYTE:
+			result = 0;
+			break;
+		case SHORT:
+			result = 1;
+			break;
+		case INT:
+			result = 2;
+			break;
+		case LONG:
+			result = 3;
+			break;
+		case BIG_DECIMAL:
+			result = 4;
+			break;
+		case DOUBLE:
+			result = 5;
+			break;
+		case FLOAT:
+			result = 6;
+			break;
+		case BOOLEAN:
+			result = 7;
+			break;
+		case ENUM:
+			result = 8;
+			break;
+		case STRING:
+			result = 9;
+			break;
+		case BINARY:
+			result = 10;
+			break;
+		case DATE:
+			result = 11;
+			break;
+		case LARGE_MEMORY:
+			result = 12;
+			break;
+		case LONG_TERM_MEMORY:
+			result = 13;
+			break;
+		default:
+			throw new UnsupportedDataTypeLtRtException("type: #0", this);
+		}
+		return result;
+	}
+
+	static DataMemoryType fromCode(final int code) throws UnsupportedDataTypeLtRtException {
+		DataMemoryType result;
+		switch (code) {
+		case 0:
+			result = BYTE;
+			break;
+		case 1:
+			result = SHORT;
+			break;
+		case 2:
+			result = INT;
+			break;
+		case 3:
+			result = LONG;
+			break;
+		case 4:
+			result = BIG_DECIMAL;
+			break;
+		case 5:
+			result = DOUBLE;
+			break;
+		case 6:
+			result = FLOAT;
+			break;
+		case 7:
+			result = BOOLEAN;
+			break;
+		case 8:
+			result = ENUM;
+			break;
+		case 9:
+			result = STRING;
+			break;
+		case 10:
+			result = BINARY;
+			break;
+		case 11:
+			result = DATE;
+			break;
+		case 12:
+			result = LARGE_MEMORY;
+			break;
+		case 13:
+			result = LONG_TERM_MEMORY;
+			break;
+		default:
+			throw new UnsupportedDataTypeLtRtException("Unknown type code: #0", code);
+		}
+		return result;
+	}
+
 	boolean isNumber() {
 		boolean result;
 		switch (this) {
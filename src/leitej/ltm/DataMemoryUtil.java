@@ -37,7 +37,6 @@ final class DataMemoryUtil {
 
 	private static final Logger LOG = Logger.getInstance();
 
-	private static final LongTermMemory LTM = LongTermMemory.getInstance();
 	private static final Cache<Long, LargeMemory> LM_CACHE = new CacheWeak<>();
 
 	static <T extends LtmObjectModelling> String genRemark(final Class<T> ltmInterface) {
@@ -118,7 +117,7 @@ final class DataMemoryUtil {
 		return isErase;
 	}
 
-	private static synchronized LargeMemory getLargeMemory(final Long id) {
+	static synchronized LargeMemory getLargeMemory(final Long id) {
 		LargeMemory result = null;
 		if (id != null) {
 			result = LM_CACHE.get(id);
@@ -130,6 +129,10 @@ final class DataMemoryUtil {
 		return result;
 	}
 
+	static synchronized boolean isLargeMemoryInUse(final long id) {
+		return LM_CACHE.get(Long.valueOf(id)) != null;
+	}
+
 	static synchronized void cacheLargeMemory(final LargeMemory largeMemory) {
 		LM_CACHE.set(largeMemory.getId(), largeMemory);
 	}
@@ -142,21 +145,69 @@ final class DataMemoryUtil {
 		return columnName.endsWith(LargeMemory.class.getName().replaceAll("[^A-Za-z0-9]", "_"));
 	}
 
+	/*
+	 * Value as kept in the column of the given type.
+	 */
+	static Object translate(final DataMemoryType type, final Object value) {
+		if (value == null) {
+			return null;
+		} else if (DataMemoryType.ENUM.equals(type)) {
+			return value.toString();
+		} else if (DataMemoryType.LARGE_MEMORY.equals(type)) {
+			return LargeMemory.class.cast(value).getId();
+		} else if (DataMemoryType.LONG_TERM_MEMORY.equals(type) && LtmObjectModelling.class.isInstance(value)) {
+			return LtmObjectModelling.class.cast(value).getLtmId();
+		} else if (DataMemoryType.DATE.equals(type)) {
+			return Date.class.cast(value).getTime();
+		}
+		return value;
+	}
+
 	@SuppressWarnings("unchecked")
+	static Object parseValue(final ResultSet rSet, final String columnName, final DataMemoryType type,
+			final Class<?> returnClass) throws SQLException {
+		Object value = HsqldbUtil.parseValue(rSet, columnName, type.getSqlType());
+		if (value != null) {
+			if (DataMemoryType.ENUM.equals(type)) {
+				value = Enum.valueOf(returnClass.asSubclass(Enum.class), String.class.cast(value));
+			} else if (DataMemoryType.LARGE_MEMORY.equals(type)) {
+				value = getLargeMemory(Long.class.cast(value));
+			} else if (DataMemoryType.DATE.equals(type)) {
+				value = new Date(Long.class.cast(value));
+			}
+		}
+		return value;
+	}
+
+	/*
+	 * Values of the columns of the prepared class, as kept in the memory.
+	 */
+	static Object[] row(final ResultSet rSet, final PreparedClass preparedClass) throws SQLException {
+		final List<String> columnNameList = preparedClass.getColumnNameList();
+		final List<DataMemoryType> columnTypeList = preparedClass.getColumnTypeList();
+		final Object[] result = new Object[columnNameList.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = HsqldbUtil.parseValue(rSet, columnNameList.get(i), columnTypeList.get(i).getSqlType());
+		}
+		return result;
+	}
+
 	static void map(final ResultSet rSet, final PreparedClass preparedClass, final DataProxyHandler dph,
 			final Map<String, Object> proxyData) throws SQLException {
+		map(rSet.getLong(DataProxyHandler.LTM_ID), row(rSet, preparedClass), preparedClass, dph, proxyData);
+	}
+
+	@SuppressWarnings("unchecked")
+	static void map(final long ltmId, final Object[] row, final PreparedClass preparedClass,
+			final DataProxyHandler dph, final Map<String, Object> proxyData) {
 		final List<String> dataNameList = preparedClass.getDataNameList();
-		final List<String> columnNameList = preparedClass.getColumnNameList();
 		final List<DataMemoryType> columnTypeList = preparedClass.getColumnTypeList();
 		String dataName;
-		String columnName;
 		Object value;
-		proxyData.put(DataProxyHandler.LTM_ID,
-				HsqldbUtil.parseValue(rSet, DataProxyHandler.LTM_ID, DataMemoryType.LONG.getSqlType()));
+		proxyData.put(DataProxyHandler.LTM_ID, ltmId);
 		for (int i = 0; i < dataNameList.size(); i++) {
 			dataName = dataNameList.get(i);
-			columnName = columnNameList.get(i);
-			value = HsqldbUtil.parseValue(rSet, columnName, columnTypeList.get(i).getSqlType());
+			value = row[i];
 			if (value != null) {
 				if (DataMemoryType.ENUM.equals(columnTypeList.get(i))) {
 					value = Enum.valueOf(dph.getReturnClass(dataName).asSubclass(Enum.class), String.class.cast(value));
@@ -174,16 +225,15 @@ final class DataMemoryUtil {
 	static void mapSetValue(final ResultSet rSet, final LtmSetIterator<?> it) throws SQLException {
 		it.setPositionID(rSet.getLong(DataProxyHandler.SET_ID));
 		final Object value = HsqldbUtil.parseValue(rSet, DataProxyHandler.SET_VALUE, it.getDataType().getSqlType());
-		if (it.getDataType().equals(DataMemoryType.LONG_TERM_MEMORY)) {
-			it.setNext(LTM.fetch(it.getDataClass().asSubclass(LtmObjectModelling.class), Long.class.cast(value)));
-		} else if (it.getDataType().equals(DataMemoryType.LARGE_MEMORY)) {
-			it.setNext(getLargeMemory(Long.class.cast(value)));
+		if (it.getDataType().equals(DataMemoryType.LARGE_MEMORY)) {
+			it.addNext(getLargeMemory(Long.class.cast(value)));
 		} else if (it.getDataType().equals(DataMemoryType.DATE)) {
-			it.setNext(new Date(Long.class.cast(value)));
+			it.addNext(new Date(Long.class.cast(value)));
 		} else if (it.getDataType().equals(DataMemoryType.ENUM)) {
-			it.setNext(Enum.valueOf(it.getClass().asSubclass(Enum.class), String.class.cast(value)));
+			it.addNext(Enum.valueOf(it.getDataClass().asSubclass(Enum.class), String.class.cast(value)));
 		} else {
-			it.setNext(value);
+			// the records are fetched by the iterator, after the page is read
+			it.addNext(value);
 		}
 	}
 
@@ -16,10 +16,14 @@
 
 package leitej.ltm;
 
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
 
 import leitej.exception.ClosedLtRtException;
 import leitej.exception.IllegalArgumentLtRtException;
@@ -64,6 +68,22 @@ final class DataProxyHandler extends AbstractDataProxyHandler<LtmObjectModelling
 		return result;
 	}
 
+	static final <T extends LtmObjectModelling> PreparedClass prepare(final DataMemoryConnection conn,
+			final Class<T> ltmClass) throws SQLException {
+		PreparedClass result;
+		synchronized (ltmClass) {
+			result = PREP_CLASS_MAP.get(ltmClass);
+		}
+		if (result == null) {
+			try {
+				result = new DataProxyHandler(ltmClass, conn).preparedClass;
+			} catch (final ClassNotFoundException e) {
+				throw new LtmLtRtException(e);
+			}
+		}
+		return result;
+	}
+
 	static final void eraseAll() throws SQLException, ClosedLtRtException, ObjectPoolLtException, InterruptedException {
 		DataMemoryConnection conn = null;
 		try {
@@ -93,6 +113,35 @@ final class DataProxyHandler extends AbstractDataProxyHandler<LtmObjectModelling
 		}
 	}
 
+	/*
+	 * The rows are inserted in the connection of the transaction when it
+	 * enlists them, otherwise they are committed at once.
+	 */
+	static final <T extends LtmObjectModelling> List<DataProxyHandler> newRecords(final Class<T> ltmClass,
+			final int count, final LtmTransaction transaction)
+			throws ClosedLtRtException, ObjectPoolLtException, InterruptedException, SQLException {
+		final List<DataProxyHandler> result = new ArrayList<>(count);
+		DataMemoryConnection conn = null;
+		try {
+			conn = MEM_POOL.poll();
+			final PreparedClass preparedClass = prepare(conn, ltmClass);
+			final long[] ids;
+			if (transaction != null && transaction.enlists(preparedClass)) {
+				ids = transaction.connection().insertRecords(preparedClass, count);
+			} else {
+				ids = conn.newRecords(preparedClass, count);
+			}
+			for (final long id : ids) {
+				result.add(new DataProxyHandler(ltmClass, preparedClass, id));
+			}
+		} finally {
+			if (conn != null) {
+				MEM_POOL.offer(conn);
+			}
+		}
+		return result;
+	}
+
 	private final short scope;
 	private final PreparedClass preparedClass;
 	private final long ltmId;
@@ -102,7 +151,7 @@ final class DataProxyHandler extends AbstractDataProxyHandler<LtmObjectModelling
 	protected <T extends LtmObjectModelling> DataProxyHandler(final Class<T> ltmClass)
 			throws IllegalArgumentLtRtException, ClosedLtRtException, ObjectPoolLtException, InterruptedException,
 			SQLException, ClassNotFoundException {
-		this(ltmClass, null);
+		this(ltmClass, (Long) null);
 	}
 
 	protected <T extends LtmObjectModelling> DataProxyHandler(final Class<T> ltmClass, final Long id)
@@ -131,6 +180,74 @@ final class DataProxyHandler extends AbstractDataProxyHandler<LtmObjectModelling
 		}
 	}
 
+	/*
+	 * Record inserted with default values.
+	 */
+	private <T extends LtmObjectModelling> DataProxyHandler(final Class<T> ltmClass,
+			final PreparedClass preparedClass, final long id) {
+		super(ltmClass);
+		this.data = new HashMap<>();
+		synchronized (DataProxyHandler.class) {
+			this.scope = SCOPE;
+		}
+		this.preparedClass = preparedClass;
+		this.ltmId = id;
+		this.data.put(LTM_ID, this.ltmId);
+	}
+
+	/*
+	 * Only to prepare the class against the memory, without any record.
+	 */
+	private <T extends LtmObjectModelling> DataProxyHandler(final Class<T> ltmClass, final DataMemoryConnection conn)
+			throws SQLException, ClassNotFoundException {
+		super(ltmClass);
+		this.data = null;
+		this.ltmId = 0;
+		synchronized (DataProxyHandler.class) {
+			this.scope = SCOPE;
+			this.preparedClass = initialize(conn, this);
+		}
+	}
+
+	/*
+	 * Record already read from memory, the class has to be prepared.
+	 */
+	<T extends LtmObjectModelling> DataProxyHandler(final Class<T> ltmClass, final ResultSet rSet)
+			throws SQLException {
+		super(ltmClass);
+		this.data = new HashMap<>();
+		synchronized (DataProxyHandler.class) {
+			this.scope = SCOPE;
+			synchronized (ltmClass) {
+				this.preparedClass = PREP_CLASS_MAP.get(ltmClass);
+			}
+		}
+		if (this.preparedClass == null) {
+			throw new ImplementationLtRtException();
+		}
+		this.ltmId = rSet.getLong(LTM_ID);
+		DataMemoryUtil.map(rSet, this.preparedClass, this, this.data);
+	}
+
+	/*
+	 * Record already read from memory as a row, the class has to be prepared.
+	 */
+	<T extends LtmObjectModelling> DataProxyHandler(final Class<T> ltmClass, final long id, final Object[] row) {
+		super(ltmClass);
+		this.data = new HashMap<>();
+		synchronized (DataProxyHandler.class) {
+			this.scope = SCOPE;
+			synchronized (ltmClass) {
+				this.preparedClass = PREP_CLASS_MAP.get(ltmClass);
+			}
+		}
+		if (this.preparedClass == null) {
+			throw new ImplementationLtRtException();
+		}
+		this.ltmId = id;
+		DataMemoryUtil.map(id, row, this.preparedClass, this, this.data);
+	}
+
 	void isValid() {
 		synchronized (DataProxyHandler.class) {
 			if (this.occuredException != null) {
@@ -150,14 +267,19 @@ final class DataProxyHandler extends AbstractDataProxyHandler<LtmObjectModelling
 				throw this.occuredException;
 			}
 			final Class<LtmObjectModelling> ltmClass = this.preparedClass.getLongTermMemoryClass(dataName);
+			// the thread with an active transaction sees the changes it made
+			final LtmTransaction transaction = LtmTransaction.current();
+			final Map<String, Object> written = (transaction == null) ? null : transaction.written(this);
+			final boolean pending = written != null && written.containsKey(dataName);
 			if (ltmClass == null) {
-				result = this.data.get(dataName);
+				result = (pending) ? written.get(dataName) : this.data.get(dataName);
 				if (result == null && this.preparedClass.getColumnsSet().contains(dataName)) {
 					result = InitialSet.instantiateSet(this, dataName);
 					this.data.put(dataName, result);
 				}
 			} else {
-				final Object fetchId = this.data.get(dataName);
+				// resolved by the cache each time, so a record forgotten is not given
+				final Object fetchId = (pending) ? written.get(dataName) : this.data.get(dataName);
 				if (fetchId == null) {
 					result = null;
 				} else {
@@ -178,30 +300,77 @@ final class DataProxyHandler extends AbstractDataProxyHandler<LtmObjectModelling
 			if (this.occuredException != null) {
 				throw this.occuredException;
 			}
-			try {
-				DataMemoryConnection conn = null;
+			final Class<LtmObjectModelling> ltmClass = this.preparedClass.getLongTermMemoryClass(dataName);
+			final Object written = (ltmClass == null || value == null) ? value
+					: Long.valueOf(LtmObjectModelling.class.cast(value).getLtmId());
+			final LtmTransaction transaction = LtmTransaction.current();
+			if (transaction == null) {
 				try {
-					conn = MEM_POOL.poll();
-					conn.updateRecord(this.preparedClass, this.ltmId, dataName, value, this.data.get(dataName));
-				} finally {
-					if (conn != null) {
-						MEM_POOL.offer(conn);
+					DataMemoryConnection conn = null;
+					try {
+						conn = MEM_POOL.poll();
+						conn.updateRecord(this.preparedClass, this.ltmId, dataName, value, this.data.get(dataName));
+					} finally {
+						if (conn != null) {
+							MEM_POOL.offer(conn);
+						}
 					}
+				} catch (SQLException | ClosedLtRtException | ObjectPoolLtException | InterruptedException e) {
+					this.occuredException = new LtmLtRtException(e);
+					throw this.occuredException;
 				}
-			} catch (SQLException | ClosedLtRtException | ObjectPoolLtException | InterruptedException e) {
-				this.occuredException = new LtmLtRtException(e);
-				throw this.occuredException;
-			}
-			final Class<LtmObjectModelling> ltmClass = this.preparedClass.getLongTermMemoryClass(dataName);
-			if (ltmClass == null || value == null) {
-				this.data.put(dataName, value);
+				this.data.put(dataName, written);
 			} else {
-				this.data.put(dataName, LtmObjectModelling.class.cast(value).getLtmId());
+				// kept by the transaction until commit
+				transaction.changed(this, dataName, this.data.get(dataName), written);
 			}
 		}
 		this.isValid();
 	}
 
+	/*
+	 * Value as kept in the data, with the records referenced by id.
+	 */
+	Object getData(final String dataName) {
+		synchronized (this) {
+			return this.data.get(dataName);
+		}
+	}
+
+	/*
+	 * Writes the changes made in a transaction, without committing. Fails if
+	 * another thread changed one of the values since the transaction read it.
+	 */
+	void flush(final DataMemoryConnection conn, final Map<String, Object> written, final Map<String, Object> previous)
+			throws SQLException, LtmLtRtException {
+		synchronized (this) {
+			if (this.occuredException != null) {
+				throw this.occuredException;
+			}
+			for (final String dataName : written.keySet()) {
+				if (!Objects.equals(this.data.get(dataName), previous.get(dataName))) {
+					throw new LtmLtRtException("#0 of #1 changed by other since read in the transaction", dataName,
+							this.ltmId);
+				}
+			}
+			conn.updateRecord(this.preparedClass, this.ltmId, new ArrayList<>(written.keySet()), written, previous);
+		}
+	}
+
+	/*
+	 * Takes the values committed by a transaction, except the ones changed by
+	 * others since the flush, as those were written after it.
+	 */
+	void committed(final Map<String, Object> previous, final Map<String, Object> written) {
+		synchronized (this) {
+			for (final Entry<String, Object> entry : written.entrySet()) {
+				if (Objects.equals(this.data.get(entry.getKey()), previous.get(entry.getKey()))) {
+					this.data.put(entry.getKey(), entry.getValue());
+				}
+			}
+		}
+	}
+
 	@Override
 	protected <O> O deObfuscate(final Obfuscate annot, final O value) {
 		return ObfuscateUtil.unHide(annot, value);
@@ -16,6 +16,8 @@
 
 package leitej.ltm;
 
+import java.lang.reflect.Array;
+
 import leitej.exception.IllegalArgumentLtRtException;
 import leitej.exception.ImplementationLtRtException;
 import leitej.util.data.AbstractDataProxyHandler;
@@ -41,9 +43,17 @@ final class FilterHandler extends AbstractDataProxyHandler<LtmObjectModelling> {
 		this.obSwitchGet = false;
 	}
 
+	/*
+	 * Only used to select the components, outside a selection it is ignored.
+	 */
 	@Override
 	protected Object get(final String dataName) {
-		throw new UnsupportedOperationException("The LTM filter do not have the get data component.");
+		this.filter.setDataSelect(dataName);
+		final Class<?> returnClass = getReturnClass(dataName);
+		if (returnClass.isPrimitive()) {
+			return Array.get(Array.newInstance(returnClass, 1), 0);
+		}
+		return null;
 	}
 
 	@Override
@@ -57,7 +67,7 @@ final class FilterHandler extends AbstractDataProxyHandler<LtmObjectModelling> {
 
 	@Override
 	protected <O> O deObfuscate(final Obfuscate annot, final O value) {
-		throw new UnsupportedOperationException("The LTM filter do not have the deObfuscate component.");
+		return value;
 	}
 
 	@Override
@@ -79,4 +89,15 @@ final class FilterHandler extends AbstractDataProxyHandler<LtmObjectModelling> {
 		return dataMethodsGetSet(dataname)[0].getReturnType();
 	}
 
+	Obfuscate getObfuscate(final String dataname) {
+		Obfuscate result = null;
+		if (isDataToObfuscate(dataname)) {
+			result = dataMethodsGetSet(dataname)[0].getAnnotation(Obfuscate.class);
+			if (result == null) {
+				result = dataMethodsGetSet(dataname)[1].getAnnotation(Obfuscate.class);
+			}
+		}
+		return result;
+	}
+
 }
@@ -0,0 +1,212 @@
+/*******************************************************************************
+ * Copyright Julio Leite
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as
+ * published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package leitej.ltm;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import leitej.exception.IllegalStateLtRtException;
+import leitej.exception.ImplementationLtRtException;
+import leitej.log.Logger;
+
+/**
+ * Records kept in the tables of HSQLDB, through the connection of one data
+ * memory connection.
+ *
+ * @author Julio Leite
+ *
+ */
+final class HsqldbStorage implements StorageEngine {
+
+	private static final Logger LOG = Logger.getInstance();
+
+	private static final int BATCH_SIZE = 1000;
+
+	private final Connection conn;
+	private final PreparedStatementCache pSttCache;
+
+	HsqldbStorage(final Connection conn, final PreparedStatementCache pSttCache) {
+		this.conn = conn;
+		this.pSttCache = pSttCache;
+	}
+
+	@Override
+	public void initialize(final PreparedClass pClass) throws SQLException {
+		HsqldbUtil.initialize(this.conn, pClass);
+	}
+
+	@Override
+	public long newRecord(final PreparedClass pClass) throws SQLException {
+		final Statement stt = this.conn.createStatement();
+		final boolean hasRS = stt.execute(pClass.getInsertNewRow());
+		final long result;
+		if (hasRS) {
+			final ResultSet rs = stt.getResultSet();
+			if (rs.next()) {
+				result = rs.getLong(1);
+				if (rs.next()) {
+					throw new ImplementationLtRtException();
+				}
+			} else {
+				throw new IllegalStateLtRtException();
+			}
+			rs.close();
+			stt.close();
+			this.conn.commit();
+		} else {
+			this.conn.rollback();
+			throw new IllegalStateLtRtException();
+		}
+		return result;
+	}
+
+	@Override
+	public long[] newRecords(final PreparedClass pClass, final int count) throws SQLException {
+		final long[] result = new long[count];
+		final PreparedStatement pStt = this.conn.prepareStatement(pClass.getInsertDefaultRow(),
+				Statement.RETURN_GENERATED_KEYS);
+		try {
+			int pos = 0;
+			int batch;
+			ResultSet rs;
+			long id;
+			while (pos < count) {
+				batch = Math.min(BATCH_SIZE, count - pos);
+				for (int i = 0; i < batch; i++) {
+					pStt.addBatch();
+				}
+				pStt.executeBatch();
+				// one key per row, in the order the rows were inserted
+				rs = pStt.getGeneratedKeys();
+				while (rs.next()) {
+					if (batch-- == 0) {
+						throw new ImplementationLtRtException();
+					}
+					id = rs.getLong(1);
+					if (pos > 0 && id <= result[pos - 1]) {
+						throw new IllegalStateLtRtException("Generated key #0 out of order", id);
+					}
+					result[pos++] = id;
+				}
+				rs.close();
+				if (batch != 0) {
+					throw new IllegalStateLtRtException();
+				}
+			}
+		} finally {
+			pStt.close();
+		}
+		return result;
+	}
+
+	@Override
+	public Object[] fetchRecord(final PreparedClass pClass, final long ltmId) throws SQLException {
+		Object[] result = null;
+		final PreparedStatement pStt = this.pSttCache.prepare(pClass.getSelectById());
+		pStt.setLong(1, ltmId);
+		try {
+			if (pStt.execute()) {
+				final ResultSet rs = pStt.getResultSet();
+				if (rs.next()) {
+					result = DataMemoryUtil.row(rs, pClass);
+					if (rs.next()) {
+						throw new ImplementationLtRtException();
+					}
+				}
+				rs.close();
+			} else {
+				throw new IllegalStateLtRtException();
+			}
+		} finally {
+			this.conn.rollback();
+		}
+		return result;
+	}
+
+	@Override
+	public boolean existsRecord(final PreparedClass pClass, final long ltmId) throws SQLException {
+		return fetchRecord(pClass, ltmId) != null;
+	}
+
+	/*
+	 * Reads all the records with the ids in one statement.
+	 */
+	@Override
+	public void fetchRecords(final PreparedClass pClass, final Collection<Long> ids, final Map<Long, Object[]> rows)
+			throws SQLException {
+		final PreparedStatement pStt = this.pSttCache.prepare(pClass.getSelectByIds());
+		try {
+			final Array array = this.conn.createArrayOf(
+					HsqldbUtil.getArrayElementTypeName(DataMemoryType.LONG_TERM_MEMORY.getSqlType()), ids.toArray());
+			pStt.setArray(1, array);
+			if (pStt.execute()) {
+				final ResultSet rSet = pStt.getResultSet();
+				while (rSet.next()) {
+					rows.put(rSet.getLong(DataProxyHandler.LTM_ID), DataMemoryUtil.row(rSet, pClass));
+				}
+				rSet.close();
+			} else {
+				throw new IllegalStateLtRtException();
+			}
+			array.free();
+		} finally {
+			this.conn.rollback();
+		}
+	}
+
+	@Override
+	public boolean updateRecord(final PreparedClass pClass, final long ltmId, final int[] columns,
+			final Object[] values) throws SQLException {
+		final PreparedStatement pStt;
+		if (columns.length == 1) {
+			pStt = this.pSttCache.prepare(pClass.getUpdateColumnById().get(columns[0]));
+		} else {
+			final List<String> columnNames = new ArrayList<>(columns.length);
+			for (final int column : columns) {
+				columnNames.add(pClass.getColumnNameList().get(column));
+			}
+			pStt = this.pSttCache.prepare(HsqldbUtil.getStatementUpdateColumnsById(pClass.getTablename(), columnNames));
+		}
+		for (int i = 0; i < columns.length; i++) {
+			HsqldbUtil.setPrepStt(pStt, i + 1, pClass.getColumnTypeList().get(columns[i]).getSqlType(), values[i]);
+		}
+		pStt.setLong(columns.length + 1, ltmId);
+		LOG.trace("#0: #1", pClass.getTablename(), ltmId);
+		return pStt.executeUpdate() != 0;
+	}
+
+	@Override
+	public boolean deleteRecord(final PreparedClass pClass, final long ltmId) throws SQLException {
+		final PreparedStatement pStt = this.pSttCache.prepare(pClass.getDeleteById());
+		pStt.setLong(1, ltmId);
+		return pStt.executeUpdate() != 0;
+	}
+
+	@Override
+	public void eraseAll() throws SQLException {
+		HsqldbUtil.dropSchema(this.conn);
+	}
+
+}
@@ -16,6 +16,7 @@
 
 package leitej.ltm;
 
+import java.io.File;
 import java.io.IOException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -28,18 +29,25 @@ import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import leitej.Constant;
 import leitej.exception.SeppukuLtRtException;
 import leitej.exception.UnsupportedDataTypeLtRtException;
 import leitej.log.Logger;
 import leitej.ltm.PreparedClassIndex.IndexColumn;
+import leitej.util.DateUtil;
 import leitej.util.HexaUtil;
+import leitej.util.data.BigBinary;
 
 /**
  * @author Julio Leite
@@ -54,12 +62,29 @@ final class HsqldbUtil {
 	private static final char TABLE_IDX_PREFIX = 'I';
 
 	static final String SCHEMA = "ltm";
+	private static final String MEM_DBNAME = "ltm";
 	private static final MessageDigest GEN_NAME;
 	private static final int GEN_NAME_SIZE;
 
-	private static final Map<String, String> TABLE_COMMENT_MAP = new HashMap<>();
-	private static final Map<String, List<String>> TABLE_INDEX_MAP = new HashMap<>();
-	private static final Map<String, List<String>> TABLE_COLUMN_MAP = new HashMap<>();
+	// the tables are listed at start, their columns and indexes read on first use;
+	// tables without comment are kept with null
+	private static final Map<String, String> TABLE_COMMENT_MAP = Collections
+			.synchronizedMap(new HashMap<String, String>());
+	private static final Map<String, List<String>> TABLE_INDEX_MAP = new ConcurrentHashMap<>();
+	private static final String SET_INDEX_LTMID = "_ltmid";
+	private static final String SET_INDEX_LTMID_SETID = "_ltmid_setid";
+	private static final String SET_INDEX_LTMID_SETVALUE = "_ltmid_setvalue";
+	private static final String SET_INDEX_SETID_LTMID = "_setid_ltmid";
+	private static final Map<String, List<String>> TABLE_COLUMN_MAP = new ConcurrentHashMap<>();
+	private static final Set<String> SET_TABLE_CHECKED = Collections
+			.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	private static final Map<Class<?>, String> TABLE_NAME_MAP = new ConcurrentHashMap<>();
+	private static final Map<String, String> TABLE_SET_NAME_MAP = new ConcurrentHashMap<>();
+
+	private static final long BOOTSTRAP_NANOS;
+	private static final AtomicLong TABLE_LOAD_NANOS = new AtomicLong(0);
+
+	private static volatile int SCHEMA_VERSION = 0;
 
 	static {
 		try {
@@ -77,19 +102,57 @@ final class HsqldbUtil {
 		}
 	}
 
+	/*
+	 * Changes every time a table is altered or dropped, so that the prepared
+	 * statements over it are discarded.
+	 */
+	static int getSchemaVersion() {
+		return SCHEMA_VERSION;
+	}
+
+	private static synchronized void schemaChanged() {
+		SCHEMA_VERSION++;
+	}
+
+	/*
+	 * Nano time reading the schema at start.
+	 */
+	static long getBootstrapNanos() {
+		return BOOTSTRAP_NANOS;
+	}
+
+	/*
+	 * Nano time reading the columns and indexes of the tables, each on its first
+	 * use.
+	 */
+	static long getTableLoadNanos() {
+		return TABLE_LOAD_NANOS.get();
+	}
+
 	static <I extends LtmObjectModelling> String getTableName(final Class<I> ltmClass) {
-		synchronized (GEN_NAME) {
-			GEN_NAME.reset();
-			return TABLE_LTM_PREFIX + HexaUtil.toHex(GEN_NAME.digest(ltmClass.getName().getBytes(Constant.UTF8_CHARSET)));
+		String result = TABLE_NAME_MAP.get(ltmClass);
+		if (result == null) {
+			synchronized (GEN_NAME) {
+				GEN_NAME.reset();
+				result = TABLE_LTM_PREFIX
+						+ HexaUtil.toHex(GEN_NAME.digest(ltmClass.getName().getBytes(Constant.UTF8_CHARSET)));
+			}
+			TABLE_NAME_MAP.put(ltmClass, result);
 		}
+		return result;
 	}
 
 	static <I extends LtmObjectModelling> String getTableSetName(final Class<I> ltmClass, final String setDataname) {
-		synchronized (GEN_NAME) {
-			GEN_NAME.reset();
-			return TABLE_SET_PREFIX
-					+ HexaUtil.toHex(GEN_NAME.digest((setDataname + ltmClass.getName()).getBytes(Constant.UTF8_CHARSET)));
+		final String key = setDataname + ltmClass.getName();
+		String result = TABLE_SET_NAME_MAP.get(key);
+		if (result == null) {
+			synchronized (GEN_NAME) {
+				GEN_NAME.reset();
+				result = TABLE_SET_PREFIX + HexaUtil.toHex(GEN_NAME.digest(key.getBytes(Constant.UTF8_CHARSET)));
+			}
+			TABLE_SET_NAME_MAP.put(key, result);
 		}
+		return result;
 	}
 
 	static String getIndexName(final String tableName, final Iterator<IndexColumn> columns) {
@@ -111,9 +174,19 @@ final class HsqldbUtil {
 	}
 
 	static final Connection newConnection() throws SQLException {
+		if (DataMemoryPool.IN_MEMORY) {
+			return DriverManager.getConnection("jdbc:hsqldb:mem:" + MEM_DBNAME, "SA", "");
+		}
 		return DriverManager.getConnection("jdbc:hsqldb:file:" + Constant.LTM_DBNAME_DIR, "SA", "");
 	}
 
+	private static void setTransactionControl(final Connection conn) throws SQLException {
+		final Statement stt = conn.createStatement();
+		stt.execute("SET DATABASE TRANSACTION CONTROL MVCC");
+		stt.close();
+		conn.commit();
+	}
+
 	static final void createSchema(final Connection conn) throws SQLException {
 		final Statement stt = conn.createStatement();
 		final String createSchema = "create schema \"" + SCHEMA + "\"";
@@ -124,10 +197,13 @@ final class HsqldbUtil {
 	}
 
 	static {
+		final long start = System.nanoTime();
 		Connection conn = null;
 		try {
 			try {
 				conn = newConnection();
+				// rows inserted by an open transaction do not block the readers
+				setTransactionControl(conn);
 				// get schemas
 				LOG.debug("schema: #0", SCHEMA);
 				final ResultSet rsSchema = conn.getMetaData().getSchemas();
@@ -163,44 +239,9 @@ final class HsqldbUtil {
 						}
 					} else {
 						TABLE_COMMENT_MAP.put(tablename, remark);
-						TABLE_INDEX_MAP.put(tablename, new ArrayList<String>());
-						TABLE_COLUMN_MAP.put(tablename, new ArrayList<String>());
 					}
 				}
 				rsTable.close();
-				// get indexes
-				ResultSet rsIndex;
-				List<String> indexList;
-				String indexName;
-				for (final Entry<String, List<String>> entry : TABLE_INDEX_MAP.entrySet()) {
-					LOG.debug("indexes for tablename: #0", entry.getKey());
-					rsIndex = conn.getMetaData().getIndexInfo(null, SCHEMA, entry.getKey(), false, false);
-					indexList = entry.getValue();
-					while (rsIndex.next()) {
-						indexName = rsIndex.getString("INDEX_NAME");
-						if (rsIndex.getShort("ORDINAL_POSITION") == 1 && rsIndex.getBoolean("NON_UNIQUE")
-								&& hasIndexNameFormat(indexName)) {
-							indexList.add(indexName);
-						}
-					}
-					rsIndex.close();
-					LOG.debug("indexList: #0", indexList);
-				}
-				// get columns
-				ResultSet rsColumn;
-				List<String> columnList;
-				String columnName;
-				for (final Entry<String, List<String>> entry : TABLE_COLUMN_MAP.entrySet()) {
-					LOG.debug("columns for tablename: #0", entry.getKey());
-					rsColumn = conn.getMetaData().getColumns(null, SCHEMA, entry.getKey(), "%");
-					columnList = entry.getValue();
-					while (rsColumn.next()) {
-						columnName = rsColumn.getString("COLUMN_NAME");
-						columnList.add(columnName);
-					}
-					rsColumn.close();
-					LOG.debug("columnList: #0", columnList);
-				}
 				// drop tables
 				if (!dropTableList.isEmpty()) {
 					String dropSql;
@@ -234,12 +275,52 @@ final class HsqldbUtil {
 		} catch (final SQLException e) {
 			throw new SeppukuLtRtException(e);
 		}
+		BOOTSTRAP_NANOS = System.nanoTime() - start;
+		LOG.info("Schema bootstrap: #0 tables in #1 ms", TABLE_COMMENT_MAP.size(),
+				TimeUnit.NANOSECONDS.toMillis(BOOTSTRAP_NANOS));
+	}
+
+	/*
+	 * Reads the columns and indexes of the table, if not yet read.
+	 */
+	private static void loadTable(final Connection conn, final String tablename) throws SQLException {
+		if (TABLE_INDEX_MAP.containsKey(tablename) && TABLE_COLUMN_MAP.containsKey(tablename)) {
+			return;
+		}
+		final long start = System.nanoTime();
+		// get indexes
+		final List<String> indexList = new ArrayList<>();
+		final ResultSet rsIndex = conn.getMetaData().getIndexInfo(null, SCHEMA, tablename, false, false);
+		String indexName;
+		while (rsIndex.next()) {
+			indexName = rsIndex.getString("INDEX_NAME");
+			if (rsIndex.getShort("ORDINAL_POSITION") == 1 && rsIndex.getBoolean("NON_UNIQUE")
+					&& hasIndexNameFormat(indexName)) {
+				indexList.add(indexName);
+			}
+		}
+		rsIndex.close();
+		LOG.debug("tablename: #0, indexList: #1", tablename, indexList);
+		// get columns
+		final List<String> columnList = new ArrayList<>();
+		final ResultSet rsColumn = conn.getMetaData().getColumns(null, SCHEMA, tablename, "%");
+		while (rsColumn.next()) {
+			columnList.add(rsColumn.getString("COLUMN_NAME"));
+		}
+		rsColumn.close();
+		LOG.debug("tablename: #0, columnList: #1", tablename, columnList);
+		TABLE_INDEX_MAP.put(tablename, indexList);
+		TABLE_COLUMN_MAP.put(tablename, columnList);
+		TABLE_LOAD_NANOS.addAndGet(System.nanoTime() - start);
 	}
 
 	/*
 	 * WARN: shutdown is for all databases
 	 */
 	static final void dbShutdown() throws SQLException, IOException {
+		if (DataMemoryPool.IN_MEMORY && DataMemoryPool.CONFIG.isInMemorySnapshot()) {
+			snapshot();
+		}
 		if (CompactMemory.isToCompact()) {
 			LOG.warn("Iniciating Compact Memory");
 			newConnection().createStatement().executeUpdate("SHUTDOWN COMPACT");
@@ -249,6 +330,28 @@ final class HsqldbUtil {
 		}
 	}
 
+	/*
+	 * Writes the database as a script, and the large memories as files, to a new
+	 * directory of the snapshots; together they open as a file database.
+	 */
+	private static void snapshot() throws SQLException, IOException {
+		final File directory = new File(Constant.LTM_SNAPSHOT_DIR, DateUtil.format(new Date(), "yyyyMMddHHmmssSSS"));
+		final File script = new File(directory, new File(Constant.LTM_DBNAME_DIR).getName() + ".script");
+		LOG.warn("Snapshot of memory: #0", directory);
+		directory.mkdirs();
+		final Connection conn = newConnection();
+		try {
+			final Statement stt = conn.createStatement();
+			stt.execute("SCRIPT '" + script.getAbsolutePath().replace("'", "''") + "'");
+			stt.close();
+		} finally {
+			conn.close();
+		}
+		final int count = BigBinary.saveMemories(Constant.LTM_STREAM_DIR,
+				new File(directory, Constant.LTM_STREAM_DIR.getName()));
+		LOG.info("Snapshot of memory done, large memories: #0", count);
+	}
+
 	private static void createTable(final Connection conn, final PreparedClass prepClass) throws SQLException {
 		final StringBuilder query = new StringBuilder();
 		// create table - ROW_ID, ...
@@ -297,7 +400,12 @@ final class HsqldbUtil {
 		// persist
 		conn.commit();
 		TABLE_COMMENT_MAP.put(prepClass.getTablename(), remarks);
-		TABLE_COLUMN_MAP.put(prepClass.getTablename(), new ArrayList<>(prepClass.getColumnNameList()));
+		TABLE_INDEX_MAP.put(prepClass.getTablename(),
+				new ArrayList<>(prepClass.getIndexes().getIndexesNameCollection()));
+		final List<String> columnList = new ArrayList<>();
+		columnList.add(DataProxyHandler.LTM_ID);
+		columnList.addAll(prepClass.getColumnNameList());
+		TABLE_COLUMN_MAP.put(prepClass.getTablename(), columnList);
 	}
 
 	static boolean exists(final String tableName) {
@@ -345,21 +453,37 @@ final class HsqldbUtil {
 		stt.execute(createSetTable);
 		stt.close();
 		// create indexes
-		query.setLength(0);
-		// create index - LTM_ID
-		query.append("create index if not exists \"ind_");
-		query.append(setTablename);
-		query.append("_ltmid\" on \"");
+		createSetIndexes(conn, setTablename);
+		// persist
+		conn.commit();
+		TABLE_COMMENT_MAP.put(setTablename, remarks);
+		TABLE_COLUMN_MAP.put(setTablename, Arrays.asList(
+				new String[] { DataProxyHandler.SET_ID, DataProxyHandler.LTM_ID, DataProxyHandler.SET_VALUE }));
+		SET_TABLE_CHECKED.add(setTablename);
+	}
+
+	/*
+	 * The index by LTM_ID - SET_ID is created first, so it is the one HSQLDB
+	 * chooses to iterate the set in order.
+	 */
+	private static void createSetIndexes(final Connection conn, final String setTablename) throws SQLException {
+		final StringBuilder query = new StringBuilder();
+		// create index - LTM_ID - SET_ID
+		query.append("create index if not exists \"");
+		query.append(getSetIndexName(setTablename, SET_INDEX_LTMID_SETID));
+		query.append("\" on \"");
 		query.append(SCHEMA);
 		query.append("\".\"");
 		query.append(setTablename);
 		query.append("\" (\"");
 		query.append(DataProxyHandler.LTM_ID);
+		query.append("\", \"");
+		query.append(DataProxyHandler.SET_ID);
 		query.append("\")");
 		// create index - LTM_ID - SET_VALUE
-		query.append("; create index if not exists \"ind_");
-		query.append(setTablename);
-		query.append("_ltmid_setvalue\" on \"");
+		query.append("; create index if not exists \"");
+		query.append(getSetIndexName(setTablename, SET_INDEX_LTMID_SETVALUE));
+		query.append("\" on \"");
 		query.append(SCHEMA);
 		query.append("\".\"");
 		query.append(setTablename);
@@ -369,9 +493,9 @@ final class HsqldbUtil {
 		query.append(DataProxyHandler.SET_VALUE);
 		query.append("\")");
 		// create index - SET_ID - LTM_ID
-		query.append("; create index if not exists \"ind_");
-		query.append(setTablename);
-		query.append("_setid_ltmid\" on \"");
+		query.append("; create index if not exists \"");
+		query.append(getSetIndexName(setTablename, SET_INDEX_SETID_LTMID));
+		query.append("\" on \"");
 		query.append(SCHEMA);
 		query.append("\".\"");
 		query.append(setTablename);
@@ -383,14 +507,38 @@ final class HsqldbUtil {
 		// execute it
 		final String createSetIndex = query.toString();
 		LOG.debug("createSetIndex: #0", createSetIndex);
-		final Statement stti = conn.createStatement();
-		stti.execute(createSetIndex);
-		stti.close();
-		// persist
-		conn.commit();
-		TABLE_COMMENT_MAP.put(setTablename, remarks);
-		TABLE_COLUMN_MAP.put(setTablename,
-				Arrays.asList(new String[] { DataProxyHandler.SET_ID, DataProxyHandler.LTM_ID, DataProxyHandler.SET_VALUE }));
+		final Statement stt = conn.createStatement();
+		stt.execute(createSetIndex);
+		stt.close();
+	}
+
+	/*
+	 * Set tables created before the index by LTM_ID - SET_ID have the indexes
+	 * starting by LTM_ID recreated after it.
+	 */
+	private static void upgradeSetIndexes(final Connection conn, final String setTablename) throws SQLException {
+		final ResultSet rsIndex = conn.getMetaData().getIndexInfo(null, SCHEMA, setTablename, false, false);
+		boolean upgraded = false;
+		while (rsIndex.next()) {
+			if (getSetIndexName(setTablename, SET_INDEX_LTMID_SETID).equals(rsIndex.getString("INDEX_NAME"))) {
+				upgraded = true;
+			}
+		}
+		rsIndex.close();
+		if (!upgraded) {
+			LOG.warn("upgrading indexes of set table: #0", setTablename);
+			final Statement stt = conn.createStatement();
+			stt.execute("drop index \"" + SCHEMA + "\".\"" + getSetIndexName(setTablename, SET_INDEX_LTMID)
+					+ "\" if exists; drop index \"" + SCHEMA + "\".\""
+					+ getSetIndexName(setTablename, SET_INDEX_LTMID_SETVALUE) + "\" if exists");
+			stt.close();
+			createSetIndexes(conn, setTablename);
+			conn.commit();
+		}
+	}
+
+	private static String getSetIndexName(final String setTablename, final String suffix) {
+		return "ind_" + setTablename + suffix;
 	}
 
 	static DataMemoryType getColumnSetDataMemoryType(final String setTablename) {
@@ -421,6 +569,7 @@ final class HsqldbUtil {
 			stt.execute(dropColumns);
 			stt.close();
 			conn.commit();
+			schemaChanged();
 		}
 	}
 
@@ -447,6 +596,7 @@ final class HsqldbUtil {
 			stt.execute(addColumns);
 			stt.close();
 			conn.commit();
+			schemaChanged();
 		}
 	}
 
@@ -467,6 +617,7 @@ final class HsqldbUtil {
 			stt.execute(dropIndex);
 			stt.close();
 			conn.commit();
+			schemaChanged();
 		}
 	}
 
@@ -498,11 +649,12 @@ final class HsqldbUtil {
 
 	static void initialize(final Connection conn, final PreparedClass prepClass) throws SQLException {
 		LOG.trace("table: #0", prepClass.getTablename());
-		final List<String> columnList = TABLE_COLUMN_MAP.get(prepClass.getTablename());
 		// check if table already exists
-		if (columnList == null) {
+		if (!exists(prepClass.getTablename())) {
 			createTable(conn, prepClass);
 		} else {
+			loadTable(conn, prepClass.getTablename());
+			final List<String> columnList = TABLE_COLUMN_MAP.get(prepClass.getTablename());
 			final List<String> indexList = TABLE_INDEX_MAP.get(prepClass.getTablename());
 			// drop indexes
 			final List<String> indexesToRemove = new ArrayList<>();
@@ -533,6 +685,14 @@ final class HsqldbUtil {
 			addIndexes(conn, prepClass.getIndexes(), indexesToAdd);
 			indexList.addAll(indexesToAdd);
 		}
+		// upgrade set indexes
+		String setTablename;
+		for (final String datanameSet : prepClass.getColumnsSet()) {
+			setTablename = prepClass.getSetTablename(datanameSet);
+			if (exists(setTablename) && SET_TABLE_CHECKED.add(setTablename)) {
+				upgradeSetIndexes(conn, setTablename);
+			}
+		}
 	}
 
 	static void dropSchema(final Connection conn) throws SQLException {
@@ -542,46 +702,94 @@ final class HsqldbUtil {
 		stt.execute(dropSchema);
 		stt.close();
 		conn.commit();
+		schemaChanged();
 		TABLE_COLUMN_MAP.clear();
+		TABLE_INDEX_MAP.clear();
 		TABLE_COMMENT_MAP.clear();
+		SET_TABLE_CHECKED.clear();
 		createSchema(conn);
 	}
 
 	static String getHsqlType(final int sqlType) {
+		return getHsqlBaseType(sqlType) + " default null";
+	}
+
+	private static String getHsqlBaseType(final int sqlType) {
 		final String result;
 		switch (sqlType) {
 		case Types.TINYINT:
-			result = "tinyint default null";
+			result = "tinyint";
 			break;
 		case Types.SMALLINT:
-			result = "smallint default null";
+			result = "smallint";
 			break;
 		case Types.INTEGER:
-			result = "int default null";
+			result = "int";
 			break;
 		case Types.BIGINT:
-			result = "bigint default null";
+			result = "bigint";
 			break;
 		case Types.DECIMAL:
-			result = "decimal default null";
+			result = "decimal";
 			break;
 		case Types.DOUBLE:
-			result = "float default null";
+			result = "float";
 			break;
 		case Types.FLOAT:
-			result = "float default null";
+			result = "float";
 			break;
 		case Types.BOOLEAN:
-			result = "bit default null";
+			result = "bit";
 			break;
 		case Types.VARCHAR:
-			result = "varchar (256) default null";
+			result = "varchar (256)";
+			break;
+		case Types.LONGVARCHAR:
+			result = "longvarchar";
+			break;
+		case Types.LONGVARBINARY:
+			result = "longvarbinary";
+			break;
+		default:
+			throw new UnsupportedDataTypeLtRtException("sqlType: #0", sqlType);
+		}
+		return result;
+	}
+
+	/*
+	 * Type name of the elements to create an array parameter.
+	 */
+	static String getArrayElementTypeName(final int sqlType) {
+		final String result;
+		switch (sqlType) {
+		case Types.TINYINT:
+			result = "TINYINT";
+			break;
+		case Types.SMALLINT:
+			result = "SMALLINT";
+			break;
+		case Types.INTEGER:
+			result = "INTEGER";
+			break;
+		case Types.BIGINT:
+			result = "BIGINT";
+			break;
+		case Types.DECIMAL:
+			result = "DECIMAL";
+			break;
+		case Types.DOUBLE:
+		case Types.FLOAT:
+			result = "DOUBLE";
+			break;
+		case Types.BOOLEAN:
+			result = "BOOLEAN";
 			break;
+		case Types.VARCHAR:
 		case Types.LONGVARCHAR:
-			result = "longvarchar default null";
+			result = "VARCHAR";
 			break;
 		case Types.LONGVARBINARY:
-			result = "longvarbinary default null";
+			result = "VARBINARY";
 			break;
 		default:
 			throw new UnsupportedDataTypeLtRtException("sqlType: #0", sqlType);
@@ -697,6 +905,11 @@ final class HsqldbUtil {
 		return "select * from \"" + SCHEMA + "\".\"" + tablename + "\" where \"" + DataProxyHandler.LTM_ID + "\" = ?";
 	}
 
+	static String getStatementSelectByIds(final String tablename) {
+		return "select b.* from unnest(cast(? as bigint array)) as a(v) join \"" + SCHEMA + "\".\"" + tablename
+				+ "\" b on b.\"" + DataProxyHandler.LTM_ID + "\" = a.v";
+	}
+
 	static String getStatementInsertNewRow(final String tablename) {
 		final StringBuilder result = new StringBuilder();
 		result.append("insert into \"");
@@ -707,6 +920,10 @@ final class HsqldbUtil {
 		return result.toString();
 	}
 
+	static String getStatementInsertDefaultRow(final String tablename) {
+		return "insert into \"" + SCHEMA + "\".\"" + tablename + "\" default values";
+	}
+
 	static String getStatementUpdateColumnById(final String tablename, final String columnname) {
 		final StringBuilder result = new StringBuilder();
 		result.append("update \"");
@@ -721,6 +938,26 @@ final class HsqldbUtil {
 		return result.toString();
 	}
 
+	static String getStatementUpdateColumnsById(final String tablename, final List<String> columnnames) {
+		final StringBuilder result = new StringBuilder();
+		result.append("update \"");
+		result.append(SCHEMA);
+		result.append("\".\"");
+		result.append(tablename);
+		result.append("\" set \"");
+		result.append(columnnames.get(0));
+		result.append("\" = ?");
+		for (int i = 1; i < columnnames.size(); i++) {
+			result.append(", \"");
+			result.append(columnnames.get(i));
+			result.append("\" = ?");
+		}
+		result.append(" where \"");
+		result.append(DataProxyHandler.LTM_ID);
+		result.append("\" = ?");
+		return result.toString();
+	}
+
 	static String getStatementDeleteById(final String tablename) {
 		return "delete from \"" + SCHEMA + "\".\"" + tablename + "\" where \"" + DataProxyHandler.LTM_ID + "\" = ?";
 	}
@@ -745,13 +982,16 @@ final class HsqldbUtil {
 				+ "\" = ? limit 1";
 	}
 
-	static String getStatementSetAdd(final String tablename, final String tablenameLtm, final long ltmId) {
+	/*
+	 * Without the table of the class, when its records are kept by other engine,
+	 * the record is not verified.
+	 */
+	static String getStatementSetAdd(final String tablename, final long ltmId) {
 		return "insert into \"" + SCHEMA + "\".\"" + tablename + "\" (\"" + DataProxyHandler.LTM_ID + "\", \""
-				+ DataProxyHandler.SET_VALUE + "\") select a.\"" + DataProxyHandler.LTM_ID + "\", ? from \"" + SCHEMA + "\".\""
-				+ tablenameLtm + "\" a where a.\"" + DataProxyHandler.LTM_ID + "\" = " + String.valueOf(ltmId)
-				+ " and not exists (select 1 from \"" + SCHEMA + "\".\"" + tablename + "\" b where b.\""
-				+ DataProxyHandler.LTM_ID + "\" = " + String.valueOf(ltmId) + " and b.\"" + DataProxyHandler.SET_VALUE
-				+ "\" = ? )";
+				+ DataProxyHandler.SET_VALUE + "\") select " + String.valueOf(ltmId)
+				+ ", ? from (values (0)) a where not exists (select 1 from \"" + SCHEMA + "\".\"" + tablename
+				+ "\" b where b.\"" + DataProxyHandler.LTM_ID + "\" = " + String.valueOf(ltmId) + " and b.\""
+				+ DataProxyHandler.SET_VALUE + "\" = ? )";
 	}
 
 	static String getStatementSetRemove(final String tablename, final long ltmId) {
@@ -759,16 +999,68 @@ final class HsqldbUtil {
 				+ String.valueOf(ltmId) + " and \"" + DataProxyHandler.SET_VALUE + "\" = ? ";
 	}
 
-	public static String getStatementSetIterator(final String tablename, final long ltmId) {
+	static String getStatementSetContainsAll(final String tablename, final long ltmId, final int sqlType) {
+		final StringBuilder result = new StringBuilder();
+		result.append("select count(distinct b.\"");
+		result.append(DataProxyHandler.SET_VALUE);
+		result.append("\") from unnest(cast(? as ");
+		result.append(getHsqlBaseType(sqlType));
+		result.append(" array)) as a(v) join \"");
+		result.append(SCHEMA);
+		result.append("\".\"");
+		result.append(tablename);
+		result.append("\" b on b.\"");
+		result.append(DataProxyHandler.LTM_ID);
+		result.append("\" = ");
+		result.append(String.valueOf(ltmId));
+		result.append(" and b.\"");
+		result.append(DataProxyHandler.SET_VALUE);
+		result.append("\" = a.v");
+		return result.toString();
+	}
+
+	public static String getStatementSetIterator(final String tablename, final long ltmId, final int pageSize) {
 		return "select \"" + DataProxyHandler.SET_ID + "\", \"" + DataProxyHandler.SET_VALUE + "\" from \"" + SCHEMA
 				+ "\".\"" + tablename + "\" where \"" + DataProxyHandler.SET_ID + "\" > ? and \"" + DataProxyHandler.LTM_ID
-				+ "\" = " + String.valueOf(ltmId) + " order by \"" + DataProxyHandler.SET_ID + "\" asc limit 1";
+				+ "\" = " + String.valueOf(ltmId) + " order by \"" + DataProxyHandler.LTM_ID + "\", \""
+				+ DataProxyHandler.SET_ID + "\" asc limit " + String.valueOf(pageSize);
 	}
 
-	static String getStatementScaledIterator(final String tablename, final String filter, final boolean desc) {
-		return "select \"" + DataProxyHandler.LTM_ID + "\" from \"" + SCHEMA + "\".\"" + tablename + "\" where \""
-				+ DataProxyHandler.LTM_ID + "\" " + ((desc) ? "<" : ">") + " ? and " + filter + " order by \""
-				+ DataProxyHandler.LTM_ID + "\" " + ((desc) ? "desc" : "asc") + " limit 1";
+	static String getStatementAggregate(final String tablename, final String function, final String columnname,
+			final String groupColumnname, final String filter) {
+		final StringBuilder result = new StringBuilder();
+		result.append("select ");
+		if (groupColumnname != null) {
+			result.append("\"");
+			result.append(groupColumnname);
+			result.append("\", ");
+		}
+		result.append(function);
+		if (columnname == null) {
+			result.append("(*)");
+		} else if ("avg".equals(function)) {
+			result.append("(cast(\"");
+			result.append(columnname);
+			result.append("\" as double))");
+		} else {
+			result.append("(\"");
+			result.append(columnname);
+			result.append("\")");
+		}
+		result.append(" from \"");
+		result.append(SCHEMA);
+		result.append("\".\"");
+		result.append(tablename);
+		result.append("\" where ");
+		result.append(filter);
+		if (groupColumnname != null) {
+			result.append(" group by \"");
+			result.append(groupColumnname);
+			result.append("\" order by \"");
+			result.append(groupColumnname);
+			result.append("\"");
+		}
+		return result.toString();
 	}
 
 }
@@ -156,17 +156,18 @@ public final class InitialSet<E> implements Set<E> {
 
 	@Override
 	public boolean addAll(final Collection<? extends E> c) {
-		if (this.ltmSet == null) {
-			boolean result = false;
-			if (c != null) {
-				for (final E object : c) {
-					result |= add(object);
-				}
+		boolean result = false;
+		if (this.ltmSet == null && c != null) {
+			// the first element creates the set
+			for (final Iterator<? extends E> it = c.iterator(); this.ltmSet == null && it.hasNext();) {
+				result |= add(it.next());
 			}
+		}
+		if (this.ltmSet == null) {
+			this.dataPH.isValid();
 			return result;
-		} else {
-			return this.ltmSet.addAll(c);
 		}
+		return this.ltmSet.addAll(c) || result;
 	}
 
 	@Override
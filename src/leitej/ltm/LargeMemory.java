@@ -17,6 +17,8 @@
 package leitej.ltm;
 
 import java.io.Closeable;
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
 import java.sql.SQLException;
 
 import leitej.Constant;
@@ -27,7 +29,9 @@ import leitej.exception.ObjectPoolLtException;
 import leitej.exception.SeppukuLtRtException;
 import leitej.log.Logger;
 import leitej.util.DateUtil;
+import leitej.util.HexaUtil;
 import leitej.util.data.BigBinary;
+import leitej.util.stream.FileAccessEnum;
 import leitej.util.stream.RandomAccessBinary;
 
 /**
@@ -40,11 +44,39 @@ public final class LargeMemory extends BigBinary implements RandomAccessBinary,
 
 	private static final DataMemoryPool MEM_POOL = DataMemoryPool.getInstance();
 
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+
+	/*
+	 * Whether the sealed state is already known, otherwise it is looked up in the
+	 * tracker before the first change.
+	 */
+	private volatile boolean sealKnown;
+
 	static {
 		LargeMemoryTracker.intialize();
 	}
 
+	/*
+	 * In memory mode the large memories are kept in memory, off the heap only when
+	 * configured so; otherwise they must outlive the virtual machine in files.
+	 */
+	private static FileAccessEnum access() {
+		final FileAccessEnum result = DataMemoryPool.CONFIG.getLargeMemoryAccess();
+		if (DataMemoryPool.IN_MEMORY) {
+			return (FileAccessEnum.DIRECT_MEMORY.equals(result)) ? FileAccessEnum.DIRECT_MEMORY : FileAccessEnum.MEMORY;
+		}
+		if (result == null || FileAccessEnum.MEMORY.equals(result) || FileAccessEnum.DIRECT_MEMORY.equals(result)) {
+			return FileAccessEnum.CHANNEL;
+		}
+		return result;
+	}
+
 	static boolean eraseAll() {
+		if (DataMemoryPool.IN_MEMORY) {
+			BigBinary.cleanMemories(Constant.LTM_STREAM_DIR);
+			LargeMemoryTracker.intialize();
+			return true;
+		}
 		final boolean result = BigBinary.clean(Constant.LTM_STREAM_DIR);
 		if (!result) {
 			throw new SeppukuLtRtException(
@@ -56,7 +88,8 @@ public final class LargeMemory extends BigBinary implements RandomAccessBinary,
 	}
 
 	public LargeMemory() throws LtmLtRtException {
-		super(Constant.LTM_STREAM_DIR, DateUtil.generateUniqueNumberPerJVM());
+		super(Constant.LTM_STREAM_DIR, DateUtil.generateUniqueNumberPerJVM(), access());
+		this.sealKnown = true;
 		LOG.debug("#0", this);
 		DataMemoryConnection conn = null;
 		try {
@@ -75,7 +108,80 @@ public final class LargeMemory extends BigBinary implements RandomAccessBinary,
 	}
 
 	LargeMemory(final long id) {
-		super(Constant.LTM_STREAM_DIR, id);
+		super(Constant.LTM_STREAM_DIR, id, access());
+	}
+
+	/**
+	 * Refuses from now on any change to the content.<br/>
+	 * With large memory deduplication configured, when the same content is
+	 * already stored the large memory returned is the stored one and this one is
+	 * deleted, so only the returned one should be used from then on.<br/>
+	 * To share the content, seal before the large memory is set to any record.
+	 *
+	 * @return the large memory to use
+	 * @throws LtmLtRtException if an error occurs
+	 */
+	public LargeMemory seal() throws LtmLtRtException {
+		setReadOnly();
+		DataMemoryConnection conn = null;
+		try {
+			open();
+			final String digest;
+			if (DataMemoryPool.CONFIG.isLargeMemoryDedup()) {
+				digest = HexaUtil.toHex(digest(DIGEST_ALGORITHM));
+			} else {
+				digest = null;
+			}
+			final LargeMemory result;
+			try {
+				conn = MEM_POOL.poll();
+				result = conn.sealLargeMemory(this, digest, length());
+			} finally {
+				if (conn != null) {
+					MEM_POOL.offer(conn);
+				}
+			}
+			if (result == this) {
+				return this;
+			}
+			LOG.debug("#0 same content as #1", getId(), result.getId());
+			delete();
+			result.setReadOnly();
+			result.open();
+			return result;
+		} catch (ClosedLtRtException | IllegalArgumentException | InterruptedException | ObjectPoolLtException
+				| SQLException | NoSuchAlgorithmException | IOException e) {
+			throw new LtmLtRtException(e);
+		}
+	}
+
+	/**
+	 * A large memory sealed before is read only also when loaded again.
+	 *
+	 * @throws LtmLtRtException if an error occurs looking up the sealed state
+	 */
+	@Override
+	public boolean isReadOnly() throws LtmLtRtException {
+		if (!this.sealKnown && !super.isReadOnly()) {
+			DataMemoryConnection conn = null;
+			try {
+				try {
+					conn = MEM_POOL.poll();
+					if (conn.isLargeMemorySealed(getId())) {
+						setReadOnly();
+					}
+				} finally {
+					if (conn != null) {
+						MEM_POOL.offer(conn);
+					}
+				}
+			} catch (ClosedLtRtException | IllegalArgumentException | InterruptedException | ObjectPoolLtException
+					| SQLException e) {
+				throw new LtmLtRtException(e);
+			}
+			this.sealKnown = true;
+		}
+		return super.isReadOnly();
 	}
 
 	@Override
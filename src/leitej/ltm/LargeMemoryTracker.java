@@ -98,19 +98,58 @@ final class LargeMemoryTracker {
 	private static final String SELECT_REL_DEL = "select " + COLUMN_LM_ID_QT + " from " + TABLE_NAME + " group by "
 			+ COLUMN_LM_ID_QT + " having sum(" + COLUMN_LM_REL_QT + ") < 1";
 
+	private static final String SELECT_REL_DEL_AFTER = "select " + COLUMN_LM_ID_QT + " from " + TABLE_NAME + " where "
+			+ COLUMN_LM_ID_QT + " > ? group by " + COLUMN_LM_ID_QT + " having sum(" + COLUMN_LM_REL_QT
+			+ ") < 1 order by " + COLUMN_LM_ID_QT + " limit ";
+
 	private static final String DELETE_REL = "delete from " + TABLE_NAME + " where " + COLUMN_LM_ID_QT + " = ?";
 
+	private static final String SELECT_REL_SUM = "select sum(" + COLUMN_LM_REL_QT + ") from " + TABLE_NAME + " where "
+			+ COLUMN_LM_ID_QT + " = ?";
+
+	private static final String CONTENT_TABLE_NAME = SCHEMA_QT + ".\"__large_memory_content__\"";
+	private static final String COLUMN_DIGEST_QT = "\"digest\"";
+	private static final String COLUMN_LM_LENGTH_QT = "\"lm_length\"";
+
+	private static final String CREATE_CONTENT_TABLE = "create table if not exists " + CONTENT_TABLE_NAME + " (      "
+			+ COLUMN_DIGEST_QT + " " + HsqldbUtil.getHsqlType(Types.VARCHAR) + ",                                     "
+			+ COLUMN_LM_LENGTH_QT + " " + HsqldbUtil.getHsqlType(Types.BIGINT) + ",                                   "
+			+ COLUMN_LM_ID_QT + " " + HsqldbUtil.getHsqlType(Types.BIGINT) + "                                       )";
+
+	private static final String CREATE_CONTENT_INDEX_1 = "create unique index if not exists \"content_ind1\" on "
+			+ CONTENT_TABLE_NAME + " (" + COLUMN_DIGEST_QT + ", " + COLUMN_LM_LENGTH_QT + ")";
+
+	private static final String CREATE_CONTENT_INDEX_2 = "create index if not exists \"content_ind2\" on "
+			+ CONTENT_TABLE_NAME + " (" + COLUMN_LM_ID_QT + ")";
+
+	private static final String SELECT_CONTENT = "select " + COLUMN_LM_ID_QT + " from " + CONTENT_TABLE_NAME + " where "
+			+ COLUMN_DIGEST_QT + " = ? and " + COLUMN_LM_LENGTH_QT + " = ?";
+
+	private static final String SELECT_SEALED = "select 1 from " + CONTENT_TABLE_NAME + " where " + COLUMN_LM_ID_QT
+			+ " = ?";
+
+	private static final String INSERT_CONTENT = "insert into " + CONTENT_TABLE_NAME + " values (?, ?, ?)";
+
+	private static final String DELETE_CONTENT = "delete from " + CONTENT_TABLE_NAME + " where " + COLUMN_LM_ID_QT
+			+ " = ?";
+
 	private static final Map<String, String> LTM_SET_CLEAR = new HashMap<>();
 
+	private static volatile boolean INITIALIZED = false;
+	private static long PURGE_CURSOR = Long.MIN_VALUE;
+
 	static void intialize() {
-		LOG.trace("mkdirs: #0", Constant.LTM_STREAM_DIR);
-		Constant.LTM_STREAM_DIR.mkdirs();
+		if (!DataMemoryPool.IN_MEMORY) {
+			LOG.trace("mkdirs: #0", Constant.LTM_STREAM_DIR);
+			Constant.LTM_STREAM_DIR.mkdirs();
+		}
 		Connection conn = null;
 		try {
 			try {
 				conn = HsqldbUtil.newConnection();
 				createTable(conn);
 				deleteNoRel(conn);
+				INITIALIZED = true;
 			} finally {
 				if (conn != null) {
 					conn.close();
@@ -146,6 +185,18 @@ final class LargeMemoryTracker {
 		LOG.trace("CREATE_INDEX_5: #0", CREATE_INDEX_5);
 		stt.execute(CREATE_INDEX_5);
 		stt.close();
+		stt = conn.createStatement();
+		LOG.trace("CREATE_CONTENT_TABLE: #0", CREATE_CONTENT_TABLE);
+		stt.execute(CREATE_CONTENT_TABLE);
+		stt.close();
+		stt = conn.createStatement();
+		LOG.trace("CREATE_CONTENT_INDEX_1: #0", CREATE_CONTENT_INDEX_1);
+		stt.execute(CREATE_CONTENT_INDEX_1);
+		stt.close();
+		stt = conn.createStatement();
+		LOG.trace("CREATE_CONTENT_INDEX_2: #0", CREATE_CONTENT_INDEX_2);
+		stt.execute(CREATE_CONTENT_INDEX_2);
+		stt.close();
 		conn.commit();
 	}
 
@@ -156,21 +207,8 @@ final class LargeMemoryTracker {
 		LOG.trace("SELECT_REL_DEL: #0", SELECT_REL_DEL);
 		if (stt.execute(SELECT_REL_DEL)) {
 			final ResultSet rs = stt.getResultSet();
-			long lmId;
-			PreparedStatement delPStt;
-			boolean ioDel;
 			while (rs.next()) {
-				lmId = rs.getLong(COLUMN_LM_ID);
-				LOG.debug("deleting large memory id: #0", lmId);
-				ioDel = (new LargeMemory(lmId)).delete();
-				if (!ioDel) {
-					LOG.warn("FAIL delete large memory: #0: #1", Constant.LTM_STREAM_DIR, lmId);
-				} else {
-					delPStt = conn.prepareStatement(DELETE_REL);
-					delPStt.setLong(1, lmId);
-					delPStt.executeUpdate();
-					delPStt.close();
-				}
+				deleteLargeMemory(conn, rs.getLong(COLUMN_LM_ID));
 			}
 			rs.close();
 			conn.commit();
@@ -180,6 +218,81 @@ final class LargeMemoryTracker {
 		stt.close();
 	}
 
+	/*
+	 * Deletes up to max large memories without relations and not in use by this
+	 * JVM, continuing after the last one visited by the previous call.
+	 * Returns the number deleted.
+	 * The relations are read again after the in use check, as a relation is
+	 * committed before the large memory it refers stops being in use, and may
+	 * have been committed after the candidates were selected.
+	 */
+	static synchronized int purgeNoRel(final int max) throws SQLException, IOException {
+		if (!INITIALIZED) {
+			return 0;
+		}
+		int result = 0;
+		int visited = 0;
+		Connection conn = null;
+		try {
+			conn = HsqldbUtil.newConnection();
+			final PreparedStatement pStt = conn.prepareStatement(SELECT_REL_DEL_AFTER + max);
+			pStt.setLong(1, PURGE_CURSOR);
+			final ResultSet rs = pStt.executeQuery();
+			long lmId;
+			while (rs.next()) {
+				visited++;
+				lmId = rs.getLong(COLUMN_LM_ID);
+				PURGE_CURSOR = lmId;
+				if (DataMemoryUtil.isLargeMemoryInUse(lmId)) {
+					LOG.trace("in use: #0", lmId);
+				} else if (isReferenced(conn, lmId)) {
+					LOG.trace("referenced since selected: #0", lmId);
+				} else if (deleteLargeMemory(conn, lmId)) {
+					result++;
+				}
+			}
+			rs.close();
+			pStt.close();
+			conn.commit();
+		} finally {
+			if (conn != null) {
+				conn.close();
+			}
+		}
+		if (visited < max) {
+			PURGE_CURSOR = Long.MIN_VALUE;
+		}
+		LOG.trace("visited: #0, deleted: #1", visited, result);
+		return result;
+	}
+
+	private static boolean isReferenced(final Connection conn, final long lmId) throws SQLException {
+		final PreparedStatement pStt = conn.prepareStatement(SELECT_REL_SUM);
+		pStt.setLong(1, lmId);
+		final ResultSet rs = pStt.executeQuery();
+		final boolean result = rs.next() && rs.getLong(1) > 0;
+		rs.close();
+		pStt.close();
+		return result;
+	}
+
+	private static boolean deleteLargeMemory(final Connection conn, final long lmId) throws SQLException, IOException {
+		LOG.debug("deleting large memory id: #0", lmId);
+		if (!(new LargeMemory(lmId)).delete()) {
+			LOG.warn("FAIL delete large memory: #0: #1", Constant.LTM_STREAM_DIR, lmId);
+			return false;
+		}
+		PreparedStatement delPStt = conn.prepareStatement(DELETE_REL);
+		delPStt.setLong(1, lmId);
+		delPStt.executeUpdate();
+		delPStt.close();
+		delPStt = conn.prepareStatement(DELETE_CONTENT);
+		delPStt.setLong(1, lmId);
+		delPStt.executeUpdate();
+		delPStt.close();
+		return true;
+	}
+
 	static void init(final Connection conn, final LargeMemory largeMemory) throws SQLException {
 		final PreparedStatement pStt = conn.prepareStatement(INSERT_NEW);
 		pStt.setLong(1, largeMemory.getId());
@@ -188,6 +301,82 @@ final class LargeMemoryTracker {
 		// do not commit
 	}
 
+	static boolean isSealed(final Connection conn, final long lmId) throws SQLException {
+		final PreparedStatement pStt = conn.prepareStatement(SELECT_SEALED);
+		pStt.setLong(1, lmId);
+		final ResultSet rs = pStt.executeQuery();
+		final boolean result = rs.next();
+		rs.close();
+		pStt.close();
+		// do not commit
+		return result;
+	}
+
+	private static void insertContent(final Connection conn, final String digest, final long length, final long lmId)
+			throws SQLException {
+		final PreparedStatement pStt = conn.prepareStatement(INSERT_CONTENT);
+		pStt.setString(1, digest);
+		pStt.setLong(2, length);
+		pStt.setLong(3, lmId);
+		pStt.executeUpdate();
+		pStt.close();
+		// do not commit
+	}
+
+	/*
+	 * Registers the content of the large memory by its digest and returns the
+	 * large memory to use: the one already stored with the same content, or the
+	 * one given if its content is new or it is already referenced.
+	 * When other is returned, the relations of the one given are removed, so its
+	 * file can be deleted.
+	 * Without digest (no deduplication) the large memory is only registered as
+	 * sealed; the content row of an id is what keeps it read only once loaded
+	 * again.
+	 * Commits, so two large memories with the same content are never both new.
+	 */
+	static synchronized LargeMemory seal(final Connection conn, final LargeMemory largeMemory, final String digest,
+			final long length) throws SQLException {
+		final long lmId = largeMemory.getId();
+		long result = lmId;
+		boolean found = false;
+		PreparedStatement pStt;
+		ResultSet rs;
+		if (digest != null) {
+			pStt = conn.prepareStatement(SELECT_CONTENT);
+			pStt.setString(1, digest);
+			pStt.setLong(2, length);
+			rs = pStt.executeQuery();
+			if (rs.next()) {
+				result = rs.getLong(1);
+				found = true;
+			}
+			rs.close();
+			pStt.close();
+		}
+		if (!found) {
+			if (!isSealed(conn, lmId)) {
+				insertContent(conn, digest, length, lmId);
+			}
+		} else if (result != lmId) {
+			if (isReferenced(conn, lmId)) {
+				LOG.debug("duplicated large memory already referenced: #0", lmId);
+				result = lmId;
+				if (!isSealed(conn, lmId)) {
+					// sealed apart from the stored content, as its digest is already taken
+					insertContent(conn, null, length, lmId);
+				}
+			} else {
+				pStt = conn.prepareStatement(DELETE_REL);
+				pStt.setLong(1, lmId);
+				pStt.executeUpdate();
+				pStt.close();
+			}
+		}
+		conn.commit();
+		LOG.trace("#0: #1", lmId, result);
+		return (result == lmId) ? largeMemory : DataMemoryUtil.getLargeMemory(Long.valueOf(result));
+	}
+
 	static <T extends LtmObjectModelling> void add(final Connection conn, final Class<T> ltmClass, final long ltmId,
 			final LargeMemory largeMemory) throws SQLException {
 		// check if already has line
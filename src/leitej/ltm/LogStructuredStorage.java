@@ -0,0 +1,719 @@
+/*******************************************************************************
+ * Copyright Julio Leite
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as
+ * published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package leitej.ltm;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+import leitej.Constant;
+import leitej.exception.IllegalStateLtRtException;
+import leitej.exception.LtmLtRtException;
+import leitej.exception.UnsupportedDataTypeLtRtException;
+import leitej.log.Logger;
+
+/**
+ * Records kept in an append only log by class, with the position of each
+ * record in memory.<br/>
+ * Each change appends the whole record, so a fetch is one read at a known
+ * position and no SQL is parsed. The space of the replaced records is
+ * recovered by rewriting the log once most of it is no longer used.<br/>
+ * <br/>
+ * The changes are written at once, without transactions: a rollback does not
+ * undo them. As with HSQLDB, the log is not forced to the disk at each change;
+ * a record left incomplete by a crash is discarded when the log is opened.
+ *
+ * @author Julio Leite
+ *
+ */
+final class LogStructuredStorage implements StorageEngine {
+
+	private static final Logger LOG = Logger.getInstance();
+
+	private static final LogStructuredStorage INSTANCE = new LogStructuredStorage();
+
+	static LogStructuredStorage getInstance() {
+		return INSTANCE;
+	}
+
+	private final Map<String, Log> logs;
+
+	private LogStructuredStorage() {
+		this.logs = new ConcurrentHashMap<>();
+	}
+
+	private Log log(final PreparedClass pClass) {
+		Log result = this.logs.get(pClass.getTablename());
+		if (result == null) {
+			synchronized (this.logs) {
+				result = this.logs.get(pClass.getTablename());
+				if (result == null) {
+					try {
+						result = new Log(new File(Constant.LTM_LOG_DIR, pClass.getTablename()));
+					} catch (final IOException e) {
+						throw new LtmLtRtException(e);
+					}
+					this.logs.put(pClass.getTablename(), result);
+				}
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public void initialize(final PreparedClass pClass) {
+		log(pClass);
+	}
+
+	@Override
+	public long newRecord(final PreparedClass pClass) {
+		return newRecords(pClass, 1)[0];
+	}
+
+	@Override
+	public long[] newRecords(final PreparedClass pClass, final int count) {
+		try {
+			return log(pClass).append(count);
+		} catch (final IOException e) {
+			throw new LtmLtRtException(e);
+		}
+	}
+
+	@Override
+	public Object[] fetchRecord(final PreparedClass pClass, final long ltmId) {
+		try {
+			return log(pClass).read(ltmId, pClass.getColumnNameList());
+		} catch (final IOException e) {
+			throw new LtmLtRtException(e);
+		}
+	}
+
+	@Override
+	public boolean existsRecord(final PreparedClass pClass, final long ltmId) {
+		return log(pClass).contains(ltmId);
+	}
+
+	@Override
+	public void fetchRecords(final PreparedClass pClass, final Collection<Long> ids, final Map<Long, Object[]> rows) {
+		final Log log = log(pClass);
+		Object[] row;
+		try {
+			for (final Long id : ids) {
+				row = log.read(id.longValue(), pClass.getColumnNameList());
+				if (row != null) {
+					rows.put(id, row);
+				}
+			}
+		} catch (final IOException e) {
+			throw new LtmLtRtException(e);
+		}
+	}
+
+	@Override
+	public boolean updateRecord(final PreparedClass pClass, final long ltmId, final int[] columns,
+			final Object[] values) {
+		final Map<String, Object> changes = new HashMap<>();
+		for (int i = 0; i < columns.length; i++) {
+			changes.put(pClass.getColumnNameList().get(columns[i]), new Value(
+					pClass.getColumnTypeList().get(columns[i]), values[i]));
+		}
+		try {
+			return log(pClass).update(ltmId, changes);
+		} catch (final IOException e) {
+			throw new LtmLtRtException(e);
+		}
+	}
+
+	@Override
+	public boolean deleteRecord(final PreparedClass pClass, final long ltmId) {
+		try {
+			return log(pClass).delete(ltmId);
+		} catch (final IOException e) {
+			throw new LtmLtRtException(e);
+		}
+	}
+
+	@Override
+	public void eraseAll() {
+		synchronized (this.logs) {
+			for (final Log log : this.logs.values()) {
+				log.close();
+			}
+			this.logs.clear();
+			final File[] directories = Constant.LTM_LOG_DIR.listFiles();
+			if (directories != null) {
+				for (final File directory : directories) {
+					Log.erase(directory);
+				}
+			}
+		}
+		LOG.warn("eraseAll: #0", Constant.LTM_LOG_DIR);
+	}
+
+	/*
+	 * Rewrites the logs with most of the space no longer used.
+	 */
+	void compact() {
+		for (final Log log : this.logs.values()) {
+			try {
+				if (log.isToCompact()) {
+					log.compact();
+				}
+			} catch (final IOException e) {
+				LOG.error("#0", e);
+			}
+		}
+	}
+
+	/*
+	 * Value of a column with its type, to be written.
+	 */
+	private static final class Value {
+
+		private final DataMemoryType type;
+		private final Object value;
+
+		private Value(final DataMemoryType type, final Object value) {
+			this.type = type;
+			this.value = value;
+		}
+
+	}
+
+	/*
+	 * Log of the records of one class, in one file of the directory named by its
+	 * generation. Each entry is: length of the rest, crc of what follows it, id,
+	 * operation and the columns set.
+	 */
+	private static final class Log {
+
+		private static final String EXTENSION = ".log";
+		private static final String TEMPORARY_EXTENSION = ".tmp";
+		private static final byte PUT = 1;
+		private static final byte DELETE = 2;
+		private static final byte SEQUENCE = 3;
+		private static final int LENGTH_SIZE = 4;
+		private static final int HEADER_SIZE = LENGTH_SIZE + 4 + 8 + 1;
+		private static final long MIN_COMPACT_SIZE = 4 * Constant.MEGA;
+
+		private final File directory;
+		private final ReadWriteLock lock;
+		private final Map<Long, Position> index;
+		private long generation;
+		private FileChannel channel;
+		private long size;
+		private long unused;
+		private long lastId;
+
+		private Log(final File directory) throws IOException {
+			this.directory = directory;
+			this.lock = new ReentrantReadWriteLock();
+			this.index = new HashMap<>();
+			this.directory.mkdirs();
+			this.generation = 0;
+			final File[] files = this.directory.listFiles();
+			if (files == null) {
+				throw new IOException(new IllegalStateLtRtException("Not a directory: #0", this.directory));
+			}
+			for (final File file : files) {
+				if (file.getName().endsWith(EXTENSION)) {
+					this.generation = Math.max(this.generation, generation(file));
+				}
+			}
+			for (final File file : files) {
+				if (!file.equals(file(this.generation))) {
+					LOG.debug("delete: #0", file);
+					file.delete();
+				}
+			}
+			this.channel = FileChannel.open(file(this.generation).toPath(), StandardOpenOption.CREATE,
+					StandardOpenOption.READ, StandardOpenOption.WRITE);
+			this.unused = 0;
+			this.lastId = 0;
+			recover();
+			LOG.debug("#0: records: #1, size: #2, unused: #3", this.directory, this.index.size(), this.size,
+					this.unused);
+		}
+
+		private static long generation(final File file) {
+			final String name = file.getName();
+			try {
+				return Long.parseLong(name.substring(0, name.length() - EXTENSION.length()));
+			} catch (final NumberFormatException e) {
+				return 0;
+			}
+		}
+
+		private File file(final long generation) {
+			return new File(this.directory, generation + EXTENSION);
+		}
+
+		private static void erase(final File directory) {
+			final File[] files = directory.listFiles();
+			if (files != null) {
+				for (final File file : files) {
+					file.delete();
+				}
+			}
+			directory.delete();
+		}
+
+		/*
+		 * Reads the whole log to rebuild the index, the entry left incomplete by a
+		 * crash and all after it are discarded.
+		 */
+		private void recover() throws IOException {
+			final long length = this.channel.size();
+			final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			final CRC32 crc = new CRC32();
+			long position = 0;
+			int entryLength;
+			ByteBuffer entry;
+			long id;
+			byte operation;
+			Position previous;
+			while (position + HEADER_SIZE <= length) {
+				header.clear();
+				readFully(position, header);
+				entryLength = header.getInt(0);
+				if (entryLength < HEADER_SIZE - LENGTH_SIZE || position + LENGTH_SIZE + entryLength > length) {
+					break;
+				}
+				entry = ByteBuffer.allocate(entryLength - 4);
+				readFully(position + LENGTH_SIZE + 4, entry);
+				crc.reset();
+				crc.update(entry.array());
+				if ((int) crc.getValue() != header.getInt(LENGTH_SIZE)) {
+					break;
+				}
+				id = entry.getLong(0);
+				operation = entry.get(8);
+				this.lastId = Math.max(this.lastId, id);
+				previous = null;
+				if (operation == PUT) {
+					previous = this.index.put(id, new Position(position, LENGTH_SIZE + entryLength));
+				} else if (operation == DELETE) {
+					previous = this.index.remove(id);
+					this.unused += LENGTH_SIZE + entryLength;
+				} else if (operation == SEQUENCE) {
+					this.unused += LENGTH_SIZE + entryLength;
+				} else {
+					break;
+				}
+				if (previous != null) {
+					this.unused += previous.length;
+				}
+				position += LENGTH_SIZE + entryLength;
+			}
+			if (position < length) {
+				LOG.warn("#0: discarding #1 bytes after #2", this.directory, length - position, position);
+				this.channel.truncate(position);
+			}
+			this.size = position;
+		}
+
+		private void readFully(final long position, final ByteBuffer dst) throws IOException {
+			long at = position;
+			int count;
+			while (dst.hasRemaining()) {
+				count = this.channel.read(dst, at);
+				if (count < 0) {
+					throw new EOFException();
+				}
+				at += count;
+			}
+		}
+
+		private static void writeFully(final FileChannel channel, final long position, final ByteBuffer src)
+				throws IOException {
+			long at = position;
+			while (src.hasRemaining()) {
+				at += channel.write(src, at);
+			}
+		}
+
+		private static byte[] entry(final long id, final byte operation, final byte[] data) {
+			final ByteBuffer result = ByteBuffer.allocate(HEADER_SIZE + data.length);
+			result.putInt(HEADER_SIZE - LENGTH_SIZE + data.length);
+			result.putInt(0);
+			result.putLong(id);
+			result.put(operation);
+			result.put(data);
+			final CRC32 crc = new CRC32();
+			crc.update(result.array(), LENGTH_SIZE + 4, result.capacity() - LENGTH_SIZE - 4);
+			result.putInt(LENGTH_SIZE, (int) crc.getValue());
+			return result.array();
+		}
+
+		/*
+		 * Under the write lock.
+		 */
+		private void write(final long id, final byte operation, final byte[] data) throws IOException {
+			final byte[] entry = entry(id, operation, data);
+			writeFully(this.channel, this.size, ByteBuffer.wrap(entry));
+			final Position previous;
+			if (operation == PUT) {
+				previous = this.index.put(id, new Position(this.size, entry.length));
+			} else {
+				previous = this.index.remove(id);
+				this.unused += entry.length;
+			}
+			if (previous != null) {
+				this.unused += previous.length;
+			}
+			this.size += entry.length;
+		}
+
+		private long[] append(final int count) throws IOException {
+			final long[] result = new long[count];
+			final byte[] empty = encode(new HashMap<String, Object>());
+			this.lock.writeLock().lock();
+			try {
+				verifyOpen();
+				for (int i = 0; i < count; i++) {
+					result[i] = ++this.lastId;
+					write(result[i], PUT, empty);
+				}
+			} finally {
+				this.lock.writeLock().unlock();
+			}
+			return result;
+		}
+
+		/*
+		 * Under a lock. Returns the columns of the record, or null if not found.
+		 */
+		private Map<String, Object> load(final long id) throws IOException {
+			final Position entry = this.index.get(id);
+			if (entry == null) {
+				return null;
+			}
+			final ByteBuffer buffer = ByteBuffer.allocate(entry.length);
+			readFully(entry.position, buffer);
+			return decode(buffer.array(), HEADER_SIZE, entry.length - HEADER_SIZE);
+		}
+
+		private boolean contains(final long id) {
+			this.lock.readLock().lock();
+			try {
+				return this.index.containsKey(id);
+			} finally {
+				this.lock.readLock().unlock();
+			}
+		}
+
+		private Object[] read(final long id, final List<String> columnNames) throws IOException {
+			final Map<String, Object> columns;
+			this.lock.readLock().lock();
+			try {
+				verifyOpen();
+				columns = load(id);
+			} finally {
+				this.lock.readLock().unlock();
+			}
+			if (columns == null) {
+				return null;
+			}
+			final Object[] result = new Object[columnNames.size()];
+			Value value;
+			for (int i = 0; i < result.length; i++) {
+				value = (Value) columns.get(columnNames.get(i));
+				if (value != null) {
+					result[i] = value.value;
+				}
+			}
+			return result;
+		}
+
+		private boolean update(final long id, final Map<String, Object> changes) throws IOException {
+			this.lock.writeLock().lock();
+			try {
+				verifyOpen();
+				final Map<String, Object> columns = load(id);
+				if (columns == null) {
+					return false;
+				}
+				for (final Map.Entry<String, Object> change : changes.entrySet()) {
+					if (((Value) change.getValue()).value == null) {
+						columns.remove(change.getKey());
+					} else {
+						columns.put(change.getKey(), change.getValue());
+					}
+				}
+				write(id, PUT, encode(columns));
+				return true;
+			} finally {
+				this.lock.writeLock().unlock();
+			}
+		}
+
+		private boolean delete(final long id) throws IOException {
+			this.lock.writeLock().lock();
+			try {
+				verifyOpen();
+				if (!this.index.containsKey(id)) {
+					return false;
+				}
+				write(id, DELETE, new byte[0]);
+				return true;
+			} finally {
+				this.lock.writeLock().unlock();
+			}
+		}
+
+		private boolean isToCompact() {
+			this.lock.readLock().lock();
+			try {
+				return this.channel != null && this.size >= MIN_COMPACT_SIZE && this.unused * 2 > this.size;
+			} finally {
+				this.lock.readLock().unlock();
+			}
+		}
+
+		/*
+		 * Writes the records in use to the next generation, that replaces this one
+		 * once complete.
+		 */
+		private void compact() throws IOException {
+			this.lock.writeLock().lock();
+			try {
+				verifyOpen();
+				final long nextGeneration = this.generation + 1;
+				final File temporary = new File(this.directory, nextGeneration + TEMPORARY_EXTENSION);
+				final Map<Long, Position> nextIndex = new HashMap<>();
+				final FileChannel next = FileChannel.open(temporary.toPath(), StandardOpenOption.CREATE,
+						StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+				final byte[] sequence = entry(this.lastId, SEQUENCE, new byte[0]);
+				long nextSize = 0;
+				try {
+					writeFully(next, nextSize, ByteBuffer.wrap(sequence));
+					nextSize += sequence.length;
+					ByteBuffer buffer;
+					for (final Map.Entry<Long, Position> record : this.index.entrySet()) {
+						buffer = ByteBuffer.allocate(record.getValue().length);
+						readFully(record.getValue().position, buffer);
+						buffer.flip();
+						writeFully(next, nextSize, buffer);
+						nextIndex.put(record.getKey(), new Position(nextSize, record.getValue().length));
+						nextSize += record.getValue().length;
+					}
+					next.force(true);
+				} catch (final IOException e) {
+					next.close();
+					temporary.delete();
+					throw e;
+				}
+				next.close();
+				if (!temporary.renameTo(file(nextGeneration))) {
+					temporary.delete();
+					throw new IOException(new IllegalStateLtRtException("Fail to rename: #0", temporary));
+				}
+				LOG.info("#0: #1 bytes compacted to #2", this.directory, this.size, nextSize);
+				this.channel.close();
+				file(this.generation).delete();
+				this.generation = nextGeneration;
+				this.channel = FileChannel.open(file(this.generation).toPath(), StandardOpenOption.READ,
+						StandardOpenOption.WRITE);
+				this.index.clear();
+				this.index.putAll(nextIndex);
+				this.size = nextSize;
+				this.unused = sequence.length;
+			} finally {
+				this.lock.writeLock().unlock();
+			}
+		}
+
+		private void verifyOpen() throws IOException {
+			if (this.channel == null) {
+				throw new IOException(new IllegalStateLtRtException("Closed: #0", this.directory));
+			}
+		}
+
+		private void close() {
+			this.lock.writeLock().lock();
+			try {
+				if (this.channel != null) {
+					this.channel.close();
+					this.channel = null;
+				}
+			} catch (final IOException e) {
+				LOG.error("#0", e);
+			} finally {
+				this.lock.writeLock().unlock();
+			}
+		}
+
+		/*
+		 * Columns set, by name, with the values of the columns changed as Value.
+		 */
+		private static byte[] encode(final Map<String, Object> columns) throws IOException {
+			final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			final DataOutputStream out = new DataOutputStream(baos);
+			out.writeShort(columns.size());
+			Value value;
+			for (final Map.Entry<String, Object> column : columns.entrySet()) {
+				out.writeUTF(column.getKey());
+				value = (Value) column.getValue();
+				out.writeByte(value.type.getCode());
+				writeValue(out, value.type, value.value);
+			}
+			out.flush();
+			return baos.toByteArray();
+		}
+
+		private static Map<String, Object> decode(final byte[] data, final int offset, final int length)
+				throws IOException {
+			final DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, offset, length));
+			final int count = in.readUnsignedShort();
+			final Map<String, Object> result = new HashMap<>(count * 2);
+			String name;
+			DataMemoryType type;
+			for (int i = 0; i < count; i++) {
+				name = in.readUTF();
+				type = DataMemoryType.fromCode(in.readUnsignedByte());
+				result.put(name, new Value(type, readValue(in, type)));
+			}
+			return result;
+		}
+
+		private static void writeValue(final DataOutputStream out, final DataMemoryType type, final Object value)
+				throws IOException {
+			switch (type) {
+			case BYTE:
+				out.writeByte(((Number) value).byteValue());
+				break;
+			case SHORT:
+				out.writeShort(((Number) value).shortValue());
+				break;
+			case INT:
+				out.writeInt(((Number) value).intValue());
+				break;
+			case LONG:
+			case DATE:
+			case LARGE_MEMORY:
+			case LONG_TERM_MEMORY:
+				out.writeLong(((Number) value).longValue());
+				break;
+			case DOUBLE:
+				out.writeDouble(((Number) value).doubleValue());
+				break;
+			case FLOAT:
+				out.writeFloat(((Number) value).floatValue());
+				break;
+			case BOOLEAN:
+				out.writeBoolean(((Boolean) value).booleanValue());
+				break;
+			case BIG_DECIMAL:
+			case ENUM:
+			case STRING:
+				final byte[] text = value.toString().getBytes(Constant.UTF8_CHARSET);
+				out.writeInt(text.length);
+				out.write(text);
+				break;
+			case BINARY:
+				final byte[] binary = (byte[]) value;
+				out.writeInt(binary.length);
+				out.write(binary);
+				break;
+			default:
+				throw new UnsupportedDataTypeLtRtException("type: #0", type);
+			}
+		}
+
+		private static Object readValue(final DataInputStream in, final DataMemoryType type) throws IOException {
+			final Object result;
+			switch (type) {
+			case BYTE:
+				result = in.readByte();
+				break;
+			case SHORT:
+				result = in.readShort();
+				break;
+			case INT:
+				result = in.readInt();
+				break;
+			case LONG:
+			case DATE:
+			case LARGE_MEMORY:
+			case LONG_TERM_MEMORY:
+				result = in.readLong();
+				break;
+			case DOUBLE:
+				result = in.readDouble();
+				break;
+			case FLOAT:
+				result = in.readFloat();
+				break;
+			case BOOLEAN:
+				result = in.readBoolean();
+				break;
+			case BIG_DECIMAL:
+				result = new BigDecimal(new String(readBytes(in), Constant.UTF8_CHARSET));
+				break;
+			case ENUM:
+			case STRING:
+				result = new String(readBytes(in), Constant.UTF8_CHARSET);
+				break;
+			case BINARY:
+				result = readBytes(in);
+				break;
+			default:
+				throw new UnsupportedDataTypeLtRtException("type: #0", type);
+			}
+			return result;
+		}
+
+		private static byte[] readBytes(final DataInputStream in) throws IOException {
+			final byte[] result = new byte[in.readInt()];
+			in.readFully(result);
+			return result;
+		}
+
+	}
+
+	/*
+	 * Position and length of the last entry of a record.
+	 */
+	private static final class Position {
+
+		private final long position;
+		private final int length;
+
+		private Position(final long position, final int length) {
+			this.position = position;
+			this.length = length;
+		}
+
+	}
+
+}
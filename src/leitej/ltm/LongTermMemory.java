@@ -16,20 +16,29 @@
 
 package leitej.ltm;
 
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import leitej.exception.ClosedLtRtException;
 import leitej.exception.IllegalArgumentLtRtException;
+import leitej.exception.IllegalStateLtRtException;
 import leitej.exception.LtmLtRtException;
 import leitej.exception.ObjectPoolLtException;
 import leitej.log.Logger;
 import leitej.util.data.AbstractDataProxy;
-import leitej.util.data.Cache;
-import leitej.util.data.CacheSoft;
+import leitej.util.data.Obfuscate;
+import leitej.util.data.ObfuscateUtil;
 
 /**
  * @author Julio Leite
@@ -41,7 +50,9 @@ public final class LongTermMemory extends AbstractDataProxy<LtmObjectModelling,
 
 	private static final Logger LOG = Logger.getInstance();
 
-	private static final Map<Class<?>, Cache<Long, LtmObjectModelling>> CACHE = new HashMap<>();
+	private static final int DEFAULT_CACHE_CAPACITY = 10000;
+
+	private static final Map<Class<?>, LtmCache> CACHE = new ConcurrentHashMap<>();
 	private static final LongTermMemory INSTANCE = new LongTermMemory();
 
 	public static LongTermMemory getInstance() {
@@ -52,13 +63,14 @@ public final class LongTermMemory extends AbstractDataProxy<LtmObjectModelling,
 		return INSTANCE.getInvocationHandler(ltm);
 	}
 
-	private static final <T extends LtmObjectModelling> Cache<Long, LtmObjectModelling> cache(final Class<T> ltmClass) {
-		Cache<Long, LtmObjectModelling> cache;
-		synchronized (CACHE) {
-			cache = CACHE.get(ltmClass);
+	private static final <T extends LtmObjectModelling> LtmCache cache(final Class<T> ltmClass) {
+		LtmCache cache = CACHE.get(ltmClass);
+		if (cache == null) {
+			final int capacity = DataMemoryPool.CONFIG.getCacheCapacity();
+			final LtmCache newCache = new LtmCache(ltmClass, ((capacity > 0) ? capacity : DEFAULT_CACHE_CAPACITY));
+			cache = CACHE.putIfAbsent(ltmClass, newCache);
 			if (cache == null) {
-				cache = new CacheSoft<>();
-				CACHE.put(ltmClass, cache);
+				cache = newCache;
 			}
 		}
 		return cache;
@@ -68,6 +80,13 @@ public final class LongTermMemory extends AbstractDataProxy<LtmObjectModelling,
 		return ltmClass.cast(cache(ltmClass).get(id));
 	}
 
+	/*
+	 * To check again under the class lock, after a miss.
+	 */
+	private static final <T extends LtmObjectModelling> T cachePeek(final Class<T> ltmClass, final long id) {
+		return ltmClass.cast(cache(ltmClass).peek(id));
+	}
+
 	private static final <T extends LtmObjectModelling> void cachePut(final Class<T> ltmClass, final T ltm) {
 		cache(ltmClass).set(ltm.getLtmId(), ltm);
 	}
@@ -76,6 +95,35 @@ public final class LongTermMemory extends AbstractDataProxy<LtmObjectModelling,
 		cache(ltmClass).remove(id);
 	}
 
+	/*
+	 * Keeps the record of the handler in the cache while it has changes not
+	 * written. Returns false if it is not the one cached.
+	 */
+	static final boolean pin(final DataProxyHandler dph) {
+		final Class<LtmObjectModelling> ltmClass = dph.getInterface();
+		final LtmObjectModelling ltm = cachePeek(ltmClass, dph.getLtmId());
+		if (ltm != null && getHandler(ltm) == dph) {
+			cache(ltmClass).pin(dph.getLtmId(), ltm);
+			return true;
+		}
+		return false;
+	}
+
+	static final void unpin(final DataProxyHandler dph) {
+		cache(dph.getInterface()).unpin(dph.getLtmId());
+	}
+
+	/*
+	 * Drops the record from the cache, without deleting it.
+	 */
+	static final void uncache(final LtmObjectModelling ltm) {
+		final DataProxyHandler dph = getHandler(ltm);
+		final Class<LtmObjectModelling> ltmClass = dph.getInterface();
+		synchronized (ltmClass) {
+			cacheDel(ltmClass, dph.getLtmId());
+		}
+	}
+
 	public static void erase() throws LtmLtRtException {
 		LOG.warn("Erasing long term memory");
 		synchronized (CACHE) {
@@ -85,7 +133,7 @@ public final class LongTermMemory extends AbstractDataProxy<LtmObjectModelling,
 				throw new LtmLtRtException(e);
 			}
 			LOG.info("Clear long term memory cache");
-			for (final Cache<Long, LtmObjectModelling> cache : CACHE.values()) {
+			for (final LtmCache cache : CACHE.values()) {
 				cache.clear();
 			}
 		}
@@ -95,11 +143,40 @@ public final class LongTermMemory extends AbstractDataProxy<LtmObjectModelling,
 		LOG.debug("new instance");
 	}
 
+	/**
+	 * Begins a transaction in the current thread.<br/>
+	 * Until commit or rollback, the changes made by this thread to the records
+	 * are only written at commit.
+	 *
+	 * @return the new active transaction
+	 * @throws IllegalStateLtRtException if the current thread already has an
+	 *                                   active transaction
+	 */
+	public LtmTransaction beginTransaction() throws IllegalStateLtRtException {
+		return LtmTransaction.begin();
+	}
+
+	/**
+	 * Opens a scope in the current thread, where the operations reuse the same
+	 * memory connection until it is closed.<br/>
+	 * The scope has to be closed by the same thread, in a try-with-resources
+	 * statement.
+	 *
+	 * @return the scope open, to close after the operations
+	 */
+	public LtmScope openScope() {
+		return LtmScope.open();
+	}
+
 	public <T extends LtmObjectModelling> T newRecord(final Class<T> ltmClass) throws LtmLtRtException {
 		try {
 			synchronized (ltmClass) {
 				final T ltm = newProxyInstance(ltmClass, new DataProxyHandler(ltmClass));
 				cachePut(ltmClass, ltm);
+				final LtmTransaction transaction = LtmTransaction.current();
+				if (transaction != null) {
+					transaction.created(ltm);
+				}
 				return ltm;
 			}
 		} catch (IllegalArgumentLtRtException | ClosedLtRtException | ObjectPoolLtException | InterruptedException
@@ -108,10 +185,106 @@ public final class LongTermMemory extends AbstractDataProxy<LtmObjectModelling,
 		}
 	}
 
+	/**
+	 * Creates several records at once, with all values unset.
+	 *
+	 * @param ltmClass long term memory class
+	 * @param count    number of records to create
+	 * @return the new records, ordered by id
+	 * @throws IllegalArgumentLtRtException if count is negative
+	 * @throws LtmLtRtException             if an error occurs writing to the
+	 *                                      memory
+	 */
+	public <T extends LtmObjectModelling> List<T> newRecords(final Class<T> ltmClass, final int count)
+			throws IllegalArgumentLtRtException, LtmLtRtException {
+		return newRecords(ltmClass, count, null);
+	}
+
+	/**
+	 * Creates several records at once.<br/>
+	 * The rows are inserted in batches and the values set by the filler are
+	 * written afterwards in a single transaction: the one active in this thread,
+	 * or one that begins and ends here. If filling fails the new records are
+	 * forgotten.<br/>
+	 * Inside an active transaction the rows are inserted in it, so they are only
+	 * seen by others after its commit and its rollback undoes them.
+	 *
+	 * @param ltmClass long term memory class
+	 * @param count    number of records to create
+	 * @param filler   sets the initial values of each record (can be null)
+	 * @return the new records, ordered by id
+	 * @throws IllegalArgumentLtRtException if count is negative
+	 * @throws LtmLtRtException             if an error occurs writing to the
+	 *                                      memory
+	 */
+	public <T extends LtmObjectModelling> List<T> newRecords(final Class<T> ltmClass, final int count,
+			final LtmRecordFiller<T> filler) throws IllegalArgumentLtRtException, LtmLtRtException {
+		if (count < 0) {
+			throw new IllegalArgumentLtRtException("count: #0", count);
+		}
+		final List<T> result = new ArrayList<>(count);
+		if (count == 0) {
+			return result;
+		}
+		final LtmTransaction active = LtmTransaction.current();
+		final List<DataProxyHandler> handlers;
+		try {
+			handlers = DataProxyHandler.newRecords(ltmClass, count, active);
+		} catch (ClosedLtRtException | ObjectPoolLtException | InterruptedException | SQLException e) {
+			throw new LtmLtRtException(e);
+		}
+		synchronized (ltmClass) {
+			T ltm;
+			for (final DataProxyHandler dph : handlers) {
+				ltm = newProxyInstance(ltmClass, dph);
+				cachePut(ltmClass, ltm);
+				result.add(ltm);
+			}
+		}
+		final LtmTransaction transaction = (active == null && filler != null) ? LtmTransaction.begin() : active;
+		if (transaction != null) {
+			final boolean enlisted = active != null && active.enlists(handlers.get(0).getPreparedClass());
+			for (final T ltm : result) {
+				if (enlisted) {
+					transaction.inserted(ltm);
+				} else {
+					transaction.created(ltm);
+				}
+			}
+		}
+		if (filler != null) {
+			boolean filled = false;
+			try {
+				for (int i = 0; i < count; i++) {
+					filler.fill(i, result.get(i));
+				}
+				if (active == null) {
+					transaction.commit();
+				}
+				filled = true;
+			} finally {
+				if (!filled) {
+					if (active == null) {
+						transaction.rollback();
+					} else {
+						for (final T ltm : result) {
+							forgets(ltm);
+						}
+					}
+				}
+			}
+		}
+		return result;
+	}
+
 	public <T extends LtmObjectModelling> T fetch(final Class<T> ltmClass, final long id) throws LtmLtRtException {
+		T ltm = cacheGet(ltmClass, id);
+		if (ltm != null) {
+			return ltm;
+		}
 		try {
 			synchronized (ltmClass) {
-				T ltm = cacheGet(ltmClass, id);
+				ltm = cachePeek(ltmClass, id);
 				if (ltm == null) {
 					ltm = newProxyInstance(ltmClass, new DataProxyHandler(ltmClass, id));
 					cachePut(ltmClass, ltm);
@@ -124,14 +297,125 @@ public final class LongTermMemory extends AbstractDataProxy<LtmObjectModelling,
 		}
 	}
 
+	/**
+	 * Fetches the record with the records referenced by the components
+	 * preloaded in the filter.
+	 *
+	 * @param ltmClass  long term memory class
+	 * @param id        id of the record
+	 * @param fetchPlan filter with the components to preload
+	 * @return the record
+	 * @throws LtmLtRtException if an error occurs reading the memory
+	 * @see LtmFilter#preload()
+	 */
+	public <T extends LtmObjectModelling> T fetch(final Class<T> ltmClass, final long id, final LtmFilter<T> fetchPlan)
+			throws LtmLtRtException {
+		final T result = fetch(ltmClass, id);
+		if (!fetchPlan.getPreloadList().isEmpty()) {
+			preload(Collections.singletonList(result), fetchPlan.getPreloadList());
+		}
+		return result;
+	}
+
+	/*
+	 * Loads to the cache the records referenced by the components of the records
+	 * given, one query by component for the ones not in the cache.
+	 */
+	<T extends LtmObjectModelling> void preload(final List<T> records, final List<String> dataNames)
+			throws LtmLtRtException {
+		Class<LtmObjectModelling> refClass;
+		Object refId;
+		final List<DataProxyHandler> handlers = new ArrayList<>(records.size());
+		final Map<Long, LtmObjectModelling> loaded = new HashMap<>();
+		final Set<Long> toLoad = new LinkedHashSet<>();
+		for (final T record : records) {
+			handlers.add(getInvocationHandler(record));
+		}
+		for (final String dataName : dataNames) {
+			refClass = null;
+			loaded.clear();
+			toLoad.clear();
+			for (final DataProxyHandler handler : handlers) {
+				refClass = handler.getPreparedClass().getLongTermMemoryClass(dataName);
+				refId = handler.getData(dataName);
+				if (refId != null && cachePeek(refClass, Long.class.cast(refId).longValue()) == null) {
+					toLoad.add(Long.class.cast(refId));
+				}
+			}
+			if (!toLoad.isEmpty()) {
+				LOG.trace("#0: #1", dataName, toLoad.size());
+				try {
+					DataMemoryConnection conn = null;
+					try {
+						conn = DataMemoryPool.getInstance().poll();
+						conn.fetchRecords(refClass, toLoad, loaded);
+					} finally {
+						if (conn != null) {
+							DataMemoryPool.getInstance().offer(conn);
+						}
+					}
+				} catch (ObjectPoolLtException | InterruptedException | SQLException e) {
+					throw new LtmLtRtException(e);
+				}
+			}
+		}
+	}
+
+	<T extends LtmObjectModelling> T fetch(final Class<T> ltmClass, final long id, final ResultSet rSet)
+			throws SQLException {
+		T ltm = cacheGet(ltmClass, id);
+		if (ltm != null) {
+			return ltm;
+		}
+		try {
+			synchronized (ltmClass) {
+				ltm = cachePeek(ltmClass, id);
+				if (ltm == null) {
+					ltm = newProxyInstance(ltmClass, new DataProxyHandler(ltmClass, rSet));
+					cachePut(ltmClass, ltm);
+				}
+				return ltm;
+			}
+		} catch (final IllegalArgumentLtRtException e) {
+			throw new LtmLtRtException(e);
+		}
+	}
+
+	<T extends LtmObjectModelling> T fetch(final Class<T> ltmClass, final long id, final Object[] row) {
+		T ltm = cacheGet(ltmClass, id);
+		if (ltm != null) {
+			return ltm;
+		}
+		try {
+			synchronized (ltmClass) {
+				ltm = cachePeek(ltmClass, id);
+				if (ltm == null) {
+					ltm = newProxyInstance(ltmClass, new DataProxyHandler(ltmClass, id, row));
+					cachePut(ltmClass, ltm);
+				}
+				return ltm;
+			}
+		} catch (final IllegalArgumentLtRtException e) {
+			throw new LtmLtRtException(e);
+		}
+	}
+
 	public <T extends LtmObjectModelling> void forgets(final T record) throws LtmLtRtException {
 		final DataProxyHandler dph = getInvocationHandler(record);
 		final Class<T> ltmClass = dph.getInterface();
 		final long id = record.getLtmId();
 		try {
 			synchronized (ltmClass) {
-				DataProxyHandler.delete(dph.getPreparedClass(), id);
+				final LtmTransaction transaction = LtmTransaction.current();
+				if (transaction != null && transaction.isInserted(record)) {
+					transaction.connection().removeRecord(dph.getPreparedClass(), id);
+				} else {
+					DataProxyHandler.delete(dph.getPreparedClass(), id);
+				}
 				cacheDel(ltmClass, id);
+				if (transaction != null) {
+					transaction.forgotten(dph, record);
+				}
 			}
 		} catch (ClosedLtRtException | ObjectPoolLtException | IllegalArgumentException | InterruptedException
 				| SQLException e) {
@@ -139,15 +423,289 @@ public final class LongTermMemory extends AbstractDataProxy<LtmObjectModelling,
 		}
 	}
 
+	/**
+	 *
+	 * @return milliseconds taken at start listing the tables of the memory
+	 */
+	public long getSchemaBootstrapMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(HsqldbUtil.getBootstrapNanos());
+	}
+
+	/**
+	 *
+	 * @return milliseconds taken reading the columns and indexes of the tables,
+	 *         each on the first use of its class, since the start
+	 */
+	public long getSchemaLoadMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(HsqldbUtil.getTableLoadNanos());
+	}
+
+	/**
+	 *
+	 * @return number of statements reused from the connections cache since the
+	 *         start
+	 */
+	public long getStatementCacheHits() {
+		return PreparedStatementCache.getTotalHits();
+	}
+
+	/**
+	 *
+	 * @return number of statements prepared because they were not in the
+	 *         connections cache since the start
+	 */
+	public long getStatementCacheMisses() {
+		return PreparedStatementCache.getTotalMisses();
+	}
+
+	/**
+	 *
+	 * @return usage of the memory connections pool since the start
+	 */
+	public LtmPoolStats getPoolStats() {
+		return DataMemoryPool.getInstance().getStats();
+	}
+
+	/**
+	 *
+	 * @param ltmClass long term memory class
+	 * @return usage of the cache of the class since the start
+	 */
+	public <T extends LtmObjectModelling> LtmCacheStats getCacheStats(final Class<T> ltmClass) {
+		return cache(ltmClass).getStats();
+	}
+
 	public <T extends LtmObjectModelling> Iterator<T> search(final LtmFilter<T> ltmFilter) throws LtmLtRtException {
 		Iterator<T> result;
 		if (HsqldbUtil.exists(HsqldbUtil.getTableName(ltmFilter.getLTMClass()))) {
-			result = new SearchIteractor<>(ltmFilter.getLTMClass(), ltmFilter.getQueryFilter(), ltmFilter.getParams(),
-					ltmFilter.getTypes(), ltmFilter.isDescOrder());
+			result = new SearchIteractor<>(ltmFilter);
 		} else {
 			result = Collections.emptyIterator();
 		}
 		return result;
 	}
 
+	/**
+	 * Searches only the components selected in the filter, without loading the
+	 * records.<br/>
+	 * Each row has the values in the order they were selected; the components
+	 * that are records of long term memory are given by their id.
+	 *
+	 * @param ltmFilter filter with the components to project selected
+	 * @return iterator of the rows
+	 * @throws IllegalStateLtRtException if no component was selected
+	 * @throws LtmLtRtException          if an error occurs reading the memory
+	 * @see LtmFilter#select()
+	 */
+	public <T extends LtmObjectModelling> Iterator<Object[]> searchProjection(final LtmFilter<T> ltmFilter)
+			throws IllegalStateLtRtException, LtmLtRtException {
+		if (ltmFilter.getSelectList().isEmpty()) {
+			throw new IllegalStateLtRtException("No component selected to project");
+		}
+		Iterator<Object[]> result;
+		if (HsqldbUtil.exists(HsqldbUtil.getTableName(ltmFilter.getLTMClass()))) {
+			result = new ProjectionIteractor<>(ltmFilter);
+		} else {
+			result = Collections.emptyIterator();
+		}
+		return result;
+	}
+
+	/**
+	 * Counts the records that match the filter, in a single query.
+	 *
+	 * @param ltmFilter filter of the records
+	 * @return number of records
+	 * @throws LtmLtRtException if an error occurs reading the memory
+	 */
+	public <T extends LtmObjectModelling> long count(final LtmFilter<T> ltmFilter) throws LtmLtRtException {
+		final List<Object[]> rows = aggregate(ltmFilter, null, false);
+		return (rows.isEmpty()) ? 0 : Long.class.cast(rows.get(0)[0]).longValue();
+	}
+
+	/**
+	 * Aggregates the component selected in the filter over the records that
+	 * match it, in a single query. Dates are aggregated as milliseconds.
+	 *
+	 * @param ltmFilter filter of the records, with one numeric component
+	 *                  selected
+	 * @param function  aggregate function
+	 * @return result of the function, <code>Double.NaN</code> if there is no
+	 *         value to aggregate (sum gives 0)
+	 * @throws IllegalStateLtRtException if the component selected is invalid
+	 * @throws LtmLtRtException          if an error occurs reading the memory
+	 * @see LtmFilter#select()
+	 */
+	public <T extends LtmObjectModelling> double aggregate(final LtmFilter<T> ltmFilter,
+			final LtmFilter.AGGREGATE function) throws IllegalStateLtRtException, LtmLtRtException {
+		if (function == null) {
+			throw new NullPointerException();
+		}
+		return aggregateValue(function, aggregateExact(ltmFilter, function));
+	}
+
+	/**
+	 * Aggregates the component selected in the filter over the records that
+	 * match it, in a single query, without losing precision.<br/>
+	 * The result is read with the type of the component: <code>Long</code> for
+	 * integer components and dates, <code>BigDecimal</code> for decimals and
+	 * <code>Double</code> for the others. Sums of integer components and dates
+	 * are <code>BigDecimal</code>, as they may not fit a long. Averages are
+	 * always <code>Double</code>.
+	 *
+	 * @param ltmFilter filter of the records, with one numeric component
+	 *                  selected
+	 * @param function  aggregate function
+	 * @return result of the function, null if there is no value to aggregate
+	 * @throws IllegalStateLtRtException if the component selected is invalid
+	 * @throws LtmLtRtException          if an error occurs reading the memory
+	 * @see LtmFilter#select()
+	 */
+	public <T extends LtmObjectModelling> Number aggregateExact(final LtmFilter<T> ltmFilter,
+			final LtmFilter.AGGREGATE function) throws IllegalStateLtRtException, LtmLtRtException {
+		if (function == null) {
+			throw new NullPointerException();
+		}
+		final List<Object[]> rows = aggregate(ltmFilter, function, false);
+		return (rows.isEmpty()) ? null : Number.class.cast(rows.get(0)[0]);
+	}
+
+	/**
+	 * Counts the records that match the filter by each value of the component
+	 * grouped, in a single query.
+	 *
+	 * @param ltmFilter filter of the records, with the component to group by
+	 * @return count by value, ordered by value
+	 * @throws IllegalStateLtRtException if no component was grouped
+	 * @throws LtmLtRtException          if an error occurs reading the memory
+	 * @see LtmFilter#groupBy()
+	 */
+	public <T extends LtmObjectModelling> Map<Object, Long> countGroupBy(final LtmFilter<T> ltmFilter)
+			throws IllegalStateLtRtException, LtmLtRtException {
+		final Map<Object, Long> result = new LinkedHashMap<>();
+		for (final Object[] row : aggregate(ltmFilter, null, true)) {
+			result.put(row[0], Long.class.cast(row[1]));
+		}
+		return result;
+	}
+
+	/**
+	 * Aggregates the component selected in the filter by each value of the
+	 * component grouped, in a single query. Dates are aggregated as
+	 * milliseconds.
+	 *
+	 * @param ltmFilter filter of the records, with one numeric component
+	 *                  selected and the component to group by
+	 * @param function  aggregate function
+	 * @return result of the function by value, ordered by value
+	 * @throws IllegalStateLtRtException if the components selected or grouped
+	 *                                   are invalid
+	 * @throws LtmLtRtException          if an error occurs reading the memory
+	 * @see LtmFilter#select()
+	 * @see LtmFilter#groupBy()
+	 */
+	public <T extends LtmObjectModelling> Map<Object, Double> aggregateGroupBy(final LtmFilter<T> ltmFilter,
+			final LtmFilter.AGGREGATE function) throws IllegalStateLtRtException, LtmLtRtException {
+		if (function == null) {
+			throw new NullPointerException();
+		}
+		final Map<Object, Double> result = new LinkedHashMap<>();
+		for (final Object[] row : aggregate(ltmFilter, function, true)) {
+			result.put(row[0], Double.valueOf(aggregateValue(function, row[1])));
+		}
+		return result;
+	}
+
+	private static double aggregateValue(final LtmFilter.AGGREGATE function, final Object value) {
+		if (value == null) {
+			return (LtmFilter.AGGREGATE.SUM.equals(function)) ? 0 : Double.NaN;
+		}
+		return Number.class.cast(value).doubleValue();
+	}
+
+	/*
+	 * Type to read the result of the function over the column. The sum of a
+	 * bigint column is a decimal, that can exceed a long.
+	 */
+	private static DataMemoryType aggregateType(final LtmFilter.AGGREGATE function, final DataMemoryType columnType) {
+		final DataMemoryType result;
+		if (LtmFilter.AGGREGATE.AVG.equals(function)) {
+			result = DataMemoryType.DOUBLE;
+		} else {
+			switch (columnType) {
+			case BIG_DECIMAL:
+				result = DataMemoryType.BIG_DECIMAL;
+				break;
+			case DOUBLE:
+			case FLOAT:
+				result = DataMemoryType.DOUBLE;
+				break;
+			default:
+				if (LtmFilter.AGGREGATE.SUM.equals(function)) {
+					result = DataMemoryType.BIG_DECIMAL;
+				} else {
+					result = DataMemoryType.LONG;
+				}
+				break;
+			}
+		}
+		return result;
+	}
+
+	private static <T extends LtmObjectModelling> List<Object[]> aggregate(final LtmFilter<T> ltmFilter,
+			final LtmFilter.AGGREGATE function, final boolean grouped)
+			throws IllegalStateLtRtException, LtmLtRtException {
+		String column = null;
+		DataMemoryType valueType = DataMemoryType.LONG;
+		if (function != null) {
+			if (ltmFilter.getSelectList().size() != 1) {
+				throw new IllegalStateLtRtException("Select one component to aggregate");
+			}
+			final String dataName = ltmFilter.getSelectList().get(0);
+			final DataMemoryType type = DataMemoryType.getDataMemoryType(ltmFilter.getReturnClass(dataName));
+			if (!type.isNumber() || ltmFilter.getObfuscate(dataName) != null) {
+				throw new IllegalStateLtRtException("Invalid component to aggregate: #0", dataName);
+			}
+			column = ltmFilter.getColumn(dataName);
+			valueType = aggregateType(function, type);
+		}
+		final String groupBy = ltmFilter.getGroupBy();
+		if (grouped && groupBy == null) {
+			throw new IllegalStateLtRtException("No component grouped");
+		}
+		final String groupColumn = (grouped) ? ltmFilter.getColumn(groupBy) : null;
+		final Class<?> groupClass = (grouped) ? ltmFilter.getReturnClass(groupBy) : null;
+		final List<Object[]> result = new ArrayList<>();
+		final String tablename = HsqldbUtil.getTableName(ltmFilter.getLTMClass());
+		if (HsqldbUtil.exists(tablename)) {
+			final String query = HsqldbUtil.getStatementAggregate(tablename,
+					((function == null) ? "count" : function.name().toLowerCase()), column, groupColumn,
+					ltmFilter.getQueryFilter());
+			try {
+				DataMemoryConnection conn = null;
+				try {
+					conn = DataMemoryPool.getInstance().poll();
+					conn.fetchAggregate(ltmFilter.getLTMClass(), query, ltmFilter.getTypes(), ltmFilter.getParams(),
+							groupColumn, ((grouped) ? DataMemoryType.getDataMemoryType(groupClass) : null), groupClass,
+							valueType, result);
+				} finally {
+					if (conn != null) {
+						DataMemoryPool.getInstance().offer(conn);
+					}
+				}
+			} catch (ClosedLtRtException | ObjectPoolLtException | InterruptedException | SQLException e) {
+				throw new LtmLtRtException(e);
+			}
+			final Obfuscate obfuscate = (grouped) ? ltmFilter.getObfuscate(groupBy) : null;
+			if (obfuscate != null) {
+				for (final Object[] row : result) {
+					if (row[0] != null) {
+						row[0] = ObfuscateUtil.unHide(obfuscate, row[0]);
+					}
+				}
+			}
+		}
+		return result;
+	}
+
 }
@@ -0,0 +1,244 @@
+/*******************************************************************************
+ * Copyright Julio Leite
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as
+ * published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package leitej.ltm;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records of one long term memory class, split in segments locked
+ * independently.<br/>
+ * Each segment keeps its most recently used records up to a capacity; the
+ * evicted ones are only weakly referenced, so a record still in use is never
+ * loaded twice.<br/>
+ * Records with changes not yet written are pinned, staying strongly referenced
+ * until unpinned, so they are not loaded again without those changes.
+ *
+ * @author Julio Leite
+ *
+ */
+final class LtmCache {
+
+	private static final int SEGMENTS = 16;
+
+	private final Class<?> ltmClass;
+	private final Segment[] segments;
+	private final AtomicLong hits;
+	private final AtomicLong misses;
+	private final AtomicLong evictions;
+
+	LtmCache(final Class<?> ltmClass, final int capacity) {
+		this.ltmClass = ltmClass;
+		this.segments = new Segment[SEGMENTS];
+		final int segmentCapacity = Math.max(1, (capacity + SEGMENTS - 1) / SEGMENTS);
+		for (int i = 0; i < SEGMENTS; i++) {
+			this.segments[i] = new Segment(segmentCapacity);
+		}
+		this.hits = new AtomicLong(0);
+		this.misses = new AtomicLong(0);
+		this.evictions = new AtomicLong(0);
+	}
+
+	private Segment segment(final long id) {
+		final int h = (int) (id ^ (id >>> 32));
+		return this.segments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+	}
+
+	LtmObjectModelling get(final long id) {
+		final LtmObjectModelling result = segment(id).get(id);
+		if (result == null) {
+			this.misses.incrementAndGet();
+		} else {
+			this.hits.incrementAndGet();
+		}
+		return result;
+	}
+
+	/*
+	 * Same as get, without counting to the statistics.
+	 */
+	LtmObjectModelling peek(final long id) {
+		return segment(id).get(id);
+	}
+
+	void set(final long id, final LtmObjectModelling ltm) {
+		segment(id).set(id, ltm);
+	}
+
+	void remove(final long id) {
+		segment(id).remove(id);
+	}
+
+	/*
+	 * Keeps the record strongly referenced, each pin needs its unpin.
+	 */
+	void pin(final long id, final LtmObjectModelling ltm) {
+		segment(id).pin(id, ltm);
+	}
+
+	void unpin(final long id) {
+		segment(id).unpin(id);
+	}
+
+	void clear() {
+		for (final Segment segment : this.segments) {
+			segment.clear();
+		}
+	}
+
+	LtmCacheStats getStats() {
+		int size = 0;
+		for (final Segment segment : this.segments) {
+			size += segment.size();
+		}
+		return new LtmCacheStats(this.ltmClass, size, this.hits.get(), this.misses.get(), this.evictions.get());
+	}
+
+	private final class Segment {
+
+		private final int capacity;
+		private final Map<Long, LtmObjectModelling> recent;
+		private final Map<Long, EvictedReference> evicted;
+		private final Map<Long, Pinned> pinned;
+		private final ReferenceQueue<LtmObjectModelling> queue;
+
+		private Segment(final int capacity) {
+			this.capacity = capacity;
+			this.recent = new LinkedHashMap<>(16, 0.75f, true);
+			this.evicted = new HashMap<>();
+			this.pinned = new HashMap<>();
+			this.queue = new ReferenceQueue<>();
+		}
+
+		private synchronized LtmObjectModelling get(final long id) {
+			final Long key = Long.valueOf(id);
+			LtmObjectModelling result = this.recent.get(key);
+			if (result == null) {
+				final EvictedReference ref = this.evicted.remove(key);
+				if (ref != null) {
+					result = ref.get();
+					if (result != null) {
+						this.recent.put(key, result);
+						trim();
+					}
+				}
+			}
+			return result;
+		}
+
+		private synchronized void pin(final long id, final LtmObjectModelling ltm) {
+			final Long key = Long.valueOf(id);
+			Pinned pin = this.pinned.get(key);
+			if (pin == null) {
+				pin = new Pinned(ltm);
+				this.pinned.put(key, pin);
+			}
+			pin.count++;
+		}
+
+		private synchronized void unpin(final long id) {
+			final Long key = Long.valueOf(id);
+			final Pinned pin = this.pinned.get(key);
+			if (pin != null && --pin.count == 0) {
+				this.pinned.remove(key);
+			}
+		}
+
+		private synchronized void set(final long id, final LtmObjectModelling ltm) {
+			final Long key = Long.valueOf(id);
+			this.evicted.remove(key);
+			this.recent.put(key, ltm);
+			trim();
+		}
+
+		private synchronized void remove(final long id) {
+			final Long key = Long.valueOf(id);
+			this.recent.remove(key);
+			this.evicted.remove(key);
+			this.pinned.remove(key);
+		}
+
+		private synchronized void clear() {
+			this.recent.clear();
+			this.evicted.clear();
+			this.pinned.clear();
+			expunge();
+		}
+
+		private synchronized int size() {
+			expunge();
+			return this.recent.size() + this.evicted.size();
+		}
+
+		private void trim() {
+			expunge();
+			Entry<Long, LtmObjectModelling> eldest;
+			for (final Iterator<Entry<Long, LtmObjectModelling>> iterator = this.recent.entrySet()
+					.iterator(); this.recent.size() > this.capacity;) {
+				eldest = iterator.next();
+				iterator.remove();
+				this.evicted.put(eldest.getKey(), new EvictedReference(eldest.getKey(), eldest.getValue(), this.queue));
+				LtmCache.this.evictions.incrementAndGet();
+			}
+		}
+
+		private void expunge() {
+			Reference<? extends LtmObjectModelling> ref;
+			EvictedReference evictedRef;
+			while ((ref = this.queue.poll()) != null) {
+				evictedRef = (EvictedReference) ref;
+				if (this.evicted.get(evictedRef.key) == evictedRef) {
+					this.evicted.remove(evictedRef.key);
+				}
+			}
+		}
+
+	}
+
+	private static final class Pinned {
+
+		// only keeps the record reachable
+		private final LtmObjectModelling ltm;
+		private int count;
+
+		private Pinned(final LtmObjectModelling ltm) {
+			this.ltm = ltm;
+			this.count = 0;
+		}
+
+	}
+
+	private static final class EvictedReference extends WeakReference<LtmObjectModelling> {
+
+		private final Long key;
+
+		private EvictedReference(final Long key, final LtmObjectModelling referent,
+				final ReferenceQueue<LtmObjectModelling> queue) {
+			super(referent, queue);
+			this.key = key;
+		}
+
+	}
+
+}
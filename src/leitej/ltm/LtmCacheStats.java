@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright Julio Leite
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as
+ * published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package leitej.ltm;
+
+import java.io.Serializable;
+
+/**
+ * Snapshot of the cache usage of one long term memory class.
+ *
+ * @author Julio Leite
+ *
+ * @see LongTermMemory#getCacheStats(Class)
+ */
+public final class LtmCacheStats implements Serializable {
+
+	private static final long serialVersionUID = -3651927394162251723L;
+
+	private final Class<?> ltmClass;
+	private final int size;
+	private final long hits;
+	private final long misses;
+	private final long evictions;
+
+	LtmCacheStats(final Class<?> ltmClass, final int size, final long hits, final long misses,
+			final long evictions) {
+		this.ltmClass = ltmClass;
+		this.size = size;
+		this.hits = hits;
+		this.misses = misses;
+		this.evictions = evictions;
+	}
+
+	/**
+	 *
+	 * @return long term memory class
+	 */
+	public Class<?> getLtmClass() {
+		return this.ltmClass;
+	}
+
+	/**
+	 *
+	 * @return number of records in the cache, including the evicted ones still
+	 *         in use
+	 */
+	public int getSize() {
+		return this.size;
+	}
+
+	/**
+	 *
+	 * @return number of records found in the cache
+	 */
+	public long getHits() {
+		return this.hits;
+	}
+
+	/**
+	 *
+	 * @return number of records not found in the cache
+	 */
+	public long getMisses() {
+		return this.misses;
+	}
+
+	/**
+	 *
+	 * @return number of records that left the most recently used
+	 */
+	public long getEvictions() {
+		return this.evictions;
+	}
+
+	@Override
+	public String toString() {
+		return this.ltmClass.getName() + " [size: " + this.size + ", hits: " + this.hits + ", misses: " + this.misses
+				+ ", evictions: " + this.evictions + "]";
+	}
+
+}
@@ -19,9 +19,12 @@ package leitej.ltm;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
+import leitej.exception.IllegalArgumentLtRtException;
 import leitej.exception.IllegalStateLtRtException;
 import leitej.exception.ImplementationLtRtException;
+import leitej.util.data.Obfuscate;
 
 /**
  * @author Julio Leite
@@ -30,6 +33,7 @@ import leitej.exception.ImplementationLtRtException;
 public final class LtmFilter<T extends LtmObjectModelling> {
 
 	private static final FilterProxy PROXY = new FilterProxy();
+	private static final int DEFAULT_PAGE_SIZE = 100;
 
 	public static enum OPERATOR_JOIN {
 		AND, OR;
@@ -39,15 +43,30 @@ public final class LtmFilter<T extends LtmObjectModelling> {
 		EQUAL, NOT_EQUAL, GREATER_THAN, LESS_THAN, GREATER_THAN_OR_EQUAL, LESS_THAN_OR_EQUAL, LIKE;
 	};
 
+	public static enum AGGREGATE {
+		SUM, MIN, MAX, AVG;
+	};
+
 	private final Class<T> ltmClass;
 	private final T data;
 	private final FilterHandler fHandler;
 	private final List<Object> paramList;
 	private final List<DataMemoryType> typeList;
 	private final StringBuilder filter;
+	private final List<String> selectList;
+	private String groupBy;
+	private boolean nextGroupBy;
+	private final List<String> preloadList;
+	private boolean nextPreload;
+	private boolean nextSelect;
+	private String orderBy;
+	private boolean nextOrderBy;
+	private int limit;
+	private T startAfter;
 	private final OPERATOR_JOIN opJoin;
 	private OPERATOR nextOp;
 	private boolean orderDesc;
+	private int pageSize;
 
 	public LtmFilter(final Class<T> ltmClass, final OPERATOR_JOIN opJoin) {
 		if (opJoin == null) {
@@ -59,9 +78,20 @@ public final class LtmFilter<T extends LtmObjectModelling> {
 		this.paramList = new ArrayList<>();
 		this.typeList = new ArrayList<>();
 		this.filter = new StringBuilder();
+		this.selectList = new ArrayList<>();
+		this.groupBy = null;
+		this.nextGroupBy = false;
+		this.preloadList = new ArrayList<>();
+		this.nextPreload = false;
+		this.nextSelect = false;
+		this.orderBy = null;
+		this.nextOrderBy = false;
+		this.limit = 0;
+		this.startAfter = null;
 		this.opJoin = opJoin;
 		this.nextOp = null;
 		this.orderDesc = false;
+		this.pageSize = 0;
 	}
 
 	public T append(final OPERATOR op) {
@@ -86,6 +116,101 @@ public final class LtmFilter<T extends LtmObjectModelling> {
 		return this.data;
 	}
 
+	/**
+	 * Gives the data where to call the getter of the component to project.
+	 * Each component selected is added to the values returned by
+	 * {@link LongTermMemory#searchProjection(LtmFilter)}, in the order of the
+	 * calls.
+	 *
+	 * @return data to select the component
+	 */
+	public T select() {
+		this.nextSelect = true;
+		return this.data;
+	}
+
+	/**
+	 * Gives the data where to call the getter of the component to group the
+	 * counts and aggregates by.
+	 *
+	 * @return data to select the component
+	 * @see LongTermMemory#countGroupBy(LtmFilter)
+	 * @see LongTermMemory#aggregateGroupBy(LtmFilter, AGGREGATE)
+	 */
+	public T groupBy() {
+		this.nextGroupBy = true;
+		return this.data;
+	}
+
+	/**
+	 * Gives the data where to call the getters of the components, records of
+	 * long term memory, to load together with the records found.<br/>
+	 * The records referenced by each component are read with one query per page
+	 * of the search, instead of one query per record when the getter is called.
+	 *
+	 * @return data to select the components
+	 * @see LongTermMemory#search(LtmFilter)
+	 * @see LongTermMemory#fetch(Class, long, LtmFilter)
+	 */
+	public T preload() {
+		this.nextPreload = true;
+		return this.data;
+	}
+
+	/**
+	 * Gives the data where to call the getter of the component to order the
+	 * search by.<br/>
+	 * Records with the same value, or without value, keep the order of creation,
+	 * oldest first also in descending order.
+	 * Records without value come first in ascending order and last in descending
+	 * order.<br/>
+	 * The search only avoids sorting all the filtered records when the component
+	 * starts an {@link Index}.
+	 *
+	 * @param descending true to order from the greatest value
+	 * @return data to select the component
+	 * @see LongTermMemory#search(LtmFilter)
+	 */
+	public T orderBy(final boolean descending) {
+		this.nextOrderBy = true;
+		this.orderDesc = descending;
+		return this.data;
+	}
+
+	void setDataSelect(final String dataName) {
+		final Class<?> returnClass = this.fHandler.getReturnClass(dataName);
+		if (Set.class.isAssignableFrom(returnClass)) {
+			throw new IllegalStateLtRtException("Invalid projection of set: #0", dataName);
+		}
+		if (this.nextPreload) {
+			this.nextPreload = false;
+			if (!LtmObjectModelling.class.isAssignableFrom(returnClass)) {
+				throw new IllegalStateLtRtException("Invalid preload of data not in long term memory: #0", dataName);
+			}
+			if (!this.preloadList.contains(dataName)) {
+				this.preloadList.add(dataName);
+			}
+		} else if (this.nextOrderBy) {
+			this.nextOrderBy = false;
+			if (this.orderBy != null) {
+				throw new IllegalStateLtRtException("Already ordered by: #0", this.orderBy);
+			}
+			if (this.fHandler.getObfuscate(dataName) != null) {
+				throw new IllegalStateLtRtException("Invalid order by obfuscated data: #0", dataName);
+			}
+			this.orderBy = dataName;
+		} else if (this.nextGroupBy) {
+			this.nextGroupBy = false;
+			if (this.groupBy != null) {
+				throw new IllegalStateLtRtException("Already grouped by: #0", this.groupBy);
+			}
+			this.groupBy = dataName;
+		} else if (this.nextSelect) {
+			this.nextSelect = false;
+			this.selectList.add(dataName);
+		}
+	}
+
 	void setDataFilter(final String dataName, final Object value, final boolean obfuscatedValue) {
 		if (value == null && !(this.nextOp.equals(OPERATOR.EQUAL) || this.nextOp.equals(OPERATOR.NOT_EQUAL))) {
 			throw new IllegalStateLtRtException("Invalid operator: #0 to use with null", this.nextOp);
@@ -179,11 +304,57 @@ public final class LtmFilter<T extends LtmObjectModelling> {
 		this.orderDesc = false;
 	}
 
+	/**
+	 * Defines how many records are read from memory at once while iterating the
+	 * search result.
+	 *
+	 * @param pageSize number of records per read (0 to use the configured one)
+	 */
+	public void setPageSize(final int pageSize) {
+		if (pageSize < 0) {
+			throw new IllegalArgumentLtRtException("Invalid page size: #0", pageSize);
+		}
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * Defines the maximum number of records returned by the search.
+	 *
+	 * @param limit maximum number of records (0 to return all)
+	 */
+	public void setLimit(final int limit) {
+		if (limit < 0) {
+			throw new IllegalArgumentLtRtException("Invalid limit: #0", limit);
+		}
+		this.limit = limit;
+	}
+
+	/**
+	 * Continues a previous search, returning only the records that come after
+	 * the one given in the order of this filter.<br/>
+	 * Usually the last record of the previous result, with the same filter.
+	 *
+	 * @param record last record already read (null to start from the first)
+	 */
+	public void startAfter(final T record) {
+		this.startAfter = record;
+	}
+
 	public void reset() {
 		this.paramList.clear();
 		this.typeList.clear();
 		this.filter.setLength(0);
+		this.selectList.clear();
+		this.groupBy = null;
+		this.nextGroupBy = false;
+		this.preloadList.clear();
+		this.nextPreload = false;
+		this.nextSelect = false;
+		this.orderBy = null;
+		this.nextOrderBy = false;
 		this.orderDesc = false;
+		this.limit = 0;
+		this.startAfter = null;
 	}
 
 	Class<T> getLTMClass() {
@@ -191,6 +362,9 @@ public final class LtmFilter<T extends LtmObjectModelling> {
 	}
 
 	String getQueryFilter() {
+		if (this.filter.length() == 0) {
+			return " (true) ";
+		}
 		return " (" + this.filter.toString() + ") ";
 	}
 
@@ -202,8 +376,79 @@ public final class LtmFilter<T extends LtmObjectModelling> {
 		return this.typeList.toArray(new DataMemoryType[this.typeList.size()]);
 	}
 
+	List<String> getSelectList() {
+		return this.selectList;
+	}
+
+	String[] getSelectColumns() {
+		final String[] result = new String[this.selectList.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = DataMemoryUtil.genColumnName(this.selectList.get(i),
+					this.fHandler.getReturnClass(this.selectList.get(i)));
+		}
+		return result;
+	}
+
+	Class<?>[] getSelectClasses() {
+		final Class<?>[] result = new Class<?>[this.selectList.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = this.fHandler.getReturnClass(this.selectList.get(i));
+		}
+		return result;
+	}
+
+	Obfuscate[] getSelectObfuscates() {
+		final Obfuscate[] result = new Obfuscate[this.selectList.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = this.fHandler.getObfuscate(this.selectList.get(i));
+		}
+		return result;
+	}
+
+	List<String> getPreloadList() {
+		return this.preloadList;
+	}
+
+	String getGroupBy() {
+		return this.groupBy;
+	}
+
+	String getColumn(final String dataName) {
+		return DataMemoryUtil.genColumnName(dataName, this.fHandler.getReturnClass(dataName));
+	}
+
+	Class<?> getReturnClass(final String dataName) {
+		return this.fHandler.getReturnClass(dataName);
+	}
+
+	Obfuscate getObfuscate(final String dataName) {
+		return this.fHandler.getObfuscate(dataName);
+	}
+
+	String getOrderBy() {
+		return this.orderBy;
+	}
+
+	int getLimit() {
+		return this.limit;
+	}
+
+	T getStartAfter() {
+		return this.startAfter;
+	}
+
 	boolean isDescOrder() {
 		return this.orderDesc;
 	}
 
+	int getPageSize() {
+		if (this.pageSize > 0) {
+			return this.pageSize;
+		}
+		if (DataMemoryPool.CONFIG.getSearchPageSize() > 0) {
+			return DataMemoryPool.CONFIG.getSearchPageSize();
+		}
+		return DEFAULT_PAGE_SIZE;
+	}
+
 }
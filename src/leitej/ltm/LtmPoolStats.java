@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright Julio Leite
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as
+ * published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package leitej.ltm;
+
+import java.io.Serializable;
+
+/**
+ * Snapshot of the usage of the memory connections pool.
+ *
+ * @author Julio Leite
+ *
+ * @see LongTermMemory#getPoolStats()
+ */
+public final class LtmPoolStats implements Serializable {
+
+	private static final long serialVersionUID = 2890173351866527093L;
+
+	private final int maxConnections;
+	private final int openConnections;
+	private final int idleConnections;
+	private final long leases;
+	private final long scopeLeases;
+	private final long waitNanos;
+	private final long maxWaitNanos;
+	private final long leaseNanos;
+	private final long timeouts;
+	private final long evictions;
+
+	LtmPoolStats(final int maxConnections, final int openConnections, final int idleConnections, final long leases,
+			final long scopeLeases, final long waitNanos, final long maxWaitNanos, final long leaseNanos,
+			final long timeouts, final long evictions) {
+		this.maxConnections = maxConnections;
+		this.openConnections = openConnections;
+		this.idleConnections = idleConnections;
+		this.leases = leases;
+		this.scopeLeases = scopeLeases;
+		this.waitNanos = waitNanos;
+		this.maxWaitNanos = maxWaitNanos;
+		this.leaseNanos = leaseNanos;
+		this.timeouts = timeouts;
+		this.evictions = evictions;
+	}
+
+	/**
+	 *
+	 * @return maximum number of connections
+	 */
+	public int getMaxConnections() {
+		return this.maxConnections;
+	}
+
+	/**
+	 *
+	 * @return number of connections open, idle or in use
+	 */
+	public int getOpenConnections() {
+		return this.openConnections;
+	}
+
+	/**
+	 *
+	 * @return number of connections waiting in the pool
+	 */
+	public int getIdleConnections() {
+		return this.idleConnections;
+	}
+
+	/**
+	 *
+	 * @return number of connections out of the pool, in use or held by a scope
+	 */
+	public int getActiveConnections() {
+		return Math.max(0, this.openConnections - this.idleConnections);
+	}
+
+	/**
+	 *
+	 * @return number of connections taken from the pool
+	 */
+	public long getLeases() {
+		return this.leases;
+	}
+
+	/**
+	 *
+	 * @return number of connections reused from a scope, without going to the
+	 *         pool
+	 */
+	public long getScopeLeases() {
+		return this.scopeLeases;
+	}
+
+	/**
+	 *
+	 * @return total nanoseconds waited for a connection
+	 */
+	public long getWaitNanos() {
+		return this.waitNanos;
+	}
+
+	/**
+	 *
+	 * @return longest nanoseconds waited for a connection
+	 */
+	public long getMaxWaitNanos() {
+		return this.maxWaitNanos;
+	}
+
+	/**
+	 *
+	 * @return total nanoseconds the connections were out of the pool
+	 */
+	public long getLeaseNanos() {
+		return this.leaseNanos;
+	}
+
+	/**
+	 *
+	 * @return number of times the wait for a connection timed out
+	 */
+	public long getTimeouts() {
+		return this.timeouts;
+	}
+
+	/**
+	 *
+	 * @return number of connections closed by the idle timeout
+	 */
+	public long getEvictions() {
+		return this.evictions;
+	}
+
+	@Override
+	public String toString() {
+		return "[max: " + this.maxConnections + ", open: " + this.openConnections + ", idle: " + this.idleConnections
+				+ ", leases: " + this.leases + ", scopeLeases: " + this.scopeLeases + ", waitNanos: " + this.waitNanos
+				+ ", maxWaitNanos: " + this.maxWaitNanos + ", leaseNanos: " + this.leaseNanos + ", timeouts: "
+				+ this.timeouts + ", evictions: " + this.evictions + "]";
+	}
+
+}
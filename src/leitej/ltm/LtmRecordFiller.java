@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright Julio Leite
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as
+ * published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package leitej.ltm;
+
+/**
+ * Sets the initial values of the records created in bulk.
+ *
+ * @author Julio Leite
+ *
+ * @param <T> long term memory class
+ * @see LongTermMemory#newRecords(Class, int, LtmRecordFiller)
+ */
+public interface LtmRecordFiller<T extends LtmObjectModelling> {
+
+	/**
+	 * Called once for each new record, the values set are written together
+	 * with the ones of all the other records.
+	 *
+	 * @param index  position of the record in the bulk
+	 * @param record the new record
+	 */
+	void fill(int index, T record);
+
+}
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright Julio Leite
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as
+ * published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package leitej.ltm;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import leitej.exception.IllegalStateLtRtException;
+import leitej.exception.LtmLtRtException;
+import leitej.log.Logger;
+
+/**
+ * Scope where the thread that opens it keeps the memory connection taken by
+ * its first operation, reusing it in the following ones instead of going
+ * through the pool each time.<br/>
+ * An operation started while the connection of the scope is in use, by an
+ * operation of the same thread, takes another one from the pool.<br/>
+ * <br/>
+ * Scopes opened inside a scope of the same thread join it, the connection is
+ * given back to the pool when the outermost scope closes. Each open has to be
+ * matched by a close in the same thread, so open it in a try-with-resources
+ * statement:
+ *
+ * <pre>
+ * try (LtmScope scope = ltm.openScope()) {
+ * 	...
+ * }
+ * </pre>
+ *
+ * The connection of a scope left open by a thread that ended is given back
+ * to the pool when the pool runs short of idle connections.
+ *
+ * @author Julio Leite
+ *
+ * @see LongTermMemory#openScope()
+ */
+public final class LtmScope implements Closeable {
+
+	private static final Logger LOG = Logger.getInstance();
+
+	private static final ThreadLocal<LtmScope> ACTIVE = new ThreadLocal<>();
+	private static final Set<LtmScope> HOLDING = Collections
+			.newSetFromMap(new ConcurrentHashMap<LtmScope, Boolean>());
+
+	static LtmScope open() {
+		LtmScope result = ACTIVE.get();
+		if (result == null) {
+			result = new LtmScope(Thread.currentThread());
+			ACTIVE.set(result);
+		}
+		result.depth++;
+		LOG.trace("#0: #1", result.thread.getId(), result.depth);
+		return result;
+	}
+
+	/*
+	 * Returns the scope open in the current thread, or null.
+	 */
+	static LtmScope current() {
+		return ACTIVE.get();
+	}
+
+	/*
+	 * Gives back to the pool the connections held by scopes of threads that
+	 * ended without closing them.
+	 */
+	static void releaseOrphans() {
+		LtmScope scope;
+		for (final Iterator<LtmScope> it = HOLDING.iterator(); it.hasNext();) {
+			scope = it.next();
+			if (!scope.thread.isAlive()) {
+				it.remove();
+				LOG.warn("Scope of thread #0 not closed, giving back its connection", scope.thread.getName());
+				scope.giveBack();
+			}
+		}
+	}
+
+	private final Thread thread;
+	private int depth;
+	private DataMemoryConnection conn;
+	private boolean inUse;
+
+	private LtmScope(final Thread thread) {
+		this.thread = thread;
+		this.depth = 0;
+		this.conn = null;
+		this.inUse = false;
+	}
+
+	/*
+	 * Returns the connection of the scope if it is free, or null.
+	 */
+	DataMemoryConnection lease() {
+		if (this.conn != null && !this.inUse) {
+			this.inUse = true;
+			return this.conn;
+		}
+		return null;
+	}
+
+	/*
+	 * Keeps the connection polled from the pool, if the scope has none.
+	 */
+	void hold(final DataMemoryConnection conn) {
+		if (this.conn == null) {
+			this.conn = conn;
+			this.inUse = true;
+			HOLDING.add(this);
+		}
+	}
+
+	/*
+	 * Returns true if the connection belongs to the scope, staying with it.
+	 */
+	boolean release(final DataMemoryConnection conn) {
+		if (conn == this.conn) {
+			this.inUse = false;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Verifies if this scope is still open.
+	 *
+	 * @return false after the outermost close
+	 */
+	public boolean isOpen() {
+		return this.depth > 0;
+	}
+
+	/**
+	 * Closes this scope, giving the connection back to the pool when it is the
+	 * outermost.
+	 *
+	 * @throws IllegalStateLtRtException if the scope belongs to another thread,
+	 *                                   or its connection is in use (the scope
+	 *                                   stays open)
+	 * @throws LtmLtRtException          if an error occurs giving the connection
+	 *                                   back
+	 */
+	@Override
+	public void close() throws IllegalStateLtRtException, LtmLtRtException {
+		if (Thread.currentThread() != this.thread) {
+			throw new IllegalStateLtRtException("Scope belongs to another thread");
+		}
+		if (this.depth == 0) {
+			return;
+		}
+		LOG.trace("#0: #1", this.thread.getId(), this.depth);
+		if (this.depth == 1 && this.inUse) {
+			throw new IllegalStateLtRtException("Scope closed while its connection is in use");
+		}
+		this.depth--;
+		if (this.depth > 0) {
+			return;
+		}
+		ACTIVE.remove();
+		HOLDING.remove(this);
+		giveBack();
+	}
+
+	private void giveBack() throws LtmLtRtException {
+		if (this.conn != null) {
+			final DataMemoryConnection held = this.conn;
+			this.conn = null;
+			try {
+				DataMemoryPool.getInstance().offer(held);
+			} catch (IllegalArgumentException | InterruptedException e) {
+				throw new LtmLtRtException(e);
+			}
+		}
+	}
+
+}
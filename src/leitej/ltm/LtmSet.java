@@ -16,9 +16,15 @@
 
 package leitej.ltm;
 
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import leitej.exception.ImplementationLtRtException;
@@ -46,6 +52,7 @@ public final class LtmSet<E> implements Set<E> {
 	private final String pSttCount;
 	private final String pSttHasResult;
 	private final String pSttSetContains;
+	private final String pSttSetContainsAll;
 	private final String pSttSetAdd;
 	private final String pSttSetRemove;
 	private final String pSttSetClear;
@@ -62,8 +69,9 @@ public final class LtmSet<E> implements Set<E> {
 		this.pSttCount = HsqldbUtil.getStatementSetCount(this.tablenameSet, dataPH.getLtmId());
 		this.pSttHasResult = HsqldbUtil.getStatementSetHasResult(this.tablenameSet, dataPH.getLtmId());
 		this.pSttSetContains = HsqldbUtil.getStatementSetContains(this.tablenameSet, dataPH.getLtmId());
-		this.pSttSetAdd = HsqldbUtil.getStatementSetAdd(this.tablenameSet, dataPH.getPreparedClass().getTablename(),
-				dataPH.getLtmId());
+		this.pSttSetContainsAll = HsqldbUtil.getStatementSetContainsAll(this.tablenameSet, dataPH.getLtmId(),
+				this.dataType.getSqlType());
+		this.pSttSetAdd = HsqldbUtil.getStatementSetAdd(this.tablenameSet, dataPH.getLtmId());
 		this.pSttSetRemove = HsqldbUtil.getStatementSetRemove(this.tablenameSet, dataPH.getLtmId());
 		this.pSttSetClear = preparedClass.getDeleteOnSetByLtmId(datanameSet);
 	}
@@ -212,79 +220,93 @@ public final class LtmSet<E> implements Set<E> {
 
 	// Bulk Operations
 
+	/*
+	 * Distinct elements of the collection maintained by this set, null if some
+	 * is not and all must be.
+	 */
+	private List<Object> distinctMaintained(final Collection<?> c, final boolean all) {
+		final Map<Object, Object> distinct = new LinkedHashMap<>();
+		for (final Object object : c) {
+			if (isMaintainedByThisSet(object)) {
+				distinct.put(distinctKey(object), object);
+			} else if (all) {
+				return null;
+			}
+		}
+		return new ArrayList<>(distinct.values());
+	}
+
+	/*
+	 * Key with the same equality the memory has.
+	 */
+	private Object distinctKey(final Object o) {
+		switch (this.dataType) {
+		case BINARY:
+			return ByteBuffer.wrap((byte[]) o);
+		case BIG_DECIMAL:
+			return BigDecimal.class.cast(o).stripTrailingZeros();
+		case LONG_TERM_MEMORY:
+			return LtmObjectModelling.class.cast(o).getLtmId();
+		case LARGE_MEMORY:
+			return LargeMemory.class.cast(o).getId();
+		default:
+			return o;
+		}
+	}
+
 	@Override
 	public boolean containsAll(final Collection<?> c) {
-		// TODO Optimize
 		this.dataPH.isValid();
-		if (c != null) {
-			for (final Object object : c) {
-				if (!contains(object)) {
-					return false;
+		if (c == null || c.isEmpty()) {
+			return true;
+		}
+		final List<Object> elems = distinctMaintained(c, true);
+		if (elems == null) {
+			return false;
+		}
+		boolean result;
+		DataMemoryConnection conn = null;
+		try {
+			try {
+				conn = MEM_POOL.poll();
+				result = conn.containsValuesSet(this.pSttSetContainsAll, this.dataType, elems);
+			} finally {
+				if (conn != null) {
+					MEM_POOL.offer(conn);
 				}
 			}
+		} catch (ObjectPoolLtException | InterruptedException | SQLException e) {
+			throw new LtmLtRtException(e);
 		}
-		return true;
+		this.dataPH.isValid();
+		return result;
 	}
-//	@Override
-//	public boolean containsAll(final Collection<?> c) {
-//		boolean result;
-//		if (c != null) {
-//			final Set<Long> idSet = new HashSet<>();
-//			boolean matchClass = true;
-//			final Iterator<?> it = c.iterator();
-//			Object o;
-//			while (matchClass && it.hasNext()) {
-//				o = it.next();
-//				if (o != null) {
-//					if (Long.class.equals(o)) {
-//						idSet.add(Long.class.cast(o));
-//					} else if (this.ltmClass.equals(o.getClass())) {
-//						idSet.add(LtmObjectModelling.class.cast(o).getLtmId());
-//					} else {
-//						matchClass = false;
-//					}
-//				} else {
-//					matchClass = false;
-//				}
-//			}
-//			if (matchClass) {
-//				if (idSet.size() == 0) {
-//					result = true;
-//				} else {
-//					DataMemoryConnection conn = null;
-//					try {
-//						try {
-//							conn = MEM_POOL.poll();
-//							result = conn.containsLTMcollection(this.pSttContains, this.types, this.parameters, idSet);
-//						} finally {
-//							if (conn != null) {
-//								MEM_POOL.offer(conn);
-//							}
-//						}
-//					} catch (ObjectPoolLtException | InterruptedException | SQLException e) {
-//						throw new LtmLtRtException(e);
-//					}
-//				}
-//			} else {
-//				result = false;
-//			}
-//		} else {
-//			result = false;
-//		}
-//		return result;
-//	}
 
 	@Override
 	public boolean addAll(final Collection<? extends E> c) {
-		// TODO Optimize
-		// this.dataPH.isValid();
-		boolean result = false;
-		if (c != null) {
-			for (final E object : c) {
-				result |= add(object);
+		this.dataPH.isValid();
+		if (c == null || c.isEmpty()) {
+			return false;
+		}
+		final List<Object> elems = distinctMaintained(c, false);
+		if (elems.isEmpty()) {
+			return false;
+		}
+		int result;
+		DataMemoryConnection conn = null;
+		try {
+			try {
+				conn = MEM_POOL.poll();
+				result = conn.addValuesSet(this.pSttSetAdd, this.dataType, elems, this.ltmClass, this.ltmId);
+			} finally {
+				if (conn != null) {
+					MEM_POOL.offer(conn);
+				}
 			}
+		} catch (ObjectPoolLtException | InterruptedException | SQLException ex) {
+			throw new LtmLtRtException(ex);
 		}
-		return result;
+		return result != 0;
 	}
 
 	@Override
@@ -296,15 +318,29 @@ public final class LtmSet<E> implements Set<E> {
 
 	@Override
 	public boolean removeAll(final Collection<?> c) {
-		// TODO Optimize
-		// this.dataPH.isValid();
-		boolean result = false;
-		if (c != null) {
-			for (final Object object : c) {
-				result |= remove(object);
+		this.dataPH.isValid();
+		if (c == null || c.isEmpty()) {
+			return false;
+		}
+		final List<Object> elems = distinctMaintained(c, false);
+		if (elems.isEmpty()) {
+			return false;
+		}
+		int result;
+		DataMemoryConnection conn = null;
+		try {
+			try {
+				conn = MEM_POOL.poll();
+				result = conn.removeValuesSet(this.pSttSetRemove, this.dataType, elems, this.ltmClass, this.ltmId);
+			} finally {
+				if (conn != null) {
+					MEM_POOL.offer(conn);
+				}
 			}
+		} catch (ObjectPoolLtException | InterruptedException | SQLException ex) {
+			throw new LtmLtRtException(ex);
 		}
-		return result;
+		return result != 0;
 	}
 
 	@Override
@@ -17,7 +17,9 @@
 package leitej.ltm;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 import leitej.exception.LtmLtRtException;
@@ -32,34 +34,44 @@ public class LtmSetIterator<E> implements Iterator<E> {
 
 	private static final Logger LOG = Logger.getInstance();
 
+	private static final LongTermMemory LTM = LongTermMemory.getInstance();
 	private static final DataMemoryPool MEM_POOL = DataMemoryPool.getInstance();
+	private static final int DEFAULT_PAGE_SIZE = 100;
 
 	private final DataProxyHandler dataPH;
 	private final DataMemoryType dataType;
 	private final Class<?> dataClass;
 	private final String pStt;
+	private final int pageSize;
+	private final List<Object> page;
+	private int pagePosition;
 	private long positionID;
-	private Object next;
-	private boolean hasNext;
+	private boolean finished;
 
 	LtmSetIterator(final DataProxyHandler dataPH, final DataMemoryType dataType, final Class<?> dataClass,
 			final String tablename) {
 		this.dataPH = dataPH;
 		this.dataType = dataType;
 		this.dataClass = dataClass;
-		this.pStt = HsqldbUtil.getStatementSetIterator(tablename, dataPH.getLtmId());
+		this.pageSize = (DataMemoryPool.CONFIG.getSearchPageSize() > 0) ? DataMemoryPool.CONFIG.getSearchPageSize()
+				: DEFAULT_PAGE_SIZE;
+		this.pStt = HsqldbUtil.getStatementSetIterator(tablename, dataPH.getLtmId(), this.pageSize);
 		LOG.trace("pStt: #0", this.pStt);
+		this.page = new ArrayList<>(this.pageSize);
+		this.pagePosition = 0;
 		this.positionID = -1;
-		this.hasNext = true;
+		this.finished = false;
 	}
 
 	private void update() {
-		if (this.hasNext && this.next == null) {
+		if (this.pagePosition == this.page.size() && !this.finished) {
+			this.page.clear();
+			this.pagePosition = 0;
 			DataMemoryConnection conn = null;
 			try {
 				try {
 					conn = MEM_POOL.poll();
-					conn.prepareNext(this);
+					conn.fetchSetPage(this);
 				} finally {
 					if (conn != null) {
 						MEM_POOL.offer(conn);
@@ -68,8 +80,8 @@ public class LtmSetIterator<E> implements Iterator<E> {
 			} catch (ObjectPoolLtException | InterruptedException | SQLException e) {
 				throw new LtmLtRtException(e);
 			}
-			if (this.next == null) {
-				this.hasNext = false;
+			if (this.page.size() < this.pageSize) {
+				this.finished = true;
 			}
 		}
 	}
@@ -78,19 +90,24 @@ public class LtmSetIterator<E> implements Iterator<E> {
 	public synchronized boolean hasNext() {
 		update();
 		this.dataPH.isValid();
-		return this.hasNext;
+		return this.pagePosition < this.page.size();
 	}
 
 	@Override
 	public synchronized E next() {
 		update();
-		if (!this.hasNext) {
+		if (this.pagePosition == this.page.size()) {
 			throw new NoSuchElementException();
 		}
-		@SuppressWarnings("unchecked")
-		final E result = (E) this.next;
-		this.next = null;
+		Object next = this.page.get(this.pagePosition);
+		this.page.set(this.pagePosition, null);
+		this.pagePosition++;
+		if (DataMemoryType.LONG_TERM_MEMORY.equals(this.dataType)) {
+			next = LTM.fetch(this.dataClass.asSubclass(LtmObjectModelling.class), Long.class.cast(next).longValue());
+		}
 		this.dataPH.isValid();
+		@SuppressWarnings("unchecked")
+		final E result = (E) next;
 		return result;
 	}
 
@@ -114,8 +131,8 @@ public class LtmSetIterator<E> implements Iterator<E> {
 		return this.dataClass;
 	}
 
-	void setNext(final Object next) {
-		this.next = next;
+	void addNext(final Object next) {
+		this.page.add(next);
 	}
 
 }
@@ -0,0 +1,336 @@
+/*******************************************************************************
+ * Copyright Julio Leite
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as
+ * published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package leitej.ltm;
+
+import java.io.Closeable;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import leitej.exception.ClosedLtRtException;
+import leitej.exception.IllegalStateLtRtException;
+import leitej.exception.LtmLtRtException;
+import leitej.exception.ObjectPoolLtException;
+import leitej.log.Logger;
+
+/**
+ * Unit of work over the long term memory, bound to the thread that begins it.<br/>
+ * While active, the changes made by this thread to the records are kept in
+ * memory and written at commit, one update per record, in a single
+ * transaction.<br/>
+ * <br/>
+ * The changes are kept by the transaction, not by the record: only the
+ * thread of the transaction sees them before commit, and the records shared
+ * with other threads only get them after it. A rollback just drops them. The
+ * commit fails, and the transaction stays active, if another thread changed
+ * one of the same values since this transaction read it.<br/>
+ * <br/>
+ * The records created in bulk inside the transaction are inserted in its
+ * connection, taken from the pool on first use and held until it ends, so only
+ * this transaction sees them before commit and rollback undoes them. The ones
+ * created singly, or kept by the log structured engine, are committed
+ * immediately and forgotten again on rollback; deletes and changes to sets are
+ * not deferred.
+ *
+ * @author Julio Leite
+ *
+ * @see LongTermMemory#beginTransaction()
+ */
+public final class LtmTransaction implements Closeable {
+
+	private static final Logger LOG = Logger.getInstance();
+
+	private static final LongTermMemory LTM = LongTermMemory.getInstance();
+
+	private static final Map<Long, LtmTransaction> ACTIVE = Collections
+			.synchronizedMap(new HashMap<Long, LtmTransaction>());
+	private static volatile int ACTIVE_COUNT = 0;
+
+	static LtmTransaction begin() throws IllegalStateLtRtException {
+		final Long threadId = Long.valueOf(Thread.currentThread().getId());
+		final LtmTransaction result;
+		synchronized (ACTIVE) {
+			if (ACTIVE.containsKey(threadId)) {
+				throw new IllegalStateLtRtException("Already exists an active transaction in this thread");
+			}
+			result = new LtmTransaction(threadId);
+			ACTIVE.put(threadId, result);
+			ACTIVE_COUNT = ACTIVE.size();
+		}
+		LOG.trace("#0", threadId);
+		return result;
+	}
+
+	/*
+	 * Returns the transaction active in the current thread, or null.
+	 */
+	static LtmTransaction current() {
+		if (ACTIVE_COUNT == 0) {
+			return null;
+		}
+		return ACTIVE.get(Long.valueOf(Thread.currentThread().getId()));
+	}
+
+	private final Long threadId;
+	private final Map<DataProxyHandler, Changes> dirty;
+	private final List<LtmObjectModelling> created;
+	private final List<LtmObjectModelling> inserted;
+	private DataMemoryConnection conn;
+	private volatile boolean active;
+
+	private LtmTransaction(final Long threadId) {
+		this.threadId = threadId;
+		this.dirty = new LinkedHashMap<>();
+		this.created = new ArrayList<>();
+		this.inserted = new ArrayList<>();
+		this.conn = null;
+		this.active = true;
+	}
+
+	/*
+	 * Keeps the value before the first change of the component and the last one
+	 * written, both in data map format.
+	 */
+	void changed(final DataProxyHandler dph, final String dataName, final Object previous, final Object written) {
+		Changes changes = this.dirty.get(dph);
+		if (changes == null) {
+			changes = new Changes(LongTermMemory.pin(dph));
+			this.dirty.put(dph, changes);
+		}
+		if (!changes.previous.containsKey(dataName)) {
+			changes.previous.put(dataName, previous);
+		}
+		changes.written.put(dataName, written);
+	}
+
+	/*
+	 * The values written to the record in this transaction, or null if none.
+	 */
+	Map<String, Object> written(final DataProxyHandler dph) {
+		final Changes changes = this.dirty.get(dph);
+		return (changes == null) ? null : changes.written;
+	}
+
+	void created(final LtmObjectModelling ltm) {
+		this.created.add(ltm);
+	}
+
+	/*
+	 * The record was inserted in the connection of this transaction.
+	 */
+	void inserted(final LtmObjectModelling ltm) {
+		this.inserted.add(ltm);
+	}
+
+	boolean isInserted(final LtmObjectModelling ltm) {
+		return this.inserted.contains(ltm);
+	}
+
+	void forgotten(final DataProxyHandler dph, final LtmObjectModelling ltm) {
+		final Changes changes = this.dirty.remove(dph);
+		if (changes != null && changes.pinned) {
+			LongTermMemory.unpin(dph);
+		}
+		this.created.remove(ltm);
+		this.inserted.remove(ltm);
+	}
+
+	/*
+	 * Only HSQLDB undoes the rows inserted in the connection on rollback.
+	 */
+	boolean enlists(final PreparedClass preparedClass) {
+		return StorageEngineEnum.HSQLDB.equals(preparedClass.getStorageEngine());
+	}
+
+	/*
+	 * Returns the connection of this transaction, taken from the pool on first
+	 * use.
+	 */
+	DataMemoryConnection connection() throws ClosedLtRtException, ObjectPoolLtException, InterruptedException {
+		if (this.conn == null) {
+			this.conn = DataMemoryPool.getInstance().poll();
+		}
+		return this.conn;
+	}
+
+	/**
+	 * Verifies if this transaction still accepts changes.
+	 *
+	 * @return false after commit or rollback
+	 */
+	public boolean isActive() {
+		return this.active;
+	}
+
+	/**
+	 * Writes all the changes made in this transaction.<br/>
+	 * If the write fails, or another thread changed one of the same values since
+	 * this transaction read it, nothing is written and the transaction remains
+	 * active, so it can be rolled back.
+	 *
+	 * @throws IllegalStateLtRtException if the transaction is not active or
+	 *                                   belongs to another thread
+	 * @throws LtmLtRtException          if an error occurs writing to the
+	 *                                   memory
+	 */
+	public void commit() throws IllegalStateLtRtException, LtmLtRtException {
+		verify();
+		LOG.trace("#0: #1", this.threadId, this.dirty.size());
+		if (!this.dirty.isEmpty() || this.conn != null) {
+			try {
+				flush();
+			} catch (ClosedLtRtException | ObjectPoolLtException | InterruptedException | SQLException e) {
+				throw new LtmLtRtException(e);
+			}
+			unpin();
+		}
+		this.created.clear();
+		this.inserted.clear();
+		end();
+		release();
+	}
+
+	/**
+	 * Discards all the changes made in this transaction and forgets the
+	 * records created in it.
+	 *
+	 * @throws IllegalStateLtRtException if the transaction is not active or
+	 *                                   belongs to another thread
+	 * @throws LtmLtRtException          if an error occurs forgetting a created
+	 *                                   record
+	 */
+	public void rollback() throws IllegalStateLtRtException, LtmLtRtException {
+		verify();
+		LOG.trace("#0: #1", this.threadId, this.dirty.size());
+		unpin();
+		end();
+		try {
+			if (this.conn != null) {
+				this.conn.rollback();
+			}
+		} catch (final SQLException e) {
+			throw new LtmLtRtException(e);
+		} finally {
+			release();
+			for (final LtmObjectModelling ltm : this.inserted) {
+				LongTermMemory.uncache(ltm);
+			}
+			this.inserted.clear();
+		}
+		for (final LtmObjectModelling ltm : this.created) {
+			LTM.forgets(ltm);
+		}
+		this.created.clear();
+	}
+
+	/**
+	 * Rolls back if the transaction is still active.
+	 */
+	@Override
+	public void close() throws LtmLtRtException {
+		if (this.active) {
+			rollback();
+		}
+	}
+
+	/*
+	 * Writes the changes of all records in one commit, together with the
+	 * records inserted in the connection, and then gives them to the records. On
+	 * failure only the changes are undone.
+	 */
+	private void flush() throws ClosedLtRtException, ObjectPoolLtException, InterruptedException, SQLException {
+		final DataMemoryConnection conn = connection();
+		final Savepoint savepoint = conn.savepoint();
+		try {
+			for (final Entry<DataProxyHandler, Changes> entry : this.dirty.entrySet()) {
+				entry.getKey().flush(conn, entry.getValue().written, entry.getValue().previous);
+			}
+		} catch (SQLException | LtmLtRtException e) {
+			conn.rollback(savepoint);
+			throw e;
+		}
+		conn.commit();
+		for (final Entry<DataProxyHandler, Changes> entry : this.dirty.entrySet()) {
+			entry.getKey().committed(entry.getValue().previous, entry.getValue().written);
+		}
+	}
+
+	/*
+	 * Lets the cache demote the records again, now without changes.
+	 */
+	private void unpin() {
+		for (final Entry<DataProxyHandler, Changes> entry : this.dirty.entrySet()) {
+			if (entry.getValue().pinned) {
+				LongTermMemory.unpin(entry.getKey());
+			}
+		}
+		this.dirty.clear();
+	}
+
+	/*
+	 * Gives the connection back to the pool.
+	 */
+	private void release() throws LtmLtRtException {
+		if (this.conn != null) {
+			final DataMemoryConnection held = this.conn;
+			this.conn = null;
+			try {
+				DataMemoryPool.getInstance().offer(held);
+			} catch (IllegalArgumentException | InterruptedException e) {
+				throw new LtmLtRtException(e);
+			}
+		}
+	}
+
+	private void verify() throws IllegalStateLtRtException {
+		if (!this.active) {
+			throw new IllegalStateLtRtException("Transaction is no longer active");
+		}
+		if (Thread.currentThread().getId() != this.threadId.longValue()) {
+			throw new IllegalStateLtRtException("Transaction belongs to another thread");
+		}
+	}
+
+	private void end() {
+		this.active = false;
+		synchronized (ACTIVE) {
+			ACTIVE.remove(this.threadId);
+			ACTIVE_COUNT = ACTIVE.size();
+		}
+	}
+
+	private static final class Changes {
+
+		private final Map<String, Object> previous;
+		private final Map<String, Object> written;
+		private final boolean pinned;
+
+		private Changes(final boolean pinned) {
+			this.previous = new HashMap<>();
+			this.written = new LinkedHashMap<>();
+			this.pinned = pinned;
+		}
+
+	}
+
+}
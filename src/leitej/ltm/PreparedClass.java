@@ -34,6 +34,7 @@ final class PreparedClass {
 
 	private final Class<LtmObjectModelling> interfaceClass;
 	private final String tablename;
+	private final StorageEngineEnum storageEngine;
 	private final List<String> dataNameList;
 	private final List<String> columnNameList;
 	private final List<DataMemoryType> columnTypeList;
@@ -45,14 +46,21 @@ final class PreparedClass {
 	private final List<Class<?>> columnsSetClass;
 	private final List<String> deleteOnSetByLtmId;
 	private final String selectById;
+	private final String selectByIds;
 	private final String insertNewRow;
+	private final String insertDefaultRow;
 	private final List<String> updateColumnById;
 	private final String deleteById;
 
 	PreparedClass(final DataProxyHandler dph) throws ClassNotFoundException {
 		this.interfaceClass = dph.getInterface();
 		this.tablename = HsqldbUtil.getTableName(this.interfaceClass);
-		LOG.debug("interfaceClass: #0, tablename: #1", this.interfaceClass, this.tablename);
+		final Storage storage = this.interfaceClass.getAnnotation(Storage.class);
+		// in memory mode the database is already kept in memory, with searches
+		this.storageEngine = (storage == null || DataMemoryPool.IN_MEMORY) ? StorageEngineEnum.HSQLDB
+				: storage.value();
+		LOG.debug("interfaceClass: #0, tablename: #1, storage: #2", this.interfaceClass, this.tablename,
+				this.storageEngine);
 		final List<String> datanameList = dph.getDatanameList();
 		this.dataNameList = new ArrayList<>();
 		this.columnNameList = new ArrayList<>();
@@ -99,8 +107,12 @@ final class PreparedClass {
 		LOG.debug("updateColumnById: #0", this.updateColumnById);
 		this.selectById = HsqldbUtil.getStatementSelectById(this.tablename);
 		LOG.debug("selectById: #0", this.selectById);
+		this.selectByIds = HsqldbUtil.getStatementSelectByIds(this.tablename);
+		LOG.debug("selectByIds: #0", this.selectByIds);
 		this.insertNewRow = HsqldbUtil.getStatementInsertNewRow(this.tablename);
 		LOG.debug("insertNewRow: #0", this.insertNewRow);
+		this.insertDefaultRow = HsqldbUtil.getStatementInsertDefaultRow(this.tablename);
+		LOG.debug("insertDefaultRow: #0", this.insertDefaultRow);
 		this.deleteById = HsqldbUtil.getStatementDeleteById(this.tablename);
 		LOG.debug("deleteById: #0", this.deleteById);
 		// prepare indexes
@@ -115,6 +127,10 @@ final class PreparedClass {
 		return this.tablename;
 	}
 
+	StorageEngineEnum getStorageEngine() {
+		return this.storageEngine;
+	}
+
 	List<String> getDataNameList() {
 		return this.dataNameList;
 	}
@@ -177,10 +193,18 @@ final class PreparedClass {
 		return this.selectById;
 	}
 
+	String getSelectByIds() {
+		return this.selectByIds;
+	}
+
 	String getInsertNewRow() {
 		return this.insertNewRow;
 	}
 
+	String getInsertDefaultRow() {
+		return this.insertDefaultRow;
+	}
+
 	List<String> getUpdateColumnById() {
 		return this.updateColumnById;
 	}
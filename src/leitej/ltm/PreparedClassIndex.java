@@ -93,6 +93,18 @@ final class PreparedClassIndex {
 		return this.indexCreateMap.get(indexName);
 	}
 
+	/*
+	 * Verifies if some index starts with the column.
+	 */
+	boolean isLeadingColumn(final String columnName) {
+		for (final SortedSet<IndexColumn> indexColumns : this.indexMap.values()) {
+			if (!indexColumns.isEmpty() && indexColumns.first().getColumnName().equals(columnName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	static final class IndexColumn implements Comparable<IndexColumn> {
 
 		private final int position;
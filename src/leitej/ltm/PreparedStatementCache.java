@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright Julio Leite
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as
+ * published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package leitej.ltm;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import leitej.log.Logger;
+
+/**
+ * Least recently used prepared statements of one connection, keyed by the sql
+ * text.<br/>
+ * All statements are discarded when the schema changes.<br/>
+ * <br/>
+ * A statement whose result set is iterated is taken with {@link #acquire(String)}
+ * and given back with {@link #release(PreparedStatement)}, as the iteration can
+ * ask for other statements. While taken it is never closed: not evicted, and
+ * when discarded or asked again it is only retired, to be closed on release.
+ *
+ * @author Julio Leite
+ *
+ */
+final class PreparedStatementCache {
+
+	private static final Logger LOG = Logger.getInstance();
+
+	private static final AtomicLong TOTAL_HITS = new AtomicLong(0);
+	private static final AtomicLong TOTAL_MISSES = new AtomicLong(0);
+
+	static long getTotalHits() {
+		return TOTAL_HITS.get();
+	}
+
+	static long getTotalMisses() {
+		return TOTAL_MISSES.get();
+	}
+
+	private final Connection conn;
+	private final int capacity;
+	private final Map<String, PreparedStatement> statements;
+	private final Set<PreparedStatement> acquired;
+	private final List<PreparedStatement> retired;
+	private int schemaVersion;
+	private long hits;
+	private long misses;
+
+	PreparedStatementCache(final Connection conn, final int capacity) {
+		this.conn = conn;
+		this.capacity = capacity;
+		this.statements = new LinkedHashMap<>(16, 0.75f, true);
+		this.acquired = Collections.newSetFromMap(new IdentityHashMap<PreparedStatement, Boolean>());
+		this.retired = new ArrayList<>();
+		this.schemaVersion = HsqldbUtil.getSchemaVersion();
+		this.hits = 0;
+		this.misses = 0;
+	}
+
+	/**
+	 * The statement returned must not be closed, and its execution must be
+	 * completed before asking for another.
+	 */
+	PreparedStatement prepare(final String sql) throws SQLException {
+		final int version = HsqldbUtil.getSchemaVersion();
+		if (version != this.schemaVersion) {
+			LOG.trace("schema changed: #0", version);
+			clear();
+			this.schemaVersion = version;
+		}
+		PreparedStatement result = this.statements.get(sql);
+		if (result != null && this.acquired.contains(result)) {
+			// the same sql while a caller still iterates it
+			this.retired.add(result);
+			result = null;
+		}
+		if (result == null) {
+			this.misses++;
+			TOTAL_MISSES.incrementAndGet();
+			result = this.conn.prepareStatement(sql);
+			this.statements.put(sql, result);
+			if (this.statements.size() > this.capacity) {
+				evict(result);
+			}
+		} else {
+			this.hits++;
+			TOTAL_HITS.incrementAndGet();
+			result.clearParameters();
+		}
+		return result;
+	}
+
+	/**
+	 * The statement returned must not be closed, and has to be released when
+	 * its result set is no longer iterated.
+	 */
+	PreparedStatement acquire(final String sql) throws SQLException {
+		final PreparedStatement result = prepare(sql);
+		this.acquired.add(result);
+		return result;
+	}
+
+	void release(final PreparedStatement pStt) throws SQLException {
+		if (this.acquired.remove(pStt) && this.retired.remove(pStt)) {
+			pStt.close();
+		}
+	}
+
+	/*
+	 * Closes the least recently used statement not acquired, if any.
+	 */
+	private void evict(final PreparedStatement prepared) throws SQLException {
+		PreparedStatement pStt;
+		for (final Iterator<PreparedStatement> it = this.statements.values().iterator(); it.hasNext();) {
+			pStt = it.next();
+			if (pStt != prepared && !this.acquired.contains(pStt)) {
+				it.remove();
+				pStt.close();
+				return;
+			}
+		}
+	}
+
+	long getHits() {
+		return this.hits;
+	}
+
+	long getMisses() {
+		return this.misses;
+	}
+
+	/*
+	 * Discards all the statements, the ones acquired are only retired.
+	 */
+	void clear() throws SQLException {
+		SQLException exception = null;
+		for (final PreparedStatement pStt : this.statements.values()) {
+			try {
+				if (this.acquired.contains(pStt)) {
+					this.retired.add(pStt);
+				} else {
+					pStt.close();
+				}
+			} catch (final SQLException e) {
+				exception = e;
+			}
+		}
+		this.statements.clear();
+		if (exception != null) {
+			throw exception;
+		}
+	}
+
+	/*
+	 * Closes all the statements, with the connection.
+	 */
+	void close() throws SQLException {
+		clear();
+		SQLException exception = null;
+		for (final PreparedStatement pStt : this.retired) {
+			try {
+				pStt.close();
+			} catch (final SQLException e) {
+				exception = e;
+			}
+		}
+		this.retired.clear();
+		this.acquired.clear();
+		if (exception != null) {
+			throw exception;
+		}
+	}
+
+}
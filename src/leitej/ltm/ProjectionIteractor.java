@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright Julio Leite
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as
+ * published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package leitej.ltm;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import leitej.exception.LtmLtRtException;
+import leitej.exception.ObjectPoolLtException;
+import leitej.util.data.Obfuscate;
+import leitej.util.data.ObfuscateUtil;
+
+/**
+ * @author Julio Leite
+ *
+ */
+final class ProjectionIteractor<T extends LtmObjectModelling> implements Iterator<Object[]> {
+
+	private static final DataMemoryPool MEM_POOL = DataMemoryPool.getInstance();
+
+	private final Class<T> ltmClass;
+	private final SearchPaging paging;
+	private final String[] columns;
+	private final DataMemoryType[] columnTypes;
+	private final Class<?>[] columnClasses;
+	private final Obfuscate[] obfuscates;
+	private final List<Object[]> page;
+	private int pagePosition;
+
+	ProjectionIteractor(final LtmFilter<T> ltmFilter) {
+		this.ltmClass = ltmFilter.getLTMClass();
+		this.columns = ltmFilter.getSelectColumns();
+		this.columnClasses = ltmFilter.getSelectClasses();
+		this.columnTypes = new DataMemoryType[this.columnClasses.length];
+		for (int i = 0; i < this.columnClasses.length; i++) {
+			this.columnTypes[i] = DataMemoryType.getDataMemoryType(this.columnClasses[i]);
+		}
+		this.obfuscates = ltmFilter.getSelectObfuscates();
+		this.paging = new SearchPaging(ltmFilter, this.columns);
+		this.page = new ArrayList<>(ltmFilter.getPageSize());
+		this.pagePosition = 0;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (this.pagePosition == this.page.size() && !this.paging.isFinished()) {
+			fetchNextPage();
+		}
+		return this.pagePosition < this.page.size();
+	}
+
+	@Override
+	public Object[] next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		final Object[] result = this.page.get(this.pagePosition);
+		this.page.set(this.pagePosition, null);
+		this.pagePosition++;
+		for (int i = 0; i < result.length; i++) {
+			if (this.obfuscates[i] != null && result[i] != null) {
+				result[i] = ObfuscateUtil.unHide(this.obfuscates[i], result[i]);
+			}
+		}
+		return result;
+	}
+
+	private void fetchNextPage() {
+		this.page.clear();
+		this.pagePosition = 0;
+		DataMemoryConnection conn = null;
+		try {
+			try {
+				conn = MEM_POOL.poll();
+				conn.fetchProjectionPage(this.ltmClass, this.paging, this.columns, this.columnTypes,
+						this.columnClasses, this.page);
+			} finally {
+				if (conn != null) {
+					MEM_POOL.offer(conn);
+				}
+			}
+		} catch (ObjectPoolLtException | InterruptedException | SQLException e) {
+			throw new LtmLtRtException(e);
+		}
+	}
+
+	// Comparison and hashing
+
+	@Override
+	public boolean equals(final Object o) {
+		return (this == o);
+	}
+
+	@Override
+	public int hashCode() {
+		return this.paging.hashCode();
+	}
+
+}
@@ -17,7 +17,9 @@
 package leitej.ltm;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 import leitej.exception.LtmLtRtException;
@@ -29,27 +31,29 @@ import leitej.exception.ObjectPoolLtException;
  */
 final class SearchIteractor<T extends LtmObjectModelling> implements Iterator<T> {
 
-	private static final DataMemoryPool MEM_POOL = DataMemoryPool.getInstance();
 	private static final LongTermMemory LTM = LongTermMemory.getInstance();
+	private static final DataMemoryPool MEM_POOL = DataMemoryPool.getInstance();
 
 	private final Class<T> ltmClass;
-	private final String query;
-	private final Object[] parameters;
-	private final DataMemoryType[] types;
-	private Long nextId;
+	private final SearchPaging paging;
+	private final List<String> preloadList;
+	private final List<T> page;
+	private int pagePosition;
 
-	SearchIteractor(final Class<T> ltmClass, final String queryFilter, final Object[] parameters,
-			final DataMemoryType[] types, final boolean orderDesc) {
-		this.ltmClass = ltmClass;
-		this.query = HsqldbUtil.getStatementScaledIterator(HsqldbUtil.getTableName(ltmClass), queryFilter, orderDesc);
-		this.parameters = parameters;
-		this.types = types;
-		this.nextId = fetchNextId(((orderDesc) ? Long.MAX_VALUE : Long.MIN_VALUE));
+	SearchIteractor(final LtmFilter<T> ltmFilter) {
+		this.ltmClass = ltmFilter.getLTMClass();
+		this.paging = new SearchPaging(ltmFilter, null);
+		this.preloadList = new ArrayList<>(ltmFilter.getPreloadList());
+		this.page = new ArrayList<>(ltmFilter.getPageSize());
+		this.pagePosition = 0;
 	}
 
 	@Override
 	public boolean hasNext() {
-		return this.nextId != null;
+		if (this.pagePosition == this.page.size() && !this.paging.isFinished()) {
+			fetchNextPage();
+		}
+		return this.pagePosition < this.page.size();
 	}
 
 	@Override
@@ -57,18 +61,20 @@ final class SearchIteractor<T extends LtmObjectModelling> implements Iterator<T>
 		if (!hasNext()) {
 			throw new NoSuchElementException();
 		}
-		final long ltmId = this.nextId;
-		this.nextId = fetchNextId(this.nextId);
-		return LTM.fetch(this.ltmClass, ltmId);
+		final T result = this.page.get(this.pagePosition);
+		this.page.set(this.pagePosition, null);
+		this.pagePosition++;
+		return result;
 	}
 
-	private Long fetchNextId(final long id) {
-		Long result;
+	private void fetchNextPage() {
+		this.page.clear();
+		this.pagePosition = 0;
 		DataMemoryConnection conn = null;
 		try {
 			try {
 				conn = MEM_POOL.poll();
-				result = conn.getNextId(this.query, this.types, this.parameters, id);
+				conn.fetchPage(this.ltmClass, this.paging, this.page);
 			} finally {
 				if (conn != null) {
 					MEM_POOL.offer(conn);
@@ -77,7 +83,9 @@ final class SearchIteractor<T extends LtmObjectModelling> implements Iterator<T>
 		} catch (ObjectPoolLtException | InterruptedException | SQLException e) {
 			throw new LtmLtRtException(e);
 		}
-		return result;
+		if (!this.preloadList.isEmpty() && !this.page.isEmpty()) {
+			LTM.preload(this.page, this.preloadList);
+		}
 	}
 
 	// Comparison and hashing
@@ -89,7 +97,7 @@ final class SearchIteractor<T extends LtmObjectModelling> implements Iterator<T>
 
 	@Override
 	public int hashCode() {
-		return this.query.hashCode() + this.parameters.hashCode();
+		return this.paging.hashCode();
 	}
 
 }
@@ -0,0 +1,251 @@
+/*******************************************************************************
+ * Copyright Julio Leite
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as
+ * published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package leitej.ltm;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import leitej.log.Logger;
+
+/**
+ * Position of a search walking the records page by page, after the last
+ * record read (keyset pagination).
+ *
+ * @author Julio Leite
+ *
+ */
+final class SearchPaging {
+
+	private static final Logger LOG = Logger.getInstance();
+
+	private static final Set<String> WARNED_NOT_INDEXED = Collections.synchronizedSet(new HashSet<String>());
+
+	private final Class<? extends LtmObjectModelling> ltmClass;
+	private final String tablename;
+	private final String[] columns;
+	private final String filter;
+	private final Object[] filterParams;
+	private final DataMemoryType[] filterTypes;
+	private final String orderColumn;
+	private final DataMemoryType orderType;
+	private final boolean desc;
+	private final boolean idDesc;
+	private final int pageSize;
+	private final int limit;
+	private int read;
+	private boolean positioned;
+	private Object lastValue;
+	private long lastId;
+	private int pageLimit;
+	private boolean finished;
+
+	/*
+	 * Columns null to select all.
+	 */
+	<T extends LtmObjectModelling> SearchPaging(final LtmFilter<T> ltmFilter, final String[] columns) {
+		this.ltmClass = ltmFilter.getLTMClass();
+		this.tablename = HsqldbUtil.getTableName(this.ltmClass);
+		this.columns = columns;
+		this.filter = ltmFilter.getQueryFilter();
+		this.filterParams = ltmFilter.getParams();
+		this.filterTypes = ltmFilter.getTypes();
+		final String orderBy = ltmFilter.getOrderBy();
+		if (orderBy == null) {
+			this.orderColumn = null;
+			this.orderType = null;
+		} else {
+			this.orderColumn = ltmFilter.getColumn(orderBy);
+			this.orderType = DataMemoryType.getDataMemoryType(ltmFilter.getReturnClass(orderBy));
+		}
+		this.desc = ltmFilter.isDescOrder();
+		// records with the same value keep the order of creation
+		this.idDesc = this.desc && this.orderColumn == null;
+		this.pageSize = ltmFilter.getPageSize();
+		this.limit = ltmFilter.getLimit();
+		this.read = 0;
+		final LtmObjectModelling startAfter = ltmFilter.getStartAfter();
+		if (startAfter == null) {
+			this.positioned = false;
+			this.lastValue = null;
+			this.lastId = ((this.idDesc) ? Long.MAX_VALUE : Long.MIN_VALUE);
+		} else {
+			this.positioned = true;
+			this.lastValue = (orderBy == null) ? null
+					: DataMemoryUtil.translate(this.orderType,
+							LongTermMemory.getHandler(startAfter).getData(orderBy));
+			this.lastId = startAfter.getLtmId();
+		}
+		this.finished = false;
+	}
+
+	Class<? extends LtmObjectModelling> getLtmClass() {
+		return this.ltmClass;
+	}
+
+	String getOrderColumn() {
+		return this.orderColumn;
+	}
+
+	DataMemoryType getOrderType() {
+		return this.orderType;
+	}
+
+	boolean isFinished() {
+		return this.finished;
+	}
+
+	/*
+	 * Warns once by class and column when the ordering can not use an index.
+	 */
+	void checkIndex(final PreparedClass pClass) {
+		if (this.orderColumn != null && !pClass.getIndexes().isLeadingColumn(this.orderColumn)
+				&& WARNED_NOT_INDEXED.add(this.tablename + "." + this.orderColumn)) {
+			LOG.warn("Ordering #0 by #1 without an index starting with it, the search will sort all records",
+					this.ltmClass.getName(), this.orderColumn);
+		}
+	}
+
+	String nextQuery() {
+		this.pageLimit = (this.limit > 0) ? Math.min(this.pageSize, this.limit - this.read) : this.pageSize;
+		final StringBuilder result = new StringBuilder();
+		result.append("select ");
+		if (this.columns == null) {
+			result.append("*");
+		} else {
+			appendColumn(result, DataProxyHandler.LTM_ID);
+			if (this.orderColumn != null) {
+				result.append(", ");
+				appendColumn(result, this.orderColumn);
+			}
+			for (final String column : this.columns) {
+				result.append(", ");
+				appendColumn(result, column);
+			}
+		}
+		result.append(" from \"");
+		result.append(HsqldbUtil.SCHEMA);
+		result.append("\".\"");
+		result.append(this.tablename);
+		result.append("\" where");
+		result.append(this.filter);
+		final String idOperator = (this.idDesc) ? " < ?" : " > ?";
+		if (this.orderColumn == null) {
+			result.append("and ");
+			appendColumn(result, DataProxyHandler.LTM_ID);
+			result.append(idOperator);
+		} else if (this.positioned) {
+			result.append("and ((");
+			appendColumn(result, this.orderColumn);
+			if (this.lastValue == null) {
+				result.append(" is null and ");
+				appendColumn(result, DataProxyHandler.LTM_ID);
+				result.append(idOperator);
+				result.append(")");
+				if (!this.desc) {
+					result.append(" or ");
+					appendColumn(result, this.orderColumn);
+					result.append(" is not null");
+				}
+			} else {
+				result.append(" = ? and ");
+				appendColumn(result, DataProxyHandler.LTM_ID);
+				result.append(idOperator);
+				result.append(") or ");
+				appendColumn(result, this.orderColumn);
+				result.append((this.desc) ? " < ?" : " > ?");
+				if (this.desc) {
+					result.append(" or ");
+					appendColumn(result, this.orderColumn);
+					result.append(" is null");
+				}
+			}
+			result.append(")");
+		}
+		result.append(" order by ");
+		if (this.orderColumn != null) {
+			appendColumn(result, this.orderColumn);
+			result.append((this.desc) ? " desc nulls last, " : " asc nulls first, ");
+		}
+		appendColumn(result, DataProxyHandler.LTM_ID);
+		result.append((this.idDesc) ? " desc" : " asc");
+		result.append(" limit ");
+		result.append(this.pageLimit);
+		return result.toString();
+	}
+
+	private static void appendColumn(final StringBuilder sb, final String column) {
+		sb.append("\"");
+		sb.append(column);
+		sb.append("\"");
+	}
+
+	Object[] nextParams() {
+		final Object[] keyset;
+		if (this.orderColumn == null) {
+			keyset = new Object[] { this.lastId };
+		} else if (!this.positioned) {
+			keyset = new Object[0];
+		} else if (this.lastValue == null) {
+			keyset = new Object[] { this.lastId };
+		} else {
+			keyset = new Object[] { this.lastValue, this.lastId, this.lastValue };
+		}
+		final Object[] result = new Object[this.filterParams.length + keyset.length];
+		System.arraycopy(this.filterParams, 0, result, 0, this.filterParams.length);
+		System.arraycopy(keyset, 0, result, this.filterParams.length, keyset.length);
+		return result;
+	}
+
+	DataMemoryType[] nextTypes() {
+		final DataMemoryType[] keyset;
+		if (this.orderColumn == null) {
+			keyset = new DataMemoryType[] { DataMemoryType.LONG };
+		} else if (!this.positioned) {
+			keyset = new DataMemoryType[0];
+		} else if (this.lastValue == null) {
+			keyset = new DataMemoryType[] { DataMemoryType.LONG };
+		} else {
+			keyset = new DataMemoryType[] { this.orderType, DataMemoryType.LONG, this.orderType };
+		}
+		final DataMemoryType[] result = new DataMemoryType[this.filterTypes.length + keyset.length];
+		System.arraycopy(this.filterTypes, 0, result, 0, this.filterTypes.length);
+		System.arraycopy(keyset, 0, result, this.filterTypes.length, keyset.length);
+		return result;
+	}
+
+	/*
+	 * Last value is the raw value of the order column.
+	 */
+	void pageRead(final int count, final Object lastValue, final long lastId) {
+		this.read += count;
+		if (count > 0) {
+			this.positioned = true;
+			this.lastValue = lastValue;
+			this.lastId = lastId;
+		}
+		if (count < this.pageLimit || (this.limit > 0 && this.read >= this.limit)) {
+			this.finished = true;
+		}
+	}
+
+	@Override
+	public int hashCode() {
+		return this.tablename.hashCode() + this.filter.hashCode();
+	}
+
+}
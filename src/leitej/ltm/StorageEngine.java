@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright Julio Leite
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as
+ * published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package leitej.ltm;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Keeps the records of long term memory classes, addressed by id.<br/>
+ * <br/>
+ * A row has the values of the columns in the order of the prepared class, as
+ * kept in the memory (see DataMemoryUtil.translate), with null for the ones
+ * not set.
+ *
+ * @author Julio Leite
+ *
+ * @see StorageEngineEnum
+ */
+interface StorageEngine {
+
+	/*
+	 * Prepares the engine to keep the records of the class.
+	 */
+	void initialize(PreparedClass pClass) throws SQLException;
+
+	/*
+	 * Inserts a record without values and returns its id, committed.
+	 */
+	long newRecord(PreparedClass pClass) throws SQLException;
+
+	/*
+	 * Inserts the records without values and returns their ids, does not commit.
+	 */
+	long[] newRecords(PreparedClass pClass, int count) throws SQLException;
+
+	/*
+	 * Returns the row of the record, or null if not found.
+	 */
+	Object[] fetchRecord(PreparedClass pClass, long ltmId) throws SQLException;
+
+	/*
+	 * Returns whether the record is kept.
+	 */
+	boolean existsRecord(PreparedClass pClass, long ltmId) throws SQLException;
+
+	/*
+	 * Puts the rows of the records with the ids, the ones not found are left
+	 * out.
+	 */
+	void fetchRecords(PreparedClass pClass, Collection<Long> ids, Map<Long, Object[]> rows) throws SQLException;
+
+	/*
+	 * Changes the columns at the positions given, returns false if the record is
+	 * not found. Is committed with the connection.
+	 */
+	boolean updateRecord(PreparedClass pClass, long ltmId, int[] columns, Object[] values) throws SQLException;
+
+	/*
+	 * Returns false if the record is not found. Is committed with the
+	 * connection.
+	 */
+	boolean deleteRecord(PreparedClass pClass, long ltmId) throws SQLException;
+
+	/*
+	 * Forgets all the records of all the classes.
+	 */
+	void eraseAll() throws SQLException;
+
+}
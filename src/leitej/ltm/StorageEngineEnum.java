@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright Julio Leite
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as
+ * published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package leitej.ltm;
+
+/**
+ * Enumerates the engines that can keep the records of a long term memory
+ * class.
+ *
+ * @author Julio Leite
+ *
+ * @see Storage
+ */
+public enum StorageEngineEnum {
+	HSQLDB, // Relational tables, with searches, projections and aggregates over the
+			// records.
+	LOG_STRUCTURED; // Append only log with the position of each record in memory, only for the
+					// access by id (fetch, change, forget), without searches.
+}
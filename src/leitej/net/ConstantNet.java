@@ -20,6 +20,8 @@ import java.net.InetAddress;
 import java.nio.charset.Charset;
 
 import leitej.Constant;
+import leitej.thread.AgnosticThread;
+import leitej.thread.PoolEngineEnum;
 import leitej.util.DateUtil;
 
 /**
@@ -42,6 +44,11 @@ public final class ConstantNet {
 	public static final InetAddress DEFAULT_DTP_BIND_ADDR = null;
 
 	public static final int DEFAULT_DTP_MAX_HANDLER_THREADS = 16;
+	public static final PoolEngineEnum DEFAULT_DTP_HANDLER_ENGINE = (AgnosticThread.isVirtualSupported())
+			? PoolEngineEnum.VIRTUAL : PoolEngineEnum.EXECUTIONER;
+	// with virtual threads the bound is of the handlers at once, not of threads kept
+	public static final int DEFAULT_DTP_MAX_HANDLERS = (PoolEngineEnum.VIRTUAL.equals(DEFAULT_DTP_HANDLER_ENGINE))
+			? 256 : DEFAULT_DTP_MAX_HANDLER_THREADS;
 	public static final String DTP_SERVER_THREAD_NAME = "Dtp-Server-";
 	public static final String DTP_HANDLER_THREAD_NAME = "Dtp-Handler-";
 
@@ -17,14 +17,12 @@
 package leitej.net.dtp;
 
 import java.io.IOException;
-import java.lang.reflect.Method;
 import java.net.InetSocketAddress;
 import java.net.SocketTimeoutException;
 import java.util.List;
 
 import leitej.exception.ClosedLtRtException;
 import leitej.exception.ConnectionLtException;
-import leitej.exception.IllegalArgumentLtRtException;
 import leitej.exception.ImplementationLtRtException;
 import leitej.exception.LtException;
 import leitej.exception.PoolAgnosticThreadLtException;
@@ -35,7 +33,7 @@ import leitej.thread.PoolAgnosticThread;
 import leitej.thread.XThreadData;
 import leitej.util.AgnosticUtil;
 import leitej.util.DateUtil;
-import leitej.util.data.Invoke;
+import leitej.util.data.BoundInvoke;
 import leitej.xml.om.XmlObjectModelling;
 import leitej.xml.om.Xmlom;
 
@@ -50,9 +48,6 @@ public abstract class AbstractDtpHandler {
 
 	private static final Logger LOG = Logger.getInstance();
 
-	private static final Method METHOD_SET_RECEIVE_INPUT_STREAM;
-	private static final Method METHOD_HANDLE_SEND_RAW_DATA;
-
 	private DtpServer server;
 	private AbstractCommunicationSession<?, ?, ?, ?> comSession;
 	private volatile boolean closed;
@@ -78,13 +73,16 @@ public abstract class AbstractDtpHandler {
 		this.comSession = comSession;
 		this.closed = false;
 		try {
-			final XThreadData xtd = new XThreadData(new Invoke(this, AgnosticUtil.getMethod(this, METHOD_NAME_DEAL)),
+			final XThreadData xtd = new XThreadData(
+					new BoundInvoke(AgnosticUtil.getMethodHandle(this, METHOD_NAME_DEAL)),
 					ConstantNet.DTP_HANDLER_THREAD_NAME + comSession.getRemoteSocketAddress());
 			this.server.getHandlerThreadPool().workOn(xtd);
 		} catch (final SecurityException e) {
 			LOG.error("#0", e);
 		} catch (final NoSuchMethodException e) {
 			LOG.error("#0", e);
+		} catch (final IllegalAccessException e) {
+			LOG.error("#0", e);
 		} catch (final LtException e) {
 			LOG.error("#0", e);
 		}
@@ -198,15 +196,17 @@ public abstract class AbstractDtpHandler {
 			final long callNumber) {
 		LOG.trace("initialized");
 		try {
-			this.server.getRawDataThreadPool().workOn(
-					new XThreadData(new Invoke(this, METHOD_SET_RECEIVE_INPUT_STREAM, rawDataListener, rawData, callNumber)));
+			this.server.getRawDataThreadPool().workOn(new XThreadData(new BoundInvoke(new Runnable() {
+				@Override
+				public void run() {
+					setReceiveInputStream(rawDataListener, rawData, callNumber);
+				}
+			})));
 		} catch (final PoolAgnosticThreadLtException e) {
 			throw new ImplementationLtRtException(e);
 		}
 	}
 
-	private static final String METHOD_NAME_SET_RECEIVE_INPUT_STREAM = "setReceiveInputStream";
-
 	public final void setReceiveInputStream(final RawDataListener rawDataListener, final RawData rawData,
 			final long callNumber) {
 		if (!PoolAgnosticThread.isCurrentThreadFrom(this.server.getRawDataThreadPool())) {
@@ -221,30 +221,21 @@ public abstract class AbstractDtpHandler {
 		}
 	}
 
-	static {
-		try {
-			METHOD_SET_RECEIVE_INPUT_STREAM = AgnosticUtil.getMethod(AbstractDtpHandler.class,
-					METHOD_NAME_SET_RECEIVE_INPUT_STREAM, RawDataListener.class, RawData.class, long.class);
-		} catch (final IllegalArgumentLtRtException e) {
-			throw new ImplementationLtRtException(e);
-		} catch (final NoSuchMethodException e) {
-			throw new ImplementationLtRtException(e);
-		}
-	}
-
 	private final void handleSendAsync(final RawDataListener rawDataListener, final RawData rawData,
 			final long callNumber) {
 		LOG.trace("initialized");
 		try {
-			this.server.getRawDataThreadPool()
-					.workOn(new XThreadData(new Invoke(this, METHOD_HANDLE_SEND_RAW_DATA, rawDataListener, rawData, callNumber)));
+			this.server.getRawDataThreadPool().workOn(new XThreadData(new BoundInvoke(new Runnable() {
+				@Override
+				public void run() {
+					handleSend(rawDataListener, rawData, callNumber);
+				}
+			})));
 		} catch (final PoolAgnosticThreadLtException e) {
 			throw new ImplementationLtRtException(e);
 		}
 	}
 
-	private static final String METHOD_NAME_HANDLE_SEND_RAW_DATA = "handleSend";
-
 	public final void handleSend(final RawDataListener rawDataListener, final RawData rawData, final long callNumber) {
 		if (!PoolAgnosticThread.isCurrentThreadFrom(this.server.getRawDataThreadPool())) {
 			throw new ImplementationLtRtException("This method only can be called by abstract class AbstractHandler");
@@ -258,17 +249,6 @@ public abstract class AbstractDtpHandler {
 		}
 	}
 
-	static {
-		try {
-			METHOD_HANDLE_SEND_RAW_DATA = AgnosticUtil.getMethod(AbstractDtpHandler.class, METHOD_NAME_HANDLE_SEND_RAW_DATA,
-					RawDataListener.class, RawData.class, long.class);
-		} catch (final IllegalArgumentLtRtException e) {
-			throw new ImplementationLtRtException(e);
-		} catch (final NoSuchMethodException e) {
-			throw new ImplementationLtRtException(e);
-		}
-	}
-
 	private final void internalClose() throws ConnectionLtException {
 		synchronized (this.comSession) {
 			this.closed = true;
@@ -25,6 +25,7 @@ import leitej.exception.ConnectionLtException;
 import leitej.net.ConstantNet;
 import leitej.net.csl.AbstractCommunicationFactory;
 import leitej.thread.PoolAgnosticThread;
+import leitej.thread.PoolEngineEnum;
 
 /**
  * Data Transport Protocol (DTP)
@@ -47,7 +48,7 @@ public final class DtpFactory<H extends AbstractDtpHandler> {
 	 * @param handlerClass class to handle the communication
 	 */
 	public DtpFactory(final AbstractCommunicationFactory<?, ?, ?, ?> comFactory, final Class<H> handlerClass) {
-		this(comFactory, handlerClass, ConstantNet.DEFAULT_DTP_MAX_HANDLER_THREADS,
+		this(comFactory, handlerClass, ConstantNet.DEFAULT_DTP_HANDLER_ENGINE, ConstantNet.DEFAULT_DTP_MAX_HANDLERS,
 				ConstantNet.RAW_DATA_MAX_LISTENERS_PER_BIND_ADDR, ConstantNet.RAW_DATA_MAX_LISTENER_THREADS);
 	}
 
@@ -64,9 +65,33 @@ public final class DtpFactory<H extends AbstractDtpHandler> {
 	 */
 	public DtpFactory(final AbstractCommunicationFactory<?, ?, ?, ?> comFactory, final Class<H> handlerClass,
 			final int maxHandlerThreads, final int maxListenersPerBindAddr, final int maxListenerThreads) {
+		this(comFactory, handlerClass, PoolEngineEnum.EXECUTIONER, maxHandlerThreads, maxListenersPerBindAddr,
+				maxListenerThreads);
+	}
+
+	/**
+	 *
+	 * @param comFactory              settings to apply at communication session
+	 * @param handlerClass            class to handle the communication
+	 * @param handlerEngine           how the handlers are given to the threads,
+	 *                                {@link leitej.thread.PoolEngineEnum#VIRTUAL
+	 *                                VIRTUAL} only where
+	 *                                {@link leitej.thread.AgnosticThread#isVirtualSupported()
+	 *                                virtual threads are supported}
+	 * @param maxHandlers             maximum number of handlers in parallel
+	 *                                process, the threads of the engine or, with
+	 *                                virtual threads, just the handlers at once
+	 * @param maxListenersPerBindAddr maximum number of listener ports opened per
+	 *                                bind address to receive raw data
+	 * @param maxListenerThreads      maximum number of threads in parallel process
+	 *                                to process raw data
+	 */
+	public DtpFactory(final AbstractCommunicationFactory<?, ?, ?, ?> comFactory, final Class<H> handlerClass,
+			final PoolEngineEnum handlerEngine, final int maxHandlers, final int maxListenersPerBindAddr,
+			final int maxListenerThreads) {
 		this.comFactory = comFactory;
 		this.handlerClass = handlerClass;
-		this.handlerThreadPool = PoolAgnosticThread.newInstance(0, maxHandlerThreads);
+		this.handlerThreadPool = PoolAgnosticThread.newInstance(0, maxHandlers, handlerEngine);
 		this.rawDataListenerMap = new RawDataListenerMap(maxListenersPerBindAddr);
 		this.rawDataThreadPool = PoolAgnosticThread.newInstance(0, maxListenerThreads);
 	}
@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
 import java.net.Socket;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -34,6 +35,7 @@ import leitej.util.DateUtil;
 import leitej.util.data.Cache;
 import leitej.util.data.CacheWeak;
 import leitej.util.stream.FractionInputStream;
+import leitej.util.stream.StreamUtil;
 
 /**
  *
@@ -202,6 +204,18 @@ public final class RawData extends InputStream implements Serializable {
 		return this.in.read(b, off, len);
 	}
 
+	/*
+	 * Sends all the data to the channel, without copying it to the heap when it
+	 * is read from a file.
+	 */
+	long transferTo(final WritableByteChannel target) throws IOException {
+		waitSetIn();
+		if (FractionInputStream.class.isInstance(this.in)) {
+			return FractionInputStream.class.cast(this.in).transferFractionReferencedTo(target);
+		}
+		return StreamUtil.pipe(this.in, target);
+	}
+
 	@Override
 	public long skip(final long n) throws IOException {
 		waitSetIn();
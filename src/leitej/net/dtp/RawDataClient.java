@@ -16,7 +16,6 @@
 
 package leitej.net.dtp;
 
-import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.Socket;
@@ -30,8 +29,8 @@ import leitej.thread.PoolAgnosticThread;
 import leitej.thread.XThreadData;
 import leitej.util.AgnosticUtil;
 import leitej.util.BinaryUtil;
+import leitej.util.NetUtil;
 import leitej.util.data.InvokeSignature;
-import leitej.util.stream.StreamUtil;
 
 /**
  *
@@ -60,21 +59,15 @@ public final class RawDataClient {
 		// TODO: if(!PoolAgnosticThread.isCurrentThreadFrom(rawDataThreadPool)) throw
 		// new ImplementationLtRtException("This method only can be called by abstract class AbstractHandler");
 		try {
-			final Socket socket = new Socket(address, port);
+			final Socket socket = NetUtil.newSocket(address, port);
 			final byte[] tmp = new byte[8];
 			if (socket.getInputStream().read(tmp) < 8 || callNumber != BinaryUtil.readLong64bit(tmp)) {
 				socket.close();
 				throw new IOException();
 			}
-			BufferedOutputStream out = null;
 			try {
-				out = new BufferedOutputStream(socket.getOutputStream());
-				StreamUtil.pipe(in, out, true);
-				out.flush();
+				in.transferTo(NetUtil.getWritableChannel(socket, socket.getOutputStream()));
 			} finally {
-				if (out != null) {
-					out.close();
-				}
 				socket.close();
 			}
 		} catch (final Exception e) {
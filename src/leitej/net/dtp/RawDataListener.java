@@ -16,7 +16,6 @@
 
 package leitej.net.dtp;
 
-import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.net.BindException;
 import java.net.InetAddress;
@@ -28,7 +27,7 @@ import leitej.exception.ImplementationLtRtException;
 import leitej.log.Logger;
 import leitej.net.ConstantNet;
 import leitej.util.BinaryUtil;
-import leitej.util.stream.StreamUtil;
+import leitej.util.NetUtil;
 
 /**
  *
@@ -47,7 +46,7 @@ final class RawDataListener {
 		ServerSocket server = null;
 		while (server == null) {
 			try {
-				server = new ServerSocket(0, ConstantNet.RAW_DATA_LISTENER_BACKLOG, bindAddr);
+				server = NetUtil.newServerSocket(0, ConstantNet.RAW_DATA_LISTENER_BACKLOG, bindAddr);
 				server.setSoTimeout(ConstantNet.RAW_DATA_LISTENER_TIME_OUT);
 				LOG.trace("#0", server.getLocalPort());
 			} catch (final BindException e) {
@@ -72,10 +71,7 @@ final class RawDataListener {
 				socket.close();
 				throw new IOException();
 			}
-			final BufferedOutputStream out = new BufferedOutputStream(socket.getOutputStream());
-			StreamUtil.pipe(in, out, true);
-			out.flush();
-			out.close();
+			in.transferTo(NetUtil.getWritableChannel(socket, socket.getOutputStream()));
 			socket.close();
 		} finally {
 			this.handling = false;
@@ -21,13 +21,13 @@ import java.net.InetAddress;
 
 import leitej.exception.ClosedLtRtException;
 import leitej.exception.ObjectPoolLtException;
-import leitej.util.data.AbstractObjectPool;
+import leitej.util.data.AbstractConcurrentObjectPool;
 
 /**
  *
  * @author Julio Leite
  */
-final class RawDataListenerBindedPool extends AbstractObjectPool<RawDataListener> {
+final class RawDataListenerBindedPool extends AbstractConcurrentObjectPool<RawDataListener> {
 
 	private static final long serialVersionUID = -6669716044907859290L;
 
@@ -17,10 +17,10 @@
 package leitej.net.ftp;
 
 import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
+import java.nio.channels.WritableByteChannel;
 import java.text.SimpleDateFormat;
 
 import leitej.exception.FileSystemLtRtException;
@@ -108,7 +108,7 @@ public abstract class AbstractFileSystemFtpdHandler<S extends AbstractFileSystem
 	}
 
 	@Override
-	protected int sendBinaryFile(final BufferedOutputStream out, final StringBuilder args, final Long offset) {
+	protected int sendBinaryFile(final WritableByteChannel out, final StringBuilder args, final Long offset) {
 		N node;
 		try {
 			node = resolveNode(args);
@@ -129,7 +129,7 @@ public abstract class AbstractFileSystemFtpdHandler<S extends AbstractFileSystem
 		InputStream is = null;
 		try {
 			is = node.read(offset);
-			StreamUtil.pipe(is, out, true);
+			StreamUtil.pipe(is, out);
 		} catch (final FileSystemLtRtException e) {
 			LOG.trace("#0", e);
 			return 3;
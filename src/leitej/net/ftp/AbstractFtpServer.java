@@ -29,6 +29,7 @@ import leitej.exception.ImplementationLtRtException;
 import leitej.log.Logger;
 import leitej.thread.AgnosticThread;
 import leitej.thread.PoolAgnosticThread;
+import leitej.thread.PoolEngineEnum;
 import leitej.thread.ThreadData;
 import leitej.thread.ThreadPriorityEnum;
 import leitej.util.AgnosticUtil;
@@ -49,9 +50,9 @@ import leitej.util.machine.ShutdownHookUtil;
 public abstract class AbstractFtpServer<H extends AbstractFtpServerHandler> {
 
 	private static final Logger LOG = Logger.getInstance();
-	private static final PoolAgnosticThread POOL_ATHREAD = PoolAgnosticThread.newInstance(0, 230);
 
 	private final ServerSocket serverSocket;
+	private final PoolAgnosticThread poolAThread;
 	private final AgnosticThread aThread = new AgnosticThread();
 	private final List<H> handlers = new ArrayList<>();
 
@@ -93,7 +94,37 @@ public abstract class AbstractFtpServer<H extends AbstractFtpServerHandler> {
 	 */
 	protected AbstractFtpServer(final int port, final int backlog, final InetAddress bindAddr)
 			throws IOException, SecurityException {
+		this(port, backlog, bindAddr, ConstantFtp.DEFAULT_HANDLER_ENGINE, ConstantFtp.DEFAULT_MAX_HANDLERS);
+	}
+
+	/**
+	 * .<br/>
+	 * <br/>
+	 * A call to {@link leitej.net.ftp.AbstractFtpServer#close() close()} is put in
+	 * the {@link leitej.util.machine.ShutdownHookUtil#addToFirst(InvokeItf)
+	 * ShutdownHookUtil.addToFirst(InvokeItf)}.
+	 *
+	 * @param port
+	 * @param backlog
+	 * @param bindAddr
+	 * @param handlerEngine how the sessions are given to the threads,
+	 *                      {@link leitej.thread.PoolEngineEnum#VIRTUAL VIRTUAL}
+	 *                      only where
+	 *                      {@link leitej.thread.AgnosticThread#isVirtualSupported()
+	 *                      virtual threads are supported}
+	 * @param maxHandlers   maximum number of sessions in parallel process, the
+	 *                      threads of the engine or, with virtual threads, just
+	 *                      the sessions at once
+	 * @throws SecurityException if a security manager exists and its
+	 *                           <code>checkListen</code> method doesn't allow the
+	 *                           operation
+	 * @throws IOException       if an I/O error occurs when opening the server
+	 *                           socket
+	 */
+	protected AbstractFtpServer(final int port, final int backlog, final InetAddress bindAddr,
+			final PoolEngineEnum handlerEngine, final int maxHandlers) throws IOException, SecurityException {
 		this.serverSocket = new ServerSocket(port, backlog, bindAddr);
+		this.poolAThread = PoolAgnosticThread.newInstance(0, maxHandlers, handlerEngine);
 		this.aThread.setName(ConstantFtp.FTP_SERVER_THREAD_NAME + this.aThread.getId());
 		try {
 			this.closeAtShutdownInvoke = new Invoke(this, AgnosticUtil.getMethod(this, METHOD_CLOSE));
@@ -114,7 +145,7 @@ public abstract class AbstractFtpServer<H extends AbstractFtpServerHandler> {
 			try {
 				while (!this.closed) {
 					handler = newHandler();
-					handler.startAsync(POOL_ATHREAD, this, this.serverSocket.accept());
+					handler.startAsync(this.poolAThread, this, this.serverSocket.accept());
 					synchronized (this.handlers) {
 						this.handlers.add(handler);
 					}
@@ -202,6 +233,7 @@ public abstract class AbstractFtpServer<H extends AbstractFtpServerHandler> {
 				}
 			}
 		} while (handler != null);
+		this.poolAThread.closeAsync();
 	}
 
 	private void removeCloseAsyncInvokeFromShutdownHook() {
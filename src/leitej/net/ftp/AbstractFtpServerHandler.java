@@ -17,7 +17,6 @@
 package leitej.net.ftp;
 
 import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
@@ -30,6 +29,7 @@ import java.net.InetAddress;
 import java.net.Socket;
 import java.net.SocketException;
 import java.net.UnknownHostException;
+import java.nio.channels.WritableByteChannel;
 import java.util.StringTokenizer;
 
 import leitej.Constant;
@@ -40,6 +40,7 @@ import leitej.log.Logger;
 import leitej.thread.PoolAgnosticThread;
 import leitej.thread.XThreadData;
 import leitej.util.AgnosticUtil;
+import leitej.util.NetUtil;
 import leitej.util.StringUtil;
 import leitej.util.data.Invoke;
 import leitej.util.fs.Path;
@@ -497,7 +498,7 @@ public abstract class AbstractFtpServerHandler {
 				}
 			}
 			dataSocket = getDataSocketClient();
-			final BufferedOutputStream out = new BufferedOutputStream(dataSocket.getOutputStream());
+			final WritableByteChannel out = NetUtil.getWritableChannel(dataSocket, dataSocket.getOutputStream());
 			isFile = sendBinaryFile(out, args, offset);
 			if (isFile == 1) {
 				throw new FtpLtException(CodeEnum._550_npf);
@@ -508,7 +509,6 @@ public abstract class AbstractFtpServerHandler {
 			if (isFile != 0) {
 				throw new FtpLtException(CodeEnum._550);
 			}
-			out.flush();
 			send(CodeEnum._226);
 			out.close();
 		} catch (final IOException e) {
@@ -537,14 +537,15 @@ public abstract class AbstractFtpServerHandler {
 
 	/**
 	 * SEND BINARY FILE<br/>
-	 * Does not close argument <code>out</code>.
+	 * Does not close argument <code>out</code>, which writes directly to the
+	 * data connection, so a file can be sent without copying it to the heap.
 	 *
 	 * @return 0 -> success<br/>
 	 *         1 -> fail - not a plain file<br/>
 	 *         2 -> fail - nonexistent file<br/>
 	 *         other -> fail
 	 */
-	protected abstract int sendBinaryFile(BufferedOutputStream out, StringBuilder args, Long offset);
+	protected abstract int sendBinaryFile(WritableByteChannel out, StringBuilder args, Long offset);
 
 	protected CodeEnum handleSTOR(final StringBuilder args) throws FtpLtException {
 		LOG.trace("initialized");
@@ -974,7 +975,7 @@ public abstract class AbstractFtpServerHandler {
 		LOG.trace("initialized");
 		if (TransferModeEnum.ACTIVE.equals(this.sessionData.getTransferMode())) {
 			try {
-				return new Socket(InetAddress.getByName(this.sessionData.getClientDtpIp()),
+				return NetUtil.newSocket(InetAddress.getByName(this.sessionData.getClientDtpIp()),
 						this.sessionData.getClientDtpPort(), this.socket.getLocalAddress(),
 						this.socket.getLocalPort() - 1);
 			} catch (final UnknownHostException e) {
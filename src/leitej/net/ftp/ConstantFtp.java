@@ -18,6 +18,9 @@ package leitej.net.ftp;
 
 import java.net.InetAddress;
 
+import leitej.thread.AgnosticThread;
+import leitej.thread.PoolEngineEnum;
+
 /**
  *
  * @author Julio Leite
@@ -28,6 +31,12 @@ final class ConstantFtp {
 	static final int DEFAULT_BACKLOG = 0;
 	static final InetAddress DEFAULT_BIND_ADDR = null;
 
+	static final PoolEngineEnum DEFAULT_HANDLER_ENGINE = (AgnosticThread.isVirtualSupported())
+			? PoolEngineEnum.VIRTUAL : PoolEngineEnum.EXECUTIONER;
+	// virtual threads only bound the sessions at once, each with a control and a
+	// data socket and a file open, within the usual limit of 4096 open files
+	static final int DEFAULT_MAX_HANDLERS = (PoolEngineEnum.VIRTUAL.equals(DEFAULT_HANDLER_ENGINE)) ? 1024 : 230;
+
 	static final String FTP_SERVER_THREAD_NAME = "Ftp-Server-";
 	static final String FTP_HANDLER_THREAD_NAME = "Ftp-Handler-";
 
@@ -30,6 +30,7 @@ import leitej.thread.PoolAgnosticThread;
 import leitej.thread.XThreadData;
 import leitej.util.AgnosticUtil;
 import leitej.util.DateUtil;
+import leitej.util.NetUtil;
 import leitej.util.data.Invoke;
 
 /**
@@ -56,7 +57,7 @@ public final class ListenerDtp {
 		ServerSocket server = null;
 		while (server == null) {
 			try {
-				server = new ServerSocket(portSeq++, 0, bindAddr);
+				server = NetUtil.newServerSocket(portSeq++, 0, bindAddr);
 			} catch (final BindException e) {
 				LOG.trace("#0", e);
 			}
@@ -0,0 +1,271 @@
+/*******************************************************************************
+ * Copyright Julio Leite
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as
+ * published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package leitej.thread;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import leitej.exception.AgnosticThreadLtException;
+import leitej.exception.IllegalArgumentLtRtException;
+import leitej.exception.ImplementationLtRtException;
+import leitej.log.Logger;
+import leitej.util.AgnosticUtil;
+import leitej.util.data.BoundInvoke;
+
+/**
+ * Engine of a {@link leitej.thread.PoolAgnosticThread PoolAgnosticThread} that
+ * puts to work each task as soon as it is ready.<br/>
+ * <br/>
+ * Only the delayed tasks wait, in a {@link leitej.thread.TimingWheel
+ * TimingWheel} moved by the scheduler thread, until their time; the subclasses
+ * define the threads where the tasks run.
+ *
+ * @author Julio Leite
+ */
+abstract class AbstractPoolEngine {
+
+	private static final Logger LOG = Logger.getInstance();
+
+	private static final long SCHEDULER_SLEEP_TIME = TimeUnit.MILLISECONDS.toNanos(10000);
+
+	// delayed tasks waiting their time
+	private final TimingWheel<PoolTaskStruct> timingWheel;
+	// tasks given and not yet ended: delayed, queued or working
+	private final AtomicInteger taskCount;
+	private final AgnosticThread scheduler;
+	private volatile boolean schedulerIdle;
+	private volatile boolean closed;
+
+	AbstractPoolEngine(final String prefixThreadName) {
+		this.timingWheel = new TimingWheel<>();
+		this.schedulerIdle = false;
+		this.taskCount = new AtomicInteger(0);
+		this.closed = false;
+		this.scheduler = new AgnosticThread();
+		try {
+			// this class is not public, so the handle is resolved with its own access
+			this.scheduler.workOn(new ThreadData(
+					new BoundInvoke(AgnosticUtil.getMethodHandle(MethodHandles.lookup(), this, METHOD_SCHEDULER_JOB)),
+					prefixThreadName + "_SCHEDULER", ThreadPriorityEnum.MAXIMUM));
+		} catch (final IllegalArgumentLtRtException e) {
+			throw new ImplementationLtRtException(e);
+		} catch (final NoSuchMethodException e) {
+			throw new ImplementationLtRtException(e);
+		} catch (final IllegalAccessException e) {
+			throw new ImplementationLtRtException(e);
+		} catch (final AgnosticThreadLtException e) {
+			throw new ImplementationLtRtException(e);
+		}
+	}
+
+	/**
+	 * Puts the task to work in a thread of the engine.<br/>
+	 * At the end of the task the implementation has to call
+	 * {@link #taskEnded(PoolTaskStruct)}, or {@link #taskRejected(PoolTaskStruct)}
+	 * if it is not accepted.
+	 *
+	 * @param ts task ready to work
+	 */
+	abstract void execute(PoolTaskStruct ts);
+
+	/**
+	 * Verifies if the thread works for this engine.
+	 *
+	 * @param thread to verify
+	 * @return boolean
+	 */
+	abstract boolean isWorker(Thread thread);
+
+	/**
+	 * Stops accepting tasks, the ones already accepted still run.
+	 */
+	abstract void shutdown();
+
+	/**
+	 * Waits for the tasks already accepted to end.
+	 *
+	 * @throws InterruptedException to stop the wait
+	 */
+	abstract void awaitTermination() throws InterruptedException;
+
+	final boolean isClosed() {
+		return this.closed;
+	}
+
+	final boolean isAlive() {
+		return this.scheduler.isAlive();
+	}
+
+	final void workOn(final XThreadData xThreadData) {
+		this.taskCount.incrementAndGet();
+		addTaskToWork(new PoolTaskStruct(xThreadData));
+	}
+
+	private void addTaskToWork(final PoolTaskStruct ts) {
+		// a task stopped before working keeps its date, so it has to leave here
+		if (ts.getDate() == null || this.closed || ts.getXThreadData().isAtypicallyDone()) {
+			LOG.trace("taskStruct: #0, Leave", ts);
+			ended();
+		} else if (ts.isFuture()) {
+			ts.getXThreadData().setTimeout(this.timingWheel.schedule(ts, ts.getDeadlineNanos()));
+			LOG.trace("taskStruct: #0, Enter timing wheel size: #1", ts, this.timingWheel.size());
+			if (this.schedulerIdle) {
+				LockSupport.unpark(this.scheduler);
+			}
+		} else {
+			execute(ts);
+		}
+	}
+
+	/**
+	 * Runs the task in the current thread.
+	 *
+	 * @param ts task to run
+	 * @return true if the invoke was made
+	 */
+	final boolean work(final PoolTaskStruct ts) {
+		final XThreadData xtd = ts.getXThreadData();
+		if (this.closed || xtd.isAtypicallyDone() || xtd.isDone()) {
+			return false;
+		}
+		try {
+			xtd.setResult(AgnosticUtil.invoke(xtd.getInvokeData()));
+		} catch (final Exception e) {
+			xtd.setException(e);
+		} catch (final Error er) {
+			er.printStackTrace();
+			throw er;
+		} finally {
+			xtd.done();
+			Thread.interrupted();
+		}
+		return true;
+	}
+
+	/**
+	 * To be called when the task leaves the thread, it goes back to the engine if
+	 * it has to repeat.
+	 *
+	 * @param ts task that left the thread
+	 */
+	final void taskEnded(final PoolTaskStruct ts) {
+		ts.updateTask();
+		addTaskToWork(ts);
+	}
+
+	/**
+	 * To be called when the task is not accepted by the threads.
+	 *
+	 * @param ts task not accepted
+	 */
+	final void taskRejected(final PoolTaskStruct ts) {
+		LOG.trace("taskStruct: #0, rejected", ts);
+		ended();
+	}
+
+	private void ended() {
+		if (this.taskCount.decrementAndGet() == 0) {
+			synchronized (this.taskCount) {
+				this.taskCount.notifyAll();
+			}
+		}
+	}
+
+	private static final String METHOD_SCHEDULER_JOB = "schedulerJob";
+
+	/**
+	 * Puts the delayed tasks to work on their time.<br/>
+	 * This method is only to be internally invoked by the thread scheduler.
+	 */
+	public final void schedulerJob() {
+		if (Thread.currentThread().getId() == this.scheduler.getId()) {
+			LOG.debug("initialized");
+			final List<PoolTaskStruct> expired = new ArrayList<>();
+			final List<PoolTaskStruct> cancelled = new ArrayList<>();
+			while (!this.closed) {
+				if (this.timingWheel.isEmpty()) {
+					this.schedulerIdle = true;
+					if (this.timingWheel.isEmpty() && !this.closed) {
+						LockSupport.parkNanos(this, SCHEDULER_SLEEP_TIME);
+					}
+					this.schedulerIdle = false;
+				} else {
+					LockSupport.parkNanos(this, this.timingWheel.nanosToNextTick());
+				}
+				Thread.interrupted();
+				this.timingWheel.advance(expired, cancelled);
+				for (final PoolTaskStruct ts : cancelled) {
+					LOG.trace("XThreadData '#0' cancelled", ts.getXThreadData().getInvokeData().getMethod().getName());
+					ended();
+				}
+				for (final PoolTaskStruct ts : expired) {
+					if (ts.getXThreadData().isAtypicallyDone()) {
+						LOG.trace("XThreadData '#0' atypically leave queue",
+								ts.getXThreadData().getInvokeData().getMethod().getName());
+						ended();
+					} else {
+						LOG.trace("put to work #0 at #1", ts, ts.getDate().getTime());
+						execute(ts);
+					}
+				}
+				cancelled.clear();
+				expired.clear();
+			}
+			this.timingWheel.clear(cancelled);
+			for (int i = cancelled.size(); i > 0; i--) {
+				ended();
+			}
+			LOG.debug("stopping the scheduler thread");
+		} else {
+			throw new ImplementationLtRtException("This method can only be invoked by the thread scheduler");
+		}
+	}
+
+	/*
+	 * Waits for all the tasks given to end, including the delayed ones.
+	 */
+	final void closeWaitAll() throws InterruptedException {
+		synchronized (this.taskCount) {
+			while (this.taskCount.get() > 0) {
+				this.taskCount.wait();
+			}
+		}
+		close();
+	}
+
+	/*
+	 * Waits only for the tasks already working.
+	 */
+	final void close() throws InterruptedException {
+		closeAsync();
+		this.scheduler.close();
+		awaitTermination();
+	}
+
+	final void closeAsync() {
+		this.closed = true;
+		// the scheduler gives back the delayed tasks when it stops
+		LockSupport.unpark(this.scheduler);
+		shutdown();
+		this.scheduler.closeAsync();
+	}
+
+}
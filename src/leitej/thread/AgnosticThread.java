@@ -17,6 +17,7 @@
 package leitej.thread;
 
 import leitej.exception.AgnosticThreadLtException;
+import leitej.exception.IllegalArgumentLtRtException;
 import leitej.exception.ImplementationLtRtException;
 import leitej.util.AgnosticUtil;
 import leitej.util.StringUtil;
@@ -54,6 +55,53 @@ public class AgnosticThread extends Thread {
 
 	protected static final long SLEEP_TIME_MS = 2000;
 
+	/**
+	 * Verifies if the Java Virtual Machine offers virtual threads to
+	 * {@link #startVirtual(ThreadData)}.
+	 *
+	 * @return boolean
+	 */
+	public static boolean isVirtualSupported() {
+		return VirtualThreadUtil.isSupported();
+	}
+
+	/**
+	 * Starts a new thread to run invoke only once, and end.<br/>
+	 * This is like a fire and forget, don't need to check the return of invocation
+	 * or is void.
+	 *
+	 * @param invoke to call
+	 * @return the thread started
+	 * @throws IllegalArgumentLtRtException if <code>invoke</code> is null
+	 * @see #startVirtual(ThreadData)
+	 */
+	public static Thread startVirtual(final InvokeItf invoke) throws IllegalArgumentLtRtException {
+		return startVirtual(new ThreadData(invoke));
+	}
+
+	/**
+	 * Starts a new thread to run invoke only once, and end.<br/>
+	 * <br/>
+	 * The thread is virtual when the Java Virtual Machine offers them (see
+	 * {@link #isVirtualSupported()}), so a work that spends most of the time
+	 * blocked waiting does not hold a system thread; otherwise it is a platform
+	 * thread.<br/>
+	 * The priority of <code>threadData</code> only applies to platform threads.
+	 *
+	 * @param threadData to work on
+	 * @return the thread started
+	 * @throws IllegalArgumentLtRtException if <code>threadData</code> is null
+	 */
+	public static Thread startVirtual(final ThreadData threadData) throws IllegalArgumentLtRtException {
+		if (threadData == null) {
+			throw new IllegalArgumentLtRtException("The parameter threadData can't be null");
+		}
+		final Thread result = VirtualThreadUtil.newThread(new VirtualTask(threadData), threadData.getThreadName(),
+				threadData.getPriority());
+		result.start();
+		return result;
+	}
+
 	private final boolean keepAlive;
 	private final String prefixName;
 	protected volatile boolean closeThread = false;
@@ -310,4 +358,30 @@ public class AgnosticThread extends Thread {
 		pauseBreak();
 	}
 
+	private static final class VirtualTask implements Runnable {
+
+		private final ThreadData threadData;
+
+		private VirtualTask(final ThreadData threadData) {
+			this.threadData = threadData;
+		}
+
+		@Override
+		public void run() {
+			if (!this.threadData.isDone()) {
+				try {
+					this.threadData.setResult(AgnosticUtil.invoke(this.threadData.getInvokeData()));
+				} catch (final Exception e) {
+					this.threadData.setException(e);
+				} catch (final Error er) {
+					er.printStackTrace();
+					throw er;
+				} finally {
+					this.threadData.done();
+				}
+			}
+		}
+
+	}
+
 }
@@ -16,11 +16,20 @@
 
 package leitej.thread;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 import leitej.exception.AgnosticThreadLtException;
 import leitej.exception.ClosedLtRtException;
@@ -64,6 +73,7 @@ public final class PoolAgnosticThread {
 	private static final int NORMALIZER_RUN_IN_MINUTELY_INTERVAL = 2;
 	private static final long RESCUER_SLEEP_TIME = 6000;
 	private static final long EXECUTIONER_SLEEP_TIME = 10000;
+	private static final long IDLE_CHECK_TIME = 100;
 	/**
 	 * Default minimum threads running on the pool. (={@value})
 	 */
@@ -85,7 +95,7 @@ public final class PoolAgnosticThread {
 	 * @return the new <code>PoolAgnosticThread</code> instance
 	 */
 	public static PoolAgnosticThread newInstance() {
-		return getPaT(DEFAULT_MIN_NUM_THREAD, DEFAULT_MAX_NUM_THREAD);
+		return getPaT(DEFAULT_MIN_NUM_THREAD, DEFAULT_MAX_NUM_THREAD, PoolEngineEnum.EXECUTIONER);
 	}
 
 	/**
@@ -102,12 +112,34 @@ public final class PoolAgnosticThread {
 	 * @return the new <code>PoolAgnosticThread</code> instance
 	 */
 	public static PoolAgnosticThread newInstance(final int minNumThread, final int maxNumThread) {
-		return getPaT(minNumThread, maxNumThread);
+		return getPaT(minNumThread, maxNumThread, PoolEngineEnum.EXECUTIONER);
 	}
 
-	private synchronized static PoolAgnosticThread getPaT(final int minNumThread, final int maxNumThread)
-			throws IllegalArgumentException {
-		return new PoolAgnosticThread(minNumThread, maxNumThread);
+	/**
+	 * Call this method to get a new <code>PoolAgnosticThread</code> instance.<br/>
+	 * The pool will have <code>minNumThread</code> and <code>maxNumThread</code> in
+	 * parameters and run the tasks with the <code>engine</code>.<br/>
+	 * With {@link leitej.thread.PoolEngineEnum#WORK_STEALING WORK_STEALING} and
+	 * {@link leitej.thread.PoolEngineEnum#VIRTUAL VIRTUAL} the threads are created
+	 * as needed, so <code>minNumThread</code> is only validated.<br/>
+	 * <br/>
+	 * A call to {@link leitej.thread.PoolAgnosticThread#closeAsync() closeAsync()}
+	 * is put in the {@link leitej.util.machine.ShutdownHookUtil#add(InvokeItf)
+	 * ShutdownHookUtil.add(InvokeItf)}.
+	 *
+	 * @param minNumThread defines minimum threads running on the pool
+	 * @param maxNumThread defines maximum threads running on the pool
+	 * @param engine       defines how the tasks are given to the threads
+	 * @return the new <code>PoolAgnosticThread</code> instance
+	 */
+	public static PoolAgnosticThread newInstance(final int minNumThread, final int maxNumThread,
+			final PoolEngineEnum engine) {
+		return getPaT(minNumThread, maxNumThread, engine);
+	}
+
+	private synchronized static PoolAgnosticThread getPaT(final int minNumThread, final int maxNumThread,
+			final PoolEngineEnum engine) throws IllegalArgumentException {
+		return new PoolAgnosticThread(minNumThread, maxNumThread, engine);
 	}
 
 	/**
@@ -121,6 +153,8 @@ public final class PoolAgnosticThread {
 		boolean result = false;
 		if (PoolEmbebedAgnosticThread.class.isInstance(Thread.currentThread())) {
 			result = PoolEmbebedAgnosticThread.class.cast(Thread.currentThread()).isYourPool(pool);
+		} else if (pool.engine != null) {
+			result = pool.engine.isWorker(Thread.currentThread());
 		}
 		return result;
 	}
@@ -143,8 +177,10 @@ public final class PoolAgnosticThread {
 	// queue of threads waiting
 	private final QueueBlockingFIFO<PoolEmbebedAgnosticThread> threadDamagedQueue;
 
-	// job queue waiting to start ordered by execution time
+	// job queue ready to start ordered by execution time
 	private final SortedSet<PoolTaskStruct> taskWaitingSet;
+	// delayed jobs waiting their time, only moved by the executioner
+	private final TimingWheel<PoolTaskStruct> timingWheel;
 	// map idThreads and TaskStruct that are working
 	private final Map<Long, PoolTaskStruct> taskWorkingMap;
 
@@ -160,6 +196,14 @@ public final class PoolAgnosticThread {
 	private final AgnosticThread executioner;
 	private volatile boolean executionerPause;
 
+	// engine of the tasks, null when they go through the executioner
+	private final AbstractPoolEngine engine;
+
+	// futures given and not yet completed
+	private final Set<ThreadDataFuture> pendingFutures;
+	// notified when the pool may have become idle
+	private final Object idleMonitor;
+
 	// defines pool closure
 	private volatile boolean closed;
 	// defines pool closure only for workOn
@@ -176,9 +220,10 @@ public final class PoolAgnosticThread {
 	 *
 	 * @param minNumThread defines minimum threads running on the pool
 	 * @param maxNumThread defines maximum threads running on the pool
+	 * @param engine       defines how the tasks are given to the threads
 	 */
-	private PoolAgnosticThread(final int minNumThread, final int maxNumThread) {
-		if (minNumThread < 0 || maxNumThread < 1 || maxNumThread < minNumThread) {
+	private PoolAgnosticThread(final int minNumThread, final int maxNumThread, final PoolEngineEnum engine) {
+		if (minNumThread < 0 || maxNumThread < 1 || maxNumThread < minNumThread || engine == null) {
 			throw new IllegalArgumentLtRtException();
 		}
 		this.prefixThreadName = "Pool_" + DateUtil.generateUniqueNumberPerJVM();
@@ -193,51 +238,66 @@ public final class PoolAgnosticThread {
 		this.threadWorkingMap = Collections.synchronizedMap(new HashMap<Long, PoolEmbebedAgnosticThread>());
 		this.threadDamagedQueue = new QueueBlockingFIFO<>(this.maxNumThread);
 		this.taskWaitingSet = Collections.synchronizedSortedSet(new TreeSet<PoolTaskStruct>());
+		this.timingWheel = new TimingWheel<>();
+		this.pendingFutures = Collections.newSetFromMap(new ConcurrentHashMap<ThreadDataFuture, Boolean>());
+		this.idleMonitor = new Object();
 		this.taskWorkingMap = Collections.synchronizedMap(new HashMap<Long, PoolTaskStruct>());
 		this.threadIdToRescue = new QueueBlockingFIFO<>(this.maxNumThread);
 		this.closed = false;
 		this.closedWorkOn = false;
-		// Initializes thread responsible for normalizing this pool
-		this.normalizer = new XAgnosticThread(true);
-		try {
-			final XThreadData tdata = new XThreadData(
-					new Invoke(this, AgnosticUtil.getMethod(this, METHOD_NORMALIZER_JOB)),
-					new TimeTriggerImpl(DateFieldEnum.MINUTE, NORMALIZER_RUN_IN_MINUTELY_INTERVAL),
-					this.normalizerThreadName, ThreadPriorityEnum.MAXIMUM);
-			this.normalizer.workOn(tdata);
-		} catch (final IllegalArgumentLtRtException e) {
-			throw new ImplementationLtRtException(e);
-		} catch (final NoSuchMethodException e) {
-			throw new ImplementationLtRtException(e);
-		} catch (final AgnosticThreadLtException e) {
-			throw new ImplementationLtRtException(e);
-		}
-		// Initializes thread responsible for recovering threads that finished the job
-		this.rescuer = new AgnosticThread();
-		try {
-			final ThreadData tdata = new ThreadData(new Invoke(this, AgnosticUtil.getMethod(this, METHOD_RESCUER_JOB)),
-					this.rescuerThreadName, ThreadPriorityEnum.MAXIMUM);
-			this.rescuer.workOn(tdata);
-		} catch (final IllegalArgumentLtRtException e) {
-			throw new ImplementationLtRtException(e);
-		} catch (final NoSuchMethodException e) {
-			throw new ImplementationLtRtException(e);
-		} catch (final AgnosticThreadLtException e) {
-			throw new ImplementationLtRtException(e);
-		}
-		// Initializes thread responsible for putting the work to be performed
-		this.executioner = new AgnosticThread();
-		try {
-			final ThreadData tdata = new ThreadData(
-					new Invoke(this, AgnosticUtil.getMethod(this, METHOD_EXECUTIONER_JOB)), this.executionerThreadName,
-					ThreadPriorityEnum.MAXIMUM);
-			this.executioner.workOn(tdata);
-		} catch (final IllegalArgumentLtRtException e) {
-			throw new ImplementationLtRtException(e);
-		} catch (final NoSuchMethodException e) {
-			throw new ImplementationLtRtException(e);
-		} catch (final AgnosticThreadLtException e) {
-			throw new ImplementationLtRtException(e);
+		if (!PoolEngineEnum.EXECUTIONER.equals(engine)) {
+			this.normalizer = null;
+			this.rescuer = null;
+			this.executioner = null;
+			if (PoolEngineEnum.WORK_STEALING.equals(engine)) {
+				this.engine = new PoolStealingEngine(this.prefixThreadName, this.maxNumThread);
+			} else {
+				this.engine = new PoolVirtualEngine(this.prefixThreadName, this.maxNumThread);
+			}
+		} else {
+			this.engine = null;
+			// Initializes thread responsible for normalizing this pool
+			this.normalizer = new XAgnosticThread(true);
+			try {
+				final XThreadData tdata = new XThreadData(
+						new Invoke(this, AgnosticUtil.getMethod(this, METHOD_NORMALIZER_JOB)),
+						new TimeTriggerImpl(DateFieldEnum.MINUTE, NORMALIZER_RUN_IN_MINUTELY_INTERVAL),
+						this.normalizerThreadName, ThreadPriorityEnum.MAXIMUM);
+				this.normalizer.workOn(tdata);
+			} catch (final IllegalArgumentLtRtException e) {
+				throw new ImplementationLtRtException(e);
+			} catch (final NoSuchMethodException e) {
+				throw new ImplementationLtRtException(e);
+			} catch (final AgnosticThreadLtException e) {
+				throw new ImplementationLtRtException(e);
+			}
+			// Initializes thread responsible for recovering threads that finished the job
+			this.rescuer = new AgnosticThread();
+			try {
+				final ThreadData tdata = new ThreadData(new Invoke(this, AgnosticUtil.getMethod(this, METHOD_RESCUER_JOB)),
+						this.rescuerThreadName, ThreadPriorityEnum.MAXIMUM);
+				this.rescuer.workOn(tdata);
+			} catch (final IllegalArgumentLtRtException e) {
+				throw new ImplementationLtRtException(e);
+			} catch (final NoSuchMethodException e) {
+				throw new ImplementationLtRtException(e);
+			} catch (final AgnosticThreadLtException e) {
+				throw new ImplementationLtRtException(e);
+			}
+			// Initializes thread responsible for putting the work to be performed
+			this.executioner = new AgnosticThread();
+			try {
+				final ThreadData tdata = new ThreadData(
+						new Invoke(this, AgnosticUtil.getMethod(this, METHOD_EXECUTIONER_JOB)), this.executionerThreadName,
+						ThreadPriorityEnum.MAXIMUM);
+				this.executioner.workOn(tdata);
+			} catch (final IllegalArgumentLtRtException e) {
+				throw new ImplementationLtRtException(e);
+			} catch (final NoSuchMethodException e) {
+				throw new ImplementationLtRtException(e);
+			} catch (final AgnosticThreadLtException e) {
+				throw new ImplementationLtRtException(e);
+			}
 		}
 		if (!ShutdownHookUtil.isCurrentThreadFrom()) {
 			try {
@@ -317,14 +377,25 @@ public final class PoolAgnosticThread {
 	 * @throws InterruptedException to stop the waits until finished
 	 */
 	public synchronized void closeWaitAll() throws InterruptedException {
-		if (!this.closed) {
+		if (!this.closed && this.engine != null) {
+			this.closedWorkOn = true;
+			try {
+				this.engine.closeWaitAll();
+			} catch (final InterruptedException e) {
+				closeAsync();
+				throw e;
+			}
+			this.closed = true;
+			removeCloseAsyncInvokeFromShutdownHook();
+			LOG.trace("closed");
+		} else if (!this.closed) {
 			this.closedWorkOn = true;
 			try {
-				do {
-					do {
-						Thread.sleep(1000);
-					} while (!this.taskWaitingSet.isEmpty() || !this.taskWorkingMap.isEmpty());
-				} while (!this.rescuerPause || !this.threadIdToRescue.isEmpty());
+				synchronized (this.idleMonitor) {
+					while (!isIdle()) {
+						this.idleMonitor.wait(IDLE_CHECK_TIME);
+					}
+				}
 			} catch (final InterruptedException e) {
 				closeAsync();
 				throw e;
@@ -336,6 +407,20 @@ public final class PoolAgnosticThread {
 		}
 	}
 
+	/*
+	 * Without tasks waiting, working or to rescue.
+	 */
+	private boolean isIdle() {
+		return this.taskWaitingSet.isEmpty() && this.timingWheel.isEmpty() && this.taskWorkingMap.isEmpty()
+				&& this.rescuerPause && this.threadIdToRescue.isEmpty();
+	}
+
+	private void notifyIdle() {
+		synchronized (this.idleMonitor) {
+			this.idleMonitor.notifyAll();
+		}
+	}
+
 	/**
 	 * Closes the pool and wait only for the already started invokes to
 	 * execute.<br/>
@@ -348,12 +433,31 @@ public final class PoolAgnosticThread {
 			this.closedWorkOn = true;
 			this.closed = true;
 			removeCloseAsyncInvokeFromShutdownHook();
-			internalClose();
+			try {
+				internalClose();
+			} finally {
+				cancelPendingFutures();
+			}
 			LOG.trace("closed");
 		}
 	}
 
+	private void cancelPendingFutures() {
+		for (final ThreadDataFuture future : this.pendingFutures.toArray(new ThreadDataFuture[0])) {
+			future.cancel(false);
+		}
+	}
+
 	private void internalClose() throws InterruptedException {
+		if (this.engine != null) {
+			try {
+				this.engine.close();
+			} catch (final InterruptedException e) {
+				this.engine.closeAsync();
+				throw e;
+			}
+			return;
+		}
 		try {
 			this.normalizer.close();
 			synchronized (this.executioner) {
@@ -408,6 +512,11 @@ public final class PoolAgnosticThread {
 			this.closedWorkOn = true;
 			this.closed = true;
 			removeCloseAsyncInvokeFromShutdownHook();
+			cancelPendingFutures();
+			if (this.engine != null) {
+				this.engine.closeAsync();
+				return;
+			}
 			try {
 				this.normalizer.close();
 			} catch (final InterruptedException e) {
@@ -696,6 +805,7 @@ public final class PoolAgnosticThread {
 					synchronized (this.rescuer) {
 						this.rescuerPause = true;
 					}
+					notifyIdle();
 				}
 				synchronized (this.rescuer) {
 					this.rescuerPause = false;
@@ -728,7 +838,7 @@ public final class PoolAgnosticThread {
 				}
 				while (!this.closed) {
 					try {
-						if (this.taskWaitingSet.isEmpty() || DateUtil.isFuture(this.taskWaitingSet.first().getDate())) {
+						if (this.taskWaitingSet.isEmpty()) {
 							Thread.sleep(sleepTime);
 						}
 					} catch (final InterruptedException e) {
@@ -737,12 +847,23 @@ public final class PoolAgnosticThread {
 						this.executionerPause = false;
 						Thread.interrupted();
 					}
-					while (!this.closed && !this.taskWaitingSet.isEmpty()
-							&& !DateUtil.isFuture(this.taskWaitingSet.first().getDate())) {
+					this.timingWheel.advance(this.taskWaitingSet, null);
+					while (!this.closed && !this.taskWaitingSet.isEmpty()) {
 						tsTmp = this.taskWaitingSet.first();
 						if (!tsTmp.getXThreadData().isAtypicallyDone()) {
 							try {
-								threadTmp = poolThread();
+								// waiting for a free thread is also a pause, so close can break it
+								synchronized (this.executioner) {
+									this.executionerPause = true;
+								}
+								try {
+									threadTmp = poolThread();
+								} finally {
+									synchronized (this.executioner) {
+										this.executionerPause = false;
+										Thread.interrupted();
+									}
+								}
 								if (!this.closed) {
 									LOG.trace("put to work #0 at #1", tsTmp, tsTmp.getDate().getTime());
 									this.taskWorkingMap.put(threadTmp.getId(), tsTmp);
@@ -762,17 +883,15 @@ public final class PoolAgnosticThread {
 									tsTmp.getXThreadData().getInvokeData().getMethod().getName());
 						}
 					}
-					if (!this.taskWaitingSet.isEmpty()) {
-						sleepTime = this.taskWaitingSet.first().getDate().getTime() - DateUtil.nowTime();
-						if (sleepTime < 0) {
-							sleepTime = 1;
-						}
+					if (!this.timingWheel.isEmpty()) {
+						sleepTime = TimeUnit.NANOSECONDS.toMillis(this.timingWheel.nanosToNextTick()) + 1;
 					} else {
 						sleepTime = EXECUTIONER_SLEEP_TIME;
 					}
 					synchronized (this.executioner) {
 						this.executionerPause = true;
 					}
+					notifyIdle();
 				}
 				synchronized (this.executioner) {
 					this.executionerPause = false;
@@ -874,19 +993,160 @@ public final class PoolAgnosticThread {
 		if (this.closed || this.closedWorkOn) {
 			throw new PoolAgnosticThreadLtException(new ClosedLtRtException("Only give work before close the pool!"));
 		}
-		if (!this.normalizer.isAlive()) {
+		if (!((this.engine != null) ? this.engine.isAlive() : this.normalizer.isAlive())) {
 			throw new SeppukuLtRtException(420, null);
 		}
 		if (xThreadData == null) {
 			throw new IllegalArgumentLtRtException("The parameter xThreadData can't be null");
 		}
-		addTaskToWork(new PoolTaskStruct(xThreadData));
+		if (this.engine != null) {
+			this.engine.workOn(xThreadData);
+		} else {
+			addTaskToWork(new PoolTaskStruct(xThreadData));
+		}
+	}
+
+	/**
+	 * Adds work to the queue of the pool, to be done once.<br/>
+	 * <br/>
+	 * The future returned completes with the return of the invocation, or
+	 * exceptionally with a {@link leitej.exception.ParallelLtRtException
+	 * ParallelLtRtException} having the exception raised as cause.<br/>
+	 * Cancelling the future prevents the invocation if not yet started, and the
+	 * future is cancelled if the pool closes without doing it.
+	 *
+	 * @param invoke to be done
+	 * @return future of the invocation
+	 * @throws PoolAgnosticThreadLtException if the pool has already closed.
+	 * @throws SeppukuLtRtException          exit(420) if encounters the control
+	 *                                       thread of the pool not alive
+	 * @throws IllegalArgumentLtRtException  if <code>invoke</code> parameter is
+	 *                                       null
+	 */
+	public CompletableFuture<Object> workOnFuture(final InvokeItf invoke)
+			throws PoolAgnosticThreadLtException, SeppukuLtRtException, IllegalArgumentLtRtException {
+		return workOnFuture(invoke, null, null);
+	}
+
+	/**
+	 * Adds work to the queue of the pool, to be done once.<br/>
+	 * <br/>
+	 * The future returned completes with the return of the invocation, or
+	 * exceptionally with a {@link leitej.exception.ParallelLtRtException
+	 * ParallelLtRtException} having the exception raised as cause.<br/>
+	 * Cancelling the future prevents the invocation if not yet started, and the
+	 * future is cancelled if the pool closes without doing it.
+	 *
+	 * @param invoke     to be done
+	 * @param threadName partial name for the thread when executing
+	 *                   <code>invoke</code>
+	 * @param priority   for the thread when executing <code>invoke</code>
+	 * @return future of the invocation
+	 * @throws PoolAgnosticThreadLtException if the pool has already closed.
+	 * @throws SeppukuLtRtException          exit(420) if encounters the control
+	 *                                       thread of the pool not alive
+	 * @throws IllegalArgumentLtRtException  if <code>invoke</code> parameter is
+	 *                                       null
+	 */
+	public CompletableFuture<Object> workOnFuture(final InvokeItf invoke, final String threadName,
+			final ThreadPriorityEnum priority)
+			throws PoolAgnosticThreadLtException, SeppukuLtRtException, IllegalArgumentLtRtException {
+		final XThreadData xThreadData = new XThreadData(invoke, null, threadName, priority);
+		final ThreadDataFuture result = new ThreadDataFuture(xThreadData, this.pendingFutures);
+		xThreadData.setFuture(result);
+		boolean given = false;
+		try {
+			workOn(xThreadData);
+			given = true;
+		} finally {
+			if (!given) {
+				result.cancel(false);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Adds all the works to the queue of the pool, each to be done once.<br/>
+	 * <br/>
+	 * The future returned completes when all of them have ended, with their
+	 * returns in the same order, or exceptionally with the exception of the first
+	 * that failed, cancelling the others.<br/>
+	 * When one of the works can not be added, the ones already added are
+	 * cancelled and the exception is thrown.
+	 *
+	 * @param invokes to be done
+	 * @return future of all the invocations
+	 * @throws PoolAgnosticThreadLtException if the pool has already closed.
+	 * @throws SeppukuLtRtException          exit(420) if encounters the control
+	 *                                       thread of the pool not alive
+	 * @throws IllegalArgumentLtRtException  if <code>invokes</code> parameter is
+	 *                                       null or has a null
+	 * @see #workOnFuture(InvokeItf)
+	 */
+	public CompletableFuture<List<Object>> invokeAll(final List<? extends InvokeItf> invokes)
+			throws PoolAgnosticThreadLtException, SeppukuLtRtException, IllegalArgumentLtRtException {
+		if (invokes == null || invokes.contains(null)) {
+			throw new IllegalArgumentLtRtException("The parameter invokes can't be null or have a null");
+		}
+		final CompletableFuture<List<Object>> result = new CompletableFuture<>();
+		final AllCollector collector = new AllCollector(result, invokes.size());
+		try {
+			for (int i = 0; i < invokes.size(); i++) {
+				collector.add(i, workOnFuture(invokes.get(i)));
+			}
+		} catch (PoolAgnosticThreadLtException | RuntimeException e) {
+			collector.fail(e);
+			throw e;
+		}
+		return result;
+	}
+
+	/**
+	 * Adds all the works to the queue of the pool, each to be done once.<br/>
+	 * <br/>
+	 * The future returned completes with the return of the first to end without
+	 * exception, cancelling the others; or exceptionally with the exception of the
+	 * last, if all failed.<br/>
+	 * When one of the works can not be added, the ones already added are
+	 * cancelled and the exception is thrown.
+	 *
+	 * @param invokes to be done
+	 * @return future of the first invocation to succeed
+	 * @throws PoolAgnosticThreadLtException if the pool has already closed.
+	 * @throws SeppukuLtRtException          exit(420) if encounters the control
+	 *                                       thread of the pool not alive
+	 * @throws IllegalArgumentLtRtException  if <code>invokes</code> parameter is
+	 *                                       null, empty or has a null
+	 * @see #workOnFuture(InvokeItf)
+	 */
+	public CompletableFuture<Object> invokeAny(final List<? extends InvokeItf> invokes)
+			throws PoolAgnosticThreadLtException, SeppukuLtRtException, IllegalArgumentLtRtException {
+		if (invokes == null || invokes.isEmpty() || invokes.contains(null)) {
+			throw new IllegalArgumentLtRtException("The parameter invokes can't be null, empty or have a null");
+		}
+		final CompletableFuture<Object> result = new CompletableFuture<>();
+		final AnyCollector collector = new AnyCollector(result, invokes.size());
+		try {
+			for (final InvokeItf invoke : invokes) {
+				collector.add(workOnFuture(invoke));
+			}
+		} catch (PoolAgnosticThreadLtException | RuntimeException e) {
+			collector.fail(e);
+			throw e;
+		}
+		return result;
 	}
 
 	private void addTaskToWork(final PoolTaskStruct ts) {
 		if (ts.getDate() != null) {
-			this.taskWaitingSet.add(ts);
-			LOG.trace("taskStruct: #0, Enter queue todoSet size: #1", ts, this.taskWaitingSet.size());
+			if (ts.isFuture()) {
+				ts.getXThreadData().setTimeout(this.timingWheel.schedule(ts, ts.getDeadlineNanos()));
+				LOG.trace("taskStruct: #0, Enter timing wheel size: #1", ts, this.timingWheel.size());
+			} else {
+				this.taskWaitingSet.add(ts);
+				LOG.trace("taskStruct: #0, Enter queue todoSet size: #1", ts, this.taskWaitingSet.size());
+			}
 			synchronized (this.executioner) {
 				if (this.executionerPause) {
 					this.executioner.interrupt();
@@ -897,4 +1157,120 @@ public final class PoolAgnosticThread {
 		}
 	}
 
+	/*
+	 * Completes the future of invokeAll when all the invocations have ended, or
+	 * at the first to fail, cancelling the others.
+	 */
+	private static final class AllCollector {
+
+		private final CompletableFuture<List<Object>> result;
+		private final Object[] values;
+		private final List<CompletableFuture<Object>> futures;
+		private final AtomicInteger remaining;
+
+		private AllCollector(final CompletableFuture<List<Object>> result, final int size) {
+			this.result = result;
+			this.values = new Object[size];
+			this.futures = new ArrayList<>(size);
+			this.remaining = new AtomicInteger(size);
+			if (size == 0) {
+				result.complete(new ArrayList<>());
+			}
+		}
+
+		private void add(final int index, final CompletableFuture<Object> future) {
+			synchronized (this.futures) {
+				this.futures.add(future);
+			}
+			if (this.result.isDone()) {
+				future.cancel(false);
+			} else {
+				future.whenComplete(new BiConsumer<Object, Throwable>() {
+					@Override
+					public void accept(final Object value, final Throwable exception) {
+						ended(index, value, exception);
+					}
+				});
+			}
+		}
+
+		private void ended(final int index, final Object value, final Throwable exception) {
+			if (exception != null) {
+				fail(exception);
+				return;
+			}
+			synchronized (this.values) {
+				this.values[index] = value;
+			}
+			if (this.remaining.decrementAndGet() == 0) {
+				synchronized (this.values) {
+					this.result.complete(new ArrayList<>(Arrays.asList(this.values)));
+				}
+			}
+		}
+
+		private void fail(final Throwable exception) {
+			if (this.result.completeExceptionally(exception)) {
+				cancelAll(this.futures);
+			}
+		}
+
+	}
+
+	/*
+	 * Completes the future of invokeAny with the first invocation to succeed,
+	 * cancelling the others.
+	 */
+	private static final class AnyCollector implements BiConsumer<Object, Throwable> {
+
+		private final CompletableFuture<Object> result;
+		private final List<CompletableFuture<Object>> futures;
+		private final AtomicInteger remaining;
+
+		private AnyCollector(final CompletableFuture<Object> result, final int size) {
+			this.result = result;
+			this.futures = new ArrayList<>(size);
+			this.remaining = new AtomicInteger(size);
+		}
+
+		private void add(final CompletableFuture<Object> future) {
+			synchronized (this.futures) {
+				this.futures.add(future);
+			}
+			if (this.result.isDone()) {
+				future.cancel(false);
+			} else {
+				future.whenComplete(this);
+			}
+		}
+
+		@Override
+		public void accept(final Object value, final Throwable exception) {
+			if (exception == null) {
+				if (this.result.complete(value)) {
+					cancelAll(this.futures);
+				}
+			} else if (this.remaining.decrementAndGet() == 0) {
+				this.result.completeExceptionally(exception);
+			}
+		}
+
+		private void fail(final Throwable exception) {
+			if (this.result.completeExceptionally(exception)) {
+				cancelAll(this.futures);
+			}
+		}
+
+	}
+
+	private static void cancelAll(final List<CompletableFuture<Object>> futures) {
+		final CompletableFuture<?>[] others;
+		synchronized (futures) {
+			others = futures.toArray(new CompletableFuture<?>[0]);
+		}
+		for (final CompletableFuture<?> other : others) {
+			other.cancel(false);
+		}
+	}
+
 }
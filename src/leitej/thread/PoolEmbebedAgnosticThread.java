@@ -55,6 +55,12 @@ final class PoolEmbebedAgnosticThread extends AgnosticThread {
 
 	@Override
 	protected void pause() {
+		if (!this.workDoneFlag && this.threadData != null && this.threadData.isDone()) {
+			// stopped atypically after given to this thread, so it did not start
+			threadDataDispose();
+			this.myPool.putWorking();
+			this.workDoneFlag = true;
+		}
 		if (this.workDoneFlag) {
 			this.myPool.rescueMe();
 			this.workDoneFlag = false;
@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright Julio Leite
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as
+ * published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package leitej.thread;
+
+/**
+ * Enumerates the ways a {@link leitej.thread.PoolAgnosticThread
+ * PoolAgnosticThread} puts the tasks to work.
+ *
+ * @author Julio Leite
+ */
+public enum PoolEngineEnum {
+	EXECUTIONER, // One executioner thread hands each task to an idle thread, and a rescuer
+					// thread returns the threads that finished to the idle ones.
+	WORK_STEALING, // Each thread has its own queue of tasks and, when empty, steals from the
+					// others; the tasks ready go straight to a thread.
+	VIRTUAL; // Each task runs in a new virtual thread (platform thread where the virtual machine
+				// has none), with a semaphore bounding the tasks working at the same time.
+}
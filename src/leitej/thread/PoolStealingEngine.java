@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright Julio Leite
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as
+ * published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package leitej.thread;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Work stealing engine of a {@link leitej.thread.PoolAgnosticThread
+ * PoolAgnosticThread}.<br/>
+ * <br/>
+ * Each thread keeps its own queue of tasks and steals from the others when it
+ * runs out; a task ready to run goes straight to a queue, and a task given from
+ * a thread of the pool goes to the queue of that thread.<br/>
+ * The threads are created as needed up to the maximum, and end after some time
+ * without work.
+ *
+ * @author Julio Leite
+ */
+final class PoolStealingEngine extends AbstractPoolEngine {
+
+	private final ForkJoinPool executor;
+
+	PoolStealingEngine(final String prefixThreadName, final int maxNumThread) {
+		super(prefixThreadName);
+		this.executor = new ForkJoinPool(maxNumThread, new WorkerFactory(prefixThreadName), null, true);
+	}
+
+	@Override
+	void execute(final PoolTaskStruct ts) {
+		try {
+			this.executor.execute(new Task(ts));
+		} catch (final RejectedExecutionException e) {
+			taskRejected(ts);
+		}
+	}
+
+	@Override
+	boolean isWorker(final Thread thread) {
+		return PoolStealingWorker.class.isInstance(thread)
+				&& PoolStealingWorker.class.cast(thread).getPool() == this.executor;
+	}
+
+	@Override
+	void shutdown() {
+		this.executor.shutdown();
+	}
+
+	@Override
+	void awaitTermination() throws InterruptedException {
+		this.executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+	}
+
+	private final class Task implements Runnable {
+
+		private final PoolTaskStruct ts;
+
+		private Task(final PoolTaskStruct ts) {
+			this.ts = ts;
+		}
+
+		@Override
+		public void run() {
+			final PoolStealingWorker worker = (PoolStealingWorker) Thread.currentThread();
+			try {
+				worker.setInvokeProperties(this.ts.getXThreadData());
+				work(this.ts);
+			} finally {
+				worker.setDefaultProperties();
+				taskEnded(this.ts);
+			}
+		}
+
+	}
+
+	private static final class WorkerFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+
+		private final String prefixThreadName;
+
+		private WorkerFactory(final String prefixThreadName) {
+			this.prefixThreadName = prefixThreadName;
+		}
+
+		@Override
+		public ForkJoinWorkerThread newThread(final ForkJoinPool executor) {
+			return new PoolStealingWorker(executor, this.prefixThreadName);
+		}
+
+	}
+
+}
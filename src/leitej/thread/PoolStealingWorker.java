@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright Julio Leite
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as
+ * published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package leitej.thread;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import leitej.util.StringUtil;
+
+/**
+ * PoolStealingWorker
+ *
+ * @author Julio Leite
+ */
+final class PoolStealingWorker extends ForkJoinWorkerThread {
+
+	private final String prefixName;
+
+	/**
+	 * Creates a new instance of <code>PoolStealingWorker</code>.
+	 *
+	 * @param executor the executor the thread works for
+	 * @param name     prefix of the thread name
+	 */
+	PoolStealingWorker(final ForkJoinPool executor, final String name) {
+		super(executor);
+		setDaemon(false);
+		this.prefixName = name + "." + getName();
+		setName(this.prefixName);
+	}
+
+	void setInvokeProperties(final ThreadData threadData) {
+		if (!StringUtil.isNullOrEmpty(threadData.getThreadName())) {
+			setName((new StringBuilder()).append(threadData.getThreadName()).append(".").append(this.prefixName)
+					.toString());
+		}
+		if (getPriority() != threadData.getPriority().getSystemThreadPriority()) {
+			setPriority(threadData.getPriority().getSystemThreadPriority());
+		}
+	}
+
+	void setDefaultProperties() {
+		if (!getName().equals(this.prefixName)) {
+			setName(this.prefixName);
+		}
+		if (getPriority() != ThreadPriorityEnum.NORMAL.getSystemThreadPriority()) {
+			setPriority(ThreadPriorityEnum.NORMAL.getSystemThreadPriority());
+		}
+	}
+
+}
@@ -18,6 +18,7 @@ package leitej.thread;
 
 import java.io.Serializable;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 import leitej.exception.ImplementationLtRtException;
 import leitej.log.Logger;
@@ -35,6 +36,7 @@ class PoolTaskStruct implements Comparable<PoolTaskStruct>, Serializable {
 	private static final Logger LOG = Logger.getInstance();
 
 	private Date date;
+	private long deadlineNanos;
 	private final XThreadData xThreadData;
 	private long compareUniqueId;
 
@@ -78,12 +80,31 @@ class PoolTaskStruct implements Comparable<PoolTaskStruct>, Serializable {
 
 	synchronized void updateTask() {
 		this.date = this.xThreadData.nextExecTime();
+		if (this.date != null) {
+			this.deadlineNanos = System.nanoTime()
+					+ TimeUnit.MILLISECONDS.toNanos(this.date.getTime() - DateUtil.nowTime());
+		}
 	}
 
 	synchronized Date getDate() {
 		return this.date;
 	}
 
+	/**
+	 * Deadline of the next execution in {@link System#nanoTime()} terms, only
+	 * valid while <code>getDate()</code> is not null.
+	 */
+	synchronized long getDeadlineNanos() {
+		return this.deadlineNanos;
+	}
+
+	/**
+	 * Verifies if the next execution is still to come.
+	 */
+	boolean isFuture() {
+		return getDeadlineNanos() - System.nanoTime() > 0;
+	}
+
 	XThreadData getXThreadData() {
 		return this.xThreadData;
 	}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright Julio Leite
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as
+ * published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package leitej.thread;
+
+import java.util.Collections;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+
+import leitej.util.StringUtil;
+
+/**
+ * Virtual thread engine of a {@link leitej.thread.PoolAgnosticThread
+ * PoolAgnosticThread}.<br/>
+ * <br/>
+ * Each task runs in a new thread, that ends with it; a semaphore bounds the
+ * tasks working at the same time to the maximum of the pool, and the ready
+ * tasks over it wait in a queue.<br/>
+ * The threads are virtual when the Java Virtual Machine offers them, so the
+ * tasks that spend most of the time blocked waiting do not hold system threads.
+ *
+ * @author Julio Leite
+ */
+final class PoolVirtualEngine extends AbstractPoolEngine {
+
+	private final String prefixThreadName;
+	private final Semaphore permits;
+	// tasks ready, waiting for a permit
+	private final Queue<PoolTaskStruct> taskReadyQueue;
+	// threads working
+	private final Set<Thread> workers;
+	private final Object terminationLock;
+
+	PoolVirtualEngine(final String prefixThreadName, final int maxNumThread) {
+		super(prefixThreadName);
+		this.prefixThreadName = prefixThreadName + "_VIRTUAL";
+		this.permits = new Semaphore(maxNumThread);
+		this.taskReadyQueue = new ConcurrentLinkedQueue<>();
+		this.workers = Collections.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+		this.terminationLock = new Object();
+	}
+
+	@Override
+	void execute(final PoolTaskStruct ts) {
+		this.taskReadyQueue.add(ts);
+		dispatch();
+	}
+
+	/*
+	 * Starts a thread for each task ready while there are permits.
+	 */
+	private void dispatch() {
+		PoolTaskStruct ts;
+		while (!this.taskReadyQueue.isEmpty() && this.permits.tryAcquire()) {
+			ts = this.taskReadyQueue.poll();
+			if (ts == null) {
+				this.permits.release();
+			} else if (isClosed()) {
+				this.permits.release();
+				taskRejected(ts);
+			} else {
+				start(ts);
+			}
+		}
+	}
+
+	private void start(final PoolTaskStruct ts) {
+		final ThreadData threadData = ts.getXThreadData();
+		final String name = (StringUtil.isNullOrEmpty(threadData.getThreadName())) ? this.prefixThreadName
+				: threadData.getThreadName() + "." + this.prefixThreadName;
+		final Thread thread = VirtualThreadUtil.newThread(new Task(ts), name, threadData.getPriority());
+		this.workers.add(thread);
+		try {
+			thread.start();
+		} catch (final OutOfMemoryError e) {
+			this.workers.remove(thread);
+			this.permits.release();
+			taskRejected(ts);
+			throw e;
+		}
+	}
+
+	@Override
+	boolean isWorker(final Thread thread) {
+		return this.workers.contains(thread);
+	}
+
+	@Override
+	void shutdown() {
+		PoolTaskStruct ts;
+		while ((ts = this.taskReadyQueue.poll()) != null) {
+			taskRejected(ts);
+		}
+	}
+
+	@Override
+	void awaitTermination() throws InterruptedException {
+		synchronized (this.terminationLock) {
+			while (!this.workers.isEmpty()) {
+				this.terminationLock.wait();
+			}
+		}
+	}
+
+	private final class Task implements Runnable {
+
+		private final PoolTaskStruct ts;
+
+		private Task(final PoolTaskStruct ts) {
+			this.ts = ts;
+		}
+
+		@Override
+		public void run() {
+			try {
+				work(this.ts);
+			} finally {
+				PoolVirtualEngine.this.workers.remove(Thread.currentThread());
+				PoolVirtualEngine.this.permits.release();
+				taskEnded(this.ts);
+				dispatch();
+				synchronized (PoolVirtualEngine.this.terminationLock) {
+					PoolVirtualEngine.this.terminationLock.notifyAll();
+				}
+			}
+		}
+
+	}
+
+}
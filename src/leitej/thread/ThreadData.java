@@ -20,6 +20,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import leitej.exception.IllegalArgumentLtRtException;
 import leitej.exception.ParallelLtRtException;
@@ -46,6 +47,8 @@ public class ThreadData implements Serializable {
 	private volatile boolean done = false;
 
 	private final List<Thread> threadsBlocked = new ArrayList<>();
+	// completed at done, when the work was given for a future
+	private transient volatile CompletableFuture<Object> future = null;
 
 	/**
 	 * Creates a new instance of ThreadData.
@@ -210,6 +213,13 @@ public class ThreadData implements Serializable {
 	 */
 	void done() {
 		this.done = true;
+		if (this.future != null) {
+			if (this.parallelException != null) {
+				this.future.completeExceptionally(this.parallelException);
+			} else {
+				this.future.complete(this.result);
+			}
+		}
 		synchronized (this.threadsBlocked) {
 			final Iterator<Thread> it = this.threadsBlocked.iterator();
 			while (it.hasNext()) {
@@ -232,6 +242,16 @@ public class ThreadData implements Serializable {
 		return this.done;
 	}
 
+	final void setFuture(final CompletableFuture<Object> future) {
+		this.future = future;
+	}
+
+	final void cancelFuture() {
+		if (this.future != null) {
+			this.future.cancel(false);
+		}
+	}
+
 	@Override
 	public final String toString() {
 		return (new StringBuilder()).append(this.getClass().getSimpleName()).append("@")
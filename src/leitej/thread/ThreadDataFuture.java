@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright Julio Leite
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as
+ * published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package leitej.thread;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Future of a task given to a {@link leitej.thread.PoolAgnosticThread
+ * PoolAgnosticThread}, completed at the end of the invocation.<br/>
+ * Cancelling it stops the task atypically, so the invocation does not start if
+ * it has not yet.
+ *
+ * @author Julio Leite
+ */
+final class ThreadDataFuture extends CompletableFuture<Object> {
+
+	private final XThreadData xThreadData;
+	// futures of the pool not yet completed
+	private final Set<ThreadDataFuture> pending;
+
+	ThreadDataFuture(final XThreadData xThreadData, final Set<ThreadDataFuture> pending) {
+		this.xThreadData = xThreadData;
+		this.pending = pending;
+		this.pending.add(this);
+	}
+
+	@Override
+	public boolean complete(final Object value) {
+		this.pending.remove(this);
+		return super.complete(value);
+	}
+
+	@Override
+	public boolean completeExceptionally(final Throwable ex) {
+		this.pending.remove(this);
+		return super.completeExceptionally(ex);
+	}
+
+	@Override
+	public boolean cancel(final boolean mayInterruptIfRunning) {
+		this.pending.remove(this);
+		final boolean wasDone = isDone();
+		final boolean result = super.cancel(mayInterruptIfRunning);
+		// cancel also answers true when already cancelled
+		if (!wasDone && result) {
+			this.xThreadData.stopAtypically();
+		}
+		return result;
+	}
+
+}
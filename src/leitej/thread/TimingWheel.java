@@ -0,0 +1,397 @@
+/*******************************************************************************
+ * Copyright Julio Leite
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as
+ * published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package leitej.thread;
+
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import leitej.exception.IllegalArgumentLtRtException;
+
+/**
+ * Hashed timing wheel.<br/>
+ * <br/>
+ * The elements wait, each with its deadline in {@link System#nanoTime()}
+ * terms, in the slot of the wheel where that deadline falls, counting the
+ * rounds still to go; to schedule and to cancel are constant time and lock
+ * free, from any thread.<br/>
+ * The wheel moves only when a single thread calls
+ * {@link #advance(Collection, Collection)}, usually every
+ * {@link #nanosToNextTick()}, and gives back the elements that reached the
+ * deadline: never before it, and at most one tick after.
+ *
+ * @author Julio Leite
+ *
+ * @param <E> type of the elements scheduled
+ */
+public final class TimingWheel<E> {
+
+	/**
+	 * Default duration of a tick in milliseconds. (={@value})
+	 */
+	public static final long DEFAULT_TICK_MILLIS = 10;
+	/**
+	 * Default number of ticks of a turn of the wheel. (={@value})
+	 */
+	public static final int DEFAULT_TICKS_PER_WHEEL = 512;
+
+	private final long startNanos;
+	private final long tickNanos;
+	private final Bucket<E>[] wheel;
+	private final int mask;
+	// timeouts scheduled and not yet in a bucket
+	private final Queue<Timeout<E>> pendingQueue;
+	// timeouts cancelled and not yet out of the wheel
+	private final Queue<Timeout<E>> cancelledQueue;
+	private final AtomicInteger size;
+	// only moved by the thread that advances
+	private long tick;
+
+	/**
+	 * Creates a new instance of TimingWheel, with
+	 * <code>DEFAULT_TICK_MILLIS</code> and
+	 * <code>DEFAULT_TICKS_PER_WHEEL</code>.
+	 */
+	public TimingWheel() {
+		this(DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_TICKS_PER_WHEEL);
+	}
+
+	/**
+	 * Creates a new instance of TimingWheel.
+	 *
+	 * @param tickDuration  duration of a tick
+	 * @param unit          of <code>tickDuration</code>
+	 * @param ticksPerWheel number of ticks of a turn of the wheel, rounded up to a
+	 *                      power of two
+	 * @throws IllegalArgumentLtRtException if <code>tickDuration</code> or
+	 *                                      <code>ticksPerWheel</code> are not
+	 *                                      positive, or <code>unit</code> is null
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public TimingWheel(final long tickDuration, final TimeUnit unit, final int ticksPerWheel)
+			throws IllegalArgumentLtRtException {
+		if (tickDuration <= 0 || unit == null || ticksPerWheel <= 0 || ticksPerWheel > (1 << 30)) {
+			throw new IllegalArgumentLtRtException();
+		}
+		this.tickNanos = unit.toNanos(tickDuration);
+		int length = 1;
+		while (length < ticksPerWheel) {
+			length <<= 1;
+		}
+		this.wheel = new Bucket[length];
+		for (int i = 0; i < length; i++) {
+			this.wheel[i] = new Bucket<>();
+		}
+		this.mask = length - 1;
+		this.pendingQueue = new ConcurrentLinkedQueue<>();
+		this.cancelledQueue = new ConcurrentLinkedQueue<>();
+		this.size = new AtomicInteger(0);
+		this.tick = 0;
+		this.startNanos = System.nanoTime();
+	}
+
+	/**
+	 * Schedules the element to its deadline.
+	 *
+	 * @param element       to schedule
+	 * @param deadlineNanos deadline in {@link System#nanoTime()} terms
+	 * @return handle of the element in the wheel
+	 * @throws IllegalArgumentLtRtException if <code>element</code> is null
+	 */
+	public Timeout<E> schedule(final E element, final long deadlineNanos) throws IllegalArgumentLtRtException {
+		if (element == null) {
+			throw new IllegalArgumentLtRtException("The parameter element can't be null");
+		}
+		final Timeout<E> result = new Timeout<>(this, element, deadlineNanos);
+		this.size.incrementAndGet();
+		this.pendingQueue.add(result);
+		return result;
+	}
+
+	/**
+	 * Schedules the element to after the delay.
+	 *
+	 * @param element to schedule
+	 * @param delay   from now
+	 * @param unit    of <code>delay</code>
+	 * @return handle of the element in the wheel
+	 * @throws IllegalArgumentLtRtException if <code>element</code> is null
+	 */
+	public Timeout<E> schedule(final E element, final long delay, final TimeUnit unit)
+			throws IllegalArgumentLtRtException {
+		return schedule(element, System.nanoTime() + unit.toNanos(delay));
+	}
+
+	/**
+	 *
+	 * @return number of elements in the wheel, including the cancelled ones not
+	 *         yet given back
+	 */
+	public int size() {
+		return this.size.get();
+	}
+
+	/**
+	 *
+	 * @return boolean
+	 */
+	public boolean isEmpty() {
+		return this.size.get() == 0;
+	}
+
+	/**
+	 * To be called by the thread that advances.
+	 *
+	 * @return nanoseconds until the end of the current tick
+	 */
+	public long nanosToNextTick() {
+		final long result = this.startNanos + (this.tick + 1) * this.tickNanos - System.nanoTime();
+		return (result < 0) ? 0 : result;
+	}
+
+	/**
+	 * Moves the wheel over all the ticks already ended.<br/>
+	 * Only one thread can advance the wheel.
+	 *
+	 * @param expired   receives the elements that reached the deadline
+	 * @param cancelled receives the elements cancelled, can be null
+	 */
+	public void advance(final Collection<? super E> expired, final Collection<? super E> cancelled) {
+		final long now = System.nanoTime();
+		do {
+			transferPending();
+			removeCancelled(cancelled);
+			if (this.startNanos + (this.tick + 1) * this.tickNanos - now > 0) {
+				break;
+			}
+			this.wheel[(int) (this.tick & this.mask)].expire(expired, this.size);
+			this.tick++;
+		} while (true);
+	}
+
+	/**
+	 * Takes all the elements out of the wheel, they will not expire.<br/>
+	 * Only the thread that advances can clear the wheel.
+	 *
+	 * @param removed receives the elements that were waiting, including the
+	 *                cancelled ones
+	 */
+	public void clear(final Collection<? super E> removed) {
+		transferPending();
+		removeCancelled(removed);
+		for (final Bucket<E> bucket : this.wheel) {
+			bucket.clear(removed, this.size);
+		}
+		removeCancelled(removed);
+	}
+
+	private void transferPending() {
+		Timeout<E> timeout;
+		long calculated;
+		while ((timeout = this.pendingQueue.poll()) != null) {
+			if (timeout.state == Timeout.ST_INIT) {
+				calculated = (timeout.deadline - this.startNanos) / this.tickNanos;
+				if (calculated < this.tick) {
+					calculated = this.tick;
+				}
+				timeout.remainingRounds = (calculated - this.tick) / this.wheel.length;
+				this.wheel[(int) (calculated & this.mask)].add(timeout);
+			}
+		}
+	}
+
+	private void removeCancelled(final Collection<? super E> cancelled) {
+		Timeout<E> timeout;
+		while ((timeout = this.cancelledQueue.poll()) != null) {
+			if (timeout.bucket != null) {
+				timeout.bucket.remove(timeout);
+			}
+			this.size.decrementAndGet();
+			if (cancelled != null) {
+				cancelled.add(timeout.element);
+			}
+		}
+	}
+
+	/**
+	 * Handle of an element scheduled in a {@link leitej.thread.TimingWheel
+	 * TimingWheel}.
+	 *
+	 * @author Julio Leite
+	 *
+	 * @param <E> type of the element
+	 */
+	public static final class Timeout<E> {
+
+		private static final int ST_INIT = 0;
+		private static final int ST_CANCELLED = 1;
+		private static final int ST_EXPIRED = 2;
+
+		@SuppressWarnings("rawtypes")
+		private static final AtomicIntegerFieldUpdater<Timeout> STATE_UPDATER = AtomicIntegerFieldUpdater
+				.newUpdater(Timeout.class, "state");
+
+		private final TimingWheel<E> timingWheel;
+		private final E element;
+		private final long deadline;
+		private volatile int state;
+		// only used by the thread that advances
+		private long remainingRounds;
+		private Bucket<E> bucket;
+		private Timeout<E> next;
+		private Timeout<E> prev;
+
+		private Timeout(final TimingWheel<E> timingWheel, final E element, final long deadline) {
+			this.timingWheel = timingWheel;
+			this.element = element;
+			this.deadline = deadline;
+			this.state = ST_INIT;
+		}
+
+		/**
+		 *
+		 * @return the element scheduled
+		 */
+		public E getElement() {
+			return this.element;
+		}
+
+		/**
+		 *
+		 * @return deadline in {@link System#nanoTime()} terms
+		 */
+		public long getDeadline() {
+			return this.deadline;
+		}
+
+		/**
+		 * Cancels the element, if it has not expired yet.<br/>
+		 * The wheel gives it back as cancelled on the next advance.
+		 *
+		 * @return true if cancelled by this call
+		 */
+		public boolean cancel() {
+			final boolean result = STATE_UPDATER.compareAndSet(this, ST_INIT, ST_CANCELLED);
+			if (result) {
+				this.timingWheel.cancelledQueue.add(this);
+			}
+			return result;
+		}
+
+		/**
+		 *
+		 * @return boolean
+		 */
+		public boolean isCancelled() {
+			return this.state == ST_CANCELLED;
+		}
+
+		/**
+		 *
+		 * @return boolean
+		 */
+		public boolean isExpired() {
+			return this.state == ST_EXPIRED;
+		}
+
+		private boolean expire() {
+			return STATE_UPDATER.compareAndSet(this, ST_INIT, ST_EXPIRED);
+		}
+
+		private boolean discard() {
+			return STATE_UPDATER.compareAndSet(this, ST_INIT, ST_CANCELLED);
+		}
+
+	}
+
+	/*
+	 * Double linked list of the timeouts of a slot, only used by the thread that
+	 * advances.
+	 */
+	private static final class Bucket<E> {
+
+		private Timeout<E> head;
+		private Timeout<E> tail;
+
+		private void add(final Timeout<E> timeout) {
+			timeout.bucket = this;
+			if (this.head == null) {
+				this.head = timeout;
+				this.tail = timeout;
+			} else {
+				this.tail.next = timeout;
+				timeout.prev = this.tail;
+				this.tail = timeout;
+			}
+		}
+
+		private Timeout<E> remove(final Timeout<E> timeout) {
+			final Timeout<E> result = timeout.next;
+			if (timeout.prev != null) {
+				timeout.prev.next = result;
+			} else {
+				this.head = result;
+			}
+			if (result != null) {
+				result.prev = timeout.prev;
+			} else {
+				this.tail = timeout.prev;
+			}
+			timeout.prev = null;
+			timeout.next = null;
+			timeout.bucket = null;
+			return result;
+		}
+
+		private void expire(final Collection<? super E> expired, final AtomicInteger size) {
+			Timeout<E> timeout = this.head;
+			while (timeout != null) {
+				if (timeout.remainingRounds <= 0) {
+					if (timeout.expire()) {
+						expired.add(timeout.element);
+						size.decrementAndGet();
+						timeout = remove(timeout);
+					} else {
+						// cancelled, leaves with the cancelled queue
+						timeout = timeout.next;
+					}
+				} else {
+					timeout.remainingRounds--;
+					timeout = timeout.next;
+				}
+			}
+		}
+
+		private void clear(final Collection<? super E> removed, final AtomicInteger size) {
+			Timeout<E> timeout = this.head;
+			Timeout<E> next;
+			while (timeout != null) {
+				next = remove(timeout);
+				if (timeout.discard()) {
+					size.decrementAndGet();
+					removed.add(timeout.element);
+				}
+				timeout = next;
+			}
+		}
+
+	}
+
+}
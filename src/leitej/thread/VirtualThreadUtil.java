@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright Julio Leite
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as
+ * published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package leitej.thread;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+import leitej.log.Logger;
+import leitej.util.StringUtil;
+
+/**
+ * Creates the threads that run a single task and end.<br/>
+ * <br/>
+ * When the Java Virtual Machine offers virtual threads they are used, so a task
+ * blocked waiting does not hold a system thread; otherwise they are platform
+ * threads.
+ *
+ * @author Julio Leite
+ */
+final class VirtualThreadUtil {
+
+	private static final Logger LOG = Logger.getInstance();
+
+	private static final ThreadFactory VIRTUAL_FACTORY = virtualFactory();
+
+	private VirtualThreadUtil() {
+	}
+
+	/*
+	 * Thread.ofVirtual().factory() only exists from Java 21, so it is found at
+	 * runtime.
+	 */
+	private static ThreadFactory virtualFactory() {
+		ThreadFactory result = null;
+		try {
+			final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			final Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+			result = (ThreadFactory) factory.invoke(builder);
+		} catch (final NoSuchMethodException e) {
+			LOG.debug("virtual threads not supported");
+		} catch (final ClassNotFoundException e) {
+			LOG.debug("virtual threads not supported");
+		} catch (final IllegalAccessException e) {
+			LOG.warn("#0", e);
+		} catch (final InvocationTargetException e) {
+			// preview feature not enabled
+			LOG.debug("virtual threads not supported: #0", e.getCause());
+		}
+		return result;
+	}
+
+	static boolean isSupported() {
+		return VIRTUAL_FACTORY != null;
+	}
+
+	/**
+	 * Creates a new thread not started.<br/>
+	 * The priority is only applied to platform threads.
+	 *
+	 * @param task     to run
+	 * @param name     of the thread
+	 * @param priority of the thread
+	 * @return the new thread
+	 */
+	static Thread newThread(final Runnable task, final String name, final ThreadPriorityEnum priority) {
+		final Thread result;
+		if (VIRTUAL_FACTORY != null) {
+			result = VIRTUAL_FACTORY.newThread(task);
+		} else {
+			result = new Thread(task);
+			result.setDaemon(false);
+			if (priority != null) {
+				result.setPriority(priority.getSystemThreadPriority());
+			}
+		}
+		if (!StringUtil.isNullOrEmpty(name)) {
+			result.setName(name);
+		}
+		return result;
+	}
+
+}
@@ -40,6 +40,8 @@ public final class XThreadData extends ThreadData {
 	private TimeTrigger dateTimer = null;
 	private Date doneDate = null;
 	private boolean executed = true;
+	// wait of the next step in a pool
+	private transient volatile TimingWheel.Timeout<?> timeout = null;
 
 	/**
 	 * Creates a new instance of XThreadData with only one step and now.
@@ -141,8 +143,19 @@ public final class XThreadData extends ThreadData {
 	 * Call this method will prevent all the next steps execution of
 	 * <code>getInvokeData()</code>.
 	 */
-	synchronized public void stopAtypically() {
-		this.dateTimer = null;
+	public void stopAtypically() {
+		synchronized (this) {
+			this.dateTimer = null;
+			if (this.timeout != null) {
+				this.timeout.cancel();
+			}
+		}
+		// out of the lock, the future runs its dependents
+		cancelFuture();
+	}
+
+	void setTimeout(final TimingWheel.Timeout<?> timeout) {
+		this.timeout = timeout;
 	}
 
 	/**
@@ -17,17 +17,23 @@
 package leitej.util;
 
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
 import java.lang.reflect.Array;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import leitej.Constant;
 import leitej.exception.IllegalArgumentLtRtException;
 import leitej.exception.ImplementationLtRtException;
+import leitej.util.data.BoundInvoke;
 import leitej.util.data.InvokeItf;
 
 /**
@@ -84,6 +90,13 @@ public final class AgnosticUtil implements Serializable {
 
 	private final Map<Class<?>, Method[][]> methodsGetSet = new HashMap<>();
 	private final Map<Class<?>, Method[][]> declaredMethodsGetSet = new HashMap<>();
+	// by the class of the method, without keeping the class from being unloaded
+	private final ClassValue<Map<MethodHandleKey, MethodHandle>> methodHandles = new ClassValue<>() {
+		@Override
+		protected Map<MethodHandleKey, MethodHandle> computeValue(final Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
 
 	private final StringBuilder sbTmp1 = new StringBuilder();
 	private final StringBuilder sbTmp2 = new StringBuilder();
@@ -135,8 +148,75 @@ public final class AgnosticUtil implements Serializable {
 		return method;
 	}
 
+	/**
+	 * Get a method handle agnostic, resolved with public access.<br/>
+	 * If the method is static send the respective class in parameter object,
+	 * otherwise the handle is bound to the object.<br/>
+	 * The handles resolved are kept, so the reflection lookup occurs once by
+	 * method.
+	 *
+	 * @param object     to get a method handle
+	 * @param methodName name of the method
+	 * @param args       the list of parameters method
+	 * @return method handle specified by arguments
+	 * @throws SecurityException            if a security manager denies access
+	 * @throws NoSuchMethodException        if a matching method is not found
+	 * @throws IllegalAccessException       if the method is not public
+	 * @throws IllegalArgumentLtRtException if <code>object</code> parameter is null
+	 */
+	public static MethodHandle getMethodHandle(final Object object, final String methodName, final Class<?>... args)
+			throws IllegalArgumentLtRtException, SecurityException, NoSuchMethodException, IllegalAccessException {
+		return getMethodHandle(MethodHandles.publicLookup(), object, methodName, args);
+	}
+
+	/**
+	 * Get a method handle agnostic, resolved with the access of the lookup.<br/>
+	 * If the method is static send the respective class in parameter object,
+	 * otherwise the handle is bound to the object.<br/>
+	 * The handles resolved are kept by lookup class, so the reflection lookup
+	 * occurs once by method.
+	 *
+	 * @param lookup     with the access to resolve the method
+	 * @param object     to get a method handle
+	 * @param methodName name of the method
+	 * @param args       the list of parameters method
+	 * @return method handle specified by arguments
+	 * @throws SecurityException            if a security manager denies access
+	 * @throws NoSuchMethodException        if a matching method is not found
+	 * @throws IllegalAccessException       if the lookup has no access to the
+	 *                                      method
+	 * @throws IllegalArgumentLtRtException if <code>object</code> or
+	 *                                      <code>lookup</code> parameter is null
+	 */
+	public static MethodHandle getMethodHandle(final Lookup lookup, final Object object, final String methodName,
+			final Class<?>... args)
+			throws IllegalArgumentLtRtException, SecurityException, NoSuchMethodException, IllegalAccessException {
+		if (lookup == null) {
+			throw new IllegalArgumentLtRtException("lookup is null");
+		}
+		if (object == null) {
+			throw new IllegalArgumentLtRtException("object is null. if method is static then send the class!!!");
+		}
+		final boolean isStatic = Class.class.isInstance(object);
+		final Map<MethodHandleKey, MethodHandle> handles = INSTANCE.methodHandles
+				.get((isStatic) ? (Class<?>) object : object.getClass());
+		final MethodHandleKey key = new MethodHandleKey(lookup.lookupClass(), methodName, args);
+		MethodHandle result = handles.get(key);
+		if (result == null) {
+			result = lookup.unreflect(getMethod(object, methodName, args));
+			handles.put(key, result);
+		}
+		if (!isStatic) {
+			result = result.bindTo(object);
+		}
+		return result;
+	}
+
 	/**
 	 * Invoke the method described by {@link leitej.util.data.InvokeItf InvokeItf}.
+	 * <br/>
+	 * A {@link leitej.util.data.BoundInvoke BoundInvoke} is invoked directly,
+	 * without reflection.
 	 *
 	 * @param data describing the invocation
 	 * @return the invocation result
@@ -164,6 +244,9 @@ public final class AgnosticUtil implements Serializable {
 	 */
 	public static Object invoke(final InvokeItf data) throws ExceptionInInitializerError, NullPointerException,
 			IllegalArgumentException, IllegalAccessException, InvocationTargetException {
+		if (data instanceof BoundInvoke) {
+			return ((BoundInvoke) data).invoke();
+		}
 		return invoke(data.getObject(), data.getMethod(), data.getArgs());
 	}
 
@@ -479,4 +562,38 @@ public final class AgnosticUtil implements Serializable {
 		return out;
 	}
 
+	private static final class MethodHandleKey {
+
+		private final Class<?> lookupClass;
+		private final String methodName;
+		private final Class<?>[] args;
+		private final int hash;
+
+		private MethodHandleKey(final Class<?> lookupClass, final String methodName, final Class<?>[] args) {
+			this.lookupClass = lookupClass;
+			this.methodName = methodName;
+			this.args = args;
+			this.hash = (lookupClass.hashCode() * 31 + methodName.hashCode()) * 31 + Arrays.hashCode(args);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof MethodHandleKey)) {
+				return false;
+			}
+			final MethodHandleKey other = (MethodHandleKey) obj;
+			return this.lookupClass == other.lookupClass && this.methodName.equals(other.methodName)
+					&& Arrays.equals(this.args, other.args);
+		}
+
+	}
+
 }
@@ -66,8 +66,6 @@ public final class DateUtil {
 	private static final Map<Long, SimpleDateFormat> sm = Collections
 			.synchronizedMap(new HashMap<Long, SimpleDateFormat>());
 
-	private static Long LOCK_UNIQUE_NUMBER = System.currentTimeMillis();
-
 	/**
 	 * Creates a new instance of DateUtil.
 	 */
@@ -286,21 +284,12 @@ public final class DateUtil {
 	/**
 	 * Generates a unique number for witch call, for the running JVM.
 	 *
+	 * @see UniqueIdUtil#next()
+	 *
 	 * @return unique number
 	 */
 	public static long generateUniqueNumberPerJVM() {
-		long result;
-		synchronized (LOCK_UNIQUE_NUMBER) {
-			result = LOCK_UNIQUE_NUMBER;
-			LOCK_UNIQUE_NUMBER++;
-			while (LOCK_UNIQUE_NUMBER > System.currentTimeMillis()) {
-				try {
-					Thread.sleep(15);
-				} catch (final InterruptedException e) {
-					/* ignored */}
-			}
-		}
-		return result;
+		return UniqueIdUtil.next();
 	}
 
 }
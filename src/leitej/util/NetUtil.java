@@ -16,8 +16,17 @@
 
 package leitej.util;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
 import java.net.UnknownHostException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * An useful class to help get information about the network.
@@ -82,4 +91,81 @@ public final class NetUtil {
 		return InetAddress.getLocalHost().getHostName();
 	}
 
+	/**
+	 * Creates a server socket bound to the port, with a channel, so the sockets
+	 * accepted can be written by channel.
+	 *
+	 * @param port     the port number, or 0 to use any free port
+	 * @param backlog  maximum length of the queue of incoming connections, or 0
+	 *                 to use the default
+	 * @param bindAddr the local address to bind, or null for any
+	 * @return server socket
+	 * @throws IOException If the socket can not be opened or bound
+	 */
+	public static ServerSocket newServerSocket(final int port, final int backlog, final InetAddress bindAddr)
+			throws IOException {
+		final ServerSocketChannel channel = ServerSocketChannel.open();
+		try {
+			channel.socket().bind(new InetSocketAddress(bindAddr, port), backlog);
+		} catch (final IOException e) {
+			channel.close();
+			throw e;
+		}
+		return channel.socket();
+	}
+
+	/**
+	 * Creates a socket connected to the address, with a channel.
+	 *
+	 * @param address   the remote address
+	 * @param port      the remote port
+	 * @param localAddr the local address to bind, or null for any
+	 * @param localPort the local port to bind, or 0 to use any free port
+	 * @return socket
+	 * @throws IOException If the socket can not be opened, bound or connected
+	 */
+	public static Socket newSocket(final InetAddress address, final int port, final InetAddress localAddr,
+			final int localPort) throws IOException {
+		final SocketChannel channel = SocketChannel.open();
+		try {
+			if (localAddr != null || localPort != 0) {
+				channel.bind(new InetSocketAddress(localAddr, localPort));
+			}
+			channel.connect(new InetSocketAddress(address, port));
+		} catch (final IOException e) {
+			channel.close();
+			throw e;
+		}
+		return channel.socket();
+	}
+
+	/**
+	 * Creates a socket connected to the address, with a channel.
+	 *
+	 * @param address the remote address
+	 * @param port    the remote port
+	 * @return socket
+	 * @throws IOException If the socket can not be opened or connected
+	 */
+	public static Socket newSocket(final InetAddress address, final int port) throws IOException {
+		return newSocket(address, port, null, 0);
+	}
+
+	/**
+	 * Gives the channel to write to the socket.<br/>
+	 * If the socket was not created with a channel, the channel returned writes
+	 * to the output stream and should be used alone, without writing also to
+	 * that stream.
+	 *
+	 * @param socket connected
+	 * @param out    stream of the socket to use if it has no channel
+	 * @return channel
+	 */
+	public static WritableByteChannel getWritableChannel(final Socket socket, final OutputStream out) {
+		if (socket.getChannel() != null) {
+			return socket.getChannel();
+		}
+		return Channels.newChannel(out);
+	}
+
 }
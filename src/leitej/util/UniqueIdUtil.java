@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright Julio Leite
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as
+ * published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package leitej.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generator of unique numbers, without locks.<br/>
+ * <br/>
+ * Each number joins the milliseconds since 2020-01-01 UTC (41 bits), a
+ * sequence inside the millisecond (12 bits) and bits of the process id (10
+ * bits), so two processes on the same machine do not collide.<br/>
+ * The numbers are always increasing: when the sequence runs out or the clock
+ * goes back, the next milliseconds are used before the clock reaches them. As
+ * they start above any past number of milliseconds, they also stay greater
+ * than the ones given by the previous versions of this generator and, with the
+ * clock not going back, by the previous executions.
+ *
+ * @author Julio Leite
+ */
+public final class UniqueIdUtil {
+
+	private static final long EPOCH = 1577836800000L;
+	private static final int NODE_BITS = 10;
+	private static final int SEQUENCE_BITS = 12;
+	private static final int TIME_SHIFT = NODE_BITS + SEQUENCE_BITS;
+	private static final long SEQUENCE_UNIT = 1L << NODE_BITS;
+	private static final long NODE = node();
+
+	private static final AtomicLong LAST = new AtomicLong(Long.MIN_VALUE);
+
+	/**
+	 * Creates a new instance of UniqueIdUtil.
+	 */
+	private UniqueIdUtil() {
+	}
+
+	private static long node() {
+		long pid;
+		final String name = ManagementFactory.getRuntimeMXBean().getName();
+		final int at = name.indexOf('@');
+		try {
+			pid = Long.parseLong((at < 0) ? name : name.substring(0, at));
+		} catch (final NumberFormatException e) {
+			pid = name.hashCode();
+		}
+		return pid & ((1L << NODE_BITS) - 1);
+	}
+
+	/**
+	 * Generates a unique number, greater than all the previous ones of this
+	 * process.
+	 *
+	 * @return unique number
+	 */
+	public static long next() {
+		final long now = ((System.currentTimeMillis() - EPOCH) << TIME_SHIFT) | NODE;
+		long last;
+		long result;
+		do {
+			last = LAST.get();
+			result = (now > last) ? now : last + SEQUENCE_UNIT;
+		} while (!LAST.compareAndSet(last, result));
+		return result;
+	}
+
+	/**
+	 * Gives the milliseconds when the number was generated, if it was not
+	 * generated ahead of the clock.
+	 *
+	 * @param id unique number
+	 * @return milliseconds since 1970-01-01 UTC
+	 */
+	public static long timeOf(final long id) {
+		return (id >>> TIME_SHIFT) + EPOCH;
+	}
+
+}
@@ -0,0 +1,537 @@
+/*******************************************************************************
+ * Copyright Julio Leite
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as
+ * published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package leitej.util.data;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import leitej.Constant;
+import leitej.exception.ClosedLtRtException;
+import leitej.exception.ObjectPoolLtException;
+import leitej.log.Logger;
+
+/**
+ * Useful abstract class to extend when implementing pools shared by many
+ * threads.<br/>
+ * Each element has its state changed by compare and set, so polling and
+ * offering never lock the pool: the element last offered by a thread is tried
+ * first by that same thread, then any idle element, and only when the pool is
+ * full the thread parks until another offers an element.<br/>
+ * <br/>
+ * Polled elements are validated before being returned, elements older than the
+ * maximum lifetime are replaced and the elements kept out of the pool longer
+ * than the leak detection threshold are logged with the place where they were
+ * polled.
+ *
+ * @author Julio Leite
+ */
+public abstract class AbstractConcurrentObjectPool<E> implements Serializable {
+
+	private static final long serialVersionUID = 7280934126598134407L;
+
+	private static final Logger LOG = Logger.getInstance();
+
+	private static final int STATE_REMOVED = -1;
+	private static final int STATE_IDLE = 0;
+	private static final int STATE_IN_USE = 1;
+
+	private final int maxObjects;
+	private final long maxLifetimeNanos;
+	private final long leakThresholdNanos;
+	private final AtomicInteger count;
+	private final List<Holder<E>> holders;
+	private final Map<E, Holder<E>> registered;
+	private final Map<Long, Holder<E>> lastOffered;
+	private final Queue<Thread> waiters;
+	private volatile long lastLeakCheck;
+	private volatile boolean closed = false;
+
+	/**
+	 *
+	 * @param maxObjects is the maximum capacity of the pool
+	 * @throws IllegalArgumentException if maxObjects is less than 1
+	 */
+	protected AbstractConcurrentObjectPool(final int maxObjects) throws IllegalArgumentException {
+		this(maxObjects, 0, 0);
+	}
+
+	/**
+	 *
+	 * @param maxObjects             is the maximum capacity of the pool
+	 * @param maxLifetime            milliseconds after which an element is
+	 *                               deactivated and replaced (0 never)
+	 * @param leakDetectionThreshold milliseconds an element can stay polled
+	 *                               before being logged as a leak (0 never)
+	 * @throws IllegalArgumentException if maxObjects is less than 1 or any time
+	 *                                  is negative
+	 */
+	protected AbstractConcurrentObjectPool(final int maxObjects, final long maxLifetime,
+			final long leakDetectionThreshold) throws IllegalArgumentException {
+		if (maxObjects < 1 || maxLifetime < 0 || leakDetectionThreshold < 0) {
+			throw new IllegalArgumentException();
+		}
+		this.maxObjects = maxObjects;
+		this.maxLifetimeNanos = TimeUnit.MILLISECONDS.toNanos(maxLifetime);
+		this.leakThresholdNanos = TimeUnit.MILLISECONDS.toNanos(leakDetectionThreshold);
+		this.count = new AtomicInteger(0);
+		this.holders = new CopyOnWriteArrayList<>();
+		this.registered = new ConcurrentHashMap<>(maxObjects);
+		this.lastOffered = new ConcurrentHashMap<>();
+		this.waiters = new ConcurrentLinkedQueue<>();
+		this.lastLeakCheck = System.nanoTime();
+	}
+
+	/**
+	 * Instantiates new object to the pool.
+	 *
+	 * @return instance
+	 * @throws ObjectPoolLtException if is there any reason to abort the
+	 *                               instantiation
+	 */
+	protected abstract E newObject() throws ObjectPoolLtException;
+
+	/**
+	 * Assert if the <code>obj</code> in parameter is inactive.<br/>
+	 * Called on each element before it is polled.
+	 *
+	 * @param obj to assert
+	 * @return assertion
+	 */
+	protected abstract boolean isInactive(E obj);
+
+	/**
+	 * Deactivate the <code>obj</code>.
+	 *
+	 * @param obj to deactivate
+	 * @throws ObjectPoolLtException if is there any reason to abort the deactivate
+	 *                               of an element
+	 */
+	protected abstract void deactivate(E obj) throws ObjectPoolLtException;
+
+	/**
+	 * Polls element, waiting as long as needed for one to be offered.
+	 *
+	 * @return polled or new element
+	 * @throws ClosedLtRtException   if pool already closed
+	 * @throws ObjectPoolLtException if is there any reason to abort the
+	 *                               instantiation of new element
+	 * @throws InterruptedException  if interrupted while waiting
+	 */
+	protected E poll() throws ClosedLtRtException, ObjectPoolLtException, InterruptedException {
+		return borrow(-1);
+	}
+
+	/**
+	 * Polls element, waiting at most the timeout for one to be offered.
+	 *
+	 * @param timeout milliseconds to wait
+	 * @return polled or new element
+	 * @throws ClosedLtRtException   if pool already closed
+	 * @throws ObjectPoolLtException if the timeout elapses or is there any
+	 *                               reason to abort the instantiation of new
+	 *                               element
+	 * @throws InterruptedException  if interrupted while waiting
+	 */
+	protected E poll(final long timeout) throws ClosedLtRtException, ObjectPoolLtException, InterruptedException {
+		final E result = tryPoll(timeout);
+		if (result == null) {
+			throw new ObjectPoolLtException("Timeout of #0 ms waiting for an element", timeout);
+		}
+		return result;
+	}
+
+	/**
+	 * Polls element, waiting at most the timeout for one to be offered.
+	 *
+	 * @param timeout milliseconds to wait
+	 * @return polled or new element, or null if the timeout elapses
+	 * @throws ClosedLtRtException   if pool already closed
+	 * @throws ObjectPoolLtException if is there any reason to abort the
+	 *                               instantiation of new element
+	 * @throws InterruptedException  if interrupted while waiting
+	 */
+	protected E tryPoll(final long timeout) throws ClosedLtRtException, ObjectPoolLtException, InterruptedException {
+		return borrow(TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeout)));
+	}
+
+	/*
+	 * Negative timeout waits forever.
+	 */
+	private E borrow(final long timeoutNanos)
+			throws ClosedLtRtException, ObjectPoolLtException, InterruptedException {
+		final long deadline = System.nanoTime() + timeoutNanos;
+		Holder<E> holder;
+		do {
+			holder = acquire(deadline, timeoutNanos >= 0);
+			if (holder == null) {
+				return null;
+			}
+		} while (!validate(holder));
+		if (this.leakThresholdNanos > 0) {
+			holder.pollTrace = new Exception("Polled by " + Thread.currentThread().getName());
+			holder.leakReported = false;
+		}
+		holder.polledAt = System.nanoTime();
+		return holder.obj;
+	}
+
+	private Holder<E> acquire(final long deadline, final boolean timed)
+			throws ClosedLtRtException, ObjectPoolLtException, InterruptedException {
+		checkClosed();
+		detectLeaks();
+		Holder<E> result = this.lastOffered.remove(Long.valueOf(Thread.currentThread().getId()));
+		if (result != null && result.state.compareAndSet(STATE_IDLE, STATE_IN_USE)) {
+			return result;
+		}
+		result = scan();
+		if (result == null) {
+			result = create();
+		}
+		if (result != null) {
+			return result;
+		}
+		final Thread current = Thread.currentThread();
+		this.waiters.add(current);
+		try {
+			long wait;
+			while (true) {
+				// scanned again after queued as waiter, an offer in between unparks it
+				result = scan();
+				if (result == null) {
+					result = create();
+				}
+				if (result != null) {
+					return result;
+				}
+				if (timed) {
+					wait = deadline - System.nanoTime();
+					if (wait <= 0) {
+						return null;
+					}
+					LockSupport.parkNanos(this, wait);
+				} else {
+					LockSupport.park(this);
+				}
+				if (Thread.interrupted()) {
+					throw new InterruptedException();
+				}
+				checkClosed();
+			}
+		} finally {
+			this.waiters.remove(current);
+			// the unpark this waiter took may have been meant for the next one
+			unparkWaiter();
+		}
+	}
+
+	private void unparkWaiter() {
+		final Thread waiter = this.waiters.peek();
+		if (waiter != null) {
+			LockSupport.unpark(waiter);
+		}
+	}
+
+	private Holder<E> scan() {
+		for (final Holder<E> holder : this.holders) {
+			if (holder.state.compareAndSet(STATE_IDLE, STATE_IN_USE)) {
+				return holder;
+			}
+		}
+		return null;
+	}
+
+	/*
+	 * Returns null if the pool is full.
+	 */
+	private Holder<E> create() throws ObjectPoolLtException {
+		int current;
+		do {
+			current = this.count.get();
+			if (current >= this.maxObjects) {
+				return null;
+			}
+		} while (!this.count.compareAndSet(current, current + 1));
+		final E obj;
+		try {
+			obj = newObject();
+		} catch (ObjectPoolLtException | RuntimeException e) {
+			this.count.decrementAndGet();
+			throw e;
+		}
+		final Holder<E> result = new Holder<>(obj);
+		this.registered.put(obj, result);
+		this.holders.add(result);
+		return result;
+	}
+
+	/*
+	 * Returns false if the element was removed.
+	 */
+	private boolean validate(final Holder<E> holder) throws ObjectPoolLtException {
+		if (isInactive(holder.obj)) {
+			LOG.trace("inactive: #0", holder.obj);
+			unregister(holder);
+			return false;
+		}
+		if (isOverLifetime(holder)) {
+			LOG.trace("lifetime: #0", holder.obj);
+			unregister(holder);
+			deactivate(holder.obj);
+			return false;
+		}
+		return true;
+	}
+
+	private boolean isOverLifetime(final Holder<E> holder) {
+		return this.maxLifetimeNanos > 0 && System.nanoTime() - holder.createdAt > this.maxLifetimeNanos;
+	}
+
+	private boolean unregister(final Holder<E> holder) {
+		if (holder.state.getAndSet(STATE_REMOVED) == STATE_REMOVED) {
+			return false;
+		}
+		this.registered.remove(holder.obj);
+		this.holders.remove(holder);
+		this.count.decrementAndGet();
+		// a waiter can create a new element now
+		unparkWaiter();
+		return true;
+	}
+
+	private void checkClosed() throws ClosedLtRtException {
+		if (this.closed) {
+			throw new ClosedLtRtException();
+		}
+	}
+
+	/**
+	 * Instantiates elements until the pool reaches its maximum capacity.
+	 *
+	 * @throws ObjectPoolLtException if is there any reason to abort the
+	 *                               instantiation of new element
+	 * @throws ClosedLtRtException   if pool already closed
+	 * @throws InterruptedException  if interrupted while waiting
+	 */
+	protected void prewarm() throws ObjectPoolLtException, ClosedLtRtException, InterruptedException {
+		Holder<E> holder;
+		checkClosed();
+		while ((holder = create()) != null) {
+			release(holder);
+		}
+	}
+
+	/**
+	 * Assert if the idle <code>obj</code> in parameter should be removed from
+	 * the pool.<br/>
+	 * By default no element expires.
+	 *
+	 * @param obj idle element to assert
+	 * @return assertion
+	 */
+	protected boolean isExpired(final E obj) {
+		return false;
+	}
+
+	/**
+	 * Removes from the pool and deactivates the idle elements expired or over
+	 * the maximum lifetime, and logs the elements polled longer than the leak
+	 * detection threshold.
+	 *
+	 * @return number of elements removed
+	 * @throws ObjectPoolLtException if is there any reason to abort the
+	 *                               deactivate of an element
+	 * @see #isExpired(Object)
+	 */
+	protected int evictExpired() throws ObjectPoolLtException {
+		int result = 0;
+		for (final Holder<E> holder : this.holders) {
+			if (holder.state.get() == STATE_IDLE && (isOverLifetime(holder) || isExpired(holder.obj))
+					&& holder.state.compareAndSet(STATE_IDLE, STATE_IN_USE) && unregister(holder)) {
+				deactivate(holder.obj);
+				result++;
+			}
+		}
+		for (final Map.Entry<Long, Holder<E>> entry : this.lastOffered.entrySet()) {
+			if (entry.getValue().state.get() == STATE_REMOVED) {
+				this.lastOffered.remove(entry.getKey(), entry.getValue());
+			}
+		}
+		detectLeaks();
+		return result;
+	}
+
+	/*
+	 * Looks for leaks at most once by threshold.
+	 */
+	private void detectLeaks() {
+		final long now = System.nanoTime();
+		if (this.leakThresholdNanos > 0 && now - this.lastLeakCheck > this.leakThresholdNanos) {
+			this.lastLeakCheck = now;
+			for (final Holder<E> holder : this.holders) {
+				final Exception trace = holder.pollTrace;
+				if (holder.state.get() == STATE_IN_USE && trace != null && !holder.leakReported
+						&& now - holder.polledAt > this.leakThresholdNanos) {
+					holder.leakReported = true;
+					LOG.warn("Possible leak of #0, polled #1 ms ago and not offered yet: #2", holder.obj,
+							TimeUnit.NANOSECONDS.toMillis(now - holder.polledAt), stackTrace(trace));
+				}
+			}
+		}
+	}
+
+	/*
+	 * The appenders only print the stack trace of errors.
+	 */
+	private static String stackTrace(final Exception trace) {
+		final StringBuilder result = new StringBuilder(trace.getMessage());
+		for (final StackTraceElement element : trace.getStackTrace()) {
+			result.append(Constant.DEFAULT_LINE_SEPARATOR);
+			result.append("\tat ");
+			result.append(element);
+		}
+		return result.toString();
+	}
+
+	/**
+	 *
+	 * @return maximum capacity of the pool
+	 */
+	protected int getMaxObjects() {
+		return this.maxObjects;
+	}
+
+	/**
+	 *
+	 * @return number of elements registered in the pool, idle or polled
+	 */
+	protected int getObjectCount() {
+		return this.count.get();
+	}
+
+	/**
+	 *
+	 * @return number of elements waiting in the pool to be polled
+	 */
+	protected int getIdleCount() {
+		int result = 0;
+		for (final Holder<E> holder : this.holders) {
+			if (holder.state.get() == STATE_IDLE) {
+				result++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Offers element to the pool.
+	 *
+	 * @param obj to offer
+	 * @throws IllegalArgumentException if the element offered is not registered
+	 * @throws InterruptedException     if interrupted while waiting
+	 */
+	protected void offer(final E obj) throws InterruptedException, IllegalArgumentException {
+		final Holder<E> holder = this.registered.get(obj);
+		if (holder == null) {
+			throw new IllegalArgumentException();
+		}
+		if (holder.state.get() != STATE_IN_USE) {
+			LOG.warn("Element offered while not polled: #0", obj);
+			return;
+		}
+		release(holder);
+	}
+
+	private void release(final Holder<E> holder) {
+		holder.pollTrace = null;
+		holder.polledAt = 0;
+		holder.state.set(STATE_IDLE);
+		this.lastOffered.put(Long.valueOf(Thread.currentThread().getId()), holder);
+		unparkWaiter();
+	}
+
+	/**
+	 * Offers an inactive element to the pool.<br/>
+	 * Will unregister the element from the pool. Its useful if the element became
+	 * inactive while out of the pool.
+	 *
+	 * @param obj inactive to offer
+	 */
+	protected void offerInactive(final E obj) {
+		final Holder<E> holder = this.registered.get(obj);
+		if (holder != null) {
+			unregister(holder);
+		}
+	}
+
+	/**
+	 * Closes the pool and deactivate all registered element.
+	 *
+	 * @throws ObjectPoolLtException if is there any reason to abort the deactivate
+	 *                               of an element
+	 */
+	protected synchronized void close() throws ObjectPoolLtException {
+		if (!this.closed) {
+			this.closed = true;
+			ObjectPoolLtException exception = null;
+			for (final Holder<E> holder : this.holders) {
+				if (unregister(holder)) {
+					try {
+						deactivate(holder.obj);
+					} catch (final ObjectPoolLtException e) {
+						exception = e;
+					}
+				}
+			}
+			this.lastOffered.clear();
+			for (final Thread waiter : this.waiters) {
+				LockSupport.unpark(waiter);
+			}
+			if (exception != null) {
+				throw exception;
+			}
+		}
+	}
+
+	private static final class Holder<E> {
+
+		private final E obj;
+		private final long createdAt;
+		private final AtomicInteger state;
+		private volatile long polledAt;
+		private volatile Exception pollTrace;
+		private volatile boolean leakReported;
+
+		private Holder(final E obj) {
+			this.obj = obj;
+			this.createdAt = System.nanoTime();
+			this.state = new AtomicInteger(STATE_IN_USE);
+			this.polledAt = 0;
+			this.pollTrace = null;
+			this.leakReported = false;
+		}
+
+	}
+
+}
@@ -19,20 +19,35 @@ package leitej.util.data;
 import java.io.Closeable;
 import java.io.EOFException;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 import leitej.Constant;
 import leitej.exception.ClosedLtRtException;
 import leitej.exception.IllegalArgumentLtRtException;
+import leitej.exception.IllegalStateLtRtException;
 import leitej.log.Logger;
 import leitej.util.DateUtil;
 import leitej.util.stream.BinaryFile;
+import leitej.util.stream.ChannelFile;
+import leitej.util.stream.FileAccessEnum;
 import leitej.util.stream.FileUtil;
 import leitej.util.stream.FractionInputStream;
 import leitej.util.stream.FractionOutputStream;
+import leitej.util.stream.MemoryBinary;
 import leitej.util.stream.RandomAccessBinary;
 import leitej.util.stream.RandomAccessModeEnum;
 import leitej.util.stream.StreamUtil;
@@ -45,8 +60,13 @@ public class BigBinary implements RandomAccessBinary, Closeable {
 
 	private static final Logger LOG = Logger.getInstance();
 
+	private static final int DIGEST_BUFFER_SIZE = 64 * Constant.KILO;
+
 	public static final File BIG_BINARY_TEMPORARY_DIRECTORY;
 
+	// content of the big binaries kept in memory, by the file they would have
+	private static final Map<File, MemoryBinary> MEMORIES = new ConcurrentHashMap<>();
+
 	static {
 		BIG_BINARY_TEMPORARY_DIRECTORY = new File(Constant.DEFAULT_DATA_FILE_DIR, "bigBinary");
 		BIG_BINARY_TEMPORARY_DIRECTORY.mkdirs();
@@ -64,6 +84,7 @@ public class BigBinary implements RandomAccessBinary, Closeable {
 	 */
 	public static final boolean clean(final File directory) throws NullPointerException {
 		boolean result = true;
+		cleanMemories(directory);
 		final Pattern patternSubDirectory = Pattern.compile("^\\d{4}+$");
 		final Pattern patternFilename = Pattern.compile("^\\d*+\\.\\d{3}+$");
 		for (final File subDir : directory.listFiles()) {
@@ -78,20 +99,88 @@ public class BigBinary implements RandomAccessBinary, Closeable {
 		return result;
 	}
 
+	/**
+	 * Frees all bigBinaries on the <code>directory</code> kept in memory, leaving
+	 * the file system untouched.
+	 *
+	 * @param directory to free all BigBinaries kept in memory
+	 * @throws NullPointerException if the <code>directory</code> argument is
+	 *                              <code>null</code>
+	 */
+	public static final void cleanMemories(final File directory) throws NullPointerException {
+		if (directory == null) {
+			throw new NullPointerException();
+		}
+		Entry<File, MemoryBinary> memory;
+		for (final Iterator<Entry<File, MemoryBinary>> it = MEMORIES.entrySet().iterator(); it.hasNext();) {
+			memory = it.next();
+			if (directory.equals(memory.getKey().getParentFile().getParentFile())) {
+				it.remove();
+				memory.getValue().free();
+			}
+		}
+	}
+
+	/**
+	 * Writes to files all the big binaries of the <code>directory</code> kept in
+	 * memory, under the <code>target</code> directory with the same layout.
+	 *
+	 * @param directory of the big binaries kept in memory
+	 * @param target    directory to write the files
+	 * @return number of files written
+	 * @throws IOException if an I/O error occurs
+	 */
+	public static final int saveMemories(final File directory, final File target) throws IOException {
+		int result = 0;
+		File file;
+		for (final Entry<File, MemoryBinary> memory : MEMORIES.entrySet()) {
+			if (directory.equals(memory.getKey().getParentFile().getParentFile())) {
+				file = new File(new File(target, memory.getKey().getParentFile().getName()), memory.getKey().getName());
+				FileUtil.createPathForFile(file);
+				final OutputStream out = new FileOutputStream(file);
+				try {
+					memory.getValue().transferTo(0, -1, Channels.newChannel(out));
+				} finally {
+					out.close();
+				}
+				result++;
+			}
+		}
+		return result;
+	}
+
 	private final boolean isTemporary;
 	private final long id;
 	private final File file;
-	private BinaryFile binaryFile;
+	private final FileAccessEnum access;
+	private RandomAccessBinary binaryFile;
+	private volatile boolean readOnly;
 
 	/**
 	 * Creates a temporary big binary object.
 	 *
 	 */
 	public BigBinary() {
+		this(FileAccessEnum.RANDOM_ACCESS_FILE);
+	}
+
+	/**
+	 * Creates a temporary big binary object.
+	 *
+	 * @param access how the file is accessed
+	 * @throws NullPointerException if the <code>access</code> argument is
+	 *                              <code>null</code>
+	 */
+	public BigBinary(final FileAccessEnum access) throws NullPointerException {
+		if (access == null) {
+			throw new NullPointerException();
+		}
+		this.access = access;
 		this.isTemporary = true;
 		this.id = DateUtil.generateUniqueNumberPerJVM();
 		this.file = FileUtil.generateFileFrom(BIG_BINARY_TEMPORARY_DIRECTORY, this.id);
 		this.binaryFile = null;
+		this.readOnly = false;
 	}
 
 	/**
@@ -102,20 +191,82 @@ public class BigBinary implements RandomAccessBinary, Closeable {
 	 * @param id        representing this BigBinary
 	 */
 	public BigBinary(final File directory, final long id) {
+		this(directory, id, FileAccessEnum.RANDOM_ACCESS_FILE);
+	}
+
+	/**
+	 * Creates a big binary, to be let on file system, between multiple JVM
+	 * execution process.
+	 *
+	 * @param directory location to the big binary file
+	 * @param id        representing this BigBinary
+	 * @param access    how the file is accessed
+	 * @throws NullPointerException if the <code>access</code> argument is
+	 *                              <code>null</code>
+	 */
+	public BigBinary(final File directory, final long id, final FileAccessEnum access) throws NullPointerException {
+		if (access == null) {
+			throw new NullPointerException();
+		}
 		if (BIG_BINARY_TEMPORARY_DIRECTORY.equals(directory)) {
 			throw new IllegalArgumentLtRtException();
 		}
+		this.access = access;
 		this.isTemporary = false;
 		this.id = id;
 		this.file = FileUtil.generateFileFrom(directory, this.id);
 		this.binaryFile = null;
+		this.readOnly = false;
 	}
 
 	public synchronized void open() throws IOException {
 		if (this.binaryFile == null) {
+			if (isMemory()) {
+				MemoryBinary memory = MEMORIES.get(this.file);
+				if (memory == null) {
+					memory = new MemoryBinary(FileAccessEnum.DIRECT_MEMORY.equals(this.access));
+					final MemoryBinary previous = MEMORIES.putIfAbsent(this.file, memory);
+					if (previous != null) {
+						memory = previous;
+					}
+				}
+				this.binaryFile = memory;
+				return;
+			}
 			FileUtil.createPathForFile(this.file);
 			this.file.createNewFile();
-			this.binaryFile = new BinaryFile(this.file, RandomAccessModeEnum.RW);
+			switch (this.access) {
+			case CHANNEL:
+				this.binaryFile = new ChannelFile(this.file, RandomAccessModeEnum.RW, false);
+				break;
+			case MAPPED:
+				this.binaryFile = new ChannelFile(this.file, RandomAccessModeEnum.RW, true);
+				break;
+			default:
+				this.binaryFile = new BinaryFile(this.file, RandomAccessModeEnum.RW);
+				break;
+			}
+		}
+	}
+
+	private boolean isMemory() {
+		return FileAccessEnum.MEMORY.equals(this.access) || FileAccessEnum.DIRECT_MEMORY.equals(this.access);
+	}
+
+	/**
+	 * Refuses from now on any change to the content.
+	 */
+	public void setReadOnly() {
+		this.readOnly = true;
+	}
+
+	public boolean isReadOnly() {
+		return this.readOnly;
+	}
+
+	private void checkWritable() throws IOException {
+		if (isReadOnly()) {
+			throw new IOException(new IllegalStateLtRtException("Read only: #0", this.id));
 		}
 	}
 
@@ -123,6 +274,47 @@ public class BigBinary implements RandomAccessBinary, Closeable {
 		return this.id;
 	}
 
+	public FileAccessEnum getAccess() {
+		return this.access;
+	}
+
+	/**
+	 * Reads a sequence of bytes into the buffer, starting at the given offset.<br/>
+	 * Unless accessed as random access file, many threads can read at the same
+	 * time.
+	 *
+	 * @param offset the first byte to be read
+	 * @param dst    the buffer into which the data is read
+	 * @return the number of bytes read, or -1 if the offset is at or past the end
+	 * @throws IOException if closed or an I/O error occurs
+	 */
+	@Override
+	public int read(final long offset, final ByteBuffer dst) throws IOException {
+		final RandomAccessBinary tmp = this.binaryFile;
+		if (tmp == null) {
+			throw new IOException(new ClosedLtRtException());
+		}
+		return tmp.read(offset, dst);
+	}
+
+	/**
+	 * Writes all the bytes remaining in the buffer, starting at the given
+	 * offset.
+	 *
+	 * @param offset the first byte to be written
+	 * @param src    the buffer from which the data is written
+	 * @throws IOException if closed or an I/O error occurs
+	 */
+	@Override
+	public void write(final long offset, final ByteBuffer src) throws IOException {
+		checkWritable();
+		final RandomAccessBinary tmp = this.binaryFile;
+		if (tmp == null) {
+			throw new IOException(new ClosedLtRtException());
+		}
+		tmp.write(offset, src);
+	}
+
 	@Override
 	public int read(final long offset) throws IOException {
 		if (this.binaryFile == null) {
@@ -167,6 +359,7 @@ public class BigBinary implements RandomAccessBinary, Closeable {
 
 	@Override
 	public void write(final long offset, final int b) throws IOException {
+		checkWritable();
 		if (this.binaryFile == null) {
 			throw new IOException(new ClosedLtRtException());
 		}
@@ -175,6 +368,7 @@ public class BigBinary implements RandomAccessBinary, Closeable {
 
 	@Override
 	public void write(final long offset, final byte[] buff) throws IOException {
+		checkWritable();
 		if (this.binaryFile == null) {
 			throw new IOException(new ClosedLtRtException());
 		}
@@ -183,6 +377,7 @@ public class BigBinary implements RandomAccessBinary, Closeable {
 
 	@Override
 	public void write(final long offset, final byte[] buff, final int off, final int len) throws IOException {
+		checkWritable();
 		if (this.binaryFile == null) {
 			throw new IOException(new ClosedLtRtException());
 		}
@@ -199,12 +394,32 @@ public class BigBinary implements RandomAccessBinary, Closeable {
 
 	@Override
 	public void setLength(final long length) throws IOException {
+		checkWritable();
 		if (this.binaryFile == null) {
 			throw new IOException(new ClosedLtRtException());
 		}
 		this.binaryFile.setLength(length);
 	}
 
+	@Override
+	public long transferTo(final long offset, final long length, final WritableByteChannel target)
+			throws IOException {
+		if (this.binaryFile == null) {
+			throw new IOException(new ClosedLtRtException());
+		}
+		return this.binaryFile.transferTo(offset, length, target);
+	}
+
+	@Override
+	public long transferFrom(final ReadableByteChannel src, final long offset, final long length)
+			throws IOException {
+		checkWritable();
+		if (this.binaryFile == null) {
+			throw new IOException(new ClosedLtRtException());
+		}
+		return this.binaryFile.transferFrom(src, offset, length);
+	}
+
 	public byte[] md5() throws NoSuchAlgorithmException, IOException {
 		if (this.binaryFile == null) {
 			throw new IOException(new ClosedLtRtException());
@@ -224,6 +439,28 @@ public class BigBinary implements RandomAccessBinary, Closeable {
 		}
 	}
 
+	/**
+	 * Calculates the digest of the whole content.
+	 *
+	 * @param algorithm name of the message digest algorithm
+	 * @return the digest
+	 * @throws NoSuchAlgorithmException if the algorithm is not available
+	 * @throws IOException              if closed or an I/O error occurs
+	 */
+	public byte[] digest(final String algorithm) throws NoSuchAlgorithmException, IOException {
+		final MessageDigest md = MessageDigest.getInstance(algorithm);
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(DIGEST_BUFFER_SIZE);
+		long offset = 0;
+		int count;
+		while ((count = read(offset, buffer)) > 0) {
+			buffer.flip();
+			md.update(buffer);
+			buffer.clear();
+			offset += count;
+		}
+		return md.digest();
+	}
+
 	@Override
 	public FractionInputStream newInputStream() throws IOException {
 		if (this.binaryFile == null) {
@@ -250,6 +487,7 @@ public class BigBinary implements RandomAccessBinary, Closeable {
 
 	@Override
 	public FractionOutputStream newOutputStream() throws IOException {
+		checkWritable();
 		if (this.binaryFile == null) {
 			throw new IOException(new ClosedLtRtException());
 		}
@@ -258,6 +496,7 @@ public class BigBinary implements RandomAccessBinary, Closeable {
 
 	@Override
 	public FractionOutputStream newOutputStream(final long offset) throws IOException {
+		checkWritable();
 		if (this.binaryFile == null) {
 			throw new IOException(new ClosedLtRtException());
 		}
@@ -289,6 +528,13 @@ public class BigBinary implements RandomAccessBinary, Closeable {
 			this.binaryFile.close();
 			this.binaryFile = null;
 		}
+		if (isMemory()) {
+			final MemoryBinary memory = MEMORIES.remove(this.file);
+			if (memory != null) {
+				memory.free();
+			}
+			return true;
+		}
 		if (!this.file.exists()) {
 			return true;
 		}
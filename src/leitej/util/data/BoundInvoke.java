@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright Julio Leite
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as
+ * published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package leitej.util.data;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+
+import leitej.exception.IllegalArgumentLtRtException;
+import leitej.exception.ImplementationLtRtException;
+
+/**
+ * Invocation bound at construction to a <code>Runnable</code>, a
+ * <code>Callable</code> or a <code>MethodHandle</code>, dispatched by
+ * {@link leitej.util.AgnosticUtil#invoke(InvokeItf) AgnosticUtil.invoke} without
+ * reflection.<br/>
+ * The getters describe the equivalent reflective call, for the ones that
+ * still invoke it by the method.<br/>
+ * <br/>
+ * NOTE: this class is not serializable, what it is bound to is transient, so a
+ * deserialized instance has nothing to invoke.
+ *
+ * @author Julio Leite
+ */
+public final class BoundInvoke implements InvokeItf {
+
+	private static final long serialVersionUID = 6248913357042285176L;
+
+	private static final Object[] NO_ARGS = new Object[0];
+	private static final MethodType OBJECT_RETURN = MethodType.methodType(Object.class);
+
+	private static final Method METHOD_RUN;
+	private static final Method METHOD_CALL;
+	private static final Method METHOD_INVOKE_WITH_ARGUMENTS;
+
+	static {
+		try {
+			METHOD_RUN = Runnable.class.getMethod("run");
+			METHOD_CALL = Callable.class.getMethod("call");
+			METHOD_INVOKE_WITH_ARGUMENTS = MethodHandle.class.getMethod("invokeWithArguments", Object[].class);
+		} catch (final NoSuchMethodException e) {
+			throw new ImplementationLtRtException(e);
+		}
+	}
+
+	private final transient Runnable runnable;
+	private final transient Callable<?> callable;
+	private final transient MethodHandle handle;
+
+	/**
+	 * Creates a new instance of BoundInvoke.
+	 *
+	 * @param runnable to run in the invocation
+	 * @throws IllegalArgumentLtRtException if <code>runnable</code> is null
+	 */
+	public BoundInvoke(final Runnable runnable) throws IllegalArgumentLtRtException {
+		if (runnable == null) {
+			throw new IllegalArgumentLtRtException("runnable is null");
+		}
+		this.runnable = runnable;
+		this.callable = null;
+		this.handle = null;
+	}
+
+	/**
+	 * Creates a new instance of BoundInvoke.
+	 *
+	 * @param callable to call in the invocation
+	 * @throws IllegalArgumentLtRtException if <code>callable</code> is null
+	 */
+	public BoundInvoke(final Callable<?> callable) throws IllegalArgumentLtRtException {
+		if (callable == null) {
+			throw new IllegalArgumentLtRtException("callable is null");
+		}
+		this.runnable = null;
+		this.callable = callable;
+		this.handle = null;
+	}
+
+	/**
+	 * Creates a new instance of BoundInvoke.<br/>
+	 * The arguments are bound to the handle here, so the invocation does not
+	 * build them again.<br/>
+	 * <br/>
+	 * NOTE: if one argument of method to invoke is an array, this has to be cast to
+	 * object.
+	 *
+	 * @param handle to invoke, with the receiver as first parameter if it is of an
+	 *               instance method not bound yet
+	 * @param args   to use in the invocation, in the same number of the handle
+	 *               parameters
+	 * @throws IllegalArgumentLtRtException if <code>handle</code> is null or the
+	 *                                      arguments do not fit its parameters
+	 */
+	public BoundInvoke(final MethodHandle handle, final Object... args) throws IllegalArgumentLtRtException {
+		if (handle == null) {
+			throw new IllegalArgumentLtRtException("handle is null");
+		}
+		final int argsLength = (args == null) ? 0 : args.length;
+		if (argsLength != handle.type().parameterCount()) {
+			throw new IllegalArgumentLtRtException("handle expects #0 arguments, got #1",
+					handle.type().parameterCount(), argsLength);
+		}
+		try {
+			this.handle = ((argsLength == 0) ? handle : MethodHandles.insertArguments(handle, 0, args))
+					.asType(OBJECT_RETURN);
+		} catch (final ClassCastException e) {
+			throw new IllegalArgumentLtRtException(e);
+		}
+		this.runnable = null;
+		this.callable = null;
+	}
+
+	/**
+	 * Invokes what this instance is bound to.
+	 *
+	 * @return the invocation result, null if bound to a runnable or to a void
+	 *         method
+	 * @throws InvocationTargetException if the invocation throws an exception
+	 */
+	public Object invoke() throws InvocationTargetException {
+		try {
+			final Object result;
+			if (this.runnable != null) {
+				this.runnable.run();
+				result = null;
+			} else if (this.callable != null) {
+				result = this.callable.call();
+			} else {
+				result = (Object) this.handle.invokeExact();
+			}
+			return result;
+		} catch (final Throwable e) {
+			throw new InvocationTargetException(e);
+		}
+	}
+
+	@Override
+	public Object getObject() {
+		final Object result;
+		if (this.runnable != null) {
+			result = this.runnable;
+		} else if (this.callable != null) {
+			result = this.callable;
+		} else {
+			result = this.handle;
+		}
+		return result;
+	}
+
+	@Override
+	public Method getMethod() {
+		final Method result;
+		if (this.runnable != null) {
+			result = METHOD_RUN;
+		} else if (this.callable != null) {
+			result = METHOD_CALL;
+		} else {
+			result = METHOD_INVOKE_WITH_ARGUMENTS;
+		}
+		return result;
+	}
+
+	@Override
+	public Object[] getArgs() {
+		return (this.handle == null) ? NO_ARGS : new Object[] { NO_ARGS };
+	}
+
+	@Override
+	public String toString() {
+		return (new StringBuilder()).append(this.getClass().getSimpleName()).append("@")
+				.append(super.toString().split("@")[1]).append("><").append(getObject().getClass().getName())
+				.append(".").append(getMethod().getName()).toString();
+	}
+
+}
@@ -22,6 +22,9 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * An useful class to help read or write a file stream piece by piece.
@@ -108,6 +111,31 @@ public final class BinaryFile implements RandomAccessBinary, Closeable {
 		this.raFile.write(buff, off, len);
 	}
 
+	@Override
+	public synchronized int read(final long fileOff, final ByteBuffer dst) throws IOException {
+		return this.raFile.getChannel().read(dst, fileOff);
+	}
+
+	@Override
+	public synchronized void write(final long fileOff, final ByteBuffer src) throws IOException {
+		long position = fileOff;
+		while (src.hasRemaining()) {
+			position += this.raFile.getChannel().write(src, position);
+		}
+	}
+
+	@Override
+	public synchronized long transferTo(final long offset, final long length, final WritableByteChannel target)
+			throws IOException {
+		return StreamUtil.transferTo(this.raFile.getChannel(), offset, length, target);
+	}
+
+	@Override
+	public synchronized long transferFrom(final ReadableByteChannel src, final long offset, final long length)
+			throws IOException {
+		return StreamUtil.transferFrom(this.raFile.getChannel(), src, offset, length);
+	}
+
 	@Override
 	public FractionInputStream newInputStream() throws IOException {
 		return new BinaryFileFractionInputStream(this.file, 0, -1, this);
@@ -19,6 +19,7 @@ package leitej.util.stream;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.channels.WritableByteChannel;
 
 import leitej.Constant;
 
@@ -150,6 +151,67 @@ public final class BinaryFileFractionInputStream extends FractionInputStream {
 		}
 	}
 
+	/**
+	 * The bytes are transferred by the system, without being copied to the heap.
+	 */
+	@Override
+	public long transferTo(final WritableByteChannel target) throws IOException {
+		long result = 0;
+		long count;
+		do {
+			synchronized (this.mutex) {
+				final long position = this.raFile.getFilePointer();
+				long end = this.raFile.length();
+				if (this.endFilePointer != -1) {
+					end = Math.min(end, this.endFilePointer);
+				}
+				count = 0;
+				if (position < end) {
+					count = StreamUtil.transferTo(this.raFile.getChannel(), position,
+							Math.min(StreamUtil.TRANSFER_CHUNK, end - position), target);
+					this.raFile.seek(position + count);
+				}
+			}
+			result += count;
+		} while (count > 0);
+		return result;
+	}
+
+	/**
+	 * The bytes are transferred by the system, without being copied to the heap.
+	 */
+	@Override
+	public long transferFractionReferencedTo(final WritableByteChannel target) throws IOException {
+		if (this.endFilePointer == -1) {
+			return transferTo(target);
+		}
+		long result = 0;
+		long count;
+		while (true) {
+			synchronized (this.mutex) {
+				final long position = this.raFile.getFilePointer();
+				if (position >= this.endFilePointer) {
+					return result;
+				}
+				final long available = Math.min(this.endFilePointer, this.raFile.length()) - position;
+				count = 0;
+				if (available > 0) {
+					count = StreamUtil.transferTo(this.raFile.getChannel(), position,
+							Math.min(StreamUtil.TRANSFER_CHUNK, available), target);
+					this.raFile.seek(position + count);
+				}
+			}
+			result += count;
+			if (count == 0) {
+				try {
+					Thread.sleep(Constant.FRACTION_INPUT_STREAM_REFRESH_WAIT_IO);
+				} catch (final InterruptedException e) {
+					throw new IOException(e);
+				}
+			}
+		}
+	}
+
 	@Override
 	public long skip(final long n) throws IOException {
 		synchronized (this.mutex) {
@@ -0,0 +1,290 @@
+/*******************************************************************************
+ * Copyright Julio Leite
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as
+ * published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package leitej.util.stream;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.OpenOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import leitej.exception.ImplementationLtRtException;
+
+/**
+ * An useful class to read or write a file piece by piece from many threads at
+ * the same time.<br/>
+ * Each access gives its own position, so no access waits for another; when
+ * mapped, the reads copy from memory mapped windows of the file instead of
+ * calling the system.<br/>
+ * <br/>
+ * Java gives no way to unmap a window, so the windows dropped on truncate or
+ * close are only unmapped when collected by the garbage collector. Until then
+ * they keep address space and, on some systems, keep the file from being
+ * deleted or truncated.
+ *
+ * @author Julio Leite
+ */
+public final class ChannelFile implements RandomAccessBinary, Closeable {
+
+	private static final int WINDOW_SHIFT = 26;
+	private static final long WINDOW_SIZE = 1L << WINDOW_SHIFT;
+	private static final long WINDOW_MASK = WINDOW_SIZE - 1;
+
+	private final File file;
+	private final FileChannel channel;
+	private final boolean isSynchronously;
+	private final boolean mapped;
+	private final Map<Long, MappedByteBuffer> windows;
+	// windows are dropped with the write lock, a read past a truncated length would
+	// crash the virtual machine
+	private final ReadWriteLock windowsLock;
+
+	/**
+	 * Creates a new instance of ChannelFile.
+	 *
+	 * @param file   the system-dependent file
+	 * @param mode   the access mode
+	 * @param mapped true to read through memory mapped windows
+	 * @throws IOException       if the mode is <tt>"read"</tt> but the given file
+	 *                           does not exist, or if some other error occurs
+	 *                           while opening or creating the file
+	 * @throws SecurityException if a security manager exists and denies the
+	 *                           access to the file
+	 */
+	public ChannelFile(final File file, final RandomAccessModeEnum mode, final boolean mapped)
+			throws IOException, SecurityException {
+		this.file = file;
+		this.isSynchronously = mode.isSynchronously();
+		this.channel = FileChannel.open(file.toPath(), openOptions(mode));
+		this.mapped = mapped;
+		this.windows = new ConcurrentHashMap<>();
+		this.windowsLock = new ReentrantReadWriteLock();
+	}
+
+	private static OpenOption[] openOptions(final RandomAccessModeEnum mode) {
+		switch (mode) {
+		case R:
+			return new OpenOption[] { StandardOpenOption.READ };
+		case RW:
+			return new OpenOption[] { StandardOpenOption.READ, StandardOpenOption.WRITE,
+					StandardOpenOption.CREATE };
+		case RWS:
+			return new OpenOption[] { StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+					StandardOpenOption.SYNC };
+		case RWD:
+			return new OpenOption[] { StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+					StandardOpenOption.DSYNC };
+		default:
+			throw new ImplementationLtRtException(mode.toString());
+		}
+	}
+
+	@Override
+	public int read(final long fileOff, final ByteBuffer dst) throws IOException {
+		if (!this.mapped) {
+			return this.channel.read(dst, fileOff);
+		}
+		this.windowsLock.readLock().lock();
+		try {
+			int result = -1;
+			long position = fileOff;
+			MappedByteBuffer window;
+			ByteBuffer part;
+			int index;
+			int count;
+			while (dst.hasRemaining() && (window = window(position)) != null) {
+				index = (int) (position & WINDOW_MASK);
+				count = Math.min(dst.remaining(), window.limit() - index);
+				part = window.duplicate();
+				part.position(index).limit(index + count);
+				dst.put(part);
+				position += count;
+				result = ((result < 0) ? 0 : result) + count;
+			}
+			return (result < 0 && !dst.hasRemaining()) ? 0 : result;
+		} finally {
+			this.windowsLock.readLock().unlock();
+		}
+	}
+
+	/*
+	 * Returns the window mapping the position, or null if the position is at or
+	 * past the end of the file.
+	 * The length of the file is only asked when the position is past the part
+	 * already mapped; then the window is mapped again.
+	 */
+	private MappedByteBuffer window(final long position) throws IOException {
+		final Long key = Long.valueOf(position >>> WINDOW_SHIFT);
+		MappedByteBuffer result = this.windows.get(key);
+		if (result == null || (position & WINDOW_MASK) >= result.limit()) {
+			final long length = this.channel.size();
+			if (position >= length) {
+				return null;
+			}
+			final long start = position & ~WINDOW_MASK;
+			result = this.channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE, length - start));
+			this.windows.put(key, result);
+		}
+		return result;
+	}
+
+	@Override
+	public void write(final long fileOff, final ByteBuffer src) throws IOException {
+		long position = fileOff;
+		while (src.hasRemaining()) {
+			position += this.channel.write(src, position);
+		}
+	}
+
+	@Override
+	public int read(final long fileOff) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(1);
+		if (read(fileOff, buffer) < 1) {
+			return -1;
+		}
+		return buffer.get(0) & 0xff;
+	}
+
+	@Override
+	public int read(final long fileOff, final byte[] buff) throws NullPointerException, IOException {
+		return read(fileOff, buff, 0, buff.length);
+	}
+
+	@Override
+	public int read(final long fileOff, final byte[] buff, final int off, final int len)
+			throws IndexOutOfBoundsException, NullPointerException, IOException {
+		if (len == 0) {
+			return 0;
+		}
+		return read(fileOff, ByteBuffer.wrap(buff, off, len));
+	}
+
+	@Override
+	public void readFully(final long fileOff, final byte[] buff) throws EOFException, IOException {
+		readFully(fileOff, buff, 0, buff.length);
+	}
+
+	@Override
+	public void readFully(final long fileOff, final byte[] buff, final int off, final int len)
+			throws EOFException, IOException {
+		final ByteBuffer buffer = ByteBuffer.wrap(buff, off, len);
+		long position = fileOff;
+		int count;
+		while (buffer.hasRemaining()) {
+			count = read(position, buffer);
+			if (count < 0) {
+				throw new EOFException();
+			}
+			position += count;
+		}
+	}
+
+	@Override
+	public void write(final long fileOff, final int b) throws IOException {
+		write(fileOff, ByteBuffer.wrap(new byte[] { (byte) b }));
+	}
+
+	@Override
+	public void write(final long fileOff, final byte[] buff) throws IOException {
+		write(fileOff, buff, 0, buff.length);
+	}
+
+	@Override
+	public void write(final long fileOff, final byte[] buff, final int off, final int len) throws IOException {
+		write(fileOff, ByteBuffer.wrap(buff, off, len));
+	}
+
+	@Override
+	public long transferTo(final long offset, final long length, final WritableByteChannel target)
+			throws IOException {
+		return StreamUtil.transferTo(this.channel, offset, length, target);
+	}
+
+	@Override
+	public long transferFrom(final ReadableByteChannel src, final long offset, final long length)
+			throws IOException {
+		return StreamUtil.transferFrom(this.channel, src, offset, length);
+	}
+
+	@Override
+	public FractionInputStream newInputStream() throws IOException {
+		return new BinaryFileFractionInputStream(this.file, 0, -1);
+	}
+
+	@Override
+	public FractionInputStream newInputStream(final long offset) throws IOException {
+		return new BinaryFileFractionInputStream(this.file, offset, -1);
+	}
+
+	@Override
+	public FractionInputStream newInputStream(final long offset, final long length) throws IOException {
+		return new BinaryFileFractionInputStream(this.file, offset, length);
+	}
+
+	@Override
+	public FractionOutputStream newOutputStream() throws IOException {
+		return new BinaryFileFractionOutputStream(this.file, 0, this.isSynchronously);
+	}
+
+	@Override
+	public FractionOutputStream newOutputStream(final long offset) throws IOException {
+		return new BinaryFileFractionOutputStream(this.file, offset, this.isSynchronously);
+	}
+
+	@Override
+	public long length() throws IOException {
+		return this.channel.size();
+	}
+
+	@Override
+	public void setLength(final long length) throws IOException {
+		this.windowsLock.writeLock().lock();
+		try {
+			final long size = this.channel.size();
+			if (length < size) {
+				this.windows.clear();
+				this.channel.truncate(length);
+			} else if (length > size) {
+				this.channel.write(ByteBuffer.wrap(new byte[1]), length - 1);
+			}
+		} finally {
+			this.windowsLock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.windowsLock.writeLock().lock();
+		try {
+			this.windows.clear();
+			this.channel.close();
+		} finally {
+			this.windowsLock.writeLock().unlock();
+		}
+	}
+
+}
@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright Julio Leite
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as
+ * published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package leitej.util.stream;
+
+/**
+ * Enumerates the ways a binary file can be accessed, or kept in memory instead.
+ *
+ * @author Julio Leite
+ */
+public enum FileAccessEnum {
+	RANDOM_ACCESS_FILE, // One file pointer moved by each access, so all the accesses to the file are
+						// synchronized.
+	CHANNEL, // Positional reads and writes over a file channel, that many threads can do at
+				// the same time.
+	MAPPED, // As with channel, but reading through memory mapped windows of the file,
+			// avoiding a system call by read.
+	MEMORY, // Kept in blocks on the heap, without any file; lost with the virtual
+			// machine.
+	DIRECT_MEMORY; // As with memory, but the blocks are off the heap.
+}
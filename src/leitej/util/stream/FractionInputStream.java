@@ -18,6 +18,7 @@ package leitej.util.stream;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
 
 /**
  *
@@ -33,4 +34,28 @@ public abstract class FractionInputStream extends InputStream {
 
 	public abstract long length() throws IOException;
 
+	/**
+	 * Sends to the channel all the bytes until the end of this stream, as read
+	 * does.
+	 *
+	 * @param target channel
+	 * @return number of bytes sent
+	 * @throws IOException If some other I/O error occurs
+	 */
+	public long transferTo(final WritableByteChannel target) throws IOException {
+		return StreamUtil.copy(this, target, false);
+	}
+
+	/**
+	 * Sends to the channel all the bytes until the end of this stream, as
+	 * readFractionReferenced does.
+	 *
+	 * @param target channel
+	 * @return number of bytes sent
+	 * @throws IOException If some other I/O error occurs
+	 */
+	public long transferFractionReferencedTo(final WritableByteChannel target) throws IOException {
+		return StreamUtil.copy(this, target, true);
+	}
+
 }
@@ -0,0 +1,457 @@
+/*******************************************************************************
+ * Copyright Julio Leite
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as
+ * published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package leitej.util.stream;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import leitej.Constant;
+
+/**
+ * Binary content kept in memory blocks, on the heap or off it (direct), read
+ * and written piece by piece from many threads at the same time.<br/>
+ * Nothing is written to a file, so the content is lost with the virtual
+ * machine; closing does not free the content, only {@link #free()} does.
+ *
+ * @author Julio Leite
+ */
+public final class MemoryBinary implements RandomAccessBinary, Closeable {
+
+	private static final int BLOCK_SHIFT = 16;
+	private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+	private static final long BLOCK_MASK = BLOCK_SIZE - 1;
+
+	private final boolean direct;
+	// blocks are added and dropped with the write lock
+	private final ReadWriteLock lock;
+	private ByteBuffer[] blocks;
+	private long length;
+
+	/**
+	 * Creates a new empty instance of MemoryBinary.
+	 *
+	 * @param direct true to keep the content off the heap
+	 */
+	public MemoryBinary(final boolean direct) {
+		this.direct = direct;
+		this.lock = new ReentrantReadWriteLock();
+		this.blocks = new ByteBuffer[0];
+		this.length = 0;
+	}
+
+	public boolean isDirect() {
+		return this.direct;
+	}
+
+	@Override
+	public int read(final long offset, final ByteBuffer dst) {
+		this.lock.readLock().lock();
+		try {
+			if (offset >= this.length) {
+				return (dst.hasRemaining()) ? -1 : 0;
+			}
+			final int result = (int) Math.min(dst.remaining(), this.length - offset);
+			long position = offset;
+			ByteBuffer part;
+			int index;
+			int count;
+			for (int remaining = result; remaining > 0; remaining -= count) {
+				index = (int) (position & BLOCK_MASK);
+				count = Math.min(remaining, BLOCK_SIZE - index);
+				part = this.blocks[(int) (position >>> BLOCK_SHIFT)].duplicate();
+				part.position(index).limit(index + count);
+				dst.put(part);
+				position += count;
+			}
+			return result;
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public void write(final long offset, final ByteBuffer src) {
+		this.lock.writeLock().lock();
+		try {
+			final long end = offset + src.remaining();
+			ensureCapacity(end);
+			long position = offset;
+			ByteBuffer part;
+			ByteBuffer block;
+			int index;
+			int count;
+			while (src.hasRemaining()) {
+				index = (int) (position & BLOCK_MASK);
+				count = Math.min(src.remaining(), BLOCK_SIZE - index);
+				part = src.duplicate();
+				part.limit(part.position() + count);
+				block = this.blocks[(int) (position >>> BLOCK_SHIFT)].duplicate();
+				block.position(index);
+				block.put(part);
+				src.position(src.position() + count);
+				position += count;
+			}
+			if (end > this.length) {
+				this.length = end;
+			}
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/*
+	 * The new blocks come filled with zeros.
+	 */
+	private void ensureCapacity(final long capacity) {
+		final int count = (int) ((capacity + BLOCK_MASK) >>> BLOCK_SHIFT);
+		if (count > this.blocks.length) {
+			final int previous = this.blocks.length;
+			this.blocks = Arrays.copyOf(this.blocks, Math.max(count, previous + (previous >> 1)));
+			for (int i = previous; i < this.blocks.length; i++) {
+				this.blocks[i] = (this.direct) ? ByteBuffer.allocateDirect(BLOCK_SIZE) : ByteBuffer.allocate(BLOCK_SIZE);
+			}
+		}
+	}
+
+	@Override
+	public int read(final long offset) {
+		final ByteBuffer buffer = ByteBuffer.allocate(1);
+		if (read(offset, buffer) < 1) {
+			return -1;
+		}
+		return buffer.get(0) & 0xff;
+	}
+
+	@Override
+	public int read(final long offset, final byte[] buff) throws NullPointerException {
+		return read(offset, buff, 0, buff.length);
+	}
+
+	@Override
+	public int read(final long offset, final byte[] buff, final int off, final int len)
+			throws IndexOutOfBoundsException, NullPointerException {
+		if (len == 0) {
+			return 0;
+		}
+		return read(offset, ByteBuffer.wrap(buff, off, len));
+	}
+
+	@Override
+	public void readFully(final long offset, final byte[] buff) throws EOFException {
+		readFully(offset, buff, 0, buff.length);
+	}
+
+	@Override
+	public void readFully(final long offset, final byte[] buff, final int off, final int len) throws EOFException {
+		if (read(offset, ByteBuffer.wrap(buff, off, len)) < len) {
+			throw new EOFException();
+		}
+	}
+
+	@Override
+	public void write(final long offset, final int b) {
+		write(offset, ByteBuffer.wrap(new byte[] { (byte) b }));
+	}
+
+	@Override
+	public void write(final long offset, final byte[] buff) {
+		write(offset, buff, 0, buff.length);
+	}
+
+	@Override
+	public void write(final long offset, final byte[] buff, final int off, final int len) {
+		write(offset, ByteBuffer.wrap(buff, off, len));
+	}
+
+	/*
+	 * Negative length transfers until the end of the content.
+	 */
+	@Override
+	public long transferTo(final long offset, final long length, final WritableByteChannel target)
+			throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE);
+		long result = 0;
+		int count;
+		while (length < 0 || result < length) {
+			buffer.clear();
+			if (length >= 0 && length - result < BLOCK_SIZE) {
+				buffer.limit((int) (length - result));
+			}
+			count = read(offset + result, buffer);
+			if (count <= 0) {
+				break;
+			}
+			buffer.flip();
+			StreamUtil.writeFully(target, buffer);
+			result += count;
+		}
+		return result;
+	}
+
+	/*
+	 * Negative length transfers until the end of the source.
+	 */
+	@Override
+	public long transferFrom(final ReadableByteChannel src, final long offset, final long length)
+			throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE);
+		long result = 0;
+		int count;
+		while (length < 0 || result < length) {
+			buffer.clear();
+			if (length >= 0 && length - result < BLOCK_SIZE) {
+				buffer.limit((int) (length - result));
+			}
+			count = src.read(buffer);
+			if (count <= 0) {
+				break;
+			}
+			buffer.flip();
+			write(offset + result, buffer);
+			result += count;
+		}
+		return result;
+	}
+
+	@Override
+	public FractionInputStream newInputStream() {
+		return new MemoryFractionInputStream(0, -1);
+	}
+
+	@Override
+	public FractionInputStream newInputStream(final long offset) {
+		return new MemoryFractionInputStream(offset, -1);
+	}
+
+	@Override
+	public FractionInputStream newInputStream(final long offset, final long length) {
+		return new MemoryFractionInputStream(offset, length);
+	}
+
+	@Override
+	public FractionOutputStream newOutputStream() {
+		return new MemoryFractionOutputStream(0);
+	}
+
+	@Override
+	public FractionOutputStream newOutputStream(final long offset) {
+		return new MemoryFractionOutputStream(offset);
+	}
+
+	@Override
+	public long length() {
+		this.lock.readLock().lock();
+		try {
+			return this.length;
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/*
+	 * The bytes cut are zeroed, so a later growth reads them as zeros.
+	 */
+	@Override
+	public void setLength(final long length) {
+		this.lock.writeLock().lock();
+		try {
+			if (length < this.length) {
+				final int count = (int) ((length + BLOCK_MASK) >>> BLOCK_SHIFT);
+				final int index = (int) (length & BLOCK_MASK);
+				if (index != 0) {
+					final ByteBuffer last = this.blocks[count - 1];
+					for (int i = index; i < BLOCK_SIZE; i++) {
+						last.put(i, (byte) 0);
+					}
+				}
+				this.blocks = Arrays.copyOf(this.blocks, count);
+			} else {
+				ensureCapacity(length);
+			}
+			this.length = length;
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * NOOP<br/>
+	 * <br/>
+	 * The content is kept until freed.
+	 */
+	@Override
+	public void close() {
+	}
+
+	/**
+	 * Drops all the content.
+	 */
+	public void free() {
+		setLength(0);
+	}
+
+	private final class MemoryFractionInputStream extends FractionInputStream {
+
+		private final long end;
+		private long position;
+
+		private MemoryFractionInputStream(final long offset, final long length) {
+			this.position = Math.max(0, offset);
+			this.end = (length < 0) ? -1 : this.position + length;
+		}
+
+		@Override
+		public synchronized int read() {
+			if (this.end != -1 && this.position >= this.end) {
+				return -1;
+			}
+			final int result = MemoryBinary.this.read(this.position);
+			if (result != -1) {
+				this.position++;
+			}
+			return result;
+		}
+
+		@Override
+		public int readFractionReferenced() throws IOException {
+			int result;
+			while ((result = read()) == -1) {
+				synchronized (this) {
+					if (this.end == -1 || this.position >= this.end) {
+						return -1;
+					}
+				}
+				try {
+					Thread.sleep(Constant.FRACTION_INPUT_STREAM_REFRESH_WAIT_IO);
+				} catch (final InterruptedException e) {
+					throw new IOException(e);
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public int read(final byte b[]) {
+			return read(b, 0, b.length);
+		}
+
+		@Override
+		public int readFractionReferenced(final byte b[]) {
+			return readFractionReferenced(b, 0, b.length);
+		}
+
+		@Override
+		public synchronized int read(final byte b[], final int off, final int len) {
+			if (b == null) {
+				throw new NullPointerException();
+			} else if (off < 0 || len < 0 || len > b.length - off) {
+				throw new IndexOutOfBoundsException();
+			} else if (len == 0) {
+				return 0;
+			}
+			if (this.end != -1 && this.position >= this.end) {
+				return -1;
+			}
+			final int length = (this.end == -1) ? len : (int) Math.min(len, this.end - this.position);
+			final int result = MemoryBinary.this.read(this.position, b, off, length);
+			if (result > 0) {
+				this.position += result;
+			}
+			return result;
+		}
+
+		@Override
+		public synchronized int readFractionReferenced(final byte b[], final int off, final int len) {
+			final int result = read(b, off, len);
+			if (result == -1 && this.end != -1 && this.position < this.end) {
+				return 0;
+			}
+			return result;
+		}
+
+		@Override
+		public synchronized long skip(final long n) {
+			if (n <= 0) {
+				return 0;
+			}
+			long limit = MemoryBinary.this.length();
+			if (this.end != -1) {
+				limit = Math.min(limit, this.end);
+			}
+			final long result = Math.max(0, Math.min(n, limit - this.position));
+			this.position += result;
+			return result;
+		}
+
+		@Override
+		public synchronized int available() {
+			long limit = MemoryBinary.this.length();
+			if (this.end != -1) {
+				limit = Math.min(limit, this.end);
+			}
+			return (int) Math.min(Integer.MAX_VALUE, Math.max(0, limit - this.position));
+		}
+
+		@Override
+		public long length() {
+			return MemoryBinary.this.length();
+		}
+
+	}
+
+	private final class MemoryFractionOutputStream extends FractionOutputStream {
+
+		private long position;
+
+		private MemoryFractionOutputStream(final long offset) {
+			this.position = Math.max(0, offset);
+		}
+
+		@Override
+		public synchronized void write(final int b) {
+			MemoryBinary.this.write(this.position, b);
+			this.position++;
+		}
+
+		@Override
+		public void write(final byte b[]) {
+			write(b, 0, b.length);
+		}
+
+		@Override
+		public synchronized void write(final byte b[], final int off, final int len) {
+			if (b == null) {
+				throw new NullPointerException();
+			} else if ((off < 0) || (off > b.length) || (len < 0) || ((off + len) > b.length) || ((off + len) < 0)) {
+				throw new IndexOutOfBoundsException();
+			} else if (len == 0) {
+				return;
+			}
+			MemoryBinary.this.write(this.position, b, off, len);
+			this.position += len;
+		}
+
+	}
+
+}
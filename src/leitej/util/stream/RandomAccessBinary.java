@@ -20,6 +20,9 @@ import java.io.Closeable;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 
 import leitej.exception.IllegalArgumentLtRtException;
 
@@ -81,6 +84,17 @@ public interface RandomAccessBinary extends Closeable {
 	public int read(long offset, byte[] buff, int off, int len)
 			throws IllegalArgumentLtRtException, NullPointerException, IOException;
 
+	/**
+	 * Reads a sequence of bytes into the buffer, starting at the given offset.
+	 *
+	 * @param offset the first byte to be read
+	 * @param dst    the buffer into which the data is read
+	 * @return the number of bytes read, or -1 if the offset is at or past the end
+	 * @throws IllegalArgumentLtRtException If <code>offset</code> is negative
+	 * @throws IOException                  If some other I/O error occurs
+	 */
+	public int read(long offset, ByteBuffer dst) throws IllegalArgumentLtRtException, IOException;
+
 	public void readFully(long offset, byte[] buff) throws IllegalArgumentLtRtException, EOFException, IOException;
 
 	public void readFully(long offset, byte[] buff, int off, int len)
@@ -110,6 +124,17 @@ public interface RandomAccessBinary extends Closeable {
 	 */
 	public void write(long offset, byte[] buff, int off, int len) throws IllegalArgumentLtRtException, IOException;
 
+	/**
+	 * Writes all the bytes remaining in the buffer, starting at the given
+	 * offset.
+	 *
+	 * @param offset the first byte to be written
+	 * @param src    the buffer from which the data is written
+	 * @throws IllegalArgumentLtRtException If <code>offset</code> is negative
+	 * @throws IOException                  If some other I/O error occurs
+	 */
+	public void write(long offset, ByteBuffer src) throws IllegalArgumentLtRtException, IOException;
+
 	public FractionInputStream newInputStream() throws IOException;
 
 	public FractionInputStream newInputStream(long offset) throws IllegalArgumentLtRtException, IOException;
@@ -125,4 +150,38 @@ public interface RandomAccessBinary extends Closeable {
 
 	public void setLength(long length) throws IllegalArgumentLtRtException, IOException;
 
+	/**
+	 * Transfers bytes to the channel, starting at the given offset.<br/>
+	 * When possible the bytes are transferred by the system, without being
+	 * copied to the heap.
+	 *
+	 * @param offset the first byte to be transferred
+	 * @param length number of bytes to transfer, or negative to transfer until
+	 *               the end
+	 * @param target channel
+	 * @return number of bytes transferred, less than <code>length</code> if the
+	 *         end was reached
+	 * @throws IllegalArgumentLtRtException If <code>offset</code> is negative
+	 * @throws IOException                  If some other I/O error occurs
+	 */
+	public long transferTo(long offset, long length, WritableByteChannel target)
+			throws IllegalArgumentLtRtException, IOException;
+
+	/**
+	 * Transfers bytes from the channel, writing them starting at the given
+	 * offset.<br/>
+	 * When possible the bytes are transferred by the system, without being
+	 * copied to the heap.
+	 *
+	 * @param src    channel
+	 * @param offset the first byte to be written, not greater than the length
+	 * @param length maximum number of bytes to transfer, or negative to transfer
+	 *               until the end of the channel
+	 * @return number of bytes transferred
+	 * @throws IllegalArgumentLtRtException If <code>offset</code> is negative
+	 * @throws IOException                  If some other I/O error occurs
+	 */
+	public long transferFrom(ReadableByteChannel src, long offset, long length)
+			throws IllegalArgumentLtRtException, IOException;
+
 }
@@ -21,6 +21,10 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
@@ -37,6 +41,7 @@ public final class StreamUtil {
 
 	private static final int BUFFER_SIZE = Constant.IO_BUFFER_SIZE; // 2 KB
 	private static final int FLUSH_INTERVAL = Constant.MEGA; // 1 MB
+	static final int TRANSFER_CHUNK = Constant.MEGA; // 1 MB
 
 	public static final OutputStream VOID_OUTPUT_STREAM;
 	public static final Writer VOID_WRITER;
@@ -88,6 +93,83 @@ public final class StreamUtil {
 	private StreamUtil() {
 	}
 
+	/**
+	 * Sends all the input to the channel.<br/>
+	 * When the input is read from a file, the bytes are transferred by the
+	 * system without being copied to the heap.
+	 *
+	 * @param in
+	 * @param out
+	 * @return number of bytes sent
+	 * @throws IOException If some other I/O error occurs
+	 */
+	public static long pipe(final InputStream in, final WritableByteChannel out) throws IOException {
+		if (FractionInputStream.class.isInstance(in)) {
+			return FractionInputStream.class.cast(in).transferTo(out);
+		}
+		return copy(in, out, false);
+	}
+
+	/*
+	 * Fraction referenced only applies to fraction input streams.
+	 */
+	static long copy(final InputStream in, final WritableByteChannel out, final boolean fractionReferenced)
+			throws IOException {
+		final byte[] buffer = new byte[BUFFER_SIZE];
+		long result = 0;
+		int numRead;
+		while ((numRead = ((fractionReferenced) ? ((FractionInputStream) in).readFractionReferenced(buffer)
+				: in.read(buffer))) >= 0) {
+			writeFully(out, ByteBuffer.wrap(buffer, 0, numRead));
+			result += numRead;
+		}
+		return result;
+	}
+
+	/**
+	 * Writes to the channel all the bytes remaining in the buffer.
+	 *
+	 * @param out
+	 * @param src
+	 * @throws IOException If some other I/O error occurs
+	 */
+	public static void writeFully(final WritableByteChannel out, final ByteBuffer src) throws IOException {
+		while (src.hasRemaining()) {
+			out.write(src);
+		}
+	}
+
+	/*
+	 * Negative length transfers until the end of the file.
+	 */
+	static long transferTo(final FileChannel channel, final long offset, final long length,
+			final WritableByteChannel target) throws IOException {
+		final long end = (length < 0) ? channel.size() : offset + length;
+		long position = offset;
+		long count;
+		while (position < end && (count = channel.transferTo(position, end - position, target)) > 0) {
+			position += count;
+		}
+		return position - offset;
+	}
+
+	/*
+	 * Negative length transfers until the end of the source.
+	 */
+	static long transferFrom(final FileChannel channel, final ReadableByteChannel src, final long offset,
+			final long length) throws IOException {
+		long result = 0;
+		long count;
+		while (length < 0 || result < length) {
+			count = channel.transferFrom(src, offset + result, (length < 0) ? TRANSFER_CHUNK : length - result);
+			if (count <= 0) {
+				break;
+			}
+			result += count;
+		}
+		return result;
+	}
+
 	/**
 	 *
 	 * @param in